@@ -73,13 +73,37 @@ OBJLoader::OBJLoader(::std::string objFilePath, const ::std::string &matFilePath
             }
         }
         this->isProcessed_ = true;
+        this->parsedMemory_.setBytes(static_cast<::std::int64_t> (getParsedBytes()));
     }
 }
 
+/**
+ * Helper method which calculates the memory allocated by the geometry parsed from the OBJ file,
+ * which is kept until this loader is destroyed.
+ *
+ * @return The number of bytes allocated.
+ */
+::std::size_t OBJLoader::getParsedBytes() const {
+    auto parsedBytes {
+        (this->attrib_.vertices.capacity() + this->attrib_.normals.capacity() +
+            this->attrib_.texcoords.capacity() + this->attrib_.colors.capacity()) * sizeof(::tinyobj::real_t) +
+        this->shapes_.capacity() * sizeof(::tinyobj::shape_t) +
+        this->materials_.capacity() * sizeof(::tinyobj::material_t)
+    };
+    for (const auto &shape : this->shapes_) {
+        const auto &mesh {shape.mesh};
+        parsedBytes += mesh.indices.capacity() * sizeof(::tinyobj::index_t) +
+            mesh.num_face_vertices.capacity() * sizeof(decltype(mesh.num_face_vertices)::value_type) +
+            mesh.material_ids.capacity() * sizeof(decltype(mesh.material_ids)::value_type);
+    }
+    return parsedBytes;
+}
+
 bool OBJLoader::fillScene(Scene *const scene,
                           ::std::function<::std::unique_ptr<Sampler>()> lambda) {
     LOG_DEBUG("FILLING SCENE");
     scene->triangles_.reserve(static_cast<::std::uint32_t> (this->numberTriangles_));
+    scene->updateMemoryCounters();
     const ::std::string filePath {this->objFilePath_.substr(0, this->objFilePath_.find_last_of('/')) + '/'};
     ::std::map<::std::string, Texture> texturesCache {};
 
@@ -258,6 +282,7 @@ bool OBJLoader::fillScene(Scene *const scene,
             indexOffset += faceVertices;
         }// The number of vertices per face.
     }// Loop over shapes.
+    scene->updateMemoryCounters();
 
     return true;
 }
@@ -4,6 +4,7 @@
 #include "MobileRT/ObjectLoader.hpp"
 #include "MobileRT/Sampler.hpp"
 #include "MobileRT/Texture.hpp"
+#include "MobileRT/Utils/MemoryCounters.hpp"
 
 #include <map>
 #include <tinyobjloader/tiny_obj_loader.h>
@@ -23,6 +24,7 @@ namespace Components {
         ::tinyobj::attrib_t attrib_ {};
         ::std::vector<::tinyobj::shape_t> shapes_ {};
         ::std::vector<::tinyobj::material_t> materials_ {};
+        ::MobileRT::MemoryCounter parsedMemory_ {::MobileRT::MemoryCategory::GEOMETRY};
 
     public:
         explicit OBJLoader() = delete;
@@ -43,6 +45,8 @@ namespace Components {
                        ::std::function<::std::unique_ptr<::MobileRT::Sampler>()> lambda) final;
 
     private:
+        ::std::size_t getParsedBytes() const;
+
         triple<::glm::vec3, ::glm::vec3, ::glm::vec3> loadNormal(
             const ::tinyobj::shape_t &index,
             ::std::int32_t indexOffset,
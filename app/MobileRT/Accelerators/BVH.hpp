@@ -4,6 +4,7 @@
 #include "MobileRT/Accelerators/AABB.hpp"
 #include "MobileRT/Intersection.hpp"
 #include "MobileRT/Scene.hpp"
+#include "MobileRT/Utils/MemoryCounters.hpp"
 #include <algorithm>
 #include <array>
 #include <glm/glm.hpp>
@@ -88,6 +89,8 @@ namespace MobileRT {
             Intersection shadowTrace(Intersection intersection);
 
             const ::std::vector<T>& getPrimitives() const;
+
+            ::std::size_t getStructureBytes() const;
     };
 
 
@@ -129,6 +132,9 @@ namespace MobileRT {
 
     /**
      * A helper method which builds the BVH structure.
+     * <br>
+     * The memory of the auxiliary vectors, of the nodes and of the copy of the primitives is
+     * accounted while building, since the shader only accounts the BVH after it is built.
      *
      * @tparam T The type of the primitives.
      * @param primitives A vector containing all the primitives to store in the BVH.
@@ -164,6 +170,11 @@ namespace MobileRT {
             const BuildNode node {::std::move(box), static_cast<::std::int32_t> (i)};
             buildNodes.emplace_back(node);
         }
+        const auto buildBytes {
+            buildNodes.capacity() * sizeof(BuildNode) + this->boxes_.capacity() * sizeof(BVHNode)
+        };
+        MemoryCounter buildMemory {MemoryCategory::ACCELERATOR};
+        buildMemory.setBytes(static_cast<::std::int64_t> (buildBytes));
 
         const auto maxLeafSize {4};
         const auto numBuckets {10};
@@ -218,6 +229,7 @@ namespace MobileRT {
                 currentBox->box_ = ::MobileRT::surroundingBox(newBox, currentBox->box_);
                 boxes.emplace_back(newBox);
             }
+            buildMemory.setBytes(static_cast<::std::int64_t> (buildBytes + boxes.capacity() * sizeof(AABB)));
 
             const auto isLeaf {boxPrimitivesSize <= maxLeafSize};
             if (isLeaf) {
@@ -255,7 +267,13 @@ namespace MobileRT {
         this->boxes_.shrink_to_fit();
         ::std::vector<BVHNode> {this->boxes_}.swap(this->boxes_);
 
+        buildMemory.setBytes(static_cast<::std::int64_t> (
+            buildNodes.capacity() * sizeof(BuildNode) + this->boxes_.capacity() * sizeof(BVHNode)));
+
         this->primitives_.reserve(primitivesSize);
+        // The primitives are copied while the vector of the scene is still allocated.
+        MemoryCounter primitivesMemory {MemoryCategory::GEOMETRY};
+        primitivesMemory.setBytes(static_cast<::std::int64_t> (this->primitives_.capacity() * sizeof(T)));
         for (::std::uint32_t i {}; i < primitivesSize; ++i) {
             const auto &node {buildNodes[i]};
             const auto oldIndex {static_cast<::std::uint32_t> (node.oldIndex_)};
@@ -451,6 +469,17 @@ namespace MobileRT {
         return this->primitives_;
     }
 
+    /**
+     * Gets the memory allocated by the nodes of the BVH, without the primitives.
+     *
+     * @tparam T The type of the primitives.
+     * @return The number of bytes allocated by the nodes.
+     */
+    template<typename T>
+    ::std::size_t BVH<T>::getStructureBytes() const {
+        return this->boxes_.capacity() * sizeof(BVHNode);
+    }
+
 
 }//namespace MobileRT
 
@@ -89,6 +89,8 @@ namespace MobileRT {
         Intersection shadowTrace(Intersection intersection);
 
         const ::std::vector<T>& getPrimitives() const;
+
+        ::std::size_t getStructureBytes() const;
     };
 
 
@@ -506,6 +508,21 @@ namespace MobileRT {
         return this->primitives_;
     }
 
+    /**
+     * Gets the memory allocated by the cells of the grid, without the primitives.
+     *
+     * @tparam T The type of the primitives.
+     * @return The number of bytes allocated by the cells.
+     */
+    template<typename T>
+    ::std::size_t RegularGrid<T>::getStructureBytes() const {
+        ::std::size_t bytes {this->grid_.capacity() * sizeof(::std::vector<T*>)};
+        for (const auto &cell : this->grid_) {
+            bytes += cell.capacity() * sizeof(T*);
+        }
+        return bytes;
+    }
+
 }//namespace MobileRT
 
 #endif //MOBILERT_ACCELERATORS_REGULARGRID_HPP
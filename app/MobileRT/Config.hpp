@@ -80,6 +80,17 @@ namespace MobileRT {
          * Whether or not the logs should be redirected to the standard output.
          */
         bool printStdOut;
+
+        /**
+         * Whether the Ray Tracer engine should render coarse passes before the first sample.
+         */
+        bool progressive {true};
+
+        /**
+         * Whether the Ray Tracer engine should distribute the samples per tile with adaptive
+         * sampling.
+         */
+        bool adaptive {false};
     };
 }//namespace MobileRT
 
@@ -1,9 +1,16 @@
 #include "MobileRT/Renderer.hpp"
+#include <algorithm>
 #include <thread>
 #include <vector>
 
 using ::MobileRT::Renderer;
 using ::MobileRT::NumberOfTiles;
+using ::MobileRT::NumberOfTilesPerAxis;
+using ::MobileRT::NumberOfProgressiveLevels;
+using ::MobileRT::AdaptiveMaxSamplesFactor;
+using ::MobileRT::AdaptiveMinSamples;
+using ::MobileRT::AdaptiveErrorThreshold;
+using ::MobileRT::AdaptiveMinLuminance;
 using ::MobileRT::Shader;
 using ::MobileRT::Camera;
 using ::MobileRT::Sampler;
@@ -21,12 +28,17 @@ namespace {
  * @param width        The width of the image to render.
  * @param height       The height of the image to render.
  * @param samplesPixel The number of samples per pixel.
+ * @param progressive  Whether to render some coarse passes before the first sample.
+ * @param adaptive     Whether to spend the samples on the tiles which didn't converge yet,
+ *                     instead of rendering the same number of samples in every tile.
  */
 Renderer::Renderer(::std::unique_ptr<Shader> shader,
                    ::std::unique_ptr<Camera> camera,
                    ::std::unique_ptr<Sampler> samplerPixel,
                    const ::std::int32_t width, const ::std::int32_t height,
-                   const ::std::int32_t samplesPixel) :
+                   const ::std::int32_t samplesPixel,
+                   const bool progressive,
+                   const bool adaptive) :
         camera_ {::std::move(camera)},
         shader_ {::std::move(shader)},
         samplerPixel_ {::std::move(samplerPixel)},
@@ -37,9 +49,16 @@ Renderer::Renderer(::std::unique_ptr<Shader> shader,
         height_ {height},
         domainSize_ {(width / blockSizeX_) * (height / blockSizeY_)},
         resolution_ {width * height},
-        samplesPixel_ {samplesPixel} {
+        samplesPixel_ {samplesPixel},
+        progressive_ {progressive},
+        adaptive_ {adaptive},
+        tilePixels_ {blockSizeX_ * blockSizeY_},
+        sampleBudget_ {static_cast<::std::int64_t> (samplesPixel) * NumberOfTiles},
+        finishedTileSamples_ {},
+        activeTiles_ {NumberOfTiles} {
     fillArrayWithHaltonSeq(&randomSequence);
     Ray::resetIdGenerator();
+    Shader::resetIntersectedPrimitives();
 }
 
 /**
@@ -56,6 +75,13 @@ void Renderer::renderFrame(::std::int32_t *const bitmap, const ::std::int32_t nu
     this->samplerPixel_->resetSampling();
     this->shader_->resetSampling();
     this->block_ = 0;
+    {
+        const ::std::lock_guard<::std::mutex> lock {this->tileStatsMutex_};
+        this->tileStats_.fill(TileStats {});
+        this->sampleBudget_ = static_cast<::std::int64_t> (this->samplesPixel_) * NumberOfTiles;
+        this->finishedTileSamples_ = 0;
+        this->activeTiles_ = NumberOfTiles;
+    }
 
     const auto numChildren {numThreads - 1};
     ::std::vector<::std::thread> threads {};
@@ -86,61 +112,166 @@ void Renderer::stopRender() {
 
 /**
  * Helper method which a thread renders the scene into the bitmap.
+ * <br>
+ * If the render is progressive, it starts with NumberOfProgressiveLevels coarse passes
+ * and the first sample only traces the pixels which were not traced by them.
+ * <br>
+ * With adaptive sampling, each tile only gets a new sample while it didn't converge and while
+ * the sample budget of the image (the requested samples per pixel of every tile) wasn't spent,
+ * so the noisy tiles can get up to AdaptiveMaxSamplesFactor times the requested samples.
  *
  * @param bitmap The bitmap where the rendered scene should be put.
  * @param tid    The thread id.
  */
 void Renderer::renderScene(::std::int32_t *const bitmap, const ::std::int32_t tid) {
-    const auto invImgWidth {1.0F / this->width_};
-    const auto invImgHeight {1.0F / this->height_};
-    const auto pixelWidth {0.5F / this->width_};
-    const auto pixelHeight {0.5F / this->height_};
-    ::glm::vec3 pixelRgb {};
     LOG_DEBUG("renderScene");
+    const auto coarsePasses {this->progressive_ ? NumberOfProgressiveLevels : 0};
+    const auto samplesFactor {this->adaptive_ ? AdaptiveMaxSamplesFactor : 1};
 
-    for (::std::int32_t sample {}; sample < this->samplesPixel_; ++sample) {
-        LOG_DEBUG("renderScene sample: ", sample);
+    for (::std::int32_t pass {}; pass < coarsePasses + this->samplesPixel_ * samplesFactor; ++pass) {
+        const auto sample {pass - coarsePasses};
+        LOG_DEBUG("renderScene pass: ", pass, ", sample: ", sample);
+        if (this->adaptive_ && sample >= 0 && isAdaptiveSamplingFinished()) {
+            break;
+        }
         while (true) {
             LOG_DEBUG("Will get a tile: bx=", this->blockSizeX_, ", by=", this->blockSizeY_, ", spp=", sample, " (", this->samplesPixel_, ")");
-            const auto tile {getTile(sample)};
+            const auto tile {getTile(pass)};
             if (tile >= 1.0F) {
                 break;
             }
             const auto roundBlock {static_cast<::std::int32_t> (::roundf(tile * this->domainSize_))};
             const auto pixel {roundBlock * this->blockSizeX_ % this->resolution_};
             const auto startY {((pixel / this->width_) * this->blockSizeY_) % this->height_};
-            const auto endY {startY + this->blockSizeY_};
+            const auto startX {pixel % this->width_};
             LOG_DEBUG("Will render a tile");
-            for (auto y {startY}; y < endY; ++y) {
-                const auto v {y * invImgHeight};
-                const auto yWidth {y * this->width_};
-                const auto startX {(pixel + yWidth) % this->width_};
-                const auto endX {startX + this->blockSizeX_};
-                for (auto x {startX}; x < endX; ++x) {
-                    const auto u {x * invImgWidth};
-                    const auto r1 {this->samplerPixel_->getSample()};
-                    const auto r2 {this->samplerPixel_->getSample()};
-                    const auto deviationU {(r1 - 0.5F) * 2.0F * pixelWidth};
-                    const auto deviationV {(r2 - 0.5F) * 2.0F * pixelHeight};
-                    auto &&ray {this->camera_->generateRay(u, v, deviationU, deviationV)};
-                    pixelRgb = {};
-                    this->shader_->rayTrace(&pixelRgb, ::std::move(ray));
-                    const auto pixelIndex {yWidth + x};
-                    ::std::int32_t *bitmapPixel {&bitmap[pixelIndex]};
-                    const auto pixelColor {::MobileRT::incrementalAvg(pixelRgb, *bitmapPixel, sample + 1)};
-                    *bitmapPixel = pixelColor;
+            // The counters of the row of tiles are the fence used by the display to only copy
+            // the rows without tiles being rendered.
+            const auto tileRow {static_cast<::std::size_t> (getTileRow(startY))};
+            this->rowTilesStarted_[tileRow].fetch_add(1U, ::std::memory_order_seq_cst);
+            if (sample < 0) {
+                const auto stride {1 << (coarsePasses - pass)};
+                renderCoarseTile(bitmap, startX, startY, stride, pass == 0);
+            } else if (this->adaptive_) {
+                const auto tileIndex {getTileIndex(startX, startY)};
+                const auto tileSample {startTileSample(tileIndex)};
+                if (tileSample < 0) {
+                    this->rowTilesFinished_[tileRow].fetch_add(1U, ::std::memory_order_release);
+                    continue;
                 }
+                finishTileSample(tileIndex, renderTile(bitmap, startX, startY, tileSample));
+            } else {
+                renderTile(bitmap, startX, startY, sample);
             }
+            this->rowTilesFinished_[tileRow].fetch_add(1U, ::std::memory_order_release);
+            markRowsDirty(startY);
             LOG_DEBUG("Tile rendered");
         }
-        if (tid == 0) {
+        // With adaptive sampling, the sample is the average of all the tiles.
+        if (tid == 0 && sample >= 0 && !this->adaptive_) {
             this->sample_ = sample + 1;
             LOG_DEBUG("Sample = ", this->sample_);
         }
-        LOG_DEBUG("renderScene sample: ", sample, " finished");
+        LOG_DEBUG("renderScene pass: ", pass, " finished");
+    }
+}
+
+/**
+ * Helper method which renders a sample of all the pixels in a tile.
+ * <br>
+ * In a progressive render, the pixels of the first sample that were already traced by the coarse
+ * passes are kept.
+ *
+ * @param bitmap The bitmap where the rendered scene should be put.
+ * @param startX The first column of the tile.
+ * @param startY The first line of the tile.
+ * @param sample The current sample of samples per pixel.
+ * @return The mean luminance of the traced pixels.
+ */
+float Renderer::renderTile(::std::int32_t *const bitmap,
+                           const ::std::int32_t startX, const ::std::int32_t startY,
+                           const ::std::int32_t sample) {
+    const auto skipTraced {this->progressive_ && sample == 0};
+    const auto endY {startY + this->blockSizeY_};
+    const auto endX {startX + this->blockSizeX_};
+    float luminanceSum {};
+    ::std::int32_t tracedPixels {};
+    for (auto y {startY}; y < endY; ++y) {
+        const auto yWidth {y * this->width_};
+        const auto evenLine {(y - startY) % 2 == 0};
+        for (auto x {startX}; x < endX; ++x) {
+            if (skipTraced && evenLine && (x - startX) % 2 == 0) {
+                continue;
+            }
+            const auto pixelRgb {tracePixel(x, y)};
+            luminanceSum += (pixelRgb.r + pixelRgb.g + pixelRgb.b) / 3.0F;
+            ++tracedPixels;
+            ::std::int32_t *bitmapPixel {&bitmap[yWidth + x]};
+            const auto pixelColor {::MobileRT::incrementalAvg(pixelRgb, *bitmapPixel, sample + 1)};
+            *bitmapPixel = pixelColor;
+        }
+    }
+    return tracedPixels > 0 ? luminanceSum / static_cast<float> (tracedPixels) : 0.0F;
+}
+
+/**
+ * Helper method which renders a coarse pass of a tile.
+ * <br>
+ * It traces one pixel in every block of stride x stride pixels of the tile and
+ * fills the whole block with its color. The traced pixels are the first sample of those pixels.
+ *
+ * @param bitmap   The bitmap where the rendered scene should be put.
+ * @param startX   The first column of the tile.
+ * @param startY   The first line of the tile.
+ * @param stride   The size of the blocks, in pixels.
+ * @param coarsest Whether this is the first coarse pass, so no pixel was traced before.
+ */
+void Renderer::renderCoarseTile(::std::int32_t *const bitmap,
+                                const ::std::int32_t startX, const ::std::int32_t startY,
+                                const ::std::int32_t stride, const bool coarsest) {
+    const auto previousStride {stride * 2};
+    const auto endY {startY + this->blockSizeY_};
+    const auto endX {startX + this->blockSizeX_};
+    for (auto y {startY}; y < endY; y += stride) {
+        const auto blockEndY {::std::min(y + stride, endY)};
+        const auto previousLine {(y - startY) % previousStride == 0};
+        for (auto x {startX}; x < endX; x += stride) {
+            // The blocks of the pixels traced by the previous pass already have their color.
+            if (!coarsest && previousLine && (x - startX) % previousStride == 0) {
+                continue;
+            }
+            const auto pixelColor {::MobileRT::incrementalAvg(tracePixel(x, y), 0, 1)};
+            const auto blockEndX {::std::min(x + stride, endX)};
+            for (auto blockY {y}; blockY < blockEndY; ++blockY) {
+                ::std::int32_t *const line {&bitmap[blockY * this->width_]};
+                ::std::fill(line + x, line + blockEndX, pixelColor);
+            }
+        }
     }
 }
 
+/**
+ * Helper method which traces a ray through a pixel, jittered by the pixel sampler.
+ *
+ * @param x The column of the pixel.
+ * @param y The line of the pixel.
+ * @return The color of the traced ray.
+ */
+::glm::vec3 Renderer::tracePixel(const ::std::int32_t x, const ::std::int32_t y) {
+    const auto u {x * (1.0F / this->width_)};
+    const auto v {y * (1.0F / this->height_)};
+    const auto pixelWidth {0.5F / this->width_};
+    const auto pixelHeight {0.5F / this->height_};
+    const auto r1 {this->samplerPixel_->getSample()};
+    const auto r2 {this->samplerPixel_->getSample()};
+    const auto deviationU {(r1 - 0.5F) * 2.0F * pixelWidth};
+    const auto deviationV {(r2 - 0.5F) * 2.0F * pixelHeight};
+    auto &&ray {this->camera_->generateRay(u, v, deviationU, deviationV)};
+    ::glm::vec3 pixelRgb {};
+    this->shader_->rayTrace(&pixelRgb, ::std::move(ray));
+    return pixelRgb;
+}
+
 /**
  * Gets the number of samples per pixel already rendered.
  *
@@ -177,3 +308,197 @@ float Renderer::getTile(const ::std::int32_t sample) {
     const auto castedRays {Ray::getNumberOfCastedRays()};
     return castedRays;
 }
+
+/**
+ * Helper method that calculates the total number of casted rays which intersected a primitive.
+ *
+ * @return The total number of casted rays which intersected a primitive.
+ */
+::std::uint64_t Renderer::getTotalIntersectedPrimitives() const {
+    const auto intersectedPrimitives {Shader::getNumberOfIntersectedPrimitives()};
+    return intersectedPrimitives;
+}
+
+/**
+ * Helper method which calculates the row of tiles that contains a tile.
+ * <br>
+ * The row of tiles is the first line of the tile divided by the height of the tiles, like the
+ * {@code DisplayBuffer} of the Android app does, so both agree for any height of the image.
+ *
+ * @param startY The first line of the tile.
+ * @return The row of tiles.
+ */
+::std::int32_t Renderer::getTileRow(const ::std::int32_t startY) const {
+    return ::std::min(startY / ::std::max(this->blockSizeY_, 1), NumberOfTilesPerAxis - 1);
+}
+
+/**
+ * Helper method which marks the row of tiles that contains a rendered tile as modified, so the
+ * rows can be copied to the display without having to copy the whole bitmap.
+ *
+ * @param startY The first line of the rendered tile.
+ */
+void Renderer::markRowsDirty(const ::std::int32_t startY) {
+    const auto tileRow {static_cast<::std::uint32_t> (getTileRow(startY))};
+    this->dirtyRows_.fetch_or(1U << tileRow, ::std::memory_order_relaxed);
+}
+
+/**
+ * Gets the rows of tiles that were modified since the last call to this method and resets them.
+ * <br>
+ * Each bit of the returned value represents a row of tiles, where the least significant bit is
+ * the row of tiles at the top of the image.
+ *
+ * @return A bit mask with the modified rows of tiles.
+ */
+::std::uint32_t Renderer::consumeDirtyRows() {
+    return this->dirtyRows_.exchange(0U, ::std::memory_order_relaxed);
+}
+
+/**
+ * Starts copying some rows of tiles of the bitmap while the scene is being rendered.
+ * <br>
+ * A row of tiles can only be copied if every tile started in it was already rendered, so the
+ * number of tiles started in each of those rows is kept to be checked by endCopyRows.
+ * It should only be called by one thread at a time.
+ *
+ * @param rows The rows of tiles to copy, where each bit represents a row of tiles.
+ * @return The rows of tiles, from the ones to copy, which have no tile being rendered.
+ */
+::std::uint32_t Renderer::beginCopyRows(const ::std::uint32_t rows) {
+    ::std::uint32_t quietRows {};
+    for (::std::int32_t row {}; row < NumberOfTilesPerAxis; ++row) {
+        const auto index {static_cast<::std::size_t> (row)};
+        if ((rows & (1U << index)) == 0U) {
+            continue;
+        }
+        const auto started {this->rowTilesStarted_[index].load(::std::memory_order_seq_cst)};
+        const auto finished {this->rowTilesFinished_[index].load(::std::memory_order_acquire)};
+        if (started == finished) {
+            this->copyStarts_[index] = started;
+            quietRows |= 1U << index;
+        }
+    }
+    return quietRows;
+}
+
+/**
+ * Finishes copying some rows of tiles of the bitmap started with beginCopyRows.
+ * <br>
+ * The rows of tiles where a tile was started during the copy may have been copied while the tile
+ * was being rendered, so they have to be copied again.
+ *
+ * @param rows The rows of tiles returned by beginCopyRows.
+ * @return The rows of tiles where no tile was started during the copy.
+ */
+::std::uint32_t Renderer::endCopyRows(const ::std::uint32_t rows) {
+    // The copied pixels must be read before checking if a tile was started.
+    ::std::atomic_thread_fence(::std::memory_order_seq_cst);
+    ::std::uint32_t completeRows {};
+    for (::std::int32_t row {}; row < NumberOfTilesPerAxis; ++row) {
+        const auto index {static_cast<::std::size_t> (row)};
+        if ((rows & (1U << index)) != 0U
+            && this->rowTilesStarted_[index].load(::std::memory_order_seq_cst) == this->copyStarts_[index]) {
+            completeRows |= 1U << index;
+        }
+    }
+    return completeRows;
+}
+
+/**
+ * Helper method which calculates the index of the tile which starts in a pixel.
+ *
+ * @param startX The first column of the tile.
+ * @param startY The first line of the tile.
+ * @return The index of the tile, where the tiles are ordered by lines from the top of the image.
+ */
+::std::int32_t Renderer::getTileIndex(const ::std::int32_t startX, const ::std::int32_t startY) const {
+    const auto tileX {::std::min((startX * NumberOfTilesPerAxis) / this->width_, NumberOfTilesPerAxis - 1)};
+    const auto tileY {::std::min((startY * NumberOfTilesPerAxis) / this->height_, NumberOfTilesPerAxis - 1)};
+    return tileY * NumberOfTilesPerAxis + tileX;
+}
+
+/**
+ * Helper method which starts a new sample of a tile with adaptive sampling.
+ * <br>
+ * The tile doesn't get more samples once it converged or once the sample budget of the image
+ * was spent.
+ *
+ * @param tile The index of the tile.
+ * @return The sample of the tile to render, or -1 if the tile shouldn't be rendered.
+ */
+::std::int32_t Renderer::startTileSample(const ::std::int32_t tile) {
+    const ::std::lock_guard<::std::mutex> lock {this->tileStatsMutex_};
+    auto &stats {this->tileStats_[static_cast<::std::size_t> (tile)]};
+    if (stats.converged || this->sampleBudget_ <= 0) {
+        return -1;
+    }
+    --this->sampleBudget_;
+    const auto sample {stats.startedSamples};
+    ++stats.startedSamples;
+    return sample;
+}
+
+/**
+ * Helper method which finishes a sample of a tile with adaptive sampling and checks if the tile
+ * converged.
+ * <br>
+ * The variance of the mean luminance of each sample of the tile, multiplied by the number of
+ * pixels in the tile, estimates the variance of each pixel. The tile converged when the relative
+ * standard error of its pixels is below AdaptiveErrorThreshold.
+ *
+ * @param tile      The index of the tile.
+ * @param luminance The mean luminance of the traced pixels of the tile.
+ */
+void Renderer::finishTileSample(const ::std::int32_t tile, const float luminance) {
+    const ::std::lock_guard<::std::mutex> lock {this->tileStatsMutex_};
+    auto &stats {this->tileStats_[static_cast<::std::size_t> (tile)]};
+    ++stats.samples;
+    const auto delta {luminance - stats.mean};
+    stats.mean += delta / static_cast<float> (stats.samples);
+    stats.m2 += delta * (luminance - stats.mean);
+
+    ++this->finishedTileSamples_;
+    this->sample_ = static_cast<::std::int32_t> (this->finishedTileSamples_ / NumberOfTiles);
+
+    if (!stats.converged && stats.samples >= AdaptiveMinSamples) {
+        const auto samples {static_cast<float> (stats.samples)};
+        const auto pixelVariance {stats.m2 / (samples - 1.0F) * static_cast<float> (this->tilePixels_)};
+        const auto error {::std::sqrt(pixelVariance / samples) / ::std::max(stats.mean, AdaptiveMinLuminance)};
+        if (error <= AdaptiveErrorThreshold) {
+            stats.converged = true;
+            --this->activeTiles_;
+            LOG_DEBUG("Tile ", tile, " converged with ", stats.samples, " samples");
+        }
+    }
+}
+
+/**
+ * Helper method which checks if the adaptive sampling has nothing else to render, because all
+ * the tiles converged or the sample budget of the image was spent.
+ *
+ * @return Whether the adaptive sampling finished.
+ */
+bool Renderer::isAdaptiveSamplingFinished() const {
+    const ::std::lock_guard<::std::mutex> lock {this->tileStatsMutex_};
+    return this->activeTiles_ <= 0 || this->sampleBudget_ <= 0;
+}
+
+/**
+ * Gets the number of samples per pixel already rendered in each tile.
+ * <br>
+ * Without adaptive sampling, all the tiles have the same number of samples.
+ *
+ * @param tileSamples The array, with NumberOfTiles elements, where the number of samples of each
+ *                    tile is written. The tiles are ordered by lines from the top of the image.
+ */
+void Renderer::getTileSamples(::std::int32_t *const tileSamples) const {
+    if (!this->adaptive_) {
+        ::std::fill(tileSamples, tileSamples + NumberOfTiles, this->sample_);
+        return;
+    }
+    const ::std::lock_guard<::std::mutex> lock {this->tileStatsMutex_};
+    for (::std::int32_t tile {}; tile < NumberOfTiles; ++tile) {
+        tileSamples[tile] = this->tileStats_[static_cast<::std::size_t> (tile)].samples;
+    }
+}
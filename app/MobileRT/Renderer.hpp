@@ -5,7 +5,10 @@
 #include "MobileRT/Sampler.hpp"
 #include "MobileRT/Shader.hpp"
 #include "MobileRT/Utils/Utils.hpp"
+#include <array>
+#include <atomic>
 #include <cmath>
+#include <mutex>
 #include <thread>
 
 namespace MobileRT {
@@ -19,6 +22,37 @@ namespace MobileRT {
         ::std::unique_ptr<Camera> camera_ {};
         ::std::unique_ptr<Shader> shader_ {};
 
+    private:
+        /**
+         * The running statistics of a tile, which are used by the adaptive sampling.
+         */
+        struct TileStats {
+            /**
+             * The number of samples per pixel started in the tile.
+             */
+            ::std::int32_t startedSamples {};
+
+            /**
+             * The number of samples per pixel finished in the tile.
+             */
+            ::std::int32_t samples {};
+
+            /**
+             * The running mean of the mean luminance of each sample of the tile.
+             */
+            float mean {};
+
+            /**
+             * The running sum of the squared differences from the mean (Welford's algorithm).
+             */
+            float m2 {};
+
+            /**
+             * Whether the tile converged and doesn't need more samples.
+             */
+            bool converged {};
+        };
+
     private:
         ::std::unique_ptr<Sampler> samplerPixel_ {};
         ::std::int32_t blockSizeX_ {};
@@ -30,10 +64,33 @@ namespace MobileRT {
         const ::std::int32_t resolution_ {};
         ::std::int32_t samplesPixel_ {};
         ::std::atomic<::std::int32_t> block_ {};
+        ::std::atomic<::std::uint32_t> dirtyRows_ {};
+        ::std::array<::std::atomic<::std::uint32_t>, NumberOfTilesPerAxis> rowTilesStarted_ {};
+        ::std::array<::std::atomic<::std::uint32_t>, NumberOfTilesPerAxis> rowTilesFinished_ {};
+        ::std::array<::std::uint32_t, NumberOfTilesPerAxis> copyStarts_ {};
+        const bool progressive_ {};
+        const bool adaptive_ {};
+        const ::std::int32_t tilePixels_ {};
+        ::std::int64_t sampleBudget_ {};
+        ::std::int64_t finishedTileSamples_ {};
+        ::std::int32_t activeTiles_ {};
+        ::std::array<TileStats, NumberOfTiles> tileStats_ {};
+        mutable ::std::mutex tileStatsMutex_ {};
 
     private:
         void renderScene(::std::int32_t *bitmap, ::std::int32_t tid);
+        float renderTile(::std::int32_t *bitmap, ::std::int32_t startX, ::std::int32_t startY,
+                         ::std::int32_t sample);
+        void renderCoarseTile(::std::int32_t *bitmap, ::std::int32_t startX, ::std::int32_t startY,
+                              ::std::int32_t stride, bool coarsest);
+        ::glm::vec3 tracePixel(::std::int32_t x, ::std::int32_t y);
         float getTile(::std::int32_t sample);
+        ::std::int32_t getTileRow(::std::int32_t startY) const;
+        void markRowsDirty(::std::int32_t startY);
+        ::std::int32_t getTileIndex(::std::int32_t startX, ::std::int32_t startY) const;
+        ::std::int32_t startTileSample(::std::int32_t tile);
+        void finishTileSample(::std::int32_t tile, float luminance);
+        bool isAdaptiveSamplingFinished() const;
 
     public:
         explicit Renderer () = delete;
@@ -42,7 +99,9 @@ namespace MobileRT {
                           ::std::unique_ptr<Camera> camera,
                           ::std::unique_ptr<Sampler> samplerPixel,
                           ::std::int32_t width, ::std::int32_t height,
-                          ::std::int32_t samplesPixel);
+                          ::std::int32_t samplesPixel,
+                          bool progressive,
+                          bool adaptive);
 
         Renderer(const Renderer &renderer) = delete;
 
@@ -61,6 +120,16 @@ namespace MobileRT {
         ::std::int32_t getSample() const;
 
         ::std::uint64_t getTotalCastedRays() const;
+
+        ::std::uint64_t getTotalIntersectedPrimitives() const;
+
+        ::std::uint32_t consumeDirtyRows();
+
+        ::std::uint32_t beginCopyRows(::std::uint32_t rows);
+
+        ::std::uint32_t endCopyRows(::std::uint32_t rows);
+
+        void getTileSamples(::std::int32_t *tileSamples) const;
     };
 }//namespace MobileRT
 
@@ -1,4 +1,5 @@
 #include "MobileRT/Scene.hpp"
+#include <algorithm>
 
 using ::MobileRT::AABB;
 using ::MobileRT::Scene;
@@ -6,6 +7,8 @@ using ::MobileRT::Plane;
 using ::MobileRT::Sphere;
 using ::MobileRT::Triangle;
 using ::MobileRT::Light;
+using ::MobileRT::Material;
+using ::MobileRT::Texture;
 
 /**
  * The destructor.
@@ -26,6 +29,63 @@ Scene::~Scene() {
     LOG_DEBUG("SCENE DELETED");
 }
 
+/**
+ * Updates the memory counters with the memory allocated by the geometry and the materials (with
+ * their textures) of the scene.
+ * <br>
+ * It should be called after allocating or freeing the vectors of the scene, so the peak memory
+ * while loading the scene and building the acceleration structures is accounted.
+ */
+void Scene::updateMemoryCounters() {
+    const auto geometryBytes {getGeometryBytes(this->planes_, this->spheres_, this->triangles_, this->lights_)};
+    this->geometryMemory_.setBytes(static_cast<::std::int64_t> (geometryBytes));
+    this->materialsMemory_.setBytes(static_cast<::std::int64_t> (getMaterialsBytes(this->materials_)));
+}
+
+/**
+ * Calculates the memory allocated by the vectors with the geometry of a scene.
+ *
+ * @param planes    The planes.
+ * @param spheres   The spheres.
+ * @param triangles The triangles.
+ * @param lights    The lights.
+ * @return The number of bytes allocated.
+ */
+::std::size_t Scene::getGeometryBytes(const ::std::vector<Plane> &planes,
+                                      const ::std::vector<Sphere> &spheres,
+                                      const ::std::vector<Triangle> &triangles,
+                                      const ::std::vector<::std::unique_ptr<Light>> &lights) {
+    return planes.capacity() * sizeof(Plane) +
+        spheres.capacity() * sizeof(Sphere) +
+        triangles.capacity() * sizeof(Triangle) +
+        lights.capacity() * sizeof(::std::unique_ptr<Light>);
+}
+
+/**
+ * Calculates the memory allocated by the materials of a scene, with their textures.
+ * The textures shared by several materials are only counted once.
+ *
+ * @param materials The materials.
+ * @return The number of bytes allocated.
+ */
+::std::size_t Scene::getMaterialsBytes(const ::std::vector<Material> &materials) {
+    auto materialsBytes {materials.capacity() * sizeof(Material)};
+    ::std::vector<const Texture *> textures {};
+    for (const auto &material : materials) {
+        const auto &texture {material.texture_};
+        const auto counted {
+            ::std::find_if(textures.begin(), textures.end(), [&](const Texture *const other) {
+                return *other == texture;
+            }) != textures.end()
+        };
+        if (texture.isValid() && !counted) {
+            textures.emplace_back(&texture);
+            materialsBytes += texture.getBytes();
+        }
+    }
+    return materialsBytes;
+}
+
 /**
  * A helper method which calculates the bounding box that surrounds two bounding boxes.
  *
@@ -9,6 +9,7 @@
 #include "MobileRT/Shapes/Plane.hpp"
 #include "MobileRT/Shapes/Sphere.hpp"
 #include "MobileRT/Shapes/Triangle.hpp"
+#include "MobileRT/Utils/MemoryCounters.hpp"
 #include "MobileRT/Utils/Utils.hpp"
 #include <glm/glm.hpp>
 #include <vector>
@@ -25,6 +26,10 @@ namespace MobileRT {
         ::std::vector<::std::unique_ptr<Light>> lights_ {};
         ::std::vector<Material> materials_ {};
 
+    private:
+        MemoryCounter geometryMemory_ {MemoryCategory::GEOMETRY};
+        MemoryCounter materialsMemory_ {MemoryCategory::MATERIALS};
+
     private:
         static ::MobileRT::AABB getBoxBounds(const AABB &box1, const AABB &box2);
 
@@ -41,6 +46,15 @@ namespace MobileRT {
 
         Scene &operator=(Scene &&scene) noexcept = default;
 
+        void updateMemoryCounters();
+
+        static ::std::size_t getGeometryBytes(const ::std::vector<Plane> &planes,
+                                              const ::std::vector<Sphere> &spheres,
+                                              const ::std::vector<Triangle> &triangles,
+                                              const ::std::vector<::std::unique_ptr<Light>> &lights);
+
+        static ::std::size_t getMaterialsBytes(const ::std::vector<Material> &materials);
+
         /**
          * Calculates the bounding boxes which surrounds all the primitives in a vector.
          *
@@ -1,6 +1,8 @@
 #include "MobileRT/Shader.hpp"
 #include "MobileRT/Utils/Utils.hpp"
+#include <algorithm>
 #include <array>
+#include <atomic>
 #include <glm/glm.hpp>
 #include <glm/gtc/constants.hpp>
 #include <random>
@@ -18,9 +20,15 @@ using ::MobileRT::Triangle;
 using ::MobileRT::Light;
 using ::MobileRT::Material;
 using ::MobileRT::Scene;
+using ::MobileRT::Texture;
 
 namespace {
     ::std::array<float, ::MobileRT::ArraySize> randomSequence {};
+
+    /**
+     * An atomic counter of the casted rays which intersected a primitive.
+     */
+    ::std::atomic<::std::uint64_t> intersectedPrimitives {};
 }//namespace
 
 /**
@@ -45,6 +53,8 @@ Shader::Shader(Scene scene, const ::std::int32_t samplesLight, const Accelerator
  */
 void Shader::initializeAccelerators(Scene scene) {
     LOG_DEBUG("initializeAccelerators");
+    // The materials were already moved from the scene.
+    updateMemoryCounters(&scene);
     switch (this->accelerator_) {
         case Accelerator::ACC_NAIVE: {
             this->naivePlanes_ = Naive<Plane> {::std::move(scene.planes_)};
@@ -56,24 +66,73 @@ void Shader::initializeAccelerators(Scene scene) {
         case Accelerator::ACC_REGULAR_GRID: {
             const auto gridSize {32U};
             this->gridPlanes_ = RegularGrid<Plane> {::std::move(scene.planes_), gridSize};
+            updateMemoryCounters(&scene);
             this->gridSpheres_ = RegularGrid<Sphere> {::std::move(scene.spheres_), gridSize};
+            updateMemoryCounters(&scene);
             this->gridTriangles_ = RegularGrid<Triangle> {::std::move(scene.triangles_), gridSize};
             break;
         }
 
         case Accelerator::ACC_BVH: {
             this->bvhPlanes_ = BVH<Plane> {::std::move(scene.planes_)};
+            updateMemoryCounters(&scene);
             this->bvhSpheres_ = BVH<Sphere> {::std::move(scene.spheres_)};
+            updateMemoryCounters(&scene);
             this->bvhTriangles_ = BVH<Triangle> {::std::move(scene.triangles_)};
             break;
         }
     }
     this->lights_ = ::std::move(scene.lights_);
+    updateMemoryCounters(&scene);
     LOG_DEBUG("accelerator = ", this->accelerator_);
     LOG_DEBUG("materials = ", this->materials_.size());
     LOG_DEBUG("lights = ", this->lights_.size());
 }
 
+/**
+ * Helper method which updates the memory counters with the memory allocated by the geometry, the
+ * acceleration structure and the materials (with their textures) of the scene.
+ * The textures shared by several materials are only counted once.
+ * <br>
+ * It is called after building each acceleration structure, together with the counters of the
+ * scene whose primitives are being moved, so the peak memory of the build is accounted.
+ *
+ * @param scene The scene whose primitives are being moved into the acceleration structures.
+ */
+void Shader::updateMemoryCounters(Scene *const scene) {
+    scene->updateMemoryCounters();
+    const auto geometryBytes {Scene::getGeometryBytes(getPlanes(), getSpheres(), getTriangles(), this->lights_)};
+
+    ::std::size_t acceleratorBytes {};
+    switch (this->accelerator_) {
+        case Accelerator::ACC_NAIVE: {
+            break;
+        }
+
+        case Accelerator::ACC_REGULAR_GRID: {
+            acceleratorBytes = this->gridPlanes_.getStructureBytes() +
+                this->gridSpheres_.getStructureBytes() +
+                this->gridTriangles_.getStructureBytes();
+            break;
+        }
+
+        case Accelerator::ACC_BVH: {
+            acceleratorBytes = this->bvhPlanes_.getStructureBytes() +
+                this->bvhSpheres_.getStructureBytes() +
+                this->bvhTriangles_.getStructureBytes();
+            break;
+        }
+    }
+
+    const auto materialsBytes {Scene::getMaterialsBytes(this->materials_)};
+
+    this->geometryMemory_.setBytes(static_cast<::std::int64_t> (geometryBytes));
+    this->acceleratorMemory_.setBytes(static_cast<::std::int64_t> (acceleratorBytes));
+    this->materialsMemory_.setBytes(static_cast<::std::int64_t> (materialsBytes));
+    LOG_DEBUG("memory: geometry = ", geometryBytes, ", accelerator = ", acceleratorBytes,
+              ", materials = ", materialsBytes);
+}
+
 /**
  * Determines if a casted ray intersects a light source in the scene or not.
  *
@@ -109,6 +168,7 @@ bool Shader::rayTrace(::glm::vec3 *rgb, Ray &&ray) {
     intersection = traceLights(intersection);
     const auto matIndex {intersection.materialIndex_};
     if (matIndex >= 0) {
+        intersectedPrimitives.fetch_add(1, ::std::memory_order_relaxed);
         auto &material {this->materials_[static_cast<::std::uint32_t> (matIndex)]};
         intersection.material_ = &material;
         const auto &texCoords {intersection.texCoords_};
@@ -168,6 +228,22 @@ Intersection Shader::traceLights(Intersection intersection) const {
     return intersection;
 }
 
+/**
+ * Gets the number of casted rays which intersected a primitive in the scene.
+ *
+ * @return The number of casted rays which intersected a primitive.
+ */
+::std::uint64_t Shader::getNumberOfIntersectedPrimitives() noexcept {
+    return intersectedPrimitives.load(::std::memory_order_relaxed);
+}
+
+/**
+ * Resets the counter of casted rays which intersected a primitive in the scene.
+ */
+void Shader::resetIntersectedPrimitives() noexcept {
+    intersectedPrimitives.store(0, ::std::memory_order_relaxed);
+}
+
 /**
  * Resets the sampling process of all the lights in the scene.
  */
@@ -9,6 +9,7 @@
 #include "MobileRT/Ray.hpp"
 #include "MobileRT/Sampler.hpp"
 #include "MobileRT/Scene.hpp"
+#include "MobileRT/Utils/MemoryCounters.hpp"
 
 namespace MobileRT {
     /**
@@ -38,6 +39,10 @@ namespace MobileRT {
 
         ::std::vector<Material> materials_ {};
 
+        MemoryCounter geometryMemory_ {MemoryCategory::GEOMETRY};
+        MemoryCounter acceleratorMemory_ {MemoryCategory::ACCELERATOR};
+        MemoryCounter materialsMemory_ {MemoryCategory::MATERIALS};
+
     private:
         const Accelerator accelerator_ {};
 
@@ -48,6 +53,8 @@ namespace MobileRT {
     private:
         Intersection traceLights(Intersection intersection) const;
 
+        void updateMemoryCounters(Scene *scene);
+
     protected:
         /**
          * Calculates the color of an intersection in the scene.
@@ -98,6 +105,10 @@ namespace MobileRT {
         const ::std::vector<Material>& getMaterials() const;
 
         const ::std::vector<::std::unique_ptr<Light>>& getLights() const;
+
+        static ::std::uint64_t getNumberOfIntersectedPrimitives() noexcept;
+
+        static void resetIntersectedPrimitives() noexcept;
     };
 }//namespace MobileRT
 
@@ -97,3 +97,16 @@ bool Texture::operator==(const Texture &texture) const {
 bool Texture::isValid() const {
     return this->width_ > 0 && this->height_ > 0 && this->channels_ > 0 && this->image_ != nullptr;
 }
+
+/**
+ * Gets the memory allocated by the image of the texture.
+ *
+ * @return The number of bytes of the image, or 0 if the texture is not valid.
+ */
+::std::size_t Texture::getBytes() const {
+    if (!isValid()) {
+        return 0;
+    }
+    return static_cast<::std::size_t> (this->width_) * static_cast<::std::size_t> (this->height_) *
+        static_cast<::std::size_t> (this->channels_);
+}
@@ -44,6 +44,8 @@ namespace MobileRT {
 
         bool isValid() const;
 
+        ::std::size_t getBytes() const;
+
         bool operator==(const Texture &texture) const;
 
         static Texture createTexture(const char *textureFilePath);
@@ -49,6 +49,47 @@ namespace MobileRT {
      */
     const ::std::int32_t NumberOfTiles {256};
 
+    /**
+     * The number of tiles (blocks) in each axis of the image plane.
+     * This is the square root of the number of tiles.
+     */
+    const ::std::int32_t NumberOfTilesPerAxis {16};
+
+    /**
+     * The number of coarse passes that a progressive render does before the first sample.
+     * Each pass traces a subset of the pixels of every tile and fills the neighbouring pixels with
+     * the same color, so the first image appears much sooner.
+     * The first pass traces one pixel in every 2^N x 2^N block, and each following pass halves the
+     * size of the blocks.
+     */
+    const ::std::int32_t NumberOfProgressiveLevels {2};
+
+    /**
+     * The maximum number of samples per pixel of a tile with adaptive sampling, as a multiple of
+     * the requested number of samples per pixel.
+     * The total number of samples is still the requested one, so the noisy tiles can only get
+     * more samples if other tiles converged sooner.
+     */
+    const ::std::int32_t AdaptiveMaxSamplesFactor {4};
+
+    /**
+     * The minimum number of samples per pixel of a tile with adaptive sampling before checking if
+     * it converged.
+     */
+    const ::std::int32_t AdaptiveMinSamples {4};
+
+    /**
+     * The maximum relative standard error of the luminance of the pixels of a tile for it to be
+     * considered converged with adaptive sampling.
+     */
+    const float AdaptiveErrorThreshold {0.05F};
+
+    /**
+     * The minimum luminance used to calculate the relative error of a tile with adaptive
+     * sampling, so the dark tiles don't need infinite samples.
+     */
+    const float AdaptiveMinLuminance {1.0F / 255.0F};
+
     /**
      * The number of axes in the scene.
      * Typically is just 3: X (length), Y (height) and Z (width).
@@ -0,0 +1,142 @@
+#include "MobileRT/Utils/MemoryCounters.hpp"
+#include <array>
+#include <atomic>
+
+using ::MobileRT::MemoryCategory;
+using ::MobileRT::MemoryCounter;
+
+namespace {
+    /**
+     * The atomic counters of the allocated bytes of each memory category.
+     */
+    ::std::array<::std::atomic<::std::int64_t>, ::MobileRT::NumberOfMemoryCategories> allocatedBytes {};
+
+    /**
+     * The atomic counters of the peak allocated bytes of each memory category since the last reset.
+     */
+    ::std::array<::std::atomic<::std::int64_t>, ::MobileRT::NumberOfMemoryCategories> peakBytes {};
+}//namespace
+
+namespace MobileRT {
+    /**
+     * Adds bytes to the counter of a memory category.
+     * <br>
+     * It should be called with the size of each allocation and with the negative size of each free.
+     *
+     * @param category The memory category.
+     * @param bytes    The number of bytes allocated, or negative if they were freed.
+     */
+    void addAllocatedBytes(const MemoryCategory category, const ::std::int64_t bytes) noexcept {
+        const auto index {static_cast<::std::uint32_t> (category)};
+        const auto current {allocatedBytes[index].fetch_add(bytes, ::std::memory_order_relaxed) + bytes};
+        auto peak {peakBytes[index].load(::std::memory_order_relaxed)};
+        while (current > peak && !peakBytes[index].compare_exchange_weak(peak, current, ::std::memory_order_relaxed)) {
+        }
+    }
+
+    /**
+     * Gets the number of bytes currently allocated for a memory category.
+     *
+     * @param category The memory category.
+     * @return The number of bytes allocated.
+     */
+    ::std::int64_t getAllocatedBytes(const MemoryCategory category) noexcept {
+        return allocatedBytes[static_cast<::std::uint32_t> (category)].load(::std::memory_order_relaxed);
+    }
+
+    /**
+     * Gets the maximum number of bytes allocated for a memory category since the last call to
+     * {@link resetPeakAllocatedBytes}.
+     * <br>
+     * It captures the transient allocations, like the ones made while parsing a scene and
+     * building its acceleration structure, which a periodic reading of the counters misses.
+     *
+     * @param category The memory category.
+     * @return The peak number of bytes allocated.
+     */
+    ::std::int64_t getPeakAllocatedBytes(const MemoryCategory category) noexcept {
+        return peakBytes[static_cast<::std::uint32_t> (category)].load(::std::memory_order_relaxed);
+    }
+
+    /**
+     * Resets the peak of each memory category to the number of bytes currently allocated.
+     * <br>
+     * It should be called before loading a new scene.
+     */
+    void resetPeakAllocatedBytes() noexcept {
+        for (::std::uint32_t index {}; index < allocatedBytes.size(); ++index) {
+            const auto current {allocatedBytes[index].load(::std::memory_order_relaxed)};
+            peakBytes[index].store(current, ::std::memory_order_relaxed);
+        }
+    }
+}//namespace MobileRT
+
+/**
+ * The constructor.
+ *
+ * @param category The memory category of the counter.
+ */
+MemoryCounter::MemoryCounter(const MemoryCategory category) noexcept :
+    category_ {category} {
+}
+
+/**
+ * The move constructor.
+ * <br>
+ * The size is transferred to the new counter, so the global counter doesn't change.
+ *
+ * @param memoryCounter The counter to move.
+ */
+MemoryCounter::MemoryCounter(MemoryCounter &&memoryCounter) noexcept :
+    category_ {memoryCounter.category_},
+    bytes_ {memoryCounter.bytes_} {
+    memoryCounter.bytes_ = 0;
+}
+
+/**
+ * The move assignment operator.
+ * <br>
+ * The size of this counter is removed from the global counter of its category and the size of the
+ * moved counter is transferred to this one.
+ *
+ * @param memoryCounter The counter to move.
+ * @return This counter.
+ */
+MemoryCounter &MemoryCounter::operator=(MemoryCounter &&memoryCounter) noexcept {
+    if (this != &memoryCounter) {
+        setBytes(0);
+        this->category_ = memoryCounter.category_;
+        this->bytes_ = memoryCounter.bytes_;
+        memoryCounter.bytes_ = 0;
+    }
+    return *this;
+}
+
+/**
+ * The destructor.
+ * <br>
+ * It removes the size of this counter from the global counter of its category.
+ */
+MemoryCounter::~MemoryCounter() {
+    setBytes(0);
+}
+
+/**
+ * Sets the number of bytes allocated by the owner of this counter, and updates the global
+ * counter of its category with the difference.
+ *
+ * @param bytes The number of bytes allocated.
+ */
+void MemoryCounter::setBytes(const ::std::int64_t bytes) noexcept {
+    addAllocatedBytes(this->category_, bytes - this->bytes_);
+    this->bytes_ = bytes;
+}
+
+/**
+ * Gets the number of bytes allocated by the owner of this counter.
+ *
+ * @return The number of bytes allocated.
+ */
+::std::int64_t MemoryCounter::getBytes() const noexcept {
+    return this->bytes_;
+}
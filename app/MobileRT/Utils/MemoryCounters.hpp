@@ -0,0 +1,67 @@
+#ifndef MOBILERT_UTILS_MEMORYCOUNTERS_HPP
+#define MOBILERT_UTILS_MEMORYCOUNTERS_HPP
+
+#include <cstdint>
+
+namespace MobileRT {
+    /**
+     * The subsystems of the Ray Tracer engine whose allocated memory is accounted.
+     * <br>
+     * The values must match the order of the memory counters in the {@code RenderStats} of the
+     * JNI layer.
+     */
+    enum class MemoryCategory : ::std::int32_t {
+        GEOMETRY = 0,
+        ACCELERATOR,
+        MATERIALS,
+        ACCUMULATION,
+        PREVIEW,
+    };
+
+    /**
+     * The number of categories in {@link MemoryCategory}.
+     */
+    const ::std::int32_t NumberOfMemoryCategories {5};
+
+    void addAllocatedBytes(MemoryCategory category, ::std::int64_t bytes) noexcept;
+
+    ::std::int64_t getAllocatedBytes(MemoryCategory category) noexcept;
+
+    ::std::int64_t getPeakAllocatedBytes(MemoryCategory category) noexcept;
+
+    void resetPeakAllocatedBytes() noexcept;
+
+    /**
+     * A counter of the memory allocated by an object for a {@link MemoryCategory}.
+     * <br>
+     * It updates the global counter of its category when its size changes, and removes its size
+     * from the global counter when it is destroyed, so the owner only has to set the size after
+     * allocating its structures.
+     */
+    class MemoryCounter final {
+    private:
+        MemoryCategory category_ {};
+        ::std::int64_t bytes_ {};
+
+    public:
+        explicit MemoryCounter() = delete;
+
+        explicit MemoryCounter(MemoryCategory category) noexcept;
+
+        MemoryCounter(const MemoryCounter &memoryCounter) = delete;
+
+        MemoryCounter(MemoryCounter &&memoryCounter) noexcept;
+
+        ~MemoryCounter();
+
+        MemoryCounter &operator=(const MemoryCounter &memoryCounter) = delete;
+
+        MemoryCounter &operator=(MemoryCounter &&memoryCounter) noexcept;
+
+        void setBytes(::std::int64_t bytes) noexcept;
+
+        ::std::int64_t getBytes() const noexcept;
+    };
+}//namespace MobileRT
+
+#endif //MOBILERT_UTILS_MEMORYCOUNTERS_HPP
@@ -22,14 +22,20 @@
 #include "Components/Shaders/Whitted.hpp"
 #include "MobileRT/Renderer.hpp"
 #include "MobileRT/Scene.hpp"
+#include "MobileRT/Utils/MemoryCounters.hpp"
 #include "Scenes/Scenes.hpp"
 
 #include <android/bitmap.h>
+#include <cmath>
 #include <condition_variable>
+#include <cstring>
 #include <glm/glm.hpp>
 #include <fstream>
+#include <limits>
+#include <malloc.h>
 #include <mutex>
 #include <string>
+#include <utility>
 
 /**
  * The number of frames per second.
@@ -148,6 +154,8 @@ jobject Java_puscas_mobilertapp_MainRenderer_rtInitCameraArray(
                 if (floatBuffer != nullptr) {
                     directBuffer = env->NewDirectByteBuffer(floatBuffer, arrayBytes);
                     if (directBuffer != nullptr) {
+                        ::MobileRT::addAllocatedBytes(::MobileRT::MemoryCategory::PREVIEW,
+                                                      static_cast<::std::int64_t> (arrayBytes));
                         ::std::int32_t i{};
 
                         floatBuffer[i++] = camera->position_.x;
@@ -207,6 +215,74 @@ jobject Java_puscas_mobilertapp_MainRenderer_rtInitCameraArray(
     return nullptr;
 }
 
+/**
+ * Helper method that calculates the axis-aligned bounding box of the vertices of the preview,
+ * which is the bounding box of all the triangles with the Z axis inverted.
+ *
+ * @param triangles The triangles of the scene.
+ * @return The minimum and the maximum points of the bounding box.
+ */
+static ::std::pair<::glm::vec3, ::glm::vec3> calculatePreviewBounds(
+    const ::std::vector<::MobileRT::Triangle> &triangles) {
+    if (triangles.empty()) {
+        return ::std::make_pair(::glm::vec3 {}, ::glm::vec3 {});
+    }
+    const ::glm::vec3 invertZ {1.0F, 1.0F, -1.0F};
+    ::glm::vec3 min {triangles.front().getA() * invertZ};
+    ::glm::vec3 max {min};
+    for (const auto &triangle : triangles) {
+        const ::glm::vec3 pointA {triangle.getA()};
+        for (const auto &point : {pointA, pointA + triangle.getAB(), pointA + triangle.getAC()}) {
+            min = ::glm::min(min, point * invertZ);
+            max = ::glm::max(max, point * invertZ);
+        }
+    }
+    return ::std::make_pair(min, max);
+}
+
+/**
+ * Helper method that quantizes a point of the preview to 16 bits per axis, relative to the
+ * bounding box of the scene, and writes it into 8 bytes of a native buffer.
+ * The last 16 bits are padding, so every vertex stays aligned to 4 bytes.
+ *
+ * @param point       The point, with the Z axis already inverted.
+ * @param boundsMin   The minimum point of the bounding box.
+ * @param boundsRange The size of the bounding box.
+ * @param buffer      The buffer where the 8 bytes are written.
+ */
+static void packPosition(const ::glm::vec3 &point,
+                         const ::glm::vec3 &boundsMin,
+                         const ::glm::vec3 &boundsRange,
+                         float *const buffer) {
+    const auto maxValue {static_cast<float> (::std::numeric_limits<::std::uint16_t>::max())};
+    ::std::uint16_t quantized[4] {};
+    for (::std::int32_t axis {}; axis < 3; ++axis) {
+        if (boundsRange[axis] > 0.0F) {
+            const auto normalized {::glm::clamp((point[axis] - boundsMin[axis]) / boundsRange[axis], 0.0F, 1.0F)};
+            quantized[axis] = static_cast<::std::uint16_t> (::std::lround(normalized * maxValue));
+        }
+    }
+    ::std::memcpy(buffer, quantized, sizeof(quantized));
+}
+
+/**
+ * Helper method that packs a color of the preview as normalized RGBA with 8 bits per channel and
+ * writes it into 4 bytes of a native buffer.
+ *
+ * @param color  The color, whose channels are clamped to [0, 1].
+ * @param buffer The buffer where the 4 bytes are written.
+ */
+static void packColor(const ::glm::vec3 &color, float *const buffer) {
+    const auto maxValue {static_cast<float> (::std::numeric_limits<::std::uint8_t>::max())};
+    ::std::uint8_t packed[4] {
+        static_cast<::std::uint8_t> (::std::lround(::glm::clamp(color.r, 0.0F, 1.0F) * maxValue)),
+        static_cast<::std::uint8_t> (::std::lround(::glm::clamp(color.g, 0.0F, 1.0F) * maxValue)),
+        static_cast<::std::uint8_t> (::std::lround(::glm::clamp(color.b, 0.0F, 1.0F) * maxValue)),
+        ::std::numeric_limits<::std::uint8_t>::max()
+    };
+    ::std::memcpy(buffer, packed, sizeof(packed));
+}
+
 extern "C"
 jobject Java_puscas_mobilertapp_MainRenderer_rtInitVerticesArray(
     JNIEnv *env,
@@ -223,7 +299,8 @@ jobject Java_puscas_mobilertapp_MainRenderer_rtInitVerticesArray(
             const ::std::lock_guard<::std::mutex> lock {mutex_};
             if (renderer_ != nullptr) {
                 const auto &triangles {renderer_->shader_->getTriangles()};
-                const auto arraySize {static_cast<::std::uint32_t> (triangles.size() * 3 * 4)};
+                // Each vertex has 8 bytes: 3 quantized coordinates of 16 bits and 16 bits of padding.
+                const auto arraySize {static_cast<::std::uint32_t> (triangles.size() * 3 * 2)};
                 const auto arrayBytes {arraySize * static_cast<jlong> (sizeof(jfloat))};
 
                 float *const floatBuffer {new float[arraySize]};
@@ -231,34 +308,24 @@ jobject Java_puscas_mobilertapp_MainRenderer_rtInitVerticesArray(
 
                 if (floatBuffer != nullptr) {
                     directBuffer = env->NewDirectByteBuffer(floatBuffer, arrayBytes);
-
                     if (directBuffer != nullptr) {
+                        ::MobileRT::addAllocatedBytes(::MobileRT::MemoryCategory::PREVIEW,
+                                                      static_cast<::std::int64_t> (arrayBytes));
+                        const auto bounds {calculatePreviewBounds(triangles)};
+                        const auto boundsRange {bounds.second - bounds.first};
+                        const ::glm::vec3 invertZ {1.0F, 1.0F, -1.0F};
                         ::std::int32_t i {};
                         for (const auto &triangle : triangles) {
-                            const ::glm::vec4 &pointA {triangle.getA().x,
-                                                      triangle.getA().y,
-                                                      triangle.getA().z, 1.0F};
-                            const ::glm::vec4 &pointB {pointA.x + triangle.getAB().x,
-                                                      pointA.y + triangle.getAB().y,
-                                                      pointA.z + triangle.getAB().z, 1.0F};
-                            const ::glm::vec4 &pointC {pointA.x + triangle.getAC().x,
-                                                      pointA.y + triangle.getAC().y,
-                                                      pointA.z + triangle.getAC().z, 1.0F};
-
-                            floatBuffer[i++] = pointA.x;
-                            floatBuffer[i++] = pointA.y;
-                            floatBuffer[i++] = -pointA.z;
-                            floatBuffer[i++] = pointA.w;
-
-                            floatBuffer[i++] = pointB.x;
-                            floatBuffer[i++] = pointB.y;
-                            floatBuffer[i++] = -pointB.z;
-                            floatBuffer[i++] = pointB.w;
-
-                            floatBuffer[i++] = pointC.x;
-                            floatBuffer[i++] = pointC.y;
-                            floatBuffer[i++] = -pointC.z;
-                            floatBuffer[i++] = pointC.w;
+                            const ::glm::vec3 pointA {triangle.getA()};
+                            const ::glm::vec3 pointB {pointA + triangle.getAB()};
+                            const ::glm::vec3 pointC {pointA + triangle.getAC()};
+
+                            packPosition(pointA * invertZ, bounds.first, boundsRange, &floatBuffer[i]);
+                            i += 2;
+                            packPosition(pointB * invertZ, bounds.first, boundsRange, &floatBuffer[i]);
+                            i += 2;
+                            packPosition(pointC * invertZ, bounds.first, boundsRange, &floatBuffer[i]);
+                            i += 2;
                         }
                     }
 
@@ -291,7 +358,8 @@ jobject Java_puscas_mobilertapp_MainRenderer_rtInitColorsArray(
             const ::std::lock_guard<::std::mutex> lock {mutex_};
             if (renderer_ != nullptr) {
                 const auto &triangles {renderer_->shader_->getTriangles()};
-                const auto arraySize {static_cast<::std::uint32_t> (triangles.size() * 3 * 4)};
+                // Each vertex has 4 bytes: the color packed as RGBA with 8 bits per channel.
+                const auto arraySize {static_cast<::std::uint32_t> (triangles.size() * 3)};
                 const auto arrayBytes {arraySize * static_cast<::std::int64_t> (sizeof(jfloat))};
 
                 float *const floatBuffer {new float[arraySize]};
@@ -300,6 +368,8 @@ jobject Java_puscas_mobilertapp_MainRenderer_rtInitColorsArray(
                 if (floatBuffer != nullptr) {
                     directBuffer = env->NewDirectByteBuffer(floatBuffer, arrayBytes);
                     if (directBuffer != nullptr) {
+                        ::MobileRT::addAllocatedBytes(::MobileRT::MemoryCategory::PREVIEW,
+                                                      static_cast<::std::int64_t> (arrayBytes));
                         ::std::int32_t i {};
                         for (const auto &triangle : triangles) {
                             const auto materialIndex{triangle.getMaterialIndex()};
@@ -319,20 +389,9 @@ jobject Java_puscas_mobilertapp_MainRenderer_rtInitColorsArray(
                             color = ::glm::all(::glm::greaterThan(kT, color)) ? kT : color;
                             color = ::glm::all(::glm::greaterThan(lE, color)) ? lE : color;
 
-                            floatBuffer[i++] = color.r;
-                            floatBuffer[i++] = color.g;
-                            floatBuffer[i++] = color.b;
-                            floatBuffer[i++] = 1.0F;
-
-                            floatBuffer[i++] = color.r;
-                            floatBuffer[i++] = color.g;
-                            floatBuffer[i++] = color.b;
-                            floatBuffer[i++] = 1.0F;
-
-                            floatBuffer[i++] = color.r;
-                            floatBuffer[i++] = color.g;
-                            floatBuffer[i++] = color.b;
-                            floatBuffer[i++] = 1.0F;
+                            packColor(color, &floatBuffer[i++]);
+                            packColor(color, &floatBuffer[i++]);
+                            packColor(color, &floatBuffer[i++]);
                         }
                     }
                 }
@@ -353,6 +412,32 @@ jobject Java_puscas_mobilertapp_MainRenderer_rtInitColorsArray(
     return nullptr;
 }
 
+extern "C"
+jfloatArray Java_puscas_mobilertapp_MainRenderer_rtGetSceneBounds(
+    JNIEnv *env,
+    jobject /*thiz*/
+) {
+    MobileRT::checkSystemError("rtGetSceneBounds start");
+    ::std::pair<::glm::vec3, ::glm::vec3> bounds {};
+    {
+        const ::std::lock_guard<::std::mutex> lock {mutex_};
+        if (renderer_ != nullptr) {
+            bounds = calculatePreviewBounds(renderer_->shader_->getTriangles());
+        }
+    }
+    const jfloat values[6] {
+        bounds.first.x, bounds.first.y, bounds.first.z,
+        bounds.second.x, bounds.second.y, bounds.second.z
+    };
+    const auto result {env->NewFloatArray(6)};
+    if (result != nullptr) {
+        env->SetFloatArrayRegion(result, 0, 6, values);
+    }
+    env->ExceptionClear();
+    MobileRT::checkSystemError("rtGetSceneBounds finish");
+    return result;
+}
+
 static void updateFps() {
     MobileRT::checkSystemError("updateFps start");
     static ::std::int32_t frame {};
@@ -397,6 +482,20 @@ void Java_puscas_mobilertapp_DrawView_rtStopRender(
     jboolean wait
 ) {
     MobileRT::checkSystemError("rtStopRender start");
+    if (!wait) {
+        state_ = State::STOPPED;
+        LOG_DEBUG("STATE = STOPPED");
+        // It is called by the UI thread, so it doesn't wait for the lock, which is held while a
+        // scene is loaded. If the lock is busy, the stop which waits for the renderer stops it.
+        const ::std::unique_lock<::std::mutex> lock {mutex_, ::std::try_to_lock};
+        if (lock.owns_lock() && renderer_ != nullptr) {
+            LOG_DEBUG("RENDERER STOP");
+            renderer_->stopRender();
+        }
+        env->ExceptionClear();
+        MobileRT::checkSystemError("rtStopRender finish");
+        return;
+    }
     {
         LOG_DEBUG("Will get lock");
         state_ = State::STOPPED;
@@ -407,17 +506,15 @@ void Java_puscas_mobilertapp_DrawView_rtStopRender(
             LOG_DEBUG("RENDERER STOP");
             renderer_->stopRender();
         }
-        if (wait) {
-            while (!finishedRendering_) {
-                LOG_DEBUG("WILL TRY TO STOP RENDERER");
-                if (renderer_ != nullptr) {
-                    LOG_DEBUG("RENDERER STOP");
-                    renderer_->stopRender();
-                    break;
-                }
-                rendered_.wait_for(lock, ::std::chrono::seconds(3),
-                                   [&] { return finishedRendering_.load(); });
+        while (!finishedRendering_) {
+            LOG_DEBUG("WILL TRY TO STOP RENDERER");
+            if (renderer_ != nullptr) {
+                LOG_DEBUG("RENDERER STOP");
+                renderer_->stopRender();
+                break;
             }
+            rendered_.wait_for(lock, ::std::chrono::seconds(3),
+                               [&] { return finishedRendering_.load(); });
         }
         LOG_DEBUG("Renderer finished");
     }
@@ -470,6 +567,9 @@ jint Java_puscas_mobilertapp_MainRenderer_rtInitialize(
         const auto samplesLightMethodId {env->GetMethodID(samplesConfigClass, "getSamplesLight", "()I")};
         const auto samplesLight {env->CallIntMethod(samplesConfig, samplesLightMethodId)};
 
+        const auto adaptiveMethodId {env->GetMethodID(samplesConfigClass, "isAdaptive", "()Z")};
+        const auto adaptive {env->CallBooleanMethod(samplesConfig, adaptiveMethodId) == JNI_TRUE};
+
         jboolean isCopy {JNI_FALSE};
         const auto objMethodId {env->GetMethodID(configClass, "getObjFilePath", "()Ljava/lang/String;")};
         const auto localObjFilePath {reinterpret_cast<jstring> (env->CallObjectMethod(localConfig, objMethodId))};
@@ -483,10 +583,15 @@ jint Java_puscas_mobilertapp_MainRenderer_rtInitialize(
         const auto localCamFilePath {reinterpret_cast<jstring> (env->CallObjectMethod(localConfig, camMethodId))};
         const auto *const camFilePath {env->GetStringUTFChars(localCamFilePath, &isCopy)};
 
+        const auto progressiveMethodId {env->GetMethodID(configClass, "isProgressive", "()Z")};
+        const auto progressive {env->CallBooleanMethod(localConfig, progressiveMethodId) == JNI_TRUE};
+
         const auto res {
             [&]() -> ::std::int32_t {
                 const ::std::lock_guard<::std::mutex> lock {mutex_};
                 renderer_ = nullptr;
+                // The peaks of the memory counters are kept from loading the scene until the next one.
+                ::MobileRT::resetPeakAllocatedBytes();
                 const auto ratio{static_cast<float> (width) / height};
                 ::MobileRT::Scene scene{};
                 ::std::unique_ptr<::MobileRT::Sampler> samplerPixel{};
@@ -547,6 +652,7 @@ jint Java_puscas_mobilertapp_MainRenderer_rtInitialize(
                     }
                         break;
                 }
+                scene.updateMemoryCounters();
                 samplerPixel = samplesPixel <= 1
                    ? ::std::unique_ptr<::MobileRT::Sampler>(::MobileRT::std::make_unique<Components::Constant>(0.5F))
                    : ::std::unique_ptr<::MobileRT::Sampler>(::MobileRT::std::make_unique<Components::StaticPCG>());
@@ -616,7 +722,7 @@ jint Java_puscas_mobilertapp_MainRenderer_rtInitialize(
                 const auto nPrimitives {triangles + spheres + planes};
                 renderer_ = ::MobileRT::std::make_unique<::MobileRT::Renderer>(
                     ::std::move(shader), ::std::move(camera), ::std::move(samplerPixel),
-                    width, height, samplesPixel
+                    width, height, samplesPixel, progressive, adaptive
                 );
                 timeRenderer_ = ::std::chrono::duration_cast<::std::chrono::milliseconds>(end - start).count();
                 LOG_INFO("TIME CONSTRUCTION RENDERER = ", timeRenderer_, "ms");
@@ -724,6 +830,9 @@ void Java_puscas_mobilertapp_MainRenderer_rtRenderIntoBitmap(
                     ASSERT(ret == JNI_OK, "Couldn't get the Android bitmap information structure.");
                     LOG_DEBUG("ret = ", ret);
                 }
+                // The samples are accumulated in the pixels of the bitmap while it is locked.
+                ::MobileRT::MemoryCounter accumulationMemory {::MobileRT::MemoryCategory::ACCUMULATION};
+                accumulationMemory.setBytes(static_cast<::std::int64_t> (info.stride) * info.height);
 
                 LOG_DEBUG("rtRenderIntoBitmap step 5");
                 ::std::int32_t rep{1};
@@ -758,6 +867,7 @@ void Java_puscas_mobilertapp_MainRenderer_rtRenderIntoBitmap(
                         ASSERT(result == JNI_OK, "Couldn't unlock the Android bitmap pixels.");
                         static_cast<void> (result);
                     }
+                    accumulationMemory.setBytes(0);
 
                     env->DeleteGlobalRef(globalBitmap);
                     {
@@ -815,52 +925,68 @@ extern "C"
 }
 
 extern "C"
-float Java_puscas_mobilertapp_RenderTask_rtGetFps(
+void Java_puscas_mobilertapp_RenderTask_rtGetStats(
     JNIEnv *env,
-    jobject /*thiz*/
+    jobject /*thiz*/,
+    jobject statsBuffer
 ) {
     if (errno == ETIMEDOUT || errno == EBADF) {
         // Ignore connection timed out
         // Ignore bad file descriptor
         errno = 0;
     }
-    MobileRT::checkSystemError("rtGetFps start");
-    env->ExceptionClear();
-    MobileRT::checkSystemError("rtGetFps finish");
-    return fps_;
-}
-
-extern "C"
-jlong Java_puscas_mobilertapp_RenderTask_rtGetTimeRenderer(
-    JNIEnv *env,
-    jobject /*thiz*/
-) {
-    MobileRT::checkSystemError("rtGetTimeRenderer start");
+    MobileRT::checkSystemError("rtGetStats start");
+    auto *const stats {static_cast<RenderStats *> (env->GetDirectBufferAddress(statsBuffer))};
+    if (stats != nullptr && env->GetDirectBufferCapacity(statsBuffer) >= static_cast<jlong> (sizeof(RenderStats))) {
+        stats->timeRenderer = timeRenderer_;
+        stats->allocatedBytes = static_cast<::std::int64_t> (::mallinfo().uordblks);
+        stats->fps = fps_;
+        stats->state = static_cast<::std::int32_t> (state_.load());
+        {
+            const ::std::lock_guard<::std::mutex> lock {mutex_};
+            if (renderer_ != nullptr) {
+                stats->sample = renderer_->getSample();
+                stats->castedRays = static_cast<::std::int64_t> (renderer_->getTotalCastedRays());
+                stats->intersectedPrimitives = static_cast<::std::int64_t> (renderer_->getTotalIntersectedPrimitives());
+            } else {
+                stats->sample = 0;
+                stats->castedRays = 0;
+                stats->intersectedPrimitives = 0;
+            }
+        }
+        stats->reserved = 0;
+        stats->geometryBytes = ::MobileRT::getAllocatedBytes(::MobileRT::MemoryCategory::GEOMETRY);
+        stats->acceleratorBytes = ::MobileRT::getAllocatedBytes(::MobileRT::MemoryCategory::ACCELERATOR);
+        stats->materialsBytes = ::MobileRT::getAllocatedBytes(::MobileRT::MemoryCategory::MATERIALS);
+        stats->accumulationBytes = ::MobileRT::getAllocatedBytes(::MobileRT::MemoryCategory::ACCUMULATION);
+        stats->previewBytes = ::MobileRT::getAllocatedBytes(::MobileRT::MemoryCategory::PREVIEW);
+        stats->peakGeometryBytes = ::MobileRT::getPeakAllocatedBytes(::MobileRT::MemoryCategory::GEOMETRY);
+        stats->peakAcceleratorBytes = ::MobileRT::getPeakAllocatedBytes(::MobileRT::MemoryCategory::ACCELERATOR);
+        stats->peakMaterialsBytes = ::MobileRT::getPeakAllocatedBytes(::MobileRT::MemoryCategory::MATERIALS);
+        stats->peakAccumulationBytes = ::MobileRT::getPeakAllocatedBytes(::MobileRT::MemoryCategory::ACCUMULATION);
+        stats->peakPreviewBytes = ::MobileRT::getPeakAllocatedBytes(::MobileRT::MemoryCategory::PREVIEW);
+    }
     env->ExceptionClear();
-    MobileRT::checkSystemError("rtGetTimeRenderer finish");
-    return timeRenderer_;
+    MobileRT::checkSystemError("rtGetStats finish");
 }
 
 extern "C"
-::std::int32_t Java_puscas_mobilertapp_RenderTask_rtGetSample(
+void Java_puscas_mobilertapp_RenderTask_rtStopConvergedRender(
     JNIEnv *env,
     jobject /*thiz*/
 ) {
-    if (errno == EBADF) {
-        // Ignore bad file descriptor
-        errno = 0;
-    }
-    MobileRT::checkSystemError("rtGetSample start");
-    ::std::int32_t sample{};
+    MobileRT::checkSystemError("rtStopConvergedRender start");
     {
+        // The state is kept as BUSY, so the render thread sets it to FINISHED when the renderer
+        // returns, like when all the samples were rendered.
         const ::std::lock_guard<::std::mutex> lock {mutex_};
-        if (renderer_ != nullptr) {
-            sample = renderer_->getSample();
+        if (renderer_ != nullptr && state_ == State::BUSY) {
+            LOG_DEBUG("RENDERER CONVERGED");
+            renderer_->stopRender();
         }
     }
     env->ExceptionClear();
-    MobileRT::checkSystemError("rtGetSample finish");
-    return sample;
+    MobileRT::checkSystemError("rtStopConvergedRender finish");
 }
 
 extern "C"
@@ -914,7 +1040,86 @@ jobject Java_puscas_mobilertapp_MainRenderer_rtFreeNativeBuffer(
         auto *buffer{env->GetDirectBufferAddress(bufferRef)};
         float *const floatBuffer{static_cast<float *> (buffer)};
         delete[] floatBuffer;
+        ::MobileRT::addAllocatedBytes(::MobileRT::MemoryCategory::PREVIEW,
+                                      -static_cast<::std::int64_t> (env->GetDirectBufferCapacity(bufferRef)));
     }
     MobileRT::checkSystemError("rtFreeNativeBuffer finish");
     return nullptr;
 }
+
+extern "C"
+void Java_puscas_mobilertapp_MainRenderer_rtGetTileSamples(
+    JNIEnv *env,
+    jobject /*thiz*/,
+    jobject tileSamplesBuffer
+) {
+    MobileRT::checkSystemError("rtGetTileSamples start");
+    auto *const tileSamples {static_cast<::std::int32_t *> (env->GetDirectBufferAddress(tileSamplesBuffer))};
+    const auto size {static_cast<jlong> (sizeof(::std::int32_t) * ::MobileRT::NumberOfTiles)};
+    if (tileSamples != nullptr && env->GetDirectBufferCapacity(tileSamplesBuffer) >= size) {
+        const ::std::lock_guard<::std::mutex> lock {mutex_};
+        if (renderer_ != nullptr) {
+            renderer_->getTileSamples(tileSamples);
+        } else {
+            ::std::fill(tileSamples, tileSamples + ::MobileRT::NumberOfTiles, 0);
+        }
+    }
+    env->ExceptionClear();
+    MobileRT::checkSystemError("rtGetTileSamples finish");
+}
+
+extern "C"
+::std::int32_t Java_puscas_mobilertapp_MainRenderer_rtGetDirtyRows(
+    JNIEnv *env,
+    jobject /*thiz*/
+) {
+    MobileRT::checkSystemError("rtGetDirtyRows start");
+    ::std::uint32_t dirtyRows {};
+    {
+        const ::std::lock_guard<::std::mutex> lock {mutex_};
+        if (renderer_ != nullptr) {
+            dirtyRows = renderer_->consumeDirtyRows();
+        }
+    }
+    env->ExceptionClear();
+    MobileRT::checkSystemError("rtGetDirtyRows finish");
+    return static_cast<::std::int32_t> (dirtyRows);
+}
+
+extern "C"
+::std::int32_t Java_puscas_mobilertapp_MainRenderer_rtBeginCopyRows(
+    JNIEnv *env,
+    jobject /*thiz*/,
+    const jint rows
+) {
+    MobileRT::checkSystemError("rtBeginCopyRows start");
+    ::std::uint32_t copyRows {};
+    {
+        const ::std::lock_guard<::std::mutex> lock {mutex_};
+        if (renderer_ != nullptr) {
+            copyRows = renderer_->beginCopyRows(static_cast<::std::uint32_t> (rows));
+        }
+    }
+    env->ExceptionClear();
+    MobileRT::checkSystemError("rtBeginCopyRows finish");
+    return static_cast<::std::int32_t> (copyRows);
+}
+
+extern "C"
+::std::int32_t Java_puscas_mobilertapp_MainRenderer_rtEndCopyRows(
+    JNIEnv *env,
+    jobject /*thiz*/,
+    const jint rows
+) {
+    MobileRT::checkSystemError("rtEndCopyRows start");
+    ::std::uint32_t copyRows {};
+    {
+        const ::std::lock_guard<::std::mutex> lock {mutex_};
+        if (renderer_ != nullptr) {
+            copyRows = renderer_->endCopyRows(static_cast<::std::uint32_t> (rows));
+        }
+    }
+    env->ExceptionClear();
+    MobileRT::checkSystemError("rtEndCopyRows finish");
+    return static_cast<::std::int32_t> (copyRows);
+}
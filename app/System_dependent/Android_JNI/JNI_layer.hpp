@@ -5,6 +5,7 @@
 #include <android/asset_manager_jni.h>
 #include <android/bitmap.h>
 #include <android/log.h>
+#include <cstdint>
 #include <jni.h>
 #include <memory>
 #include <thread>
@@ -13,6 +14,34 @@ enum class State {
     IDLE = 0, BUSY = 1, FINISHED = 2, STOPPED = 3
 };
 
+/**
+ * The statistics of the MobileRT engine which are copied into a direct buffer
+ * of the JVM with only one JNI call.
+ * The layout must match the offsets in the RenderStats Java class.
+ */
+struct RenderStats {
+    ::std::int64_t timeRenderer;
+    ::std::int64_t castedRays;
+    ::std::int64_t intersectedPrimitives;
+    ::std::int64_t allocatedBytes;
+    float fps;
+    ::std::int32_t sample;
+    ::std::int32_t state;
+    ::std::int32_t reserved;
+    ::std::int64_t geometryBytes;
+    ::std::int64_t acceleratorBytes;
+    ::std::int64_t materialsBytes;
+    ::std::int64_t accumulationBytes;
+    ::std::int64_t previewBytes;
+    ::std::int64_t peakGeometryBytes;
+    ::std::int64_t peakAcceleratorBytes;
+    ::std::int64_t peakMaterialsBytes;
+    ::std::int64_t peakAccumulationBytes;
+    ::std::int64_t peakPreviewBytes;
+};
+
+static_assert(sizeof(RenderStats) == 128, "The RenderStats layout must match the Java class");
+
 
 // JNI
 extern "C"
@@ -52,19 +81,14 @@ jint Java_puscas_mobilertapp_RenderTask_rtGetState(
 );
 
 extern "C"
-jfloat Java_puscas_mobilertapp_RenderTask_rtGetFps(
+void Java_puscas_mobilertapp_RenderTask_rtGetStats(
         JNIEnv *env,
-        jobject
-);
-
-extern "C"
-jlong Java_puscas_mobilertapp_RenderTask_rtGetTimeRenderer(
-        JNIEnv *env,
-        jobject thiz
+        jobject thiz,
+        jobject statsBuffer
 );
 
 extern "C"
-jint Java_puscas_mobilertapp_RenderTask_rtGetSample(
+void Java_puscas_mobilertapp_RenderTask_rtStopConvergedRender(
         JNIEnv *env,
         jobject thiz
 );
@@ -114,6 +138,12 @@ jobject Java_puscas_mobilertapp_MainRenderer_rtInitColorsArray(
         jobject thiz
 );
 
+extern "C"
+jfloatArray Java_puscas_mobilertapp_MainRenderer_rtGetSceneBounds(
+        JNIEnv *env,
+        jobject thiz
+);
+
 extern "C"
 jobject Java_puscas_mobilertapp_MainRenderer_rtInitCameraArray(
         JNIEnv *env,
@@ -134,4 +164,31 @@ jint Java_puscas_mobilertapp_MainRenderer_rtInitialize(
         jobject localConfig
 );
 
+extern "C"
+jint Java_puscas_mobilertapp_MainRenderer_rtGetDirtyRows(
+        JNIEnv *env,
+        jobject thiz
+);
+
+extern "C"
+jint Java_puscas_mobilertapp_MainRenderer_rtBeginCopyRows(
+        JNIEnv *env,
+        jobject thiz,
+        jint rows
+);
+
+extern "C"
+jint Java_puscas_mobilertapp_MainRenderer_rtEndCopyRows(
+        JNIEnv *env,
+        jobject thiz,
+        jint rows
+);
+
+extern "C"
+void Java_puscas_mobilertapp_MainRenderer_rtGetTileSamples(
+        JNIEnv *env,
+        jobject thiz,
+        jobject tileSamplesBuffer
+);
+
 #endif //APP_JNI_LAYER_HPP
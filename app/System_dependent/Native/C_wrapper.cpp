@@ -185,7 +185,8 @@ static void work_thread(::MobileRT::Config &config) {
             LOG_INFO("Started creating Renderer");
             renderer_ = ::MobileRT::std::make_unique<::MobileRT::Renderer> (
                     ::std::move(shader_), ::std::move(camera), ::std::move(samplerPixel),
-                    config.width, config.height, config.samplesPixel
+                    config.width, config.height, config.samplesPixel, config.progressive,
+                    config.adaptive
             );
 
             // Print debug information
@@ -136,8 +136,8 @@ public final class MainRendererTest extends AbstractTest {
         drawView.queueEvent(() -> {
             final int index = UtilsShader.loadShader(shaderType, shaderCode);
             shaderIndex.set(index);
-            UtilsGL.run(() -> GLES20.glDeleteShader(index));
-            UtilsGL.run(GLES20::glReleaseShaderCompiler);
+            UtilsGL.run("glDeleteShader", () -> GLES20.glDeleteShader(index));
+            UtilsGL.run("glReleaseShaderCompiler", GLES20::glReleaseShaderCompiler);
             latch.countDown();
         });
         Assertions.assertTrue(latch.await(1L, TimeUnit.MINUTES), "CountDownLatch has value zero as expected.");
@@ -4,18 +4,47 @@
 // OpenGL ES 2.0 version
 #version 100
 
-// High precision is not necessary
-precision lowp float;
+// Medium precision is necessary: low precision only guarantees the range
+// (-2, 2) with 8 bits, which can't hold the exposed colors nor the
+// denominator of the ACES curve, and loses the dark tones in the gamma curve
+precision mediump float;
 
 // Texture parameter
 uniform sampler2D uniformTexture;
 
+// Exposure parameter, which multiplies the colors
+// Note that the texture has the linear colors of the Ray Tracing engine but
+// already clamped to [0, 1] and quantized to 8 bits per channel, so the
+// highlights clipped by the engine can't be recovered: the tone mapping only
+// reshapes the range [0, 1] of the exposed colors
+uniform float uniformExposure;
+
+// Inverse of the display gamma
+uniform float uniformInverseGamma;
+
+// Tone mapping operator: 0 = none, 1 = Reinhard, 2 = ACES
+uniform int uniformToneMap;
+
+// Heat map with the number of samples of each tile
+uniform sampler2D uniformHeatMap;
+
+// Opacity of the heat map over the image: 0 = hidden
+uniform float uniformHeatMapAlpha;
+
 // Interpolated variable from the vertex shader
 varying vec2 fragmentTexCoord;
 
 // Function for the tonemap
-float toneMap (const float value) {
-    return value;
+vec3 toneMap (const vec3 color) {
+    vec3 exposed = color * uniformExposure;
+    if (uniformToneMap == 1) {
+        return exposed / (1.0 + exposed);
+    }
+    if (uniformToneMap == 2) {
+        // Krzysztof Narkowicz's fit of the ACES filmic curve
+        return clamp((exposed * (2.51 * exposed + 0.03)) / (exposed * (2.43 * exposed + 0.59) + 0.14), 0.0, 1.0);
+    }
+    return clamp(exposed, 0.0, 1.0);
 }
 
 // Main to calculate the color for each pixel in gl_FragColor
@@ -23,6 +52,11 @@ void main () {
     // Get the color for this pixel (interpolated from the nearest vertices)
     vec4 color = texture2D(uniformTexture, fragmentTexCoord);
 
+    vec3 mapped = pow(toneMap(color.rgb), vec3(uniformInverseGamma));
+    if (uniformHeatMapAlpha > 0.0) {
+        mapped = mix(mapped, texture2D(uniformHeatMap, fragmentTexCoord).rgb, uniformHeatMapAlpha);
+    }
+
     // Output the color for this pixel
-    gl_FragColor = vec4(toneMap(color[0]), toneMap(color[1]), toneMap(color[2]), 1.0);
+    gl_FragColor = vec4(mapped, 1.0);
 }
@@ -15,8 +15,14 @@ uniform mat4 uniformViewMatrix;
 // Projection parameter
 uniform mat4 uniformProjectionMatrix;
 
-// Vertex position for each vertex
-attribute vec4 vertexPosition;
+// Minimum point of the bounding box of the scene, to dequantize the positions
+uniform highp vec3 uniformBoundsMin;
+
+// Size of the bounding box of the scene, to dequantize the positions
+uniform highp vec3 uniformBoundsExtent;
+
+// Vertex position for each vertex, normalized to [0, 1] inside the bounding box of the scene
+attribute highp vec3 vertexPosition;
 
 // Vertex color for each vertex
 attribute vec4 vertexColor;
@@ -27,8 +33,10 @@ varying vec4 fragmentColor;
 // Main to calculate the position and color for each vertex in gl_Position and
 // fragmentColor
 void main () {
+    // Dequantize the position for this vertex
+    highp vec4 position = vec4(uniformBoundsMin + vertexPosition * uniformBoundsExtent, 1.0);
     // Output the position for this vertex
-    gl_Position = uniformProjectionMatrix * uniformViewMatrix * uniformModelMatrix * vertexPosition;
+    gl_Position = uniformProjectionMatrix * uniformViewMatrix * uniformModelMatrix * position;
     // Output the color for this vertex
     fragmentColor = vertexColor;
 }
@@ -0,0 +1,316 @@
+package puscas.mobilertapp;
+
+import android.graphics.Bitmap;
+import android.opengl.GLES20;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import java.nio.IntBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+import lombok.Getter;
+import puscas.mobilertapp.constants.ConstantsRenderer;
+import puscas.mobilertapp.utils.FrameBufferConverter;
+import puscas.mobilertapp.utils.UtilsGL;
+
+/**
+ * A pair of display buffers (front and back) with snapshots of the {@link Bitmap} where the
+ * Ray Tracer engine renders the scene.
+ * <br>
+ * The producer (the thread which updates the {@link android.view.View}) copies the rows of
+ * tiles modified by the Ray Tracer engine into a free snapshot and publishes it with an atomic
+ * swap. The OpenGL thread takes the published snapshot and uploads it to the texture, so it
+ * always uploads a consistent image without locking the {@link Bitmap} while the engine keeps
+ * rendering into it.
+ * <br>
+ * The Ray Tracer engine keeps writing into the {@link Bitmap} while it is copied, so the
+ * {@link RowsFence} of the engine tells which rows of tiles have no tile being rendered before
+ * the copy, and which of them still had no tile started after it. Only those rows are published,
+ * and the others are copied again in the next publish, so a snapshot never has half rendered
+ * tiles.
+ * <br>
+ * The snapshots store the pixels already in the OpenGL format (RGBA), so the conversion of the
+ * pixels is done outside of the OpenGL thread. They are only allocated again when the resolution
+ * of the {@link Bitmap} changes.
+ */
+final class DisplayBuffer {
+
+    /**
+     * The number of snapshots: the one being uploaded by the OpenGL thread and the one being
+     * filled by the producer.
+     */
+    private static final int NUMBER_OF_SNAPSHOTS = 2;
+
+    /**
+     * The {@link RowsFence} of the Ray Tracer engine.
+     */
+    private final RowsFence fence;
+
+    /**
+     * The {@link Bitmap} where the Ray Tracer engine renders the scene, or {@code null} if there
+     * is none yet.
+     */
+    @Getter
+    private volatile Bitmap source = null;
+
+    /**
+     * The width of the {@link #source}.
+     */
+    private volatile int width = 0;
+
+    /**
+     * The height of the {@link #source}.
+     */
+    private volatile int height = 0;
+
+    /**
+     * The snapshots which are not published nor being uploaded.
+     */
+    private final BlockingQueue<Snapshot> freeSnapshots = new ArrayBlockingQueue<>(NUMBER_OF_SNAPSHOTS);
+
+    /**
+     * The last published snapshot which wasn't uploaded yet by the OpenGL thread.
+     */
+    private final AtomicReference<Snapshot> readySnapshot = new AtomicReference<>(null);
+
+    /**
+     * The rows of tiles modified by the Ray Tracer engine that weren't copied to a snapshot yet.
+     * It is only accessed by the producer.
+     */
+    private int pendingDirtyRows = 0;
+
+    /**
+     * The constructor.
+     *
+     * @param fence The {@link RowsFence} of the Ray Tracer engine.
+     */
+    DisplayBuffer(@NonNull final RowsFence fence) {
+        this.fence = fence;
+    }
+
+    /**
+     * Sets the {@link Bitmap} where the Ray Tracer engine renders the next scene.
+     * <br>
+     * The snapshots are reused if the resolution didn't change, but the rows published from the
+     * previous {@link Bitmap} and not uploaded yet are discarded.
+     *
+     * @param newSource The {@link Bitmap} where the Ray Tracer engine renders the scene.
+     */
+    synchronized void setSource(@NonNull final Bitmap newSource) {
+        final int newWidth = newSource.getWidth();
+        final int newHeight = newSource.getHeight();
+        final Snapshot staleSnapshot = this.readySnapshot.getAndSet(null);
+        if (newWidth != this.width || newHeight != this.height) {
+            this.width = newWidth;
+            this.height = newHeight;
+            this.freeSnapshots.clear();
+            for (int i = 0; i < NUMBER_OF_SNAPSHOTS; ++i) {
+                this.freeSnapshots.add(new Snapshot(newWidth * newHeight));
+            }
+        } else if (staleSnapshot != null) {
+            recycle(staleSnapshot);
+        }
+        this.pendingDirtyRows = 0;
+        this.source = newSource;
+    }
+
+    /**
+     * Copies the rows of tiles modified by the Ray Tracer engine into a snapshot and publishes it.
+     * <br>
+     * If the OpenGL thread didn't upload the previous published snapshot yet, that snapshot is
+     * reclaimed and updated instead, so the OpenGL thread always gets the most recent one.
+     * The rows of tiles which were being rendered are kept to be copied in the next publish.
+     *
+     * @param dirtyRows The rows of tiles modified since the last call to this method, where each
+     *                  bit represents a row of tiles.
+     * @return Whether a new snapshot was published.
+     */
+    synchronized boolean publish(final int dirtyRows) {
+        this.pendingDirtyRows |= dirtyRows;
+        if (this.pendingDirtyRows == 0 || this.source == null) {
+            return false;
+        }
+
+        final Snapshot reclaimedSnapshot = this.readySnapshot.getAndSet(null);
+        final Snapshot snapshot = reclaimedSnapshot != null ? reclaimedSnapshot : this.freeSnapshots.poll();
+        if (snapshot == null) {
+            // Both snapshots are being used, so the rows are copied in the next publish.
+            return false;
+        }
+
+        final int quietRows = this.fence.beginCopy(this.pendingDirtyRows);
+        forEachRange(quietRows, (startY, numLines) -> copyRows(snapshot, startY, numLines));
+        final int completeRows = quietRows == 0 ? 0 : this.fence.endCopy(quietRows);
+        this.pendingDirtyRows &= ~completeRows;
+        // The rows which were being rendered during the copy may be torn, so they are not
+        // uploaded from this snapshot.
+        snapshot.dirtyRows = (snapshot.dirtyRows & ~quietRows) | completeRows;
+        if (snapshot.dirtyRows == 0) {
+            recycle(snapshot);
+            return false;
+        }
+        this.readySnapshot.set(snapshot);
+        return true;
+    }
+
+    /**
+     * Uploads the last published snapshot to the texture currently bound in the OpenGL context.
+     * Only the rows of tiles modified since the last upload are sent to the GPU.
+     * <br>
+     * It should only be called by the OpenGL thread.
+     *
+     * @return Whether a snapshot was uploaded.
+     */
+    boolean upload() {
+        final Snapshot snapshot = this.readySnapshot.getAndSet(null);
+        if (snapshot == null || snapshot.pixels.length != this.width * this.height) {
+            return false;
+        }
+
+        forEachRange(snapshot.dirtyRows, (startY, numLines) -> {
+            final IntBuffer intBuffer = IntBuffer.wrap(snapshot.pixels, startY * this.width, this.width * numLines);
+            UtilsGL.run("glTexSubImage2D", () -> GLES20.glTexSubImage2D(GLES20.GL_TEXTURE_2D, 0, 0, startY,
+                this.width, numLines, GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE, intBuffer));
+        });
+        snapshot.dirtyRows = 0;
+        recycle(snapshot);
+        return true;
+    }
+
+    /**
+     * Gets the number of snapshots which are free to be filled by the producer.
+     *
+     * @return The number of free snapshots.
+     */
+    @VisibleForTesting
+    int getNumberOfFreeSnapshots() {
+        return this.freeSnapshots.size();
+    }
+
+    /**
+     * Helper method that gives back a snapshot to the free ones, unless it has the resolution of a
+     * previous {@link #source}.
+     *
+     * @param snapshot The snapshot which is not used anymore.
+     */
+    private void recycle(@NonNull final Snapshot snapshot) {
+        if (snapshot.pixels.length == this.width * this.height) {
+            this.freeSnapshots.offer(snapshot);
+        }
+    }
+
+    /**
+     * Helper method that copies some consecutive lines of the {@link #source} into a snapshot
+     * and converts them to the OpenGL format.
+     *
+     * @param snapshot The snapshot to fill.
+     * @param startY   The first line to copy.
+     * @param numLines The number of lines to copy.
+     */
+    private void copyRows(@NonNull final Snapshot snapshot, final int startY, final int numLines) {
+        final int offset = startY * this.width;
+        final int end = offset + this.width * numLines;
+        final int[] pixels = snapshot.pixels;
+        this.source.getPixels(pixels, offset, this.width, 0, startY, this.width, numLines);
+        // Swapping the red and blue channels also converts from Android format to OpenGL format.
+        for (int i = offset; i < end; ++i) {
+            pixels[i] = FrameBufferConverter.convertPixel(pixels[i]);
+        }
+    }
+
+    /**
+     * Helper method that calls an action for each range of consecutive lines of the image that
+     * are covered by the modified rows of tiles.
+     * The height of the tiles is calculated like in the Ray Tracer engine, which maps the first
+     * line of a tile to its row of tiles with the same height, and the last row of tiles also
+     * covers the remaining lines of the image.
+     *
+     * @param dirtyRows The modified rows of tiles, where each bit represents a row of tiles.
+     * @param action    The action to call with the first line and the number of lines of each
+     *                  range.
+     */
+    private void forEachRange(final int dirtyRows, @NonNull final LinesAction action) {
+        final int rowsPerTile = Math.max(this.height / ConstantsRenderer.NUMBER_OF_TILE_ROWS, 1);
+        int remainingRows = dirtyRows;
+        while (remainingRows != 0) {
+            final int firstTileRow = Integer.numberOfTrailingZeros(remainingRows);
+            final int numTileRows = Integer.numberOfTrailingZeros(~(remainingRows >>> firstTileRow));
+            final int lastTileRow = firstTileRow + numTileRows;
+            remainingRows &= lastTileRow >= Integer.SIZE ? 0 : -1 << lastTileRow;
+
+            final int startY = Math.min(firstTileRow * rowsPerTile, this.height);
+            final int endY = lastTileRow >= ConstantsRenderer.NUMBER_OF_TILE_ROWS
+                ? this.height : Math.min(lastTileRow * rowsPerTile, this.height);
+            if (endY > startY) {
+                action.accept(startY, endY - startY);
+            }
+        }
+    }
+
+    /**
+     * The fence of the Ray Tracer engine which tells which rows of tiles can be copied without
+     * getting a tile which is still being rendered.
+     */
+    interface RowsFence {
+
+        /**
+         * Starts copying some rows of tiles.
+         *
+         * @param rows The rows of tiles to copy, where each bit represents a row of tiles.
+         * @return The rows of tiles, from the ones to copy, which have no tile being rendered.
+         */
+        int beginCopy(int rows);
+
+        /**
+         * Finishes copying some rows of tiles.
+         *
+         * @param rows The rows of tiles returned by {@link #beginCopy(int)}.
+         * @return The rows of tiles which had no tile started during the copy, so they were
+         *     copied completely.
+         */
+        int endCopy(int rows);
+    }
+
+    /**
+     * An action over a range of consecutive lines of the image.
+     */
+    private interface LinesAction {
+
+        /**
+         * Performs this action.
+         *
+         * @param startY   The first line of the range.
+         * @param numLines The number of lines in the range.
+         */
+        void accept(int startY, int numLines);
+    }
+
+    /**
+     * A copy of the pixels of the {@link #source} in the OpenGL format.
+     */
+    private static final class Snapshot {
+
+        /**
+         * The pixels of the whole image.
+         */
+        private final int[] pixels;
+
+        /**
+         * The rows of tiles copied to this snapshot which weren't uploaded to the texture yet.
+         */
+        private int dirtyRows = 0;
+
+        /**
+         * The constructor.
+         *
+         * @param size The number of pixels in the image.
+         */
+        private Snapshot(final int size) {
+            this.pixels = new int[size];
+        }
+    }
+
+}
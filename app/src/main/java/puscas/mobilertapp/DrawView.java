@@ -2,6 +2,7 @@ package puscas.mobilertapp;
 
 import android.app.Activity;
 import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.content.ContextWrapper;
 import android.opengl.GLSurfaceView;
@@ -13,29 +14,28 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.annotation.VisibleForTesting;
 
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-
-import java8.util.Optional;
+
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.java.Log;
 import puscas.mobilertapp.configs.Config;
+import puscas.mobilertapp.configs.ConfigConvergence;
 import puscas.mobilertapp.configs.ConfigResolution;
+import puscas.mobilertapp.configs.ConfigToneMap;
+import puscas.mobilertapp.constants.Accelerator;
 import puscas.mobilertapp.constants.ConstantsError;
 import puscas.mobilertapp.constants.ConstantsMethods;
-import puscas.mobilertapp.constants.ConstantsRenderer;
 import puscas.mobilertapp.constants.ConstantsToast;
 import puscas.mobilertapp.constants.State;
 import puscas.mobilertapp.exceptions.FailureException;
 import puscas.mobilertapp.exceptions.LowMemoryException;
-import puscas.mobilertapp.utils.Utils;
-import puscas.mobilertapp.utils.UtilsLogging;
+import puscas.mobilertapp.metrics.RenderMetricsWriter;
+import puscas.mobilertapp.metrics.TraceRecorder;
+import puscas.mobilertapp.utils.RenderScheduler;
 
 /**
  * The {@link GLSurfaceView} to show the scene being rendered.
@@ -50,13 +50,6 @@ public final class DrawView extends GLSurfaceView {
     @Getter(AccessLevel.PUBLIC)
     private final MainRenderer renderer = new MainRenderer();
 
-    /**
-     * The {@link ExecutorService} which holds
-     * {@link ConstantsRenderer#NUMBER_THREADS} number of threads that will
-     * create Ray Tracer engine renderer.
-     */
-    private final ExecutorService executorService = Executors.newFixedThreadPool(ConstantsRenderer.NUMBER_THREADS);
-
     /**
      * The changing configs.
      *
@@ -66,9 +59,11 @@ public final class DrawView extends GLSurfaceView {
     private boolean changingConfigs = false;
 
     /**
-     * The last task submitted to {@link #executorService}.
+     * The {@link RenderSequencer} which runs the requests to start and stop the renders in the
+     * background threads of the {@link RenderScheduler}, one at a time.
+     * It is only created with the first request.
      */
-    private Future<Boolean> lastTask = null;
+    private RenderSequencer sequencer = null;
 
     /**
      * The constructor for this class.
@@ -117,6 +112,9 @@ public final class DrawView extends GLSurfaceView {
 
     /**
      * Stops the Ray Tracer engine and sets its {@link State} to {@link State#STOPPED}.
+     * <br>
+     * Without waiting, it never blocks: it only stops the Ray Tracer engine if no other thread
+     * holds the lock of the engine, like while a scene is loaded.
      *
      * @param wait Whether it should wait for the Ray Tracer engine to stop.
      */
@@ -176,56 +174,45 @@ public final class DrawView extends GLSurfaceView {
     }
 
     /**
-     * Stops the Ray Tracer engine and waits for it to stop rendering.
+     * Stops the Ray Tracer engine.
+     * <br>
+     * It doesn't block: the Ray Tracer engine and the current {@link RenderTask} are only
+     * signalled to stop without waiting for the lock of the engine, and a request which stops
+     * and waits for them is chained in the {@link RenderSequencer}, so it supersedes any render
+     * which didn't start yet.
      */
     void stopDrawing() {
         log.info("stopDrawing");
 
-        rtStopRender(true);
-        Optional.ofNullable(this.lastTask)
-            .ifPresent(task -> task.cancel(false));
-
-        waitLastTask();
+        rtStopRender(false);
+        this.renderer.cancelRenderTask();
         this.renderer.updateButton(R.string.render);
 
+        getSequencer().submit("stopDrawing", generation -> {
+            rtStopRender(true);
+            this.renderer.waitLastTask();
+        });
+
         final String message = "stopDrawing" + ConstantsMethods.FINISHED;
         log.info(message);
     }
 
     /**
      * Asynchronously creates the requested scene and starts rendering it.
+     * <br>
+     * It doesn't block: the render is chained in the {@link RenderSequencer} after the cleanup of
+     * the previous one, and it is dropped if a newer request supersedes it before it starts.
      *
      * @param config The ray tracer configuration.
      */
     void renderScene(@NonNull final Config config) {
         log.info(ConstantsMethods.RENDER_SCENE);
 
-        waitLastTask();
         MainActivity.resetErrno();
         rtStartRender(false);
 
-        this.lastTask = this.executorService.submit(() -> {
-            this.renderer.waitLastTask();
-            try {
-                rtStartRender(true);
-                startRayTracing(config);
-                return Boolean.TRUE;
-            } catch (final LowMemoryException ex) {
-                MainActivity.showUiMessage(ConstantsToast.DEVICE_WITHOUT_ENOUGH_MEMORY + ex.getMessage());
-            } catch (final RuntimeException ex) {
-                renderer.resetStats();
-                MainActivity.showUiMessage(ConstantsToast.COULD_NOT_LOAD_THE_SCENE + ex.getMessage());
-            }
-
-            final String messageFailed = ConstantsMethods.RENDER_SCENE + " executor failed";
-            log.severe(messageFailed);
-            this.renderer.rtFinishRender();
-
-            // Only the UI thread can update the text in the Render button.
-            post(() -> this.renderer.updateButton(R.string.render));
-
-            return Boolean.FALSE;
-        });
+        getSequencer().submit(ConstantsMethods.RENDER_SCENE,
+            generation -> startRenderScene(config, generation));
 
         // This should be executed by the UI thread, so it's good to go.
         this.renderer.updateButton(R.string.stop);
@@ -234,6 +221,58 @@ public final class DrawView extends GLSurfaceView {
         log.info(messageFinished);
     }
 
+    /**
+     * Helper method which gets the {@link RenderSequencer}, creating it if necessary.
+     *
+     * @return The {@link RenderSequencer}.
+     */
+    @NonNull
+    private synchronized RenderSequencer getSequencer() {
+        if (this.sequencer == null) {
+            this.sequencer = new RenderSequencer(RenderScheduler.getInstance().getBackgroundExecutor());
+        }
+        return this.sequencer;
+    }
+
+    /**
+     * Helper method, run by the {@link RenderSequencer}, which waits for the previous render to
+     * finish and then starts the new one, unless it was superseded meanwhile.
+     *
+     * @param config     The ray tracer configuration.
+     * @param generation The generation of the request in the {@link RenderSequencer}.
+     */
+    private void startRenderScene(@NonNull final Config config, final long generation) {
+        final long start = TraceRecorder.getInstance().begin();
+        this.renderer.waitLastTask();
+        try {
+            rtStartRender(true);
+            if (getSequencer().isSuperseded(generation)) {
+                final String message = ConstantsMethods.RENDER_SCENE + " superseded";
+                log.info(message);
+                // Lets the next request start the Ray Tracer engine.
+                this.renderer.rtFinishRender();
+                return;
+            }
+            startRayTracing(config);
+            return;
+        } catch (final LowMemoryException ex) {
+            MainActivity.showUiMessage(ConstantsToast.DEVICE_WITHOUT_ENOUGH_MEMORY + ex.getMessage());
+        } catch (final RuntimeException ex) {
+            renderer.resetStats();
+            MainActivity.showUiMessage(ConstantsToast.COULD_NOT_LOAD_THE_SCENE + ex.getMessage());
+        } finally {
+            // The span is recorded even if the render was superseded or failed.
+            TraceRecorder.getInstance().end("DrawView#renderScene", start);
+        }
+
+        final String messageFailed = ConstantsMethods.RENDER_SCENE + " executor failed";
+        log.severe(messageFailed);
+        this.renderer.rtFinishRender();
+
+        // Only the UI thread can update the text in the Render button.
+        post(() -> this.renderer.updateButton(R.string.render));
+    }
+
     /**
      * Helper method that prepares the scene and starts the Ray Tracing engine
      * to render it.
@@ -253,49 +292,36 @@ public final class DrawView extends GLSurfaceView {
         log.info(messageFinished);
     }
 
-    /**
-     * Waits for the result of the last task submitted to the {@link ExecutorService}.
-     */
-    void waitLastTask() {
-        log.info("waitLastTask");
-
-        this.renderer.waitLastTask();
-        Optional.ofNullable(this.lastTask)
-            .ifPresent(task -> {
-                try {
-                    task.get(1L, TimeUnit.DAYS);
-                } catch (final ExecutionException | TimeoutException | RuntimeException ex) {
-                    UtilsLogging.logThrowable(ex, "DrawView#waitLastTask");
-                } catch (final InterruptedException ex) {
-                    Thread.currentThread().interrupt();
-                } finally {
-                    Utils.handleInterruption("DrawView#waitLastTask");
-                }
-            });
-
-        final String message = "waitLastTask" + ConstantsMethods.FINISHED;
-        log.info(message);
-    }
-
     /**
      * Loads the scene and creates the Ray Tracer renderer.
+     * The memory needed is planned before loading the scene, so a cheaper accelerator can be
+     * used if the chosen one doesn't fit in the available memory.
      *
-     * @param config The ray tracer configuration.
+     * @param requestedConfig The ray tracer configuration.
      * @throws LowMemoryException If the device has low free memory.
      */
-    private void createScene(final Config config) throws LowMemoryException {
+    private void createScene(final Config requestedConfig) throws LowMemoryException {
         log.info("createScene");
 
+        final ConfigResolution configResolutionView =
+            ConfigResolution.builder().width(getWidth()).height(getHeight()).build();
+        final Config config = this.renderer.planMemoryBudget(requestedConfig, configResolutionView);
+        if (config.getAccelerator() != requestedConfig.getAccelerator()) {
+            MainActivity.showUiMessage(ConstantsToast.ACCELERATOR_WITHOUT_ENOUGH_MEMORY
+                + Accelerator.values()[config.getAccelerator()].getName());
+        }
+
+        final TraceRecorder trace = TraceRecorder.getInstance();
+        final long start = trace.begin();
         MainActivity.resetErrno();
-        final int numPrimitives = this.renderer.rtInitialize(config);
+        final int numPrimitives = this.renderer.loadScene(config);
+        trace.end("MainRenderer#rtInitialize", start);
 
         this.renderer.resetStats(config.getThreads(), config.getConfigSamples(),
             numPrimitives, rtGetNumberOfLights());
-        final int widthView = getWidth();
-        final int heightView = getHeight();
         queueEvent(() -> this.renderer.setBitmap(
             config.getConfigResolution(),
-            ConfigResolution.builder().width(widthView).height(heightView).build(),
+            configResolutionView,
             config.isRasterize()
         ));
     }
@@ -354,16 +380,41 @@ public final class DrawView extends GLSurfaceView {
      * classes like {@link MainActivity} terminate properly the Ray Tracing
      * engine without having to not obey the law of Demeter.
      *
-     * @implNote This method calls {@link MainRenderer#rtFinishRender()} and
-     *     also {@link MainRenderer#freeArrays()}.
+     * @implNote This method calls {@link MainRenderer#cancelRenderTask()},
+     *     {@link MainRenderer#rtFinishRender()} and also
+     *     {@link MainRenderer#trimNativeBuffers()}.
      * @see <a href="https://en.wikipedia.org/wiki/Law_of_Demeter">Law of Demeter</a>
      */
     void finishRenderer() {
         log.info("finishRenderer");
 
         MainActivity.resetErrno();
+        this.renderer.cancelRenderTask();
         this.renderer.rtFinishRender();
-        this.renderer.freeArrays();
+        this.renderer.trimNativeBuffers();
+    }
+
+    /**
+     * Creates the {@link MemoryTrimHandler} which releases the caches of the
+     * {@link MainRenderer} in the OpenGL thread when the system signals memory pressure.
+     * The caches are released in order: the native arrays of the preview, the cached shader
+     * programs, the reused bitmaps and the geometry of the cached scene.
+     *
+     * @return The {@link MemoryTrimHandler}.
+     */
+    @NonNull
+    MemoryTrimHandler createMemoryTrimHandler() {
+        final List<MemoryTrimHandler.Step> steps = ImmutableList.of(
+            new MemoryTrimHandler.Step("preview arrays",
+                ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE, this.renderer::releasePreviewArrays),
+            new MemoryTrimHandler.Step("shader programs",
+                ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW, this.renderer::releaseShaderPrograms),
+            new MemoryTrimHandler.Step("pooled bitmaps",
+                ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL, this.renderer::releasePooledBitmaps),
+            new MemoryTrimHandler.Step("cached scenes",
+                ComponentCallbacks2.TRIM_MEMORY_BACKGROUND, this.renderer::releaseCachedScenes)
+        );
+        return new MemoryTrimHandler(steps, this::queueEvent);
     }
 
     /**
@@ -391,6 +442,48 @@ public final class DrawView extends GLSurfaceView {
         this.renderer.setUpShadersCode(shadersCode, shadersPreviewCode);
     }
 
+    /**
+     * Sets the tone mapping of the rendered image and redraws it, without rendering the scene
+     * again.
+     *
+     * @param configToneMap The new {@link ConfigToneMap}.
+     */
+    void setToneMap(@NonNull final ConfigToneMap configToneMap) {
+        this.renderer.setConfigToneMap(configToneMap);
+        requestRender();
+    }
+
+    /**
+     * Sets whether the next renders stop automatically once the image converged.
+     *
+     * @param configConvergence The new {@link ConfigConvergence}.
+     */
+    void setConvergence(@NonNull final ConfigConvergence configConvergence) {
+        this.renderer.setConfigConvergence(configConvergence);
+    }
+
+    /**
+     * Sets whether the heat map with the number of samples of each tile is drawn over the
+     * rendered image.
+     * It is applied in the next frame, without having to render the scene again.
+     *
+     * @param heatMapOverlay Whether the heat map is drawn.
+     */
+    void setHeatMapOverlay(final boolean heatMapOverlay) {
+        this.renderer.setHeatMapOverlay(heatMapOverlay);
+        requestRender();
+    }
+
+    /**
+     * Prepares the {@link MainRenderer} with the {@link RenderMetricsWriter} where the metrics of
+     * each render are written.
+     *
+     * @param metricsWriter The {@link RenderMetricsWriter}.
+     */
+    void setUpMetricsWriter(@NonNull final RenderMetricsWriter metricsWriter) {
+        this.renderer.setMetricsWriter(metricsWriter);
+    }
+
     /**
      * Prepares the {@link MainRenderer} with the render button for the {@link RenderTask}.
      *
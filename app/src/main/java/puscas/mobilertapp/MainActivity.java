@@ -10,11 +10,13 @@ import android.net.Uri;
 import android.opengl.GLES20;
 import android.opengl.GLSurfaceView;
 import android.os.Bundle;
+import android.os.Process;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.ViewTreeObserver;
 import android.widget.Button;
 import android.widget.CheckBox;
+import android.widget.CompoundButton;
 import android.widget.NumberPicker;
 import android.widget.TextView;
 import android.widget.Toast;
@@ -29,16 +31,21 @@ import com.google.common.collect.ImmutableMap;
 
 import org.apache.commons.lang3.tuple.Pair;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 import java8.util.Optional;
 import java8.util.stream.IntStreams;
 import java8.util.stream.StreamSupport;
 import lombok.extern.java.Log;
 import puscas.mobilertapp.configs.Config;
+import puscas.mobilertapp.configs.ConfigConvergence;
 import puscas.mobilertapp.configs.ConfigResolution;
 import puscas.mobilertapp.configs.ConfigSamples;
+import puscas.mobilertapp.configs.ConfigToneMap;
 import puscas.mobilertapp.constants.Accelerator;
 import puscas.mobilertapp.constants.Constants;
 import puscas.mobilertapp.constants.ConstantsMethods;
@@ -47,7 +54,12 @@ import puscas.mobilertapp.constants.ConstantsUI;
 import puscas.mobilertapp.constants.Scene;
 import puscas.mobilertapp.constants.Shader;
 import puscas.mobilertapp.constants.State;
+import puscas.mobilertapp.constants.ToneMap;
 import puscas.mobilertapp.exceptions.FailureException;
+import puscas.mobilertapp.metrics.MetricsFormat;
+import puscas.mobilertapp.metrics.RenderMetricsWriter;
+import puscas.mobilertapp.metrics.TraceRecorder;
+import puscas.mobilertapp.utils.RenderScheduler;
 import puscas.mobilertapp.utils.Utils;
 import puscas.mobilertapp.utils.UtilsContext;
 import puscas.mobilertapp.utils.UtilsGL;
@@ -76,6 +88,16 @@ public final class MainActivity extends Activity {
      */
     private static final int REQUIRED_OPENGL_VERSION = 0x20000;
 
+    /**
+     * The name, without extension, of the file where the metrics of each render are appended.
+     */
+    private static final String METRICS_FILE_NAME = "render_metrics";
+
+    /**
+     * The name of the file where the trace of the render pipeline is written.
+     */
+    private static final String TRACE_FILE_NAME = "render_trace.json";
+
     /**
      * The current active instance of {@link MainActivity}.
      * <p>
@@ -100,6 +122,12 @@ public final class MainActivity extends Activity {
      */
     private DrawView drawView = null;
 
+    /**
+     * The {@link MemoryTrimHandler} which releases the caches when the system signals memory
+     * pressure.
+     */
+    private MemoryTrimHandler memoryTrimHandler = null;
+
     /**
      * The {@link NumberPicker} to select the scene to render.
      */
@@ -142,6 +170,29 @@ public final class MainActivity extends Activity {
      */
     private CheckBox checkBoxRasterize = null;
 
+    /**
+     * The {@link NumberPicker} to select the tone mapping operator applied when drawing the
+     * rendered image.
+     */
+    private NumberPicker pickerToneMap = null;
+
+    /**
+     * The {@link CheckBox} to select whether the renders stop automatically once the image
+     * converged.
+     */
+    private CheckBox checkBoxConvergence = null;
+
+    /**
+     * The {@link CheckBox} to select whether the heat map with the number of samples of each tile
+     * is drawn over the rendered image.
+     */
+    private CheckBox checkBoxHeatMap = null;
+
+    /**
+     * The {@link CheckBox} to select whether the Ray Tracer engine uses adaptive sampling.
+     */
+    private CheckBox checkBoxAdaptive = null;
+
     /**
      * The path to a directory containing the OBJ and MTL files of a scene.
      */
@@ -247,6 +298,14 @@ public final class MainActivity extends Activity {
         initializeViews();
 
         final TextView textView = findViewById(R.id.timeText);
+        textView.setOnLongClickListener((final View view) -> {
+            try {
+                RenderScheduler.getInstance().getBackgroundExecutor().execute(this::writeTrace);
+            } catch (final RejectedExecutionException ex) {
+                UtilsLogging.logThrowable(ex, "MainActivity#writeTrace");
+            }
+            return true;
+        });
         final Button renderButton = findViewById(R.id.renderButton);
         renderButton.setOnClickListener(this::startRender);
 
@@ -260,6 +319,12 @@ public final class MainActivity extends Activity {
         initializePickers(bundle);
         initializeCheckBoxRasterize(bundle.map(x -> x.getBoolean(ConstantsUI.CHECK_BOX_RASTERIZE))
             .orElse(true));
+        initializeCheckBoxConvergence(bundle.map(x -> x.getBoolean(ConstantsUI.CHECK_BOX_CONVERGENCE))
+            .orElse(false));
+        initializeCheckBoxHeatMap(bundle.map(x -> x.getBoolean(ConstantsUI.CHECK_BOX_HEAT_MAP))
+            .orElse(false));
+        this.checkBoxAdaptive.setChecked(bundle.map(x -> x.getBoolean(ConstantsUI.CHECK_BOX_ADAPTIVE))
+            .orElse(false));
 
         UtilsContext.checksStoragePermission(this);
         UtilsContext.checksInternetPermission(this);
@@ -280,6 +345,10 @@ public final class MainActivity extends Activity {
         final int samplesLight = savedInstanceState.getInt(ConstantsUI.PICKER_SAMPLES_LIGHT);
         final int sizes = savedInstanceState.getInt(ConstantsUI.PICKER_SIZE);
         final boolean rasterize = savedInstanceState.getBoolean(ConstantsUI.CHECK_BOX_RASTERIZE);
+        final int toneMap = savedInstanceState.getInt(ConstantsUI.PICKER_TONE_MAP);
+        final boolean convergence = savedInstanceState.getBoolean(ConstantsUI.CHECK_BOX_CONVERGENCE);
+        final boolean heatMap = savedInstanceState.getBoolean(ConstantsUI.CHECK_BOX_HEAT_MAP);
+        final boolean adaptive = savedInstanceState.getBoolean(ConstantsUI.CHECK_BOX_ADAPTIVE);
 
         this.pickerScene.setValue(scene);
         this.pickerShader.setValue(shader);
@@ -289,6 +358,13 @@ public final class MainActivity extends Activity {
         this.pickerSamplesLight.setValue(samplesLight);
         this.pickerResolutions.setValue(sizes);
         this.checkBoxRasterize.setChecked(rasterize);
+        this.pickerToneMap.setValue(toneMap);
+        setToneMap(toneMap);
+        this.checkBoxConvergence.setChecked(convergence);
+        setConvergence(convergence);
+        this.checkBoxHeatMap.setChecked(heatMap);
+        this.drawView.setHeatMapOverlay(heatMap);
+        this.checkBoxAdaptive.setChecked(adaptive);
     }
 
     @Override
@@ -329,6 +405,10 @@ public final class MainActivity extends Activity {
         outState.putInt(ConstantsUI.PICKER_SAMPLES_LIGHT, this.pickerSamplesLight.getValue());
         outState.putInt(ConstantsUI.PICKER_SIZE, this.pickerResolutions.getValue());
         outState.putBoolean(ConstantsUI.CHECK_BOX_RASTERIZE, this.checkBoxRasterize.isChecked());
+        outState.putInt(ConstantsUI.PICKER_TONE_MAP, this.pickerToneMap.getValue());
+        outState.putBoolean(ConstantsUI.CHECK_BOX_CONVERGENCE, this.checkBoxConvergence.isChecked());
+        outState.putBoolean(ConstantsUI.CHECK_BOX_HEAT_MAP, this.checkBoxHeatMap.isChecked());
+        outState.putBoolean(ConstantsUI.CHECK_BOX_ADAPTIVE, this.checkBoxAdaptive.isChecked());
 
         this.drawView.finishRenderer();
     }
@@ -354,6 +434,10 @@ public final class MainActivity extends Activity {
         super.onDestroy();
         log.info(ConstantsMethods.ON_DESTROY);
 
+        if (this.memoryTrimHandler != null) {
+            unregisterComponentCallbacks(this.memoryTrimHandler);
+            this.memoryTrimHandler = null;
+        }
         this.drawView.onDetachedFromWindow();
         this.drawView.setVisibility(View.INVISIBLE);
 
@@ -578,6 +662,7 @@ public final class MainActivity extends Activity {
                 ConfigSamples.builder()
                     .samplesPixel(Utils.getValueFromPicker(this.pickerSamplesPixel))
                     .samplesLight(Utils.getValueFromPicker(this.pickerSamplesLight))
+                    .adaptive(this.checkBoxAdaptive.isChecked())
                     .build()
             )
             .configResolution(
@@ -653,6 +738,25 @@ public final class MainActivity extends Activity {
 
         initializePickerResolutions(bundle.map(x -> x.getInt(ConstantsUI.PICKER_SIZE))
             .orElse(4));
+
+        initializePicker(this.pickerToneMap, bundle.map(x -> x.getInt(ConstantsUI.PICKER_TONE_MAP))
+            .orElse(0), ToneMap.getNames());
+        setToneMap(this.pickerToneMap.getValue());
+        this.pickerToneMap.setOnValueChangedListener(
+            (final NumberPicker picker, final int oldValue, final int newValue) ->
+                setToneMap(newValue));
+    }
+
+    /**
+     * Helper method that sets the tone mapping operator applied by the {@link DrawView} when
+     * drawing the rendered image, which only needs a redraw.
+     *
+     * @param toneMap The index of the {@link ToneMap} selected in {@link #pickerToneMap}.
+     */
+    private void setToneMap(final int toneMap) {
+        this.drawView.setToneMap(ConfigToneMap.builder()
+            .toneMap(ToneMap.values()[toneMap])
+            .build());
     }
 
     /**
@@ -678,6 +782,8 @@ public final class MainActivity extends Activity {
             Context.ACTIVITY_SERVICE);
         this.drawView.setViewAndActivityManager(textView, activityManager);
         this.drawView.setRenderMode(GLSurfaceView.RENDERMODE_WHEN_DIRTY);
+        this.memoryTrimHandler = this.drawView.createMemoryTrimHandler();
+        registerComponentCallbacks(this.memoryTrimHandler);
 
         renderButton.setOnLongClickListener((final View view) -> {
             recreate();
@@ -699,12 +805,60 @@ public final class MainActivity extends Activity {
 
         this.drawView.setUpShadersCode(shadersRayTracing, shadersPreview);
         this.drawView.setUpButtonRender(renderButton);
+        this.drawView.setUpMetricsWriter(createMetricsWriter());
         this.drawView.setVisibility(View.VISIBLE);
         this.drawView.setPreserveEGLContextOnPause(true);
 
         log.info("setupRenderer finish");
     }
 
+    /**
+     * Helper method that gets the directory where the metrics and traces of the renders are
+     * written. It is the external files directory of the application, so the files can be pulled
+     * from the device without root access, or the internal files directory if the external
+     * storage isn't available.
+     *
+     * @return The output directory.
+     */
+    @NonNull
+    private File getOutputDirectory() {
+        return Optional.ofNullable(getExternalFilesDir(null))
+            .orElse(getFilesDir());
+    }
+
+    /**
+     * Helper method that writes the spans recorded by the {@link TraceRecorder} to a Chrome
+     * trace-event JSON file in the {@link #getOutputDirectory()}, and shows its path.
+     * It is called when the statistics text is long clicked.
+     */
+    private void writeTrace() {
+        log.info("writeTrace");
+
+        final File file = new File(getOutputDirectory(), TRACE_FILE_NAME);
+        try {
+            TraceRecorder.getInstance().dump(file, Process.myPid());
+            showUiMessage(ConstantsToast.TRACE_WRITTEN + file.getAbsolutePath());
+        } catch (final IOException ex) {
+            UtilsLogging.logThrowable(ex, "MainActivity#writeTrace");
+            showUiMessage(ConstantsToast.COULD_NOT_WRITE_THE_TRACE + ex.getMessage());
+        }
+    }
+
+    /**
+     * Helper method that creates the {@link RenderMetricsWriter} which appends the metrics of each
+     * render to a CSV file in the {@link #getOutputDirectory()}.
+     *
+     * @return A new {@link RenderMetricsWriter}.
+     */
+    @NonNull
+    private RenderMetricsWriter createMetricsWriter() {
+        final MetricsFormat format = MetricsFormat.CSV;
+        final File file = new File(getOutputDirectory(), METRICS_FILE_NAME + '.' + format.getExtension());
+        final String message = "Render metrics file: " + file.getAbsolutePath();
+        log.info(message);
+        return new RenderMetricsWriter(file, format);
+    }
+
     /**
      * Initializes the {@link #checkBoxRasterize} field.
      *
@@ -722,6 +876,45 @@ public final class MainActivity extends Activity {
         );
     }
 
+    /**
+     * Initializes the {@link #checkBoxConvergence} field.
+     *
+     * @param checkBoxConvergence The default value to put in the
+     *                            {@link #checkBoxConvergence} field.
+     */
+    private void initializeCheckBoxConvergence(final boolean checkBoxConvergence) {
+        this.checkBoxConvergence.setChecked(checkBoxConvergence);
+        setConvergence(checkBoxConvergence);
+        this.checkBoxConvergence.setOnCheckedChangeListener(
+            (final CompoundButton button, final boolean isChecked) -> setConvergence(isChecked));
+    }
+
+    /**
+     * Helper method that sets whether the next renders of the {@link DrawView} stop
+     * automatically once the image converged.
+     *
+     * @param convergence Whether the renders stop once the image converged.
+     */
+    private void setConvergence(final boolean convergence) {
+        this.drawView.setConvergence(ConfigConvergence.builder()
+            .enabled(convergence)
+            .build());
+    }
+
+    /**
+     * Initializes the {@link #checkBoxHeatMap} field.
+     * The heat map is drawn in the next frame, without having to render the scene again.
+     *
+     * @param checkBoxHeatMap The default value to put in the
+     *                        {@link #checkBoxHeatMap} field.
+     */
+    private void initializeCheckBoxHeatMap(final boolean checkBoxHeatMap) {
+        this.checkBoxHeatMap.setChecked(checkBoxHeatMap);
+        this.drawView.setHeatMapOverlay(checkBoxHeatMap);
+        this.checkBoxHeatMap.setOnCheckedChangeListener(
+            (final CompoundButton button, final boolean isChecked) -> this.drawView.setHeatMapOverlay(isChecked));
+    }
+
     /**
      * Initializes the {@link #pickerResolutions} field.
      *
@@ -790,6 +983,10 @@ public final class MainActivity extends Activity {
         this.pickerThreads = findViewById(R.id.pickerThreads);
         this.pickerResolutions = findViewById(R.id.pickerSize);
         this.checkBoxRasterize = findViewById(R.id.preview);
+        this.pickerToneMap = findViewById(R.id.pickerToneMap);
+        this.checkBoxConvergence = findViewById(R.id.convergence);
+        this.checkBoxHeatMap = findViewById(R.id.heatMap);
+        this.checkBoxAdaptive = findViewById(R.id.adaptive);
         validateViews();
     }
 
@@ -797,6 +994,10 @@ public final class MainActivity extends Activity {
      * Helper method that validates the fields that are {@link View}s.
      */
     private void validateViews() {
+        Preconditions.checkNotNull(this.checkBoxAdaptive, "checkBoxAdaptive shouldn't be null");
+        Preconditions.checkNotNull(this.checkBoxHeatMap, "checkBoxHeatMap shouldn't be null");
+        Preconditions.checkNotNull(this.checkBoxConvergence, "checkBoxConvergence shouldn't be null");
+        Preconditions.checkNotNull(this.pickerToneMap, "pickerToneMap shouldn't be null");
         Preconditions.checkNotNull(this.pickerResolutions, "pickerResolutions shouldn't be null");
         Preconditions.checkNotNull(this.pickerThreads, "pickerThreads shouldn't be null");
         Preconditions.checkNotNull(this.pickerAccelerator, "pickerAccelerator shouldn't be null");
@@ -2,54 +2,68 @@ package puscas.mobilertapp;
 
 import android.app.ActivityManager;
 import android.graphics.Bitmap;
+import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
 import android.opengl.GLES20;
 import android.opengl.GLSurfaceView;
 import android.opengl.GLUtils;
+import android.os.Build;
 import android.view.SurfaceView;
 import android.view.View;
 import android.widget.Button;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
-import androidx.annotation.OptIn;
 import androidx.annotation.VisibleForTesting;
 
 import com.google.common.base.Preconditions;
-import com.google.common.util.concurrent.Uninterruptibles;
-
-import org.jetbrains.annotations.Contract;
+import com.google.common.collect.ImmutableMap;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
 import javax.microedition.khronos.egl.EGLConfig;
 import javax.microedition.khronos.opengles.GL10;
 
 import java8.util.Optional;
-import kotlinx.coroutines.DelicateCoroutinesApi;
 import lombok.AccessLevel;
 import lombok.Setter;
 import lombok.extern.java.Log;
 import puscas.mobilertapp.configs.Config;
+import puscas.mobilertapp.configs.ConfigConvergence;
 import puscas.mobilertapp.configs.ConfigGlAttribute;
 import puscas.mobilertapp.configs.ConfigRenderTask;
 import puscas.mobilertapp.configs.ConfigResolution;
 import puscas.mobilertapp.configs.ConfigSamples;
+import puscas.mobilertapp.configs.ConfigToneMap;
+import puscas.mobilertapp.constants.Accelerator;
 import puscas.mobilertapp.constants.Constants;
 import puscas.mobilertapp.constants.ConstantsMethods;
 import puscas.mobilertapp.constants.ConstantsRenderer;
 import puscas.mobilertapp.constants.ConstantsToast;
+import puscas.mobilertapp.constants.Scene;
+import puscas.mobilertapp.constants.Shader;
 import puscas.mobilertapp.constants.State;
 import puscas.mobilertapp.exceptions.LowMemoryException;
+import puscas.mobilertapp.metrics.LatencyHistogram;
+import puscas.mobilertapp.metrics.RenderMetricsWriter;
+import puscas.mobilertapp.metrics.TraceRecorder;
 import puscas.mobilertapp.utils.AsyncTaskCoroutine;
-import puscas.mobilertapp.utils.Utils;
+import puscas.mobilertapp.utils.BitmapPool;
+import puscas.mobilertapp.utils.FrameBufferConverter;
+import puscas.mobilertapp.utils.MemoryBudget;
+import puscas.mobilertapp.utils.RefreshScheduler;
+import puscas.mobilertapp.utils.RenderScheduler;
+import puscas.mobilertapp.utils.ShaderProgramCache;
 import puscas.mobilertapp.utils.UtilsBuffer;
 import puscas.mobilertapp.utils.UtilsGL;
 import puscas.mobilertapp.utils.UtilsGlMatrices;
+import puscas.mobilertapp.utils.UtilsHeatMap;
 import puscas.mobilertapp.utils.UtilsShader;
 
 /**
@@ -89,9 +103,35 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
     public static final int PIXEL_COLORS = 4;
 
     /**
-     * The default update interval in milliseconds of {@link RenderTask}.
+     * The key of the {@link #arrayVertices} in the {@link #nativeBufferRegistry}.
+     */
+    private static final String BUFFER_VERTICES = "vertices";
+
+    /**
+     * The key of the {@link #arrayColors} in the {@link #nativeBufferRegistry}.
+     */
+    private static final String BUFFER_COLORS = "colors";
+
+    /**
+     * The prefix of the key of the {@link #arrayCamera} in the {@link #nativeBufferRegistry}.
+     */
+    private static final String BUFFER_CAMERA = "camera";
+
+    /**
+     * The maximum size, in bytes, of the released {@link Bitmap}s kept in the {@link #bitmapPool}.
      */
-    private static final long DEFAULT_UPDATE_INTERVAL = 250L;
+    private static final long BITMAP_POOL_MAX_BYTES = 32L * Constants.BYTES_IN_MEGABYTE;
+
+    /**
+     * The opacity of the heat map with the number of samples of each tile over the rendered image.
+     */
+    private static final float HEAT_MAP_ALPHA = 0.5F;
+
+    /**
+     * The number of tiles of the image, which is also the number of pixels of the heat map texture.
+     */
+    private static final int NUMBER_OF_TILES =
+        ConstantsRenderer.NUMBER_OF_TILE_ROWS * ConstantsRenderer.NUMBER_OF_TILE_ROWS;
 
     /**
      * The vertices coordinates for the texture where the Ray Tracer
@@ -184,12 +224,44 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
      */
     private ByteBuffer arrayCamera = null;
 
+    /**
+     * The {@link NativeBufferRegistry} which keeps the native arrays of the loaded scene, so
+     * they are reused by the next previews of the same scene.
+     */
+    private final NativeBufferRegistry nativeBufferRegistry = new NativeBufferRegistry(this::rtFreeNativeBuffer);
+
+    /**
+     * The key of the {@link #arrayCamera} in the {@link #nativeBufferRegistry}, which depends on
+     * the resolution of the loaded scene.
+     */
+    private volatile String cameraKey = BUFFER_CAMERA;
+
+    /**
+     * The {@link RefreshScheduler} which calculates when the {@link RenderTask} refreshes the
+     * display, based on the current sample and on the time spent drawing each frame.
+     */
+    private final RefreshScheduler refreshScheduler = new RefreshScheduler();
+
+    /**
+     * The {@link LatencyHistogram} of the time spent uploading and drawing each frame.
+     */
+    private final LatencyHistogram drawTimeHistogram = new LatencyHistogram();
+
+    /**
+     * The {@link TraceRecorder} which records the spans of the render pipeline.
+     */
+    private final TraceRecorder trace = TraceRecorder.getInstance();
+
     /**
      * Configurator for the {@link RenderTask}.
      */
     private final ConfigRenderTask.ConfigRenderTaskBuilder configRenderTask = ConfigRenderTask.builder()
-        .updateInterval(DEFAULT_UPDATE_INTERVAL)
-        .finishRender(this::rtFinishRender);
+        .finishRender(this::rtFinishRender)
+        .publishFrame(this::publishFrame)
+        .pixelReader(this::readBitmapLine)
+        .bitmapBytes(this::getBitmapBytes)
+        .refreshScheduler(this.refreshScheduler)
+        .drawTimeHistogram(this.drawTimeHistogram);
 
     /**
      * The {@link ConfigResolution} of the {@link Bitmap} where the Ray Tracer engine will render
@@ -214,13 +286,93 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
      */
     private int shaderProgramRaster = 0;
 
+    /**
+     * The location of the exposure uniform in the {@link #shaderProgram}.
+     */
+    private int uniformExposureLocation = -1;
+
+    /**
+     * The location of the inverse gamma uniform in the {@link #shaderProgram}.
+     */
+    private int uniformInverseGammaLocation = -1;
+
+    /**
+     * The location of the tone mapping operator uniform in the {@link #shaderProgram}.
+     */
+    private int uniformToneMapLocation = -1;
+
+    /**
+     * The {@link ConfigToneMap} which the fragment shader applies to the rendered image.
+     * It can be changed by any thread and is used in the next frame, without having to render
+     * the scene or to change the {@link #bitmap} again.
+     */
+    @Setter(AccessLevel.PACKAGE)
+    private volatile ConfigToneMap configToneMap = ConfigToneMap.builder().build();
+
+    /**
+     * The location of the heat map texture uniform in the {@link #shaderProgram}.
+     */
+    private int uniformHeatMapLocation = -1;
+
+    /**
+     * The location of the heat map opacity uniform in the {@link #shaderProgram}.
+     */
+    private int uniformHeatMapAlphaLocation = -1;
+
+    /**
+     * Whether the heat map with the number of samples of each tile is drawn over the rendered
+     * image.
+     * It is useful to see where the adaptive sampling spent the samples.
+     */
+    @Setter(AccessLevel.PACKAGE)
+    private volatile boolean heatMapOverlay = false;
+
+    /**
+     * The OpenGL texture handle of the heat map.
+     */
+    private int[] heatMapTextureHandle = null;
+
+    /**
+     * The native buffer where the Ray Tracer engine writes the number of samples of each tile.
+     */
+    private final ByteBuffer tileSamplesBuffer =
+        ByteBuffer.allocateDirect(NUMBER_OF_TILES * Constants.BYTES_IN_INTEGER)
+            .order(ByteOrder.nativeOrder());
+
+    /**
+     * The number of samples of each tile.
+     */
+    private final int[] tileSamples = new int[NUMBER_OF_TILES];
+
+    /**
+     * The colors of the heat map.
+     */
+    private final int[] heatMapColors = new int[NUMBER_OF_TILES];
+
+    /**
+     * The cache of the linked OpenGL shader programs, so the shaders are only compiled once
+     * while the EGL context is preserved.
+     */
+    private final ShaderProgramCache shaderProgramCache = new ShaderProgramCache();
+
+    /**
+     * The geometry of the scene in the GPU for the rasterization of the scene (preview).
+     */
+    private final PreviewGeometry previewGeometry = new PreviewGeometry();
+
+    /**
+     * The key which identifies the geometry of the loaded scene.
+     * It is used to know if the {@link #previewGeometry} has to be uploaded again.
+     */
+    private volatile String sceneKey = "";
+
     /**
      * Determine if it is the first frame to render.
      * It is important because it should only call the Ray Tracer engine at the
      * first frame and the others just
      * update the texture with the {@link Bitmap}.
      */
-    private boolean firstFrame = false;
+    private volatile boolean firstFrame = false;
 
     /**
      * The {@link TextView} which will output the debug information about the
@@ -241,7 +393,7 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
      * A custom {@link AsyncTaskCoroutine} which will update the {@link View} with the
      * updated {@link Bitmap} and debug information.
      */
-    private RenderTask renderTask = null;
+    private volatile RenderTask renderTask = null;
 
     /**
      * The OpenGL texture handle.
@@ -250,42 +402,79 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
     private int[] textureHandle = null;
 
     /**
-     * The constructor for this class.
+     * Whether the storage of the OpenGL texture was already allocated with the
+     * {@link Bitmap} resolution.
+     * While it is allocated, only the rows of tiles modified by the Ray Tracer engine are
+     * uploaded to the texture.
      */
-    MainRenderer() {
-        setBitmap();
-    }
+    private boolean textureAllocated = false;
 
     /**
-     * Converts a pixel from OpenGL format (ABGR) to a pixel of Android format
-     * (ARGB).
-     *
-     * @param pixel A pixel from OpenGL format.
-     * @return A pixel from Android format.
-     * @implNote Converts OpenGL pixel, which is ABGR to Android pixel which is
-     *     ARGB.
+     * The front and back buffers with the snapshots of the {@link #bitmap} to upload to the
+     * OpenGL texture.
+     * It is reused for every {@link #bitmap}, and its snapshots are only allocated again when
+     * the resolution changes.
      */
-    @Contract(pure = true)
-    private static int convertPixelOpenGlToAndroid(final int pixel) {
-        final int red = pixel & 0xFF;
-        final int green = (pixel >> 8) & 0xFF;
-        final int blue = (pixel >> (2 * 8)) & 0xFF;
-        final int alpha = (pixel >> (3 * 8)) & 0xFF;
-        final int newPixel = (red << (2 * 8)) | (green << 8) | blue;
-        return alpha << (3 * 8) | newPixel;
-    }
+    private final DisplayBuffer displayBuffer = new DisplayBuffer(new DisplayBuffer.RowsFence() {
+        @Override
+        public int beginCopy(final int rows) {
+            return rtBeginCopyRows(rows);
+        }
+
+        @Override
+        public int endCopy(final int rows) {
+            return rtEndCopyRows(rows);
+        }
+    });
 
     /**
-     * Helper method that defines an array of some vertex attribute data.
-     *
-     * @param byteBuffer The data to pass to OpenGL context.
-     * @param attribute  The index of the generic vertex attribute to be modified.
+     * The converter of the pixels read from the OpenGL frame buffer for the preview.
+     */
+    private final FrameBufferConverter frameBufferConverter = new FrameBufferConverter(
+        RenderScheduler.getInstance().getComputeExecutor(), RenderScheduler.COMPUTE_THREADS + 1);
+
+    /**
+     * The pool of the {@link #bitmap}s and {@link #previewBitmap}s, so they are reused between
+     * renders instead of allocated again.
+     */
+    private final BitmapPool bitmapPool = new BitmapPool(BITMAP_POOL_MAX_BYTES);
+
+    /**
+     * A reusable {@link Bitmap} with the resolution of the {@link View} which contains the
+     * pixels read from the OpenGL frame buffer for the preview.
+     * It is only used by the OpenGL thread, which may release it to the {@link #bitmapPool} at
+     * any time, so the other threads read its size from {@link #previewBitmapBytes}.
+     */
+    private Bitmap previewBitmap = null;
+
+    /**
+     * The number of bytes of the {@link #previewBitmap}, published by the OpenGL thread whenever
+     * it changes, so the {@link RenderTask} can read it for the memory report without touching
+     * the {@link Bitmap}.
+     */
+    private volatile long previewBitmapBytes = 0L;
+
+    /**
+     * A reusable {@link Canvas} used to scale the {@link #previewBitmap} into the
+     * {@link #bitmap}.
+     */
+    private final Canvas previewCanvas = new Canvas();
+
+    /**
+     * A reusable {@link Paint} which filters the {@link #previewBitmap} when scaling it.
      */
-    private static void defineAttributeData(@NonNull final ByteBuffer byteBuffer,
-                                            final int attribute) {
-        UtilsGL.run(() -> GLES20.glVertexAttribPointer(attribute,
-            VERTEX_COMPONENTS, GLES20.GL_FLOAT, false, 0, byteBuffer));
-        UtilsGL.run(() -> GLES20.glEnableVertexAttribArray(attribute));
+    private final Paint previewPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    /**
+     * A reusable {@link Rect} with the area of the {@link #bitmap} where the preview is drawn.
+     */
+    private final Rect previewRect = new Rect();
+
+    /**
+     * The constructor for this class.
+     */
+    MainRenderer() {
+        setBitmap();
     }
 
     /**
@@ -305,58 +494,19 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
         final float[] viewMatrix = UtilsGlMatrices.createViewMatrix(bbCamera);
         final float[] modelMatrix = UtilsGlMatrices.createModelMatrix();
 
-        final int handleModel = UtilsGL.<Integer, Integer, String>run(
+        final int handleModel = UtilsGL.<Integer, Integer, String>run("glGetUniformLocation",
             shaderProgram, "uniformModelMatrix", GLES20::glGetUniformLocation);
-        final int handleView = UtilsGL.<Integer, Integer, String>run(
+        final int handleView = UtilsGL.<Integer, Integer, String>run("glGetUniformLocation",
             shaderProgram, "uniformViewMatrix", GLES20::glGetUniformLocation);
-        final int handleProjection = UtilsGL.<Integer, Integer, String>run(
+        final int handleProjection = UtilsGL.<Integer, Integer, String>run("glGetUniformLocation",
             shaderProgram, "uniformProjectionMatrix", GLES20::glGetUniformLocation);
 
-        UtilsGL.run(() -> GLES20.glUniformMatrix4fv(handleModel, 1, false, modelMatrix, 0));
-        UtilsGL.run(() -> GLES20.glUniformMatrix4fv(handleView, 1, false, viewMatrix, 0));
-        UtilsGL.run(() -> GLES20.glUniformMatrix4fv(handleProjection,
+        UtilsGL.run("glUniformMatrix4fv", () -> GLES20.glUniformMatrix4fv(handleModel, 1, false, modelMatrix, 0));
+        UtilsGL.run("glUniformMatrix4fv", () -> GLES20.glUniformMatrix4fv(handleView, 1, false, viewMatrix, 0));
+        UtilsGL.run("glUniformMatrix4fv", () -> GLES20.glUniformMatrix4fv(handleProjection,
             1, false, projectionMatrix, 0));
     }
 
-    /**
-     * Helper method that connects the vertices and colors in the GLSL attributes.
-     *
-     * @param shaderProgram The index of the shader program to connect the attributes.
-     * @param bbVertices    The vertices' buffer.
-     * @param bbColors      The colors' buffer.
-     */
-    private static void connectAttributes(final int shaderProgram,
-                                          @NonNull final ByteBuffer bbVertices,
-                                          @NonNull final ByteBuffer bbColors) {
-        final ConfigGlAttribute verticesAttribute = ConfigGlAttribute.builder()
-            .attributeName(VERTEX_POSITION)
-            .buffer(bbVertices)
-            .attributeLocation(0)
-            .componentsInBuffer(VERTEX_COMPONENTS)
-            .build();
-        UtilsShader.connectOpenGlAttribute(shaderProgram, verticesAttribute);
-
-        final ConfigGlAttribute colorsAttribute = ConfigGlAttribute.builder()
-            .attributeName(VERTEX_COLOR)
-            .buffer(bbColors)
-            .attributeLocation(1)
-            .componentsInBuffer(PIXEL_COLORS)
-            .build();
-        UtilsShader.connectOpenGlAttribute(shaderProgram, colorsAttribute);
-    }
-
-    /**
-     * Helper method that calculates the number of vertices in a {@link ByteBuffer}.
-     *
-     * @param bbVertices The vertices' buffer.
-     * @return The number of vertices in the {@link ByteBuffer}.
-     */
-    private static int getVertexCount(@NonNull final ByteBuffer bbVertices) {
-        log.info("getVertexCount");
-
-        return bbVertices.capacity() / (Constants.BYTES_IN_FLOAT * VERTEX_COMPONENTS);
-    }
-
     /**
      * Updates the text in the render {@link Button}.
      * Note that only the UI thread can change the {@link #buttonRender} value.
@@ -370,6 +520,9 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
     /**
      * Gets an {@code int} which represents the current Ray Tracer engine
      * {@link State}.
+     * <br>
+     * It doesn't block: while the first frame of a new render wasn't drawn yet, the Ray Tracer
+     * engine is considered {@link State#BUSY}.
      *
      * @return The current Ray Tracer engine {@link State}.
      */
@@ -377,10 +530,8 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
     public State getState() {
         log.info("getState");
 
-        while (this.firstFrame) {
-            log.info("Waiting for the onDraw to start the RT engine!!!");
-            Uninterruptibles.sleepUninterruptibly(500L, TimeUnit.MILLISECONDS);
-            log.info("Waited for the onDraw to start the RT engine!!!");
+        if (this.firstFrame) {
+            return State.BUSY;
         }
 
         MainActivity.resetErrno();
@@ -446,6 +597,99 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
      */
     native int rtInitialize(Config config) throws LowMemoryException;
 
+    /**
+     * Plans the memory needed to load and render the scene with the {@link MemoryBudget}, before
+     * the Ray Tracer engine loads it.
+     * If the scene doesn't fit in the available memory with the chosen {@link Accelerator}, a
+     * cheaper one is picked.
+     *
+     * @param config         The ray tracer configuration.
+     * @param viewResolution The resolution of the {@link View} where the preview is drawn.
+     * @return The ray tracer configuration, with the {@link Accelerator} which fits in the
+     *     available memory.
+     * @throws LowMemoryException If the scene doesn't fit in the available memory with any
+     *                            {@link Accelerator}.
+     */
+    @NonNull
+    Config planMemoryBudget(@NonNull final Config config,
+                            @NonNull final ConfigResolution viewResolution) throws LowMemoryException {
+        log.info("planMemoryBudget");
+
+        this.activityManager.getMemoryInfo(this.memoryInfo);
+        final Runtime runtime = Runtime.getRuntime();
+        final long availableNative = this.memoryInfo.availMem - this.memoryInfo.threshold;
+        final long availableJava = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+        final MemoryBudget budget = new MemoryBudget(availableNative, availableJava,
+            Build.VERSION.SDK_INT >= Build.VERSION_CODES.O);
+
+        final long triangles = MemoryBudget.estimateTriangles(config.getObjFilePath());
+        final MemoryBudget.Scene scene = MemoryBudget.Scene.builder()
+            .objBytes(MemoryBudget.fileBytes(config.getObjFilePath()))
+            .triangles(triangles)
+            .mtlBytes(MemoryBudget.fileBytes(config.getMatFilePath()))
+            .textureBytes(MemoryBudget.textureBytes(config.getMatFilePath()))
+            .resolution(config.getConfigResolution())
+            .rasterize(config.isRasterize())
+            .viewResolution(viewResolution)
+            .previewUploadBytes(PreviewGeometry.estimateUploadBytes(triangles))
+            .build();
+        final Accelerator accelerator = Accelerator.values()[config.getAccelerator()];
+        final MemoryBudget.Estimate estimate = budget.plan(scene, accelerator);
+        if (estimate == null) {
+            final MemoryBudget.Estimate cheapest = budget.estimate(scene, Accelerator.NAIVE);
+            throw new LowMemoryException(cheapest.toString());
+        }
+        if (estimate.getAccelerator() == accelerator) {
+            return config;
+        }
+        return config.toBuilder()
+            .accelerator(estimate.getAccelerator().ordinal())
+            .build();
+    }
+
+    /**
+     * Loads the scene and constructs the Ray Tracer renderer.
+     * It also keeps the key which identifies the geometry of the scene, so the preview can
+     * reuse the geometry already in the GPU if the same scene is loaded again.
+     *
+     * @param config The ray tracer configuration.
+     * @return The number of primitives or a negative value if an error occurs.
+     * @throws LowMemoryException If the device has low free memory.
+     */
+    int loadScene(@NonNull final Config config) throws LowMemoryException {
+        log.info("loadScene");
+
+        final int numPrimitives = rtInitialize(config);
+        this.sceneKey = config.getScene() + ":" + config.getObjFilePath() + ":" + config.getMatFilePath();
+        this.cameraKey = BUFFER_CAMERA + ":" + config.getConfigResolution().getWidth()
+            + 'x' + config.getConfigResolution().getHeight();
+        this.nativeBufferRegistry.setScene(this.sceneKey);
+        this.configRenderTask
+            .sceneName(Scene.values()[config.getScene()].getName())
+            .shaderName(Shader.values()[config.getShader()].getName())
+            .acceleratorName(Accelerator.values()[config.getAccelerator()].getName());
+        return numPrimitives;
+    }
+
+    /**
+     * Sets the {@link RenderMetricsWriter} where the metrics of each render are written.
+     *
+     * @param metricsWriter The {@link RenderMetricsWriter}.
+     */
+    void setMetricsWriter(@NonNull final RenderMetricsWriter metricsWriter) {
+        this.configRenderTask.metricsWriter(metricsWriter);
+    }
+
+    /**
+     * Sets the {@link ConfigConvergence} which decides if the next renders stop automatically
+     * once the image converged.
+     *
+     * @param configConvergence The {@link ConfigConvergence}.
+     */
+    void setConfigConvergence(@NonNull final ConfigConvergence configConvergence) {
+        this.configRenderTask.convergence(configConvergence);
+    }
+
     /**
      * Let Ray Tracer engine start to render the scene.
      * It will render the scene asynchronously.
@@ -461,6 +705,8 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
 
     /**
      * Creates a native array with all the positions of triangles in the scene.
+     * Each position is quantized to 16 bits per axis relative to the bounding box given by
+     * {@link #rtGetSceneBounds()}, followed by 16 bits of padding.
      *
      * @return A new array with all the primitives' vertices.
      * @throws LowMemoryException If the device has low free memory.
@@ -469,12 +715,21 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
 
     /**
      * Creates a native array with all the colors of triangles in the scene.
+     * Each color is packed as normalized RGBA with 8 bits per channel.
      *
      * @return A new array with all the primitives' colors.
      * @throws LowMemoryException If the device has low free memory.
      */
     private native ByteBuffer rtInitColorsArray() throws LowMemoryException;
 
+    /**
+     * Gets the bounding box of all the positions in the array created by
+     * {@link #rtInitVerticesArray()}, before being quantized.
+     *
+     * @return The minimum point followed by the maximum point of the bounding box.
+     */
+    private native float[] rtGetSceneBounds();
+
     /**
      * Creates a native array with the camera's position, direction, up and
      * right vectors in the scene.
@@ -489,7 +744,7 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
      * The memory allocated with {@link #rtInitVerticesArray()},
      * {@link #rtInitColorsArray()} and
      * {@link #rtInitCameraArray()} methods should be free using
-     * this method.
+     * this method, which is called by the {@link #nativeBufferRegistry}.
      *
      * @param byteBuffer A reference to {@link ByteBuffer} to free its memory.
      * @return A {@code null} reference.
@@ -497,46 +752,175 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
     private native ByteBuffer rtFreeNativeBuffer(final ByteBuffer byteBuffer);
 
     /**
-     * Free the memory of {@link #arrayVertices},
+     * Gets the rows of tiles that were rendered by the Ray Tracer engine since the last call to
+     * this method.
+     * Each bit represents a row of tiles, where the least significant bit is the row of tiles
+     * at the top of the image.
+     *
+     * @return A bit mask with the modified rows of tiles.
+     */
+    private native int rtGetDirtyRows();
+
+    /**
+     * Starts copying some rows of tiles of the {@link #bitmap} while the Ray Tracer engine keeps
+     * rendering into it.
+     *
+     * @param rows The rows of tiles to copy, where each bit represents a row of tiles.
+     * @return The rows of tiles, from the ones to copy, which have no tile being rendered.
+     */
+    private native int rtBeginCopyRows(int rows);
+
+    /**
+     * Finishes copying some rows of tiles of the {@link #bitmap} started with
+     * {@link #rtBeginCopyRows(int)}.
+     *
+     * @param rows The rows of tiles returned by {@link #rtBeginCopyRows(int)}.
+     * @return The rows of tiles where the Ray Tracer engine didn't start rendering any tile during
+     *     the copy.
+     */
+    private native int rtEndCopyRows(int rows);
+
+    /**
+     * Gets the number of samples per pixel rendered in each tile of the image by the Ray Tracer
+     * engine.
+     * Without adaptive sampling, all the tiles have the same number of samples.
+     *
+     * @param tileSamplesBuffer The native buffer where the number of samples of each tile is
+     *                          written, in the native byte order.
+     */
+    private native void rtGetTileSamples(ByteBuffer tileSamplesBuffer);
+
+    /**
+     * Releases the references to the {@link #arrayVertices},
      * {@link #arrayColors} and {@link #arrayCamera}
      * native arrays.
+     * The arrays are kept in the {@link #nativeBufferRegistry} to be reused by
+     * the next previews of the same scene.
      */
     void freeArrays() {
         log.info("freeArrays");
-        this.arrayVertices = rtFreeNativeBuffer(this.arrayVertices);
-        this.arrayColors = rtFreeNativeBuffer(this.arrayColors);
-        this.arrayCamera = rtFreeNativeBuffer(this.arrayCamera);
+        this.arrayVertices = this.nativeBufferRegistry.release(this.arrayVertices);
+        this.arrayColors = this.nativeBufferRegistry.release(this.arrayColors);
+        this.arrayCamera = this.nativeBufferRegistry.release(this.arrayCamera);
+    }
+
+    /**
+     * Releases the references to the native arrays and frees the memory of
+     * all the native arrays which are not being used.
+     */
+    void trimNativeBuffers() {
+        log.info("trimNativeBuffers");
+        freeArrays();
+        this.nativeBufferRegistry.trim();
+    }
+
+    /**
+     * Frees the native arrays of the preview which are not being used.
+     * It should be called by the OpenGL thread.
+     *
+     * @return The number of freed arrays.
+     */
+    int releasePreviewArrays() {
+        freeArrays();
+        return this.nativeBufferRegistry.trim();
+    }
+
+    /**
+     * Deletes the cached shader programs, except the one which draws the rendered image.
+     * It should be called by the OpenGL thread.
+     *
+     * @return The number of deleted programs.
+     */
+    int releaseShaderPrograms() {
+        if (!UtilsGL.hasCurrentEglContext()) {
+            return 0;
+        }
+        this.shaderProgramRaster = 0;
+        this.previewGeometry.forgetProgram();
+        return this.shaderProgramCache.trim(this.shaderProgram);
+    }
+
+    /**
+     * Frees the {@link Bitmap}s in the {@link #bitmapPool} and the buffers reused by the
+     * previews.
+     * It should be called by the OpenGL thread.
+     *
+     * @return The number of freed buffers.
+     */
+    int releasePooledBitmaps() {
+        this.previewBitmapBytes = 0L;
+        this.bitmapPool.release(this.previewBitmap);
+        this.previewBitmap = null;
+        final int freedConverter = this.frameBufferConverter.trim() > 0 ? 1 : 0;
+        return freedConverter + this.bitmapPool.trim();
+    }
+
+    /**
+     * Deletes the geometry of the loaded scene from the GPU, which is only kept to be reused by
+     * the next previews of the same scene.
+     * It should be called by the OpenGL thread.
+     *
+     * @return The number of deleted scenes.
+     */
+    int releaseCachedScenes() {
+        if (!UtilsGL.hasCurrentEglContext() || !this.previewGeometry.isUploaded(this.sceneKey)) {
+            return 0;
+        }
+        this.previewGeometry.release();
+        return 1;
     }
 
     /**
      * Helper method which initializes the {@link #arrayVertices},
      * {@link #arrayColors} and {@link #arrayCamera}
      * native arrays.
+     * The arrays are only created by the Ray Tracer engine if they are not in
+     * the {@link #nativeBufferRegistry} yet.
      * @throws LowMemoryException If the device has low free memory.
      */
     @VisibleForTesting
     void initPreviewArrays() throws LowMemoryException {
         log.info("initArrays");
-        checksFreeMemory(1, this::freeArrays);
+        freeArrays();
+        checksFreeMemory(1, this::trimNativeBuffers);
 
-        this.arrayVertices = rtInitVerticesArray();
-        checksFreeMemory(1, this::freeArrays);
+        this.arrayVertices = this.nativeBufferRegistry.acquire(BUFFER_VERTICES, this::rtInitVerticesArray);
+        checksFreeMemory(1, this::trimNativeBuffers);
 
-        this.arrayColors = rtInitColorsArray();
-        checksFreeMemory(1, this::freeArrays);
+        this.arrayColors = this.nativeBufferRegistry.acquire(BUFFER_COLORS, this::rtInitColorsArray);
+        checksFreeMemory(1, this::trimNativeBuffers);
 
-        this.arrayCamera = rtInitCameraArray();
-        checksFreeMemory(1, this::freeArrays);
+        this.arrayCamera = this.nativeBufferRegistry.acquire(this.cameraKey, this::rtInitCameraArray);
+        checksFreeMemory(1, this::trimNativeBuffers);
 
         validateArrays();
     }
 
+    /**
+     * Helper method which initializes only the {@link #arrayCamera} native array.
+     * It is used when the geometry of the scene is already in the GPU.
+     *
+     * @throws LowMemoryException If the device has low free memory.
+     */
+    private void initCameraArray() throws LowMemoryException {
+        log.info("initCameraArray");
+        this.arrayCamera = this.nativeBufferRegistry.release(this.arrayCamera);
+        this.arrayCamera = this.nativeBufferRegistry.acquire(this.cameraKey, this::rtInitCameraArray);
+        checksFreeMemory(1, this::trimNativeBuffers);
+
+        Preconditions.checkNotNull(this.arrayCamera, "arrayCamera shouldn't be null");
+    }
+
     /**
      * Helper method which verifies if the Android device has low free memory.
+     * <br>
+     * The memory needed is allocated in native memory, so it is checked against the memory
+     * available in the device, while the Java heap only has to keep some headroom for the
+     * {@link java.nio.Buffer}s and arrays which wrap it.
      *
      * @param memoryNeeded Number of MegaBytes needed to be allocated.
-     * @return {@code True} if the device doesn't have enough memory to be
-     *     allocated, otherwise {@code false}.
+     * @return {@code True} if the device or the Java heap doesn't have enough
+     *     memory to be allocated, otherwise {@code false}.
      */
     private boolean isLowMemory(final int memoryNeeded) {
         Preconditions.checkArgument(memoryNeeded > 0,
@@ -546,9 +930,17 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
         final long availMem = this.memoryInfo.availMem / Constants.BYTES_IN_MEGABYTE;
         final long totalMem = this.memoryInfo.totalMem / Constants.BYTES_IN_MEGABYTE;
         final boolean insufficientMem = availMem <= (1 + memoryNeeded);
-        final String message = "MEMORY AVAILABLE: " + availMem + "MB (" + totalMem + "MB) [Needed " + memoryNeeded + "MB]";
+
+        final Runtime runtime = Runtime.getRuntime();
+        final long usedHeap = runtime.totalMemory() - runtime.freeMemory();
+        final long availHeap = (runtime.maxMemory() - usedHeap) / Constants.BYTES_IN_MEGABYTE;
+        final long maxHeap = runtime.maxMemory() / Constants.BYTES_IN_MEGABYTE;
+        final boolean insufficientHeap = availHeap <= 1;
+
+        final String message = "MEMORY AVAILABLE: " + availMem + "MB (" + totalMem + "MB) [Needed " + memoryNeeded
+            + "MB], JAVA HEAP AVAILABLE: " + availHeap + "MB (" + maxHeap + "MB)";
         log.info(message);
-        return insufficientMem || this.memoryInfo.lowMemory;
+        return insufficientMem || insufficientHeap || this.memoryInfo.lowMemory;
     }
 
     /**
@@ -581,6 +973,50 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
         this.configRenderTask.requestRender(requestRender);
     }
 
+    /**
+     * Publishes a new snapshot of the {@link #bitmap} with the rows of tiles rendered by the Ray
+     * Tracer engine since the last publish, so the OpenGL thread can upload it.
+     * <br>
+     * It is called by the {@link RenderTask}, which only requests a new frame if a snapshot was
+     * published, and never by the OpenGL thread.
+     *
+     * @return Whether a new snapshot was published.
+     */
+    private boolean publishFrame() {
+        return this.displayBuffer.publish(rtGetDirtyRows());
+    }
+
+    /**
+     * Reads a line of pixels of the {@link #bitmap} where the Ray Tracer engine is rendering the
+     * scene, so the {@link RenderTask} can check if the image converged.
+     * <br>
+     * It is called by the {@link RenderTask} while the Ray Tracer engine keeps rendering into the
+     * {@link #bitmap}, like {@link #publishFrame()}.
+     *
+     * @param y    The line to read.
+     * @param line The array where the colors of the pixels are written.
+     */
+    private void readBitmapLine(final int y, @NonNull final int[] line) {
+        Optional.ofNullable(this.displayBuffer.getSource())
+            .filter(source -> source.getWidth() <= line.length && y < source.getHeight())
+            .ifPresent(source -> source.getPixels(line, 0, source.getWidth(), 0, y, source.getWidth(), 1));
+    }
+
+    /**
+     * Gets the number of bytes allocated by the {@link Bitmap}s of the app other than the
+     * {@link #bitmap} where the Ray Tracer engine renders the scene: the {@link #previewBitmap}
+     * and the released {@link Bitmap}s in the {@link #bitmapPool}.
+     * <br>
+     * It is called by the {@link RenderTask} for the memory report, like {@link #publishFrame()},
+     * so it only reads the sizes published by the OpenGL thread and never the {@link Bitmap}s,
+     * which may be recycled at the same time.
+     *
+     * @return The number of bytes allocated by the {@link Bitmap}s.
+     */
+    private long getBitmapBytes() {
+        return this.bitmapPool.getFreeBytes() + this.previewBitmapBytes;
+    }
+
     /**
      * Prepares this class with the OpenGL shaders' code.
      *
@@ -611,6 +1047,8 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
      * Creates a new {@link Bitmap} with the size of {@code width} and
      * {@code height} and also sets the {@code #viewWidth} and
      * {@code #viewHeight} fields.
+     * The previous {@link Bitmap} is given back to the {@link #bitmapPool}, so it is reused if
+     * the resolution doesn't change.
      *
      * @param configResolution     The resolution of the new {@link Bitmap}.
      * @param configResolutionView The resolution of the {@link SurfaceView}.
@@ -620,76 +1058,76 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
                    final ConfigResolution configResolutionView,
                    final boolean rasterize) {
         log.info(ConstantsMethods.SET_BITMAP);
+        final long start = this.trace.begin();
         this.configResolution = configResolution;
         this.configResolutionView = configResolutionView;
 
-        this.bitmap = Bitmap.createBitmap(configResolution.getWidth(), configResolution.getHeight(), Bitmap.Config.ARGB_8888);
+        // The previous render finished, so its bitmap can be reused.
+        this.bitmapPool.release(this.bitmap);
+        this.bitmap = this.bitmapPool.acquire(configResolution.getWidth(), configResolution.getHeight(),
+            Bitmap.Config.ARGB_8888);
         // For some reason, only from Android 4.2+, the method `Bitmap.createBitmap` sets the
         // `errno` to `ENOMEM` which means that the system didn't have enough memory to do some
         // operation, so we set the `errno` back to 0 here.
         MainActivity.resetErrno();
         this.bitmap.eraseColor(Color.BLACK);
         validateBitmap(this.bitmap);
+        this.displayBuffer.setSource(this.bitmap);
 
         this.firstFrame = true;
         this.rasterize = rasterize;
+        this.textureAllocated = false;
+        this.trace.end("MainRenderer#setBitmap", start);
 
         final String messageFinished = ConstantsMethods.SET_BITMAP + ConstantsMethods.FINISHED;
         log.info(messageFinished);
     }
 
-    /**
-     * Converts an index of a pixel from OpenGL format to an index of a pixel of
-     * Android format.
-     *
-     * @param index An index of a pixel from OpenGL format.
-     * @return An index of a pixel from Android format.
-     */
-    @Contract(pure = true)
-    private int convertIndexOpenGlToAndroid(final int index) {
-        final int column = index % this.configResolutionView.getWidth();
-        final int line = index / this.configResolutionView.getWidth();
-        return (this.configResolutionView.getHeight() - line - 1) * this.configResolutionView.getWidth() + column;
-    }
-
     /**
      * Helper method that reads and copies the pixels in the OpenGL frame buffer
-     * to a new {@link Bitmap}.
+     * to the {@link #bitmap}, scaling them to its resolution.
+     * <br>
+     * The {@link #frameBufferConverter} and the {@link #previewBitmap} are reused between
+     * previews, so no memory is allocated while the resolution of the {@link View} doesn't
+     * change, and the {@link #previewBitmap} comes from the {@link #bitmapPool} when it does.
      *
      * @param configResolution     The resolution of the desired {@link Bitmap}.
      * @param configResolutionView The resolution the {@link View} in the OpenGL context.
-     * @return A new {@link Bitmap} with the colors of the pixels in the OpenGL
+     * @return The {@link #bitmap} with the colors of the pixels in the OpenGL
      *     frame buffer.
      */
     private Bitmap copyGlFrameBufferToBitmap(final ConfigResolution configResolution,
                                              final ConfigResolution configResolutionView) {
-        final int sizePixels = configResolutionView.getWidth() * configResolutionView.getHeight();
-        final int[] arrayBytesPixels = new int[sizePixels];
-        final int[] arrayBytesNewBitmap = new int[sizePixels];
-        final IntBuffer intBuffer = IntBuffer.wrap(arrayBytesPixels);
-        intBuffer.position(0);
-
-        UtilsGL.run(() -> GLES20.glReadPixels(
-            0, 0, configResolutionView.getWidth(), configResolutionView.getHeight(), GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE, intBuffer
+        final int viewWidth = configResolutionView.getWidth();
+        final int viewHeight = configResolutionView.getHeight();
+        final IntBuffer intBuffer = this.frameBufferConverter.prepare(viewWidth, viewHeight);
+
+        UtilsGL.run("glReadPixels", () -> GLES20.glReadPixels(
+            0, 0, viewWidth, viewHeight, GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE, intBuffer
         ));
 
-        int openGlIndex = 0;
-        for (final int pixel : arrayBytesPixels) {
-            final int androidIndex = convertIndexOpenGlToAndroid(openGlIndex);
-            ++openGlIndex;
-            arrayBytesNewBitmap[androidIndex] = convertPixelOpenGlToAndroid(pixel);
-        }
+        final int[] pixels = this.frameBufferConverter.convert();
 
-        final Bitmap bitmapView = Bitmap.createBitmap(
-            arrayBytesNewBitmap, configResolutionView.getWidth(), configResolutionView.getHeight(), Bitmap.Config.ARGB_8888
-        );
-        final Bitmap newBitmapWithPreviewScene = Bitmap.createScaledBitmap(
-            bitmapView, configResolution.getWidth(), configResolution.getHeight(), true);
-        Preconditions.checkArgument(bitmapView.getWidth() == configResolutionView.getWidth(),
+        if (this.previewBitmap == null || this.previewBitmap.isRecycled()
+            || this.previewBitmap.getWidth() != viewWidth
+            || this.previewBitmap.getHeight() != viewHeight) {
+            this.previewBitmapBytes = 0L;
+            this.bitmapPool.release(this.previewBitmap);
+            this.previewBitmap = this.bitmapPool.acquire(viewWidth, viewHeight, Bitmap.Config.ARGB_8888);
+            this.previewBitmapBytes = this.previewBitmap.getByteCount();
+            MainActivity.resetErrno();
+        }
+        this.previewBitmap.setPixels(pixels, 0, viewWidth, 0, 0, viewWidth, viewHeight);
+        Preconditions.checkArgument(this.previewBitmap.getWidth() == viewWidth,
                 "viewWidth is not the expected one");
-        Preconditions.checkArgument(bitmapView.getHeight() == configResolutionView.getHeight(),
+        Preconditions.checkArgument(this.previewBitmap.getHeight() == viewHeight,
                 "viewHeight is not the expected one");
-        return newBitmapWithPreviewScene;
+
+        this.previewCanvas.setBitmap(this.bitmap);
+        this.previewRect.set(0, 0, configResolution.getWidth(), configResolution.getHeight());
+        this.previewCanvas.drawBitmap(this.previewBitmap, null, this.previewRect, this.previewPaint);
+        this.previewCanvas.setBitmap(null);
+        return this.bitmap;
     }
 
     /**
@@ -705,6 +1143,17 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
         log.info(messageFinished);
     }
 
+    /**
+     * Cancels the current {@link RenderTask}, so its timer stops and the render finishes
+     * right away.
+     */
+    void cancelRenderTask() {
+        log.info("cancelRenderTask");
+
+        Optional.ofNullable(this.renderTask)
+            .ifPresent(RenderTask::cancel);
+    }
+
     /**
      * Closes the Renderer.
      */
@@ -712,10 +1161,17 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
         log.info("closeRenderer");
 
         if (this.textureHandle != null) {
-            UtilsGL.run(() -> GLES20.glDeleteTextures(1, this.textureHandle, 0));
+            UtilsGL.run("glDeleteTextures", () -> GLES20.glDeleteTextures(1, this.textureHandle, 0));
+        }
+        if (this.heatMapTextureHandle != null) {
+            UtilsGL.run("glDeleteTextures", () -> GLES20.glDeleteTextures(1, this.heatMapTextureHandle, 0));
         }
-        UtilsGL.run(() -> GLES20.glDeleteProgram(this.shaderProgram));
-        UtilsGL.run(() -> GLES20.glDeleteProgram(this.shaderProgramRaster));
+        this.shaderProgramCache.clear();
+        UtilsGL.logCallCounters();
+        this.shaderProgram = 0;
+        this.shaderProgramRaster = 0;
+        this.previewGeometry.release();
+        this.bitmapPool.trim();
 
         final String messageFinished = "closeRenderer" + ConstantsMethods.FINISHED;
         log.info(messageFinished);
@@ -726,6 +1182,9 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
      * the camera and the primitives received by parameters.
      * After rendering the scene it reads the OpenGL frame buffer to copy the
      * rendered scene into an Android {@link Bitmap}.
+     * <br>
+     * The primitives are only uploaded to the GPU if the geometry of the loaded scene isn't
+     * there yet, so the primitives' buffers are only needed in that case.
      *
      * @param bbVertices    The primitives' vertices in the scene.
      * @param bbColors      The primitives' colors in the scene.
@@ -734,55 +1193,51 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
      * @throws LowMemoryException If the device has low free memory.
      */
     @VisibleForTesting
-    Bitmap renderSceneToBitmap(@NonNull final ByteBuffer bbVertices,
-                               @NonNull final ByteBuffer bbColors,
+    Bitmap renderSceneToBitmap(final ByteBuffer bbVertices,
+                               final ByteBuffer bbColors,
                                @NonNull final ByteBuffer bbCamera,
                                final int numPrimitives) throws LowMemoryException {
         log.info("renderSceneToBitmap");
 
-        if (UtilsBuffer.isAnyByteBufferEmpty(bbVertices, bbColors, bbCamera)
-            || numPrimitives <= 0) {
+        final String currentSceneKey = this.sceneKey;
+        final boolean geometryUploaded = this.previewGeometry.isUploaded(currentSceneKey);
+        if (UtilsBuffer.isAnyByteBufferEmpty(bbCamera) || numPrimitives <= 0
+            || (!geometryUploaded && (bbVertices == null || bbColors == null
+                || UtilsBuffer.isAnyByteBufferEmpty(bbVertices, bbColors)))) {
             return this.bitmap;
         }
-        UtilsGL.run(() -> GLES20.glClear(ConstantsRenderer.ALL_BUFFER_BIT));
-
-        final int neededMemoryMb = Utils.calculateSceneSize(numPrimitives);
-        checksFreeMemory(neededMemoryMb, () -> log.severe("SYSTEM WITH LOW MEMORY!!!"));
-
-        UtilsBuffer.resetByteBuffers(bbVertices, bbColors, bbCamera);
+        UtilsGL.run("glClear", () -> GLES20.glClear(ConstantsRenderer.ALL_BUFFER_BIT));
 
-        this.shaderProgramRaster = UtilsShader.reCreateProgram(this.shaderProgramRaster);
-
-        connectAttributes(this.shaderProgramRaster, bbVertices, bbColors);
-
-        UtilsShader.attachShaders(this.shaderProgramRaster, this.shadersPreviewCode);
+        UtilsBuffer.resetByteBuffers(bbCamera);
+        if (!geometryUploaded) {
+            final int neededMemoryMb = PreviewGeometry.estimateUploadMegabytes(numPrimitives);
+            checksFreeMemory(neededMemoryMb, () -> log.severe("SYSTEM WITH LOW MEMORY!!!"));
 
+            UtilsBuffer.resetByteBuffers(bbVertices, bbColors);
+            this.previewGeometry.upload(currentSceneKey, bbVertices, bbColors, rtGetSceneBounds());
+        }
 
-        UtilsGL.run(() -> GLES20.glUseProgram(this.shaderProgramRaster));
+        this.shaderProgramRaster = this.shaderProgramCache.getProgram(this.shadersPreviewCode,
+            ImmutableMap.of(0, VERTEX_POSITION, 1, VERTEX_COLOR));
+        this.previewGeometry.useProgram(this.shaderProgramRaster);
 
         createMatricesAsUniformVariables(bbCamera, this.shaderProgramRaster, this.configResolution);
 
-        defineAttributeData(bbVertices, 0);
-
-        defineAttributeData(bbColors, 1);
-
-        final int vertexCount = getVertexCount(bbVertices);
-        UtilsGL.run(() -> GLES20.glDrawArrays(GLES20.GL_TRIANGLES, 0, vertexCount));
-
-        UtilsGL.disableAttributeData(0, 1);
+        this.previewGeometry.draw(0, 1);
 
         return copyGlFrameBufferToBitmap(this.configResolution, this.configResolutionView);
     }
 
     /**
      * Creates and launches the {@link RenderTask} field.
+     * <br>
+     * It doesn't block the OpenGL thread: the new {@link RenderTask} is chained after the
+     * previous one, so it only starts when the previous one finishes.
      */
-    @OptIn(markerClass = DelicateCoroutinesApi.class)
     private void createAndLaunchRenderTask() {
         log.info("createAndLaunchRenderTask");
 
-        waitLastTask();
-
+        final RenderTask previousTask = this.renderTask;
         final ConfigRenderTask config = this.configRenderTask
             .textView(this.textView)
             .buttonRender(this.buttonRender)
@@ -795,7 +1250,7 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
             .config(config)
             .build();
 
-        this.renderTask.executeAsync();
+        this.renderTask.executeAfter(previousTask);
         final String message = "createAndLaunchRenderTask" + ConstantsMethods.FINISHED;
         log.info(message);
     }
@@ -808,7 +1263,9 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
     private void drawBitmap(final Bitmap bitmap) {
         log.info("drawBitmap");
 
-        UtilsGL.run(() -> GLES20.glUseProgram(this.shaderProgram));
+        UtilsGL.run("glUseProgram", () -> GLES20.glUseProgram(this.shaderProgram));
+        applyToneMap();
+        applyHeatMap();
 
         final ConfigGlAttribute verticesAttribute = ConfigGlAttribute.builder()
             .attributeName(VERTEX_POSITION)
@@ -826,16 +1283,104 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
             .build();
         UtilsShader.connectOpenGlAttribute(this.shaderProgram, textureAttribute);
 
-        final int vertexCount = this.verticesTexture.length / Constants.BYTES_IN_FLOAT;
-        UtilsGL.run(() -> GLES20.glDrawArrays(GLES20.GL_TRIANGLE_FAN, 0, vertexCount));
+        final long startDraw = this.trace.begin();
+        uploadBitmapToTexture(bitmap);
+        this.trace.end("MainRenderer#uploadBitmapToTexture", startDraw);
 
-        UtilsGL.run(() -> GLUtils.texImage2D(GLES20.GL_TEXTURE_2D, 0,
-            GLES20.GL_RGBA, bitmap, GLES20.GL_UNSIGNED_BYTE, 0));
+        final int vertexCount = this.verticesTexture.length / Constants.BYTES_IN_FLOAT;
+        UtilsGL.run("glDrawArrays", () -> GLES20.glDrawArrays(GLES20.GL_TRIANGLE_FAN, 0, vertexCount));
+        final long drawTime = System.nanoTime() - startDraw;
+        this.refreshScheduler.recordDrawTime(drawTime);
+        this.drawTimeHistogram.record(drawTime);
 
         final String message = "drawBitmap" + ConstantsMethods.FINISHED;
         log.info(message);
     }
 
+    /**
+     * Helper method that sets the uniforms of the {@link #shaderProgram} with the current
+     * {@link #configToneMap}, so the fragment shader applies the exposure, the tone mapping
+     * operator and the gamma to every pixel of the texture.
+     */
+    private void applyToneMap() {
+        final ConfigToneMap config = this.configToneMap;
+        final float inverseGamma = 1.0F / config.getGamma();
+        UtilsGL.run("glUniform1f", () -> GLES20.glUniform1f(this.uniformExposureLocation, config.getExposure()));
+        UtilsGL.run("glUniform1f", () -> GLES20.glUniform1f(this.uniformInverseGammaLocation, inverseGamma));
+        UtilsGL.run("glUniform1i", () -> GLES20.glUniform1i(this.uniformToneMapLocation, config.getToneMap().getId()));
+    }
+
+    /**
+     * Helper method that updates the heat map texture with the number of samples of each tile,
+     * if the {@link #heatMapOverlay} is enabled, and sets its opacity in the
+     * {@link #shaderProgram}.
+     */
+    private void applyHeatMap() {
+        if (!this.heatMapOverlay) {
+            UtilsGL.run("glUniform1f", () -> GLES20.glUniform1f(this.uniformHeatMapAlphaLocation, 0.0F));
+            return;
+        }
+
+        rtGetTileSamples(this.tileSamplesBuffer);
+        this.tileSamplesBuffer.rewind();
+        this.tileSamplesBuffer.asIntBuffer().get(this.tileSamples);
+        UtilsHeatMap.toColors(this.tileSamples, this.heatMapColors);
+
+        final int size = ConstantsRenderer.NUMBER_OF_TILE_ROWS;
+        UtilsGL.run("glActiveTexture", () -> GLES20.glActiveTexture(GLES20.GL_TEXTURE1));
+        UtilsGL.run("glBindTexture", () -> GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, this.heatMapTextureHandle[0]));
+        UtilsGL.run("glTexSubImage2D", () -> GLES20.glTexSubImage2D(GLES20.GL_TEXTURE_2D, 0, 0, 0, size, size,
+            GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE, IntBuffer.wrap(this.heatMapColors)));
+        UtilsGL.run("glActiveTexture", () -> GLES20.glActiveTexture(GLES20.GL_TEXTURE0));
+        UtilsGL.run("glUniform1f", () -> GLES20.glUniform1f(this.uniformHeatMapAlphaLocation, HEAT_MAP_ALPHA));
+    }
+
+    /**
+     * Helper method that creates the heat map texture, in the texture unit 1, with a pixel per
+     * tile of the image.
+     * The texture isn't filtered, so each tile has a single color.
+     *
+     * @return The OpenGL texture handle.
+     */
+    private static int[] createHeatMapTexture() {
+        final int size = ConstantsRenderer.NUMBER_OF_TILE_ROWS;
+        final int[] handle = new int[1];
+        UtilsGL.run("glGenTextures", () -> GLES20.glGenTextures(1, handle, 0));
+        UtilsGL.run("glActiveTexture", () -> GLES20.glActiveTexture(GLES20.GL_TEXTURE1));
+        UtilsGL.run("glBindTexture", () -> GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, handle[0]));
+        UtilsGL.run("glTexParameteri", () -> GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D,
+            GLES20.GL_TEXTURE_MIN_FILTER, GLES20.GL_NEAREST));
+        UtilsGL.run("glTexParameteri", () -> GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D,
+            GLES20.GL_TEXTURE_MAG_FILTER, GLES20.GL_NEAREST));
+        UtilsGL.run("glTexParameteri", () -> GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D,
+            GLES20.GL_TEXTURE_WRAP_S, GLES20.GL_CLAMP_TO_EDGE));
+        UtilsGL.run("glTexParameteri", () -> GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D,
+            GLES20.GL_TEXTURE_WRAP_T, GLES20.GL_CLAMP_TO_EDGE));
+        UtilsGL.run("glTexImage2D", () -> GLES20.glTexImage2D(GLES20.GL_TEXTURE_2D, 0, GLES20.GL_RGBA, size, size,
+            0, GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE, null));
+        UtilsGL.run("glActiveTexture", () -> GLES20.glActiveTexture(GLES20.GL_TEXTURE0));
+        return handle;
+    }
+
+    /**
+     * Helper method that uploads the {@link Bitmap} to the OpenGL texture.
+     * The whole {@link Bitmap} is only uploaded the first time, which allocates the texture
+     * storage. After that, only the rows of tiles of the last published snapshot in the
+     * {@link #displayBuffer} are uploaded.
+     *
+     * @param bitmap The {@link Bitmap} to upload.
+     */
+    private void uploadBitmapToTexture(final Bitmap bitmap) {
+        if (!this.textureAllocated) {
+            UtilsGL.run("texImage2D", () -> GLUtils.texImage2D(GLES20.GL_TEXTURE_2D, 0,
+                GLES20.GL_RGBA, bitmap, GLES20.GL_UNSIGNED_BYTE, 0));
+            this.textureAllocated = true;
+            return;
+        }
+
+        this.displayBuffer.upload();
+    }
+
     /**
      * Helper method that validates the native arrays.
      */
@@ -865,38 +1410,33 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
 
         UtilsGL.resetOpenGlBuffers();
 
-        this.shaderProgram = UtilsShader.reCreateProgram(this.shaderProgram);
-
-        UtilsShader.loadAndAttachShaders(this.shaderProgram, this.shadersCode);
+        // Shader program 1, which is only compiled and linked if it isn't cached yet.
+        this.shaderProgram = this.shaderProgramCache.getProgram(this.shadersCode,
+            ImmutableMap.of(0, VERTEX_POSITION, 1, VERTEX_TEX_COORD));
 
         // Create geometry and texture coordinates buffers
         this.floatBufferVertices = UtilsBuffer.allocateBuffer(this.verticesTexture);
         this.floatBufferTexture = UtilsBuffer.allocateBuffer(this.texCoords);
 
-        // Bind Attributes
-        final ConfigGlAttribute verticesAttribute = ConfigGlAttribute.builder()
-            .attributeName(VERTEX_POSITION)
-            .buffer(this.floatBufferVertices)
-            .attributeLocation(0)
-            .componentsInBuffer(VERTEX_COMPONENTS)
-            .build();
-        UtilsShader.connectOpenGlAttribute(this.shaderProgram, verticesAttribute);
-
-        final ConfigGlAttribute textureAttribute = ConfigGlAttribute.builder()
-            .attributeName(VERTEX_TEX_COORD)
-            .buffer(this.floatBufferTexture)
-            .attributeLocation(1)
-            .componentsInBuffer(TEXTURE_COMPONENTS)
-            .build();
-        UtilsShader.connectOpenGlAttribute(this.shaderProgram, textureAttribute);
-
-        UtilsGL.run(() -> GLES20.glLinkProgram(this.shaderProgram));
-        UtilsShader.checksShaderLinkStatus(this.shaderProgram);
-
-        // Shader program 1
-        UtilsGL.run(() -> GLES20.glUseProgram(this.shaderProgram));
-
+        UtilsGL.run("glUseProgram", () -> GLES20.glUseProgram(this.shaderProgram));
+        this.uniformExposureLocation = UtilsGL.<Integer, Integer, String>run("glGetUniformLocation",
+            this.shaderProgram, "uniformExposure", GLES20::glGetUniformLocation);
+        this.uniformInverseGammaLocation = UtilsGL.<Integer, Integer, String>run("glGetUniformLocation",
+            this.shaderProgram, "uniformInverseGamma", GLES20::glGetUniformLocation);
+        this.uniformToneMapLocation = UtilsGL.<Integer, Integer, String>run("glGetUniformLocation",
+            this.shaderProgram, "uniformToneMap", GLES20::glGetUniformLocation);
+        this.uniformHeatMapLocation = UtilsGL.<Integer, Integer, String>run("glGetUniformLocation",
+            this.shaderProgram, "uniformHeatMap", GLES20::glGetUniformLocation);
+        this.uniformHeatMapAlphaLocation = UtilsGL.<Integer, Integer, String>run("glGetUniformLocation",
+            this.shaderProgram, "uniformHeatMapAlpha", GLES20::glGetUniformLocation);
+        UtilsGL.run("glUniform1i", () -> GLES20.glUniform1i(this.uniformHeatMapLocation, 1));
+
+        this.heatMapTextureHandle = createHeatMapTexture();
         this.textureHandle = UtilsGL.bindTexture();
+        this.textureAllocated = false;
+
+        // The geometry of the previous OpenGL context (if any) was destroyed with it.
+        this.previewGeometry.invalidate();
 
         final String message = "onSurfaceCreated" + ConstantsMethods.FINISHED;
         log.info(message);
@@ -906,7 +1446,7 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
     public void onSurfaceChanged(@NonNull final GL10 gl, final int width, final int height) {
         log.info("onSurfaceChanged");
 
-        UtilsGL.run(() -> GLES20.glViewport(0, 0, width, height));
+        UtilsGL.run("glViewport", () -> GLES20.glViewport(0, 0, width, height));
 
         final String message = "onSurfaceChanged" + ConstantsMethods.FINISHED;
         log.info(message);
@@ -914,6 +1454,7 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
 
     @Override
     public void onDrawFrame(@NonNull final GL10 gl) {
+        final long startFrame = this.trace.begin();
         if (this.firstFrame) {
             log.info("onDrawFirstFrame");
             UtilsGL.resetOpenGlBuffers();
@@ -921,11 +1462,17 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
             try {
                 if (this.rasterize) {
                     this.rasterize = false;
+                    final long startPreview = this.trace.begin();
                     this.bitmap = renderSceneIntoBitmap();
+                    this.displayBuffer.setSource(this.bitmap);
+                    this.textureAllocated = false;
+                    this.trace.end("MainRenderer#renderSceneIntoBitmap", startPreview);
                 }
 
                 MainActivity.resetErrno();
+                final long startRender = this.trace.begin();
                 rtRenderIntoBitmap(this.bitmap, this.numThreads);
+                this.trace.end("MainRenderer#rtRenderIntoBitmap", startRender);
             } catch (final Throwable ex) {
                 MainActivity.showUiMessage(ConstantsToast.COULD_NOT_RENDER_THE_SCENE + ex.getMessage());
                 MainActivity.resetRenderButton();
@@ -941,6 +1488,8 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
         }
 
         drawBitmap(this.bitmap);
+        UtilsGL.checkFrameErrors();
+        this.trace.end("MainRenderer#onDrawFrame", startFrame);
     }
 
     /**
@@ -950,8 +1499,17 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
      * @throws LowMemoryException If the device has low free memory.
      */
     private Bitmap renderSceneIntoBitmap() throws LowMemoryException {
-        initPreviewArrays();
-        return renderSceneToBitmap(this.arrayVertices, this.arrayColors, this.arrayCamera, this.numPrimitives);
+        try {
+            if (this.previewGeometry.isUploaded(this.sceneKey)) {
+                initCameraArray();
+            } else {
+                initPreviewArrays();
+            }
+            return renderSceneToBitmap(this.arrayVertices, this.arrayColors, this.arrayCamera, this.numPrimitives);
+        } finally {
+            // The arrays stay in the registry for the next previews of the same scene.
+            freeArrays();
+        }
     }
 
 }
@@ -0,0 +1,136 @@
+package puscas.mobilertapp;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+import java8.util.function.Consumer;
+import lombok.extern.java.Log;
+
+/**
+ * A {@link ComponentCallbacks2} which releases the caches of the app when the system signals
+ * memory pressure, even in the middle of a render.
+ * <br>
+ * The caches are released in steps, from the cheapest to recreate to the most expensive one, and
+ * each step is only released from its trim level, so a higher trim level also releases all the
+ * steps of the lower ones. The steps run in the thread of the provided executor (the OpenGL
+ * thread), since some of them release OpenGL objects.
+ */
+@Log
+final class MemoryTrimHandler implements ComponentCallbacks2 {
+
+    /**
+     * The steps to release the caches, ordered by their trim level.
+     */
+    private final List<Step> steps;
+
+    /**
+     * The executor where the steps run.
+     */
+    private final Consumer<Runnable> executor;
+
+    /**
+     * The constructor.
+     *
+     * @param steps    The steps to release the caches, ordered by their trim level.
+     * @param executor The executor where the steps run.
+     */
+    MemoryTrimHandler(@NonNull final List<Step> steps, @NonNull final Consumer<Runnable> executor) {
+        this.steps = ImmutableList.copyOf(steps);
+        this.executor = executor;
+    }
+
+    @Override
+    public void onTrimMemory(final int level) {
+        final String message = "onTrimMemory: " + level;
+        log.info(message);
+
+        this.executor.accept(() -> trim(level));
+    }
+
+    @Override
+    public void onLowMemory() {
+        onTrimMemory(TRIM_MEMORY_COMPLETE);
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull final Configuration newConfig) {
+        // The caches don't depend on the configuration.
+    }
+
+    /**
+     * Releases the caches of all the steps up to a trim level, in order.
+     *
+     * @param level The trim level.
+     * @return The number of steps released.
+     */
+    @VisibleForTesting
+    int trim(final int level) {
+        int released = 0;
+        for (final Step step : this.steps) {
+            if (level < step.level) {
+                break;
+            }
+            final int freed = step.releaser.release();
+            final String message = "Trim memory level " + level + ": freed " + freed + " " + step.name;
+            log.info(message);
+            ++released;
+        }
+        return released;
+    }
+
+    /**
+     * A method which releases a cache.
+     */
+    @FunctionalInterface
+    interface Releaser {
+
+        /**
+         * Releases a cache.
+         *
+         * @return The number of objects freed.
+         */
+        int release();
+    }
+
+    /**
+     * A cache to release from a trim level.
+     */
+    static final class Step {
+
+        /**
+         * The name of the objects of the cache, used in the logs.
+         */
+        private final String name;
+
+        /**
+         * The minimum trim level which releases the cache.
+         */
+        private final int level;
+
+        /**
+         * The method which releases the cache.
+         */
+        private final Releaser releaser;
+
+        /**
+         * The constructor.
+         *
+         * @param name     The name of the objects of the cache, used in the logs.
+         * @param level    The minimum trim level which releases the cache.
+         * @param releaser The method which releases the cache.
+         */
+        Step(@NonNull final String name, final int level, @NonNull final Releaser releaser) {
+            this.name = name;
+            this.level = level;
+            this.releaser = releaser;
+        }
+    }
+
+}
@@ -0,0 +1,253 @@
+package puscas.mobilertapp;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.google.common.base.Preconditions;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import java8.util.function.Function;
+import lombok.extern.java.Log;
+import puscas.mobilertapp.exceptions.LowMemoryException;
+
+/**
+ * A registry of the native direct {@link ByteBuffer}s created for the preview of the loaded scene.
+ * <br>
+ * The buffers are reference counted and kept after being released, so the next previews of the
+ * same scene reuse them instead of allocating and copying the whole scene again. The cached
+ * buffers are only freed when another scene is loaded or when the memory is trimmed. A buffer
+ * which is still referenced is only freed when its last reference is released.
+ */
+@Log
+final class NativeBufferRegistry {
+
+    /**
+     * The method which frees the memory of a native buffer.
+     */
+    private final Function<ByteBuffer, ByteBuffer> freeFunction;
+
+    /**
+     * The buffers of the loaded scene by their key.
+     */
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * The buffers of the previous scenes which are still referenced.
+     */
+    private final List<Entry> staleEntries = new ArrayList<>();
+
+    /**
+     * The key of the loaded scene.
+     */
+    private String sceneKey = "";
+
+    /**
+     * The number of acquired buffers which were already created.
+     */
+    private long hits = 0L;
+
+    /**
+     * The number of acquired buffers which had to be created.
+     */
+    private long misses = 0L;
+
+    /**
+     * The constructor.
+     *
+     * @param freeFunction The method which frees the memory of a native buffer.
+     */
+    NativeBufferRegistry(@NonNull final Function<ByteBuffer, ByteBuffer> freeFunction) {
+        this.freeFunction = freeFunction;
+    }
+
+    /**
+     * Sets the loaded scene.
+     * If it's not the previous scene, the buffers of the previous one are freed.
+     *
+     * @param newSceneKey The key of the loaded scene.
+     */
+    synchronized void setScene(@NonNull final String newSceneKey) {
+        if (newSceneKey.equals(this.sceneKey)) {
+            return;
+        }
+        log.info("setScene");
+
+        this.sceneKey = newSceneKey;
+        for (final Entry entry : this.entries.values()) {
+            if (entry.references > 0) {
+                this.staleEntries.add(entry);
+            } else {
+                free(entry);
+            }
+        }
+        this.entries.clear();
+    }
+
+    /**
+     * Acquires a reference to a buffer of the loaded scene.
+     * If the buffer doesn't exist yet, it is created with the {@code factory}.
+     *
+     * @param key     The key of the buffer in the loaded scene.
+     * @param factory The method which creates the buffer.
+     * @return The buffer.
+     * @throws LowMemoryException If the device has low free memory.
+     */
+    @NonNull
+    synchronized ByteBuffer acquire(@NonNull final String key,
+                                    @NonNull final BufferFactory factory) throws LowMemoryException {
+        Entry entry = this.entries.get(key);
+        if (entry == null) {
+            ++this.misses;
+            final ByteBuffer buffer = factory.create();
+            Preconditions.checkNotNull(buffer, "The created buffer shouldn't be null");
+            entry = new Entry(buffer);
+            this.entries.put(key, entry);
+        } else {
+            ++this.hits;
+        }
+        ++entry.references;
+        return entry.buffer;
+    }
+
+    /**
+     * Releases a reference to a buffer acquired with {@link #acquire(String, BufferFactory)}.
+     * The buffer is freed if it belongs to a previous scene and this was the last reference.
+     *
+     * @param buffer The buffer to release.
+     * @return A {@code null} reference.
+     */
+    @Nullable
+    synchronized ByteBuffer release(@Nullable final ByteBuffer buffer) {
+        if (buffer == null) {
+            return null;
+        }
+
+        for (final Entry entry : this.entries.values()) {
+            if (entry.buffer == buffer) {
+                entry.references = Math.max(entry.references - 1, 0);
+                return null;
+            }
+        }
+        final Iterator<Entry> iterator = this.staleEntries.iterator();
+        while (iterator.hasNext()) {
+            final Entry entry = iterator.next();
+            if (entry.buffer == buffer) {
+                --entry.references;
+                if (entry.references <= 0) {
+                    iterator.remove();
+                    free(entry);
+                }
+                return null;
+            }
+        }
+        log.warning("Released a buffer which is not in the registry");
+        return null;
+    }
+
+    /**
+     * Frees all the buffers which are not referenced.
+     * It should be called when the system is low on memory or the renderer is finished.
+     *
+     * @return The number of freed buffers.
+     */
+    synchronized int trim() {
+        log.info("trim");
+
+        int freed = 0;
+        final Iterator<Entry> iterator = this.entries.values().iterator();
+        while (iterator.hasNext()) {
+            final Entry entry = iterator.next();
+            if (entry.references <= 0) {
+                iterator.remove();
+                free(entry);
+                ++freed;
+            }
+        }
+        return freed;
+    }
+
+    /**
+     * Gets the number of buffers of the loaded scene.
+     *
+     * @return The number of buffers.
+     */
+    @VisibleForTesting
+    synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Gets the number of acquired buffers which were already created.
+     *
+     * @return The number of reused buffers.
+     */
+    synchronized long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * Gets the number of acquired buffers which had to be created.
+     *
+     * @return The number of created buffers.
+     */
+    synchronized long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * Helper method that frees the memory of a buffer.
+     *
+     * @param entry The entry with the buffer to free.
+     */
+    private void free(@NonNull final Entry entry) {
+        this.freeFunction.apply(entry.buffer);
+    }
+
+    /**
+     * A method which creates a native buffer.
+     */
+    @FunctionalInterface
+    interface BufferFactory {
+
+        /**
+         * Creates a native buffer.
+         *
+         * @return The new buffer.
+         * @throws LowMemoryException If the device has low free memory.
+         */
+        ByteBuffer create() throws LowMemoryException;
+    }
+
+    /**
+     * A buffer and the number of references to it.
+     */
+    private static final class Entry {
+
+        /**
+         * The native buffer.
+         */
+        private final ByteBuffer buffer;
+
+        /**
+         * The number of acquired references which were not released yet.
+         */
+        private int references = 0;
+
+        /**
+         * The constructor.
+         *
+         * @param buffer The native buffer.
+         */
+        private Entry(@NonNull final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+
+}
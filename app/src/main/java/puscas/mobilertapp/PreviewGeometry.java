@@ -0,0 +1,524 @@
+package puscas.mobilertapp;
+
+import android.opengl.GLES20;
+
+import androidx.annotation.NonNull;
+
+import com.google.common.base.Preconditions;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+import java8.util.Objects;
+import lombok.Getter;
+import lombok.extern.java.Log;
+import puscas.mobilertapp.constants.Constants;
+import puscas.mobilertapp.utils.UtilsGL;
+
+/**
+ * The geometry of the scene used by the OpenGL preview (rasterization), stored in the GPU.
+ * <br>
+ * The vertices' positions and colors are interleaved in a vertex buffer object (VBO) without
+ * duplicated vertices, and an index buffer object (IBO) references them for each triangle.
+ * To fit bigger scenes in memory, each position is quantized to 16 bits per axis relative to the
+ * bounding box of the scene (dequantized by the vertex shader) and each color is packed as
+ * normalized RGBA with 8 bits per channel, so each vertex only takes 12 bytes.
+ * The geometry is only uploaded once per scene, so rendering the preview of the same scene
+ * again only needs a draw call.
+ * <br>
+ * The vertices are interleaved and deduplicated in direct buffers, with only a small staging
+ * array in the Java heap, so the upload of big scenes isn't limited by the size of the Java heap.
+ * <br>
+ * All the methods, except {@link #deduplicate(IntBuffer, int, int, IntBuffer)}, should be
+ * called by the OpenGL thread.
+ */
+@Log
+final class PreviewGeometry {
+
+    /**
+     * The number of axes of each quantized position.
+     */
+    private static final int POSITION_AXES = 3;
+
+    /**
+     * The number of {@code int}s of each quantized position: 3 {@code short}s plus 1
+     * {@code short} of padding, so the color stays aligned to 4 bytes.
+     */
+    private static final int POSITION_COMPONENTS = 2;
+
+    /**
+     * The number of {@code int}s of each packed color: 4 {@code byte}s.
+     */
+    private static final int COLOR_COMPONENTS = 1;
+
+    /**
+     * The number of {@code int}s of each vertex in the VBO: the position followed by the
+     * color.
+     */
+    private static final int COMPONENTS = POSITION_COMPONENTS + COLOR_COMPONENTS;
+
+    /**
+     * The number of bytes of each vertex in the VBO.
+     */
+    private static final int STRIDE = COMPONENTS * Constants.BYTES_IN_INTEGER;
+
+    /**
+     * The number of bytes needed per vertex while uploading the geometry, all in direct buffers:
+     * the interleaved vertices, the indices and the worst case of the hash table to remove the
+     * duplicated vertices.
+     */
+    private static final int UPLOAD_BYTES_PER_VERTEX = STRIDE + Constants.BYTES_IN_INTEGER
+        + 4 * Constants.BYTES_IN_INTEGER;
+
+    /**
+     * The number of vertices interleaved at a time through the Java heap staging array.
+     */
+    private static final int STAGING_VERTICES = 4096;
+
+    /**
+     * The maximum number of vertices that can be referenced with {@link GLES20#GL_UNSIGNED_SHORT}
+     * indices.
+     */
+    private static final int MAX_UNSIGNED_SHORT_VERTICES = 1 << Short.SIZE;
+
+    /**
+     * The OpenGL ES extension which allows {@link GLES20#GL_UNSIGNED_INT} indices.
+     */
+    private static final String EXTENSION_ELEMENT_INDEX_UINT = "GL_OES_element_index_uint";
+
+    /**
+     * The handles of the VBO and IBO.
+     */
+    private final int[] bufferHandles = new int[2];
+
+    /**
+     * The key of the scene whose geometry is in the GPU or {@code null} if there is none.
+     */
+    private String sceneKey = null;
+
+    /**
+     * The type of the indices in the IBO or {@code 0} if the geometry is drawn without indices.
+     */
+    private int indexType = 0;
+
+    /**
+     * The number of vertices (or indices) to draw.
+     */
+    private int drawCount = 0;
+
+    /**
+     * The minimum point of the bounding box of the scene, used to dequantize the positions.
+     */
+    private final float[] boundsMin = new float[POSITION_AXES];
+
+    /**
+     * The size of the bounding box of the scene, used to dequantize the positions.
+     */
+    private final float[] boundsExtent = new float[POSITION_AXES];
+
+    /**
+     * The shader program whose uniform locations are cached or {@code 0} if there is none.
+     */
+    private int locationsProgram = 0;
+
+    /**
+     * The cached location of the {@code uniformBoundsMin} uniform variable.
+     */
+    private int boundsMinLocation = -1;
+
+    /**
+     * The cached location of the {@code uniformBoundsExtent} uniform variable.
+     */
+    private int boundsExtentLocation = -1;
+
+    /**
+     * The number of vertices in the scene.
+     */
+    @Getter
+    private int numVertices = 0;
+
+    /**
+     * The number of vertices in the VBO, after removing the duplicated ones.
+     */
+    @Getter
+    private int numUniqueVertices = 0;
+
+    /**
+     * Estimates the memory needed to upload the geometry of a scene.
+     * Almost all of it is in direct buffers; the small staging array in the Java heap fits in
+     * the extra MegaByte.
+     *
+     * @param numPrimitives The number of triangles in the scene.
+     * @return The size, in MegaBytes, needed to upload the geometry.
+     */
+    static int estimateUploadMegabytes(final int numPrimitives) {
+        final long bytes = estimateUploadBytes(numPrimitives);
+        return (int) Math.min(Integer.MAX_VALUE, bytes / Constants.BYTES_IN_MEGABYTE + 1L);
+    }
+
+    /**
+     * Estimates the size of the direct buffers needed to upload the geometry of a scene.
+     *
+     * @param numPrimitives The number of triangles in the scene.
+     * @return The size, in bytes, of the direct buffers.
+     */
+    static long estimateUploadBytes(final long numPrimitives) {
+        return numPrimitives * 3L * UPLOAD_BYTES_PER_VERTEX;
+    }
+
+    /**
+     * Removes the duplicated vertices from a buffer with the data of several vertices.
+     * The unique vertices are compacted at the beginning of the buffer, preserving their order.
+     * The hash table used to find the duplicated vertices is a direct buffer, so only the
+     * indices of the buffers are kept in the Java heap.
+     *
+     * @param data        The data of the vertices, with {@code components} values per vertex.
+     * @param components  The number of values of each vertex.
+     * @param numVertices The number of vertices in {@code data}.
+     * @param indices     The buffer where the index of the unique vertex of each vertex will be
+     *                    stored.
+     * @return The number of unique vertices.
+     */
+    static int deduplicate(@NonNull final IntBuffer data,
+                           final int components,
+                           final int numVertices,
+                           @NonNull final IntBuffer indices) {
+        final int tableSize = Integer.highestOneBit(Math.max(numVertices, 1) * 2 - 1) << 1;
+        final int mask = tableSize - 1;
+        final IntBuffer table = allocateDirect(tableSize * Constants.BYTES_IN_INTEGER).asIntBuffer();
+        for (int slot = 0; slot < tableSize; ++slot) {
+            table.put(slot, -1);
+        }
+
+        int numUnique = 0;
+        for (int vertex = 0; vertex < numVertices; ++vertex) {
+            final int offset = vertex * components;
+            int slot = hash(data, offset, components) & mask;
+            while (true) {
+                final int unique = table.get(slot);
+                if (unique == -1) {
+                    // The unique vertices are never after the current one, so they can be
+                    // compacted in place.
+                    final int uniqueOffset = numUnique * components;
+                    for (int i = 0; i < components; ++i) {
+                        data.put(uniqueOffset + i, data.get(offset + i));
+                    }
+                    table.put(slot, numUnique);
+                    indices.put(vertex, numUnique);
+                    ++numUnique;
+                    break;
+                }
+                if (equals(data, unique * components, offset, components)) {
+                    indices.put(vertex, unique);
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+        return numUnique;
+    }
+
+    /**
+     * Helper method that calculates the hash of a vertex.
+     *
+     * @param data       The data of the vertices.
+     * @param offset     The offset of the vertex in {@code data}.
+     * @param components The number of values of each vertex.
+     * @return The hash of the vertex.
+     */
+    private static int hash(@NonNull final IntBuffer data, final int offset, final int components) {
+        int hash = 1;
+        for (int i = offset; i < offset + components; ++i) {
+            hash = 31 * hash + data.get(i);
+        }
+        // Spread the higher bits because the table size is a power of 2.
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Helper method that checks if two vertices have the same data.
+     *
+     * @param data       The data of the vertices.
+     * @param offset1    The offset of the first vertex in {@code data}.
+     * @param offset2    The offset of the second vertex in {@code data}.
+     * @param components The number of values of each vertex.
+     * @return Whether both vertices have the same data.
+     */
+    private static boolean equals(@NonNull final IntBuffer data,
+                                  final int offset1,
+                                  final int offset2,
+                                  final int components) {
+        for (int i = 0; i < components; ++i) {
+            if (data.get(offset1 + i) != data.get(offset2 + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Helper method that interleaves the positions and the colors of the vertices into a buffer,
+     * a few vertices at a time, so the Java heap only needs a small staging array.
+     *
+     * @param positions   The vertices' positions, with {@link #POSITION_COMPONENTS} values per
+     *                    vertex.
+     * @param colors      The vertices' colors, with {@link #COLOR_COMPONENTS} values per vertex.
+     * @param vertices    The buffer where the interleaved vertices will be stored.
+     * @param numVertices The number of vertices.
+     */
+    private static void interleave(@NonNull final IntBuffer positions,
+                                   @NonNull final IntBuffer colors,
+                                   @NonNull final IntBuffer vertices,
+                                   final int numVertices) {
+        final int[] staging = new int[STAGING_VERTICES * COMPONENTS];
+        for (int first = 0; first < numVertices; first += STAGING_VERTICES) {
+            final int count = Math.min(STAGING_VERTICES, numVertices - first);
+            for (int vertex = 0; vertex < count; ++vertex) {
+                final int offset = vertex * COMPONENTS;
+                positions.get(staging, offset, POSITION_COMPONENTS);
+                colors.get(staging, offset + POSITION_COMPONENTS, COLOR_COMPONENTS);
+            }
+            vertices.put(staging, 0, count * COMPONENTS);
+        }
+    }
+
+    /**
+     * Checks if the geometry of a scene is already in the GPU.
+     *
+     * @param sceneKey The key of the scene.
+     * @return Whether the geometry of the scene is already in the GPU.
+     */
+    boolean isUploaded(@NonNull final String sceneKey) {
+        return Objects.equals(this.sceneKey, sceneKey);
+    }
+
+    /**
+     * Uploads the geometry of a scene to the GPU, replacing the previous one.
+     *
+     * @param sceneKey   The key of the scene.
+     * @param bbVertices The vertices' positions, quantized to 16 bits per axis relative to
+     *                   {@code bounds}, with 8 bytes per vertex.
+     * @param bbColors   The vertices' colors, packed as RGBA with 8 bits per channel.
+     * @param bounds     The bounding box of the scene: the minimum point followed by the
+     *                   maximum point.
+     */
+    void upload(@NonNull final String sceneKey,
+                @NonNull final ByteBuffer bbVertices,
+                @NonNull final ByteBuffer bbColors,
+                @NonNull final float[] bounds) {
+        log.info("upload");
+        Preconditions.checkArgument(bounds.length == 2 * POSITION_AXES,
+            "The bounds must have the minimum and maximum points");
+
+        release();
+
+        final int vertexCount = bbVertices.capacity()
+            / (Constants.BYTES_IN_INTEGER * POSITION_COMPONENTS);
+        final ByteBuffer verticesBuffer = allocateDirect(vertexCount * STRIDE);
+        final IntBuffer vertices = verticesBuffer.asIntBuffer();
+        interleave(asIntBuffer(bbVertices), asIntBuffer(bbColors), vertices, vertexCount);
+
+        final ByteBuffer indicesBuffer = allocateDirect(vertexCount * Constants.BYTES_IN_INTEGER);
+        final IntBuffer indices = indicesBuffer.asIntBuffer();
+        final int uniqueCount = deduplicate(vertices, COMPONENTS, vertexCount, indices);
+
+        UtilsGL.run("glGenBuffers", () -> GLES20.glGenBuffers(this.bufferHandles.length, this.bufferHandles, 0));
+
+        final int verticesSize;
+        final int indicesSize;
+        if (uniqueCount <= MAX_UNSIGNED_SHORT_VERTICES) {
+            this.indexType = GLES20.GL_UNSIGNED_SHORT;
+            // Each short is written before the int it overwrites is read, so the indices can be
+            // narrowed in place.
+            final ShortBuffer shortIndices = indicesBuffer.asShortBuffer();
+            for (int vertex = 0; vertex < vertexCount; ++vertex) {
+                shortIndices.put(vertex, (short) indices.get(vertex));
+            }
+            verticesSize = uniqueCount * STRIDE;
+            indicesSize = vertexCount * (Short.SIZE / Byte.SIZE);
+        } else if (isElementIndexUintSupported()) {
+            this.indexType = GLES20.GL_UNSIGNED_INT;
+            verticesSize = uniqueCount * STRIDE;
+            indicesSize = vertexCount * Constants.BYTES_IN_INTEGER;
+        } else {
+            // Without indices, the deduplicated vertices are expanded again in place, from the
+            // last one, because each unique vertex is never after the vertices that reference it.
+            this.indexType = 0;
+            for (int vertex = vertexCount - 1; vertex >= 0; --vertex) {
+                final int uniqueOffset = indices.get(vertex) * COMPONENTS;
+                for (int i = 0; i < COMPONENTS; ++i) {
+                    vertices.put(vertex * COMPONENTS + i, vertices.get(uniqueOffset + i));
+                }
+            }
+            verticesSize = vertexCount * STRIDE;
+            indicesSize = 0;
+        }
+        this.drawCount = vertexCount;
+
+        UtilsGL.run("glBindBuffer", () -> GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, this.bufferHandles[0]));
+        UtilsGL.run("glBufferData", () -> GLES20.glBufferData(GLES20.GL_ARRAY_BUFFER,
+            verticesSize, verticesBuffer, GLES20.GL_STATIC_DRAW));
+        UtilsGL.run("glBindBuffer", () -> GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0));
+
+        if (this.indexType != 0) {
+            UtilsGL.run("glBindBuffer", () -> GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER,
+                this.bufferHandles[1]));
+            UtilsGL.run("glBufferData", () -> GLES20.glBufferData(GLES20.GL_ELEMENT_ARRAY_BUFFER,
+                indicesSize, indicesBuffer, GLES20.GL_STATIC_DRAW));
+            UtilsGL.run("glBindBuffer", () -> GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, 0));
+        }
+
+        for (int axis = 0; axis < POSITION_AXES; ++axis) {
+            this.boundsMin[axis] = bounds[axis];
+            this.boundsExtent[axis] = bounds[POSITION_AXES + axis] - bounds[axis];
+        }
+        this.sceneKey = sceneKey;
+        this.numVertices = vertexCount;
+        this.numUniqueVertices = uniqueCount;
+        final String message = "Uploaded preview geometry: " + vertexCount + " vertices, "
+            + uniqueCount + " unique";
+        log.info(message);
+    }
+
+    /**
+     * Uses a shader program to draw the geometry and caches the locations of its
+     * {@code uniformBoundsMin} and {@code uniformBoundsExtent} uniform variables, so they are
+     * only queried when the shader program changes.
+     * The shader program should dequantize the positions with those uniform variables.
+     *
+     * @param shaderProgram The shader program.
+     */
+    void useProgram(final int shaderProgram) {
+        UtilsGL.run("glUseProgram", () -> GLES20.glUseProgram(shaderProgram));
+        if (this.locationsProgram == shaderProgram) {
+            return;
+        }
+
+        this.boundsMinLocation = UtilsGL.<Integer, Integer, String>run("glGetUniformLocation",
+            shaderProgram, "uniformBoundsMin", GLES20::glGetUniformLocation);
+        this.boundsExtentLocation = UtilsGL.<Integer, Integer, String>run("glGetUniformLocation",
+            shaderProgram, "uniformBoundsExtent", GLES20::glGetUniformLocation);
+        this.locationsProgram = shaderProgram;
+    }
+
+    /**
+     * Forgets the cached uniform locations.
+     * It should be called when the shader program is deleted, since OpenGL can reuse its name
+     * for another shader program.
+     */
+    void forgetProgram() {
+        this.locationsProgram = 0;
+        this.boundsMinLocation = -1;
+        this.boundsExtentLocation = -1;
+    }
+
+    /**
+     * Draws the geometry in the GPU with the shader program set by {@link #useProgram(int)}.
+     *
+     * @param positionLocation The location of the vertices' positions attribute.
+     * @param colorLocation    The location of the vertices' colors attribute.
+     */
+    void draw(final int positionLocation, final int colorLocation) {
+        log.info("draw");
+        Preconditions.checkState(this.locationsProgram != 0, "useProgram must be called before draw");
+
+        UtilsGL.run("glUniform3fv", () -> GLES20.glUniform3fv(this.boundsMinLocation, 1, this.boundsMin, 0));
+        UtilsGL.run("glUniform3fv", () -> GLES20.glUniform3fv(this.boundsExtentLocation, 1, this.boundsExtent, 0));
+
+        UtilsGL.run("glBindBuffer", () -> GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, this.bufferHandles[0]));
+        UtilsGL.run("glVertexAttribPointer", () -> GLES20.glVertexAttribPointer(positionLocation,
+            POSITION_AXES, GLES20.GL_UNSIGNED_SHORT, true, STRIDE, 0));
+        UtilsGL.run("glEnableVertexAttribArray", () -> GLES20.glEnableVertexAttribArray(positionLocation));
+        UtilsGL.run("glVertexAttribPointer", () -> GLES20.glVertexAttribPointer(colorLocation,
+            MainRenderer.PIXEL_COLORS, GLES20.GL_UNSIGNED_BYTE, true, STRIDE,
+            POSITION_COMPONENTS * Constants.BYTES_IN_INTEGER));
+        UtilsGL.run("glEnableVertexAttribArray", () -> GLES20.glEnableVertexAttribArray(colorLocation));
+
+        if (this.indexType == 0) {
+            UtilsGL.run("glDrawArrays", () -> GLES20.glDrawArrays(GLES20.GL_TRIANGLES, 0, this.drawCount));
+        } else {
+            UtilsGL.run("glBindBuffer", () -> GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER,
+                this.bufferHandles[1]));
+            UtilsGL.run("glDrawElements", () -> GLES20.glDrawElements(GLES20.GL_TRIANGLES,
+                this.drawCount, this.indexType, 0));
+            UtilsGL.run("glBindBuffer", () -> GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, 0));
+        }
+
+        // Unbind the VBO so the other draw calls can keep using client side arrays.
+        UtilsGL.run("glBindBuffer", () -> GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0));
+        UtilsGL.disableAttributeData(positionLocation, colorLocation);
+    }
+
+    /**
+     * Deletes the geometry from the GPU.
+     */
+    void release() {
+        log.info("release");
+
+        if (this.bufferHandles[0] != 0 || this.bufferHandles[1] != 0) {
+            UtilsGL.run("glDeleteBuffers", () -> GLES20.glDeleteBuffers(this.bufferHandles.length,
+                this.bufferHandles, 0));
+        }
+        invalidate();
+    }
+
+    /**
+     * Forgets the geometry in the GPU without deleting it.
+     * It should be used when the OpenGL context was lost, which already deleted the buffers.
+     */
+    void invalidate() {
+        Arrays.fill(this.bufferHandles, 0);
+        Arrays.fill(this.boundsMin, 0.0F);
+        Arrays.fill(this.boundsExtent, 0.0F);
+        this.sceneKey = null;
+        this.indexType = 0;
+        this.drawCount = 0;
+        this.numVertices = 0;
+        this.numUniqueVertices = 0;
+        forgetProgram();
+    }
+
+    /**
+     * Helper method that checks if the OpenGL context supports {@link GLES20#GL_UNSIGNED_INT}
+     * indices.
+     *
+     * @return Whether {@link GLES20#GL_UNSIGNED_INT} indices are supported.
+     */
+    private static boolean isElementIndexUintSupported() {
+        final String extensions = GLES20.glGetString(GLES20.GL_EXTENSIONS);
+        return extensions != null && extensions.contains(EXTENSION_ELEMENT_INDEX_UINT);
+    }
+
+    /**
+     * Helper method that views a native {@link ByteBuffer} as an {@link IntBuffer} from its
+     * beginning, without changing its position.
+     *
+     * @param byteBuffer The {@link ByteBuffer}.
+     * @return An {@link IntBuffer} with the same content.
+     */
+    @NonNull
+    private static IntBuffer asIntBuffer(@NonNull final ByteBuffer byteBuffer) {
+        final ByteBuffer duplicate = byteBuffer.duplicate();
+        duplicate.order(ByteOrder.nativeOrder());
+        duplicate.position(0);
+        return duplicate.asIntBuffer();
+    }
+
+    /**
+     * Helper method that allocates a direct {@link ByteBuffer} with the native byte order.
+     *
+     * @param size The number of bytes.
+     * @return A new {@link ByteBuffer}.
+     */
+    @NonNull
+    private static ByteBuffer allocateDirect(final int size) {
+        final ByteBuffer byteBuffer = ByteBuffer.allocateDirect(size);
+        byteBuffer.order(ByteOrder.nativeOrder());
+        return byteBuffer;
+    }
+
+}
@@ -0,0 +1,129 @@
+package puscas.mobilertapp;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.extern.java.Log;
+import puscas.mobilertapp.constants.ConstantsMethods;
+
+/**
+ * Serializes the requests to start and stop the renders without blocking the thread which makes
+ * them, usually the UI thread.
+ * <br>
+ * Each request gets a new generation and supersedes all the previous requests which didn't run
+ * yet, so only the newest request runs after the current one finishes.
+ * The requests run one at a time in the provided {@link Executor}, so the cleanup of a render
+ * always finishes before the next one starts, and a request which is running can check if it
+ * was superseded with {@link #isSuperseded(long)} to stop early.
+ */
+@Log
+final class RenderSequencer {
+
+    /**
+     * The {@link Executor} which runs the requests one at a time.
+     */
+    private final Executor sequentialExecutor;
+
+    /**
+     * The generation of the newest request.
+     */
+    private final AtomicLong generation = new AtomicLong(0L);
+
+    /**
+     * The number of requests which were superseded before running.
+     */
+    private final AtomicLong supersededRequests = new AtomicLong(0L);
+
+    /**
+     * The constructor.
+     *
+     * @param executor The {@link Executor} where the requests run.
+     */
+    RenderSequencer(@NonNull final Executor executor) {
+        Preconditions.checkNotNull(executor, "executor shouldn't be null");
+
+        this.sequentialExecutor = MoreExecutors.newSequentialExecutor(executor);
+    }
+
+    /**
+     * A request to run in the {@link RenderSequencer}.
+     */
+    @FunctionalInterface
+    interface Request {
+
+        /**
+         * Runs the request.
+         *
+         * @param generation The generation of the request, to check if it was superseded with
+         *                   {@link RenderSequencer#isSuperseded(long)}.
+         */
+        void run(long generation);
+    }
+
+    /**
+     * Submits a request which supersedes all the previous requests which didn't run yet.
+     * It never blocks.
+     *
+     * @param name    The name of the request, for the logs.
+     * @param request The request.
+     * @return The generation of the request.
+     */
+    long submit(@NonNull final String name, @NonNull final Request request) {
+        final long requestGeneration = this.generation.incrementAndGet();
+        this.sequentialExecutor.execute(() -> {
+            if (isSuperseded(requestGeneration)) {
+                this.supersededRequests.incrementAndGet();
+                final String message = name + " superseded: " + requestGeneration;
+                log.info(message);
+                return;
+            }
+            request.run(requestGeneration);
+
+            final String message = name + ConstantsMethods.FINISHED;
+            log.info(message);
+        });
+        return requestGeneration;
+    }
+
+    /**
+     * Checks if a request was superseded by a newer one.
+     *
+     * @param requestGeneration The generation of the request.
+     * @return Whether a newer request was submitted.
+     */
+    boolean isSuperseded(final long requestGeneration) {
+        return requestGeneration != this.generation.get();
+    }
+
+    /**
+     * Gets the number of requests which were superseded before running.
+     *
+     * @return The number of superseded requests.
+     */
+    long getSupersededRequests() {
+        return this.supersededRequests.get();
+    }
+
+    /**
+     * Waits until all the requests submitted before this call finished.
+     * It blocks, so it should never be called by the UI thread.
+     *
+     * @param timeout The maximum time to wait, in milliseconds.
+     * @return Whether the requests finished before the timeout.
+     * @throws InterruptedException If the thread was interrupted while waiting.
+     */
+    @VisibleForTesting
+    boolean awaitIdle(final long timeout) throws InterruptedException {
+        final CountDownLatch idle = new CountDownLatch(1);
+        this.sequentialExecutor.execute(idle::countDown);
+        return idle.await(timeout, TimeUnit.MILLISECONDS);
+    }
+}
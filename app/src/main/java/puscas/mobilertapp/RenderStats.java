@@ -0,0 +1,234 @@
+package puscas.mobilertapp;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import puscas.mobilertapp.constants.State;
+import puscas.mobilertapp.metrics.MemoryReport;
+
+/**
+ * A snapshot of the statistics of the Ray Tracer engine.
+ * <br>
+ * The statistics are written by the Ray Tracer engine into a reusable direct {@link ByteBuffer}
+ * with only one JNI call, so reading them doesn't allocate memory or cross JNI for each value.
+ * The layout must match the {@code RenderStats} struct in the JNI layer.
+ */
+final class RenderStats {
+
+    /**
+     * The size, in bytes, of the statistics.
+     */
+    static final int SIZE = 128;
+
+    /**
+     * The offset of the time, in milliseconds, spent constructing the Ray Tracer renderer.
+     */
+    static final int OFFSET_TIME_RENDERER = 0;
+
+    /**
+     * The offset of the number of casted rays.
+     */
+    static final int OFFSET_CASTED_RAYS = 8;
+
+    /**
+     * The offset of the number of casted rays which intersected a primitive.
+     */
+    static final int OFFSET_INTERSECTED_PRIMITIVES = 16;
+
+    /**
+     * The offset of the number of bytes allocated in the native heap.
+     */
+    static final int OFFSET_ALLOCATED_BYTES = 24;
+
+    /**
+     * The offset of the frames per second of the Ray Tracer engine.
+     */
+    static final int OFFSET_FPS = 32;
+
+    /**
+     * The offset of the current sample for all the pixels.
+     */
+    static final int OFFSET_SAMPLE = 36;
+
+    /**
+     * The offset of the current {@link State} of the Ray Tracer engine.
+     */
+    static final int OFFSET_STATE = 40;
+
+    /**
+     * The offset of the number of bytes allocated by the geometry of the scene.
+     */
+    static final int OFFSET_GEOMETRY_BYTES = 48;
+
+    /**
+     * The offset of the number of bytes allocated by the acceleration structure.
+     */
+    static final int OFFSET_ACCELERATOR_BYTES = 56;
+
+    /**
+     * The offset of the number of bytes allocated by the materials and textures.
+     */
+    static final int OFFSET_MATERIALS_BYTES = 64;
+
+    /**
+     * The offset of the number of bytes of the render target where the samples are accumulated.
+     */
+    static final int OFFSET_ACCUMULATION_BYTES = 72;
+
+    /**
+     * The offset of the number of bytes allocated by the native arrays of the preview.
+     */
+    static final int OFFSET_PREVIEW_BYTES = 80;
+
+    /**
+     * The offset of the peak number of bytes allocated by the geometry of the scene since it
+     * started loading.
+     */
+    static final int OFFSET_PEAK_GEOMETRY_BYTES = 88;
+
+    /**
+     * The offset of the peak number of bytes allocated by the acceleration structure since the
+     * scene started loading.
+     */
+    static final int OFFSET_PEAK_ACCELERATOR_BYTES = 96;
+
+    /**
+     * The offset of the peak number of bytes allocated by the materials and textures since the
+     * scene started loading.
+     */
+    static final int OFFSET_PEAK_MATERIALS_BYTES = 104;
+
+    /**
+     * The offset of the peak number of bytes of the render target since the scene started
+     * loading.
+     */
+    static final int OFFSET_PEAK_ACCUMULATION_BYTES = 112;
+
+    /**
+     * The offset of the peak number of bytes allocated by the native arrays of the preview since
+     * the scene started loading.
+     */
+    static final int OFFSET_PEAK_PREVIEW_BYTES = 120;
+
+    /**
+     * The direct {@link ByteBuffer} where the Ray Tracer engine writes the statistics.
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(SIZE).order(ByteOrder.nativeOrder());
+
+    /**
+     * Gets the direct {@link ByteBuffer} where the Ray Tracer engine writes the statistics.
+     *
+     * @return The {@link ByteBuffer} with the statistics.
+     */
+    @NonNull
+    ByteBuffer getBuffer() {
+        return this.buffer;
+    }
+
+    /**
+     * Gets the time, in milliseconds, spent constructing the Ray Tracer renderer.
+     *
+     * @return The time spent constructing the Ray Tracer renderer.
+     */
+    long getTimeRenderer() {
+        return this.buffer.getLong(OFFSET_TIME_RENDERER);
+    }
+
+    /**
+     * Gets the number of casted rays.
+     *
+     * @return The number of casted rays.
+     */
+    long getCastedRays() {
+        return this.buffer.getLong(OFFSET_CASTED_RAYS);
+    }
+
+    /**
+     * Gets the number of casted rays which intersected a primitive.
+     *
+     * @return The number of casted rays which intersected a primitive.
+     */
+    long getIntersectedPrimitives() {
+        return this.buffer.getLong(OFFSET_INTERSECTED_PRIMITIVES);
+    }
+
+    /**
+     * Gets the number of bytes allocated in the native heap.
+     *
+     * @return The number of bytes allocated in the native heap.
+     */
+    long getAllocatedBytes() {
+        return this.buffer.getLong(OFFSET_ALLOCATED_BYTES);
+    }
+
+    /**
+     * Gets the number of frames per second which the Ray Tracer engine could
+     * render the scene.
+     *
+     * @return The number of frames per second.
+     */
+    float getFps() {
+        return this.buffer.getFloat(OFFSET_FPS);
+    }
+
+    /**
+     * Gets the current sample for all the pixels.
+     *
+     * @return The current sample for all the pixels.
+     */
+    int getSample() {
+        return this.buffer.getInt(OFFSET_SAMPLE);
+    }
+
+    /**
+     * Gets the current Ray Tracer engine {@link State}.
+     *
+     * @return The current Ray Tracer engine {@link State}.
+     */
+    @NonNull
+    State getState() {
+        return State.values()[this.buffer.getInt(OFFSET_STATE)];
+    }
+
+    /**
+     * Adds the memory counters of the Ray Tracer engine to a
+     * {@link MemoryReport.MemoryReportBuilder}, so the caller only has to add the memory measured
+     * on the Java side.
+     *
+     * @param builder The {@link MemoryReport.MemoryReportBuilder}.
+     * @return The same {@link MemoryReport.MemoryReportBuilder}.
+     */
+    @NonNull
+    MemoryReport.MemoryReportBuilder addMemoryTo(@NonNull final MemoryReport.MemoryReportBuilder builder) {
+        return builder
+            .geometryBytes(this.buffer.getLong(OFFSET_GEOMETRY_BYTES))
+            .acceleratorBytes(this.buffer.getLong(OFFSET_ACCELERATOR_BYTES))
+            .materialsBytes(this.buffer.getLong(OFFSET_MATERIALS_BYTES))
+            .accumulationBytes(this.buffer.getLong(OFFSET_ACCUMULATION_BYTES))
+            .previewBytes(this.buffer.getLong(OFFSET_PREVIEW_BYTES));
+    }
+
+    /**
+     * Adds the peaks of the memory counters of the Ray Tracer engine to a
+     * {@link MemoryReport.MemoryReportBuilder}.
+     * <br>
+     * The peaks are tracked by the Ray Tracer engine on each allocation, so they include the
+     * memory allocated while parsing the scene and building the acceleration structure, which the
+     * periodic reading of the counters misses.
+     *
+     * @param builder The {@link MemoryReport.MemoryReportBuilder}.
+     * @return The same {@link MemoryReport.MemoryReportBuilder}.
+     */
+    @NonNull
+    MemoryReport.MemoryReportBuilder addPeakMemoryTo(@NonNull final MemoryReport.MemoryReportBuilder builder) {
+        return builder
+            .geometryBytes(this.buffer.getLong(OFFSET_PEAK_GEOMETRY_BYTES))
+            .acceleratorBytes(this.buffer.getLong(OFFSET_PEAK_ACCELERATOR_BYTES))
+            .materialsBytes(this.buffer.getLong(OFFSET_PEAK_MATERIALS_BYTES))
+            .accumulationBytes(this.buffer.getLong(OFFSET_PEAK_ACCUMULATION_BYTES))
+            .previewBytes(this.buffer.getLong(OFFSET_PEAK_PREVIEW_BYTES));
+    }
+
+}
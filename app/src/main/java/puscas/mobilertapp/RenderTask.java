@@ -1,36 +1,47 @@
 package puscas.mobilertapp;
 
 import android.graphics.Bitmap;
-import android.os.Debug;
 import android.os.SystemClock;
 import android.widget.Button;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
-import androidx.annotation.OptIn;
 
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.Uninterruptibles;
 
+import java.io.IOException;
 import java.lang.ref.WeakReference;
-import java.math.RoundingMode;
-import java.text.NumberFormat;
-import java.util.Locale;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
-import kotlinx.coroutines.DelicateCoroutinesApi;
+import java8.util.Objects;
+import java8.util.Optional;
+import java8.util.function.BooleanSupplier;
+import java8.util.function.LongSupplier;
 import lombok.Builder;
 import lombok.extern.java.Log;
+import puscas.mobilertapp.configs.ConfigConvergence;
 import puscas.mobilertapp.configs.ConfigRenderTask;
 import puscas.mobilertapp.constants.Constants;
 import puscas.mobilertapp.constants.ConstantsMethods;
-import puscas.mobilertapp.constants.ConstantsRenderer;
 import puscas.mobilertapp.constants.ConstantsUI;
 import puscas.mobilertapp.constants.State;
+import puscas.mobilertapp.metrics.LatencyHistogram;
+import puscas.mobilertapp.metrics.MemoryReport;
+import puscas.mobilertapp.metrics.RenderMetrics;
+import puscas.mobilertapp.metrics.RenderMetricsRecorder;
+import puscas.mobilertapp.metrics.RenderMetricsWriter;
+import puscas.mobilertapp.metrics.TraceRecorder;
 import puscas.mobilertapp.utils.AsyncTaskCoroutine;
-import puscas.mobilertapp.utils.Utils;
+import puscas.mobilertapp.utils.ConvergenceMonitor;
+import puscas.mobilertapp.utils.RefreshScheduler;
+import puscas.mobilertapp.utils.RenderScheduler;
+import puscas.mobilertapp.utils.StatsFormatter;
+import puscas.mobilertapp.utils.UtilsLogging;
 
 /**
  * An asynchronous task to render a frame and update the {@link TextView} text.
@@ -45,12 +56,48 @@ public final class RenderTask extends AsyncTaskCoroutine {
     private static final float MILLISECONDS_IN_SECOND = 1000.0F;
 
     /**
-     * An {@link ExecutorService} which schedules every
-     * {@link RenderTask#updateInterval} {@code TimeUnit.MILLISECONDS} the
-     * {@link RenderTask#timer} {@link Runnable}.
+     * The number of nanoseconds in a millisecond.
      */
-    private final ScheduledExecutorService executorService =
-        Executors.newScheduledThreadPool(ConstantsRenderer.NUMBER_THREADS);
+    private static final double NANOSECONDS_IN_MILLISECOND = 1.0e6;
+
+    /**
+     * The interval, in milliseconds, between each check of the {@link State} of the Ray Tracer
+     * engine while waiting for it to stop.
+     */
+    private static final long STOP_POLL_INTERVAL_MS = 10L;
+
+    /**
+     * A {@link CountDownLatch} which is released when the {@link RenderTask#timer}
+     * stops rescheduling itself, because the Ray Tracer engine is no longer
+     * busy.
+     * The {@link RenderTask#timer} runs in the timer thread of the shared
+     * {@link RenderScheduler}, which is reused by all the renders.
+     */
+    private final CountDownLatch timerFinished = new CountDownLatch(1);
+
+    /**
+     * The next scheduled call to the {@link RenderTask#timer}, so it can be
+     * cancelled as soon as the task is cancelled.
+     */
+    private volatile ScheduledFuture<?> nextTick = null;
+
+    /**
+     * The lock held by each call to the {@link RenderTask#timer}, so the final read of the
+     * statistics in {@link RenderTask#doInBackground()} waits for a call which is still running.
+     */
+    private final Object tickLock = new Object();
+
+    /**
+     * Whether {@link RenderTask#doInBackground()} already read the last statistics, so a call to
+     * the {@link RenderTask#timer} which only starts after it does nothing.
+     */
+    private boolean ticksStopped = false;
+
+    /**
+     * Whether the {@link RenderTask#timer} couldn't be scheduled, so the Ray Tracer engine was
+     * stopped while it was still busy.
+     */
+    private volatile boolean timerRejected = false;
 
     /**
      * A {@link Runnable} to the {@link DrawView#requestRender} method which is
@@ -65,15 +112,48 @@ public final class RenderTask extends AsyncTaskCoroutine {
 
     /**
      * A {@link Runnable} method which stops the Ray Tracer engine and sets the
-     * {@link RenderTask#stateT} to {@link State#IDLE}.
+     * {@link RenderTask#state} to {@link State#IDLE}.
      */
     private final Runnable finishRender;
 
     /**
-     * The interval in {@code TimeUnit.MILLISECONDS} between each call to the
-     * {@link RenderTask#timer} {@link Runnable}.
+     * A {@link BooleanSupplier} which publishes the last rendered image and
+     * returns whether it changed, so the frames without changes are skipped.
      */
-    private final long updateInterval;
+    private final BooleanSupplier publishFrame;
+
+    /**
+     * A {@link LongSupplier} of the number of bytes allocated by the {@link Bitmap}s of the app,
+     * for the {@link RenderTask#memoryReport}.
+     */
+    private final LongSupplier bitmapBytes;
+
+    /**
+     * The {@link RefreshScheduler} which calculates the interval between each
+     * call to the {@link RenderTask#timer} {@link Runnable}.
+     */
+    private final RefreshScheduler refreshScheduler;
+
+    /**
+     * The {@link ConvergenceMonitor} which checks, after each sample, if the image converged.
+     */
+    private final ConvergenceMonitor convergenceMonitor;
+
+    /**
+     * The {@link ConvergenceMonitor.PixelReader} of the image where the Ray Tracer engine renders
+     * the scene.
+     */
+    private final ConvergenceMonitor.PixelReader pixelReader;
+
+    /**
+     * Whether the render should stop once the image converged.
+     */
+    private final boolean convergenceEnabled;
+
+    /**
+     * The selected number of samples per pixel.
+     */
+    private final int samplesPixel;
 
     /**
      * The timestamp of the start rendering process.
@@ -133,49 +213,109 @@ public final class RenderTask extends AsyncTaskCoroutine {
      * The number of times that the {@link RenderTask#timer} was called in a
      * second.
      */
-    private float fps = 0.0F;
+    private volatile float fps = 0.0F;
 
     /**
      * The current Ray Tracer engine {@link State}.
      */
-    private String stateT = null;
+    private volatile State state = State.IDLE;
 
     /**
      * The frames per second of the Ray Tracer engine.
      */
-    private String fpsT = null;
+    private volatile float engineFps = 0.0F;
 
     /**
-     * The time, in seconds, spent constructing the Ray Tracer renderer.
+     * The time, in milliseconds, spent constructing the Ray Tracer renderer.
      */
-    private String timeFrameT = null;
+    private volatile long timeRenderer = 0L;
 
     /**
-     * The current time, in seconds, that the Ray Tracer engine spent rendering
-     * a scene.
+     * The current time, in milliseconds, that the Ray Tracer engine spent
+     * rendering a scene.
      */
-    private String timeT = null;
+    private volatile long elapsedTime = 0L;
 
     /**
-     * A {@link String} containing the {@link RenderTask#fps} in order to print
-     * it in the {@link RenderTask#textView}.
+     * The amount of allocated memory in the native heap (in MegaBytes).
      */
-    private String fpsRenderT = null;
+    private volatile long allocatedMegaBytes = 0L;
 
     /**
-     * The amount of allocated memory in the native heap (in MegaBytes).
+     * The current sample for all the pixels.
      */
-    private String allocatedT = null;
+    private volatile int sample = 0;
 
     /**
-     * The current sample for all the pixels.
+     * The last {@link MemoryReport} with the memory allocated by each subsystem.
      */
-    private String sampleT = null;
+    private volatile MemoryReport memoryReport = MemoryReport.builder().build();
 
     /**
-     * The {@link NumberFormat} to use when printing the {@link Float} values in the {@link TextView}.
+     * The {@link RenderStats} where the Ray Tracer engine writes its statistics
+     * in each call to the {@link RenderTask#timer}.
      */
-    private final NumberFormat formatter = NumberFormat.getInstance(Locale.US);
+    private final RenderStats stats = new RenderStats();
+
+    /**
+     * The {@link StatsFormatter} which formats the text to print in the
+     * {@link TextView} without creating new {@link String}s.
+     */
+    private final StatsFormatter formatter = new StatsFormatter();
+
+    /**
+     * The {@link RenderMetricsRecorder} which records the timings of each sample in each call to
+     * the {@link RenderTask#timer}.
+     */
+    private final RenderMetricsRecorder metricsRecorder = new RenderMetricsRecorder();
+
+    /**
+     * The {@link RenderMetrics} with the configuration of the render, which are completed with
+     * the recorded metrics at the end of the rendering process.
+     */
+    private final RenderMetrics metricsConfig;
+
+    /**
+     * The {@link RenderMetricsWriter} where the {@link RenderMetrics} are written, or
+     * {@code null} if they shouldn't be written.
+     */
+    private final RenderMetricsWriter metricsWriter;
+
+    /**
+     * The {@link TraceRecorder} which records the spans of the render pipeline.
+     */
+    private final TraceRecorder trace = TraceRecorder.getInstance();
+
+    /**
+     * The {@link LatencyHistogram} of the time, in nanoseconds, that the OpenGL thread spent
+     * uploading and drawing each frame.
+     */
+    private final LatencyHistogram drawTimeHistogram;
+
+    /**
+     * The {@link LatencyHistogram} of the lateness, in nanoseconds, of each call to the
+     * {@link RenderTask#timer} relative to when it was scheduled.
+     */
+    private final LatencyHistogram tickLatenessHistogram = new LatencyHistogram();
+
+    /**
+     * The {@link LatencyHistogram} of the latency, in nanoseconds, between the
+     * {@link RenderTask#timer} publishing the progress and the UI thread calling
+     * {@link RenderTask#onProgressUpdate()}.
+     */
+    private final LatencyHistogram progressLatencyHistogram = new LatencyHistogram();
+
+    /**
+     * The time, in nanoseconds, when the next call to the {@link RenderTask#timer} should
+     * happen, or {@code 0} if it wasn't scheduled yet.
+     * It is only used by the {@link RenderTask#timer}.
+     */
+    private long nextTickTime = 0L;
+
+    /**
+     * The time, in nanoseconds, when the {@link RenderTask#timer} last published the progress.
+     */
+    private volatile long progressPublishTime = 0L;
 
     /**
      * A private constructor of this class to force using the
@@ -184,18 +324,21 @@ public final class RenderTask extends AsyncTaskCoroutine {
      * @param config The configurator which contains all of the parameters.
      */
     @Builder
-    @OptIn(markerClass = DelicateCoroutinesApi.class)
     private RenderTask(@NonNull final ConfigRenderTask config) {
         super();
         log.info("RenderTask");
 
-        this.formatter.setMaximumFractionDigits(2);
-        this.formatter.setMinimumFractionDigits(2);
-        this.formatter.setRoundingMode(RoundingMode.HALF_UP);
-
         this.requestRender = config.getRequestRender();
         this.finishRender = config.getFinishRender();
-        this.updateInterval = config.getUpdateInterval();
+        this.publishFrame = config.getPublishFrame();
+        this.bitmapBytes = config.getBitmapBytes();
+        this.refreshScheduler = config.getRefreshScheduler();
+        this.drawTimeHistogram = config.getDrawTimeHistogram();
+        this.pixelReader = config.getPixelReader();
+        this.convergenceEnabled = config.getConvergence().isEnabled();
+        this.samplesPixel = config.getSamples().getSamplesPixel();
+        this.convergenceMonitor = new ConvergenceMonitor(config.getResolution().getWidth(),
+            config.getResolution().getHeight(), config.getConvergence());
         this.primitivesT = ",p=" + config.getNumPrimitives() + ",l=" + config.getNumLights();
         this.resolutionT = ",r:" + config.getResolution().getWidth() + 'x' + config.getResolution().getHeight();
         this.threadsT = ",t:" + config.getNumThreads();
@@ -203,57 +346,168 @@ public final class RenderTask extends AsyncTaskCoroutine {
         this.samplesLightT = ",spl:" + config.getSamples().getSamplesLight();
         this.buttonRender = new WeakReference<>(config.getButtonRender());
         this.textView = new WeakReference<>(config.getTextView());
+        this.metricsWriter = config.getMetricsWriter();
+        this.metricsConfig = RenderMetrics.builder()
+            .scene(config.getSceneName())
+            .shader(config.getShaderName())
+            .accelerator(config.getAcceleratorName())
+            .width(config.getResolution().getWidth())
+            .height(config.getResolution().getHeight())
+            .threads(config.getNumThreads())
+            .samplesPixel(config.getSamples().getSamplesPixel())
+            .samplesLight(config.getSamples().getSamplesLight())
+            .primitives(config.getNumPrimitives())
+            .lights(config.getNumLights())
+            .build();
 
         this.startTimeStamp = SystemClock.elapsedRealtime();
+        this.metricsRecorder.start(System.currentTimeMillis(), this.startTimeStamp);
         resetTextStats();
 
         this.timer = () -> {
-            log.info(ConstantsMethods.TIMER);
-            updateFps();
-            updateTextStats();
-
-            final State currentState = State.values()[rtGetState()];
-            this.stateT = currentState.toString();
-            this.requestRender.run();
-            publishProgressAsync();
-
-            if (currentState != State.BUSY) {
-                this.executorService.shutdown();
+            synchronized (this.tickLock) {
+                if (this.ticksStopped) {
+                    return;
+                }
+                log.info(ConstantsMethods.TIMER);
+                final long start = this.trace.begin();
+                if (this.nextTickTime != 0L) {
+                    this.tickLatenessHistogram.record(start - this.nextTickTime);
+                }
+                rtGetStats(this.stats.getBuffer());
+                final int currentSample = this.stats.getSample();
+                this.metricsRecorder.record(currentSample, this.stats.getAllocatedBytes(),
+                    SystemClock.elapsedRealtime());
+                updateMemoryReport();
+                updateFps();
+                updateTextStats();
+
+                final State currentState = this.stats.getState();
+                this.state = currentState;
+                if (currentState == State.BUSY) {
+                    checkConvergence(currentSample);
+                }
+                final long startPublish = this.trace.begin();
+                final boolean changed = this.publishFrame.getAsBoolean();
+                this.trace.end("RenderTask#publishFrame", startPublish);
+                if (changed) {
+                    this.requestRender.run();
+                }
+                this.progressPublishTime = System.nanoTime();
+                publishProgressAsync();
+                this.trace.end("RenderTask#timer", start);
+
+                if (currentState == State.BUSY && !isCancelled()) {
+                    final long interval = this.refreshScheduler.nextInterval(currentSample, changed);
+                    this.nextTickTime = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(interval);
+                    scheduleTimer(interval);
+                } else {
+                    this.timerFinished.countDown();
+                }
             }
 
             log.info(ConstantsMethods.TIMER + ConstantsMethods.FINISHED);
         };
 
         checksArguments();
+        this.refreshScheduler.reset();
+        this.drawTimeHistogram.reset();
+    }
+
+    /**
+     * Helper method that schedules the next call to the {@link RenderTask#timer}
+     * in the shared {@link RenderScheduler}.
+     * If the timer queue is full, the timer stops and the Ray Tracer engine is
+     * stopped, so the render finishes as soon as the engine is no longer busy.
+     *
+     * @param interval The delay, in milliseconds.
+     */
+    private void scheduleTimer(final long interval) {
+        try {
+            this.nextTick = RenderScheduler.getInstance().schedule(this.timer, interval);
+        } catch (final RejectedExecutionException ex) {
+            UtilsLogging.logThrowable(ex, "RenderTask#scheduleTimer");
+            // The render is only finished after the Ray Tracer engine stops, so it is stopped
+            // here instead of being finished while it is still busy.
+            this.timerRejected = true;
+            rtStopConvergedRender();
+            this.timerFinished.countDown();
+            return;
+        }
+        if (isCancelled()) {
+            // The task was cancelled while scheduling, so the timer doesn't run again.
+            onCancelled();
+        }
+    }
+
+    /**
+     * Helper method that stops the Ray Tracer engine once the image converged, if it was enabled
+     * in the {@link ConfigConvergence}.
+     * The Ray Tracer engine stops like when it renders all the samples, so its {@link State}
+     * becomes {@link State#FINISHED}.
+     *
+     * @param currentSample The number of samples per pixel already rendered.
+     */
+    private void checkConvergence(final int currentSample) {
+        if (!this.convergenceEnabled || this.convergenceMonitor.isConverged()) {
+            return;
+        }
+
+        final long start = this.trace.begin();
+        if (this.convergenceMonitor.update(currentSample, this.pixelReader)) {
+            final String message = "Converged at sample " + currentSample + " with error "
+                + this.convergenceMonitor.getError();
+            log.info(message);
+            rtStopConvergedRender();
+        }
+        this.trace.end("RenderTask#checkConvergence", start);
     }
 
     /**
      * Helper method that updates some statistics in the fields of this class
-     * that will be presented in the {@link TextView}.
+     * that will be presented in the {@link TextView}, from the last
+     * {@link RenderTask#stats}.
      */
     private void updateTextStats() {
-        this.fpsT = "fps:" + this.formatter.format(rtGetFps());
-        this.fpsRenderT = "[" + this.formatter.format(this.fps) + "]";
-        this.timeFrameT = ",t:" + this.formatter.format((double) rtGetTimeRenderer() / (double) MILLISECONDS_IN_SECOND);
-        final long currentTime = SystemClock.elapsedRealtime();
-        this.timeT = "[" + this.formatter.format(
-                (double) (currentTime - this.startTimeStamp) / (double) MILLISECONDS_IN_SECOND) + "]";
-        this.allocatedT = ",m:" + Debug.getNativeHeapAllocatedSize() / Constants.BYTES_IN_MEGABYTE + "mb";
-        this.sampleT = "," + rtGetSample();
+        this.engineFps = this.stats.getFps();
+        this.timeRenderer = this.stats.getTimeRenderer();
+        this.elapsedTime = SystemClock.elapsedRealtime() - this.startTimeStamp;
+        this.allocatedMegaBytes = this.stats.getAllocatedBytes() / Constants.BYTES_IN_MEGABYTE;
+        this.sample = this.stats.getSample();
+    }
+
+    /**
+     * Helper method that updates the {@link RenderTask#memoryReport} with the memory counters of
+     * the last {@link RenderTask#stats} and the memory measured on the Java side, and records its
+     * peaks, together with the peaks tracked by the Ray Tracer engine, in the
+     * {@link RenderTask#metricsRecorder}.
+     */
+    private void updateMemoryReport() {
+        final MemoryReport report = this.stats.addMemoryTo(MemoryReport.builder())
+            .bitmapBytes(this.bitmapBytes.getAsLong())
+            .javaHeapBytes(MemoryReport.getUsedJavaHeap())
+            .build();
+        this.metricsRecorder.recordMemory(report);
+        this.metricsRecorder.recordMemory(this.stats.addPeakMemoryTo(report.toBuilder()).build());
+        this.memoryReport = report;
     }
 
     /**
      * Helper method that resets some statistics in the fields of this class
      * that will be presented in the {@link TextView}.
+     * The memory is read from the counters of the Ray Tracer engine, like in each tick of the
+     * {@link RenderTask#timer}.
      */
     private void resetTextStats() {
-        this.fpsT = "fps:" + this.formatter.format(0.0);
-        this.fpsRenderT = "[" + this.formatter.format(0.0) + "]";
-        this.timeFrameT = ",t:" + this.formatter.format(0.0);
-        this.timeT = "[" + this.formatter.format(0.0) + "]";
-        this.stateT = " " + State.IDLE.getId();
-        this.allocatedT = ",m:" + Debug.getNativeHeapAllocatedSize() / Constants.BYTES_IN_MEGABYTE + "mb";
-        this.sampleT = ",0";
+        this.engineFps = 0.0F;
+        this.fps = 0.0F;
+        this.timeRenderer = 0L;
+        this.elapsedTime = 0L;
+        this.state = State.IDLE;
+        rtGetStats(this.stats.getBuffer());
+        this.allocatedMegaBytes = this.stats.getAllocatedBytes() / Constants.BYTES_IN_MEGABYTE;
+        this.sample = 0;
+        updateMemoryReport();
     }
 
     /**
@@ -262,32 +516,28 @@ public final class RenderTask extends AsyncTaskCoroutine {
     private void checksArguments() {
         Preconditions.checkNotNull(this.requestRender, "requestRender shouldn't be null");
         Preconditions.checkNotNull(this.finishRender, "finishRender shouldn't be null");
+        Preconditions.checkNotNull(this.publishFrame, "publishFrame shouldn't be null");
+        Preconditions.checkNotNull(this.bitmapBytes, "bitmapBytes shouldn't be null");
+        Preconditions.checkNotNull(this.refreshScheduler, "refreshScheduler shouldn't be null");
+        Preconditions.checkNotNull(this.pixelReader, "pixelReader shouldn't be null");
+        Preconditions.checkNotNull(this.drawTimeHistogram, "drawTimeHistogram shouldn't be null");
         Preconditions.checkNotNull(this.textView, "textView shouldn't be null");
         Preconditions.checkNotNull(this.buttonRender, "buttonRender shouldn't be null");
     }
 
     /**
-     * Gets the number of frames per second which the Ray Tracer engine could
-     * render the scene.
-     *
-     * @return The number of frames per second.
-     */
-    private native float rtGetFps();
-
-    /**
-     * Gets the time, in milliseconds, spent constructing the Ray Tracer
-     * renderer.
+     * Writes the current statistics of the Ray Tracer engine into a direct
+     * {@link ByteBuffer} with the layout of {@link RenderStats}.
      *
-     * @return The time spent constructing the Ray Tracer renderer.
+     * @param statsBuffer The direct {@link ByteBuffer} of a {@link RenderStats}.
      */
-    private native long rtGetTimeRenderer();
+    private native void rtGetStats(ByteBuffer statsBuffer);
 
     /**
-     * Gets the current sample for all the pixels.
-     *
-     * @return The current sample for all the pixels.
+     * Stops the Ray Tracer engine after the tiles being rendered, without changing its
+     * {@link State}, so it finishes as if it had rendered all the samples.
      */
-    private native int rtGetSample();
+    private native void rtStopConvergedRender();
 
     /**
      * Gets an {@code int} which represents the current Ray Tracer engine
@@ -316,11 +566,117 @@ public final class RenderTask extends AsyncTaskCoroutine {
      * {@link RenderTask#textView}.
      */
     private void printText() {
-        final String aux =
-            this.fpsT + this.fpsRenderT + this.resolutionT + this.threadsT + this.samplesPixelT
-                + this.samplesLightT + this.sampleT + ConstantsUI.LINE_SEPARATOR
-                + this.stateT + this.allocatedT + this.timeFrameT + this.timeT + this.primitivesT;
-        this.textView.get().setText(aux);
+        this.formatter.reset()
+            .append("fps:").appendFixed(this.engineFps, 2)
+            .append('[').appendFixed(this.fps, 2).append(']')
+            .append(this.resolutionT).append(this.threadsT).append(this.samplesPixelT)
+            .append(this.samplesLightT).append(',').append(this.sample)
+            .append(ConstantsUI.LINE_SEPARATOR)
+            .append(this.state.name()).append(",m:").append(this.allocatedMegaBytes).append("mb")
+            .append(",t:").appendFixed(this.timeRenderer / (double) MILLISECONDS_IN_SECOND, 2)
+            .append('[').appendFixed(this.elapsedTime / (double) MILLISECONDS_IN_SECOND, 2).append(']')
+            .append(this.primitivesT)
+            .append(ConstantsUI.LINE_SEPARATOR);
+        appendLatency("d:", this.drawTimeHistogram);
+        appendLatency(",j:", this.tickLatenessHistogram);
+        appendLatency(",u:", this.progressLatencyHistogram);
+        this.formatter.append(ConstantsUI.LINE_SEPARATOR);
+        appendMemory(this.memoryReport);
+
+        if (this.formatter.publishIfChanged()) {
+            this.textView.get().setText(this.formatter.getPublishedChars(), 0, this.formatter.getPublishedLength());
+        }
+    }
+
+    /**
+     * Helper method that appends the median, the 99th percentile and the maximum of a
+     * {@link LatencyHistogram}, in milliseconds, to the text of the {@link RenderTask#formatter}.
+     *
+     * @param label     The label of the latencies.
+     * @param histogram The {@link LatencyHistogram} with the latencies in nanoseconds.
+     */
+    private void appendLatency(@NonNull final String label, @NonNull final LatencyHistogram histogram) {
+        this.formatter.append(label)
+            .appendFixed(histogram.getValueAtPercentile(50.0) / NANOSECONDS_IN_MILLISECOND, 1).append('/')
+            .appendFixed(histogram.getValueAtPercentile(99.0) / NANOSECONDS_IN_MILLISECOND, 1).append('/')
+            .appendFixed(histogram.getMax() / NANOSECONDS_IN_MILLISECOND, 1).append("ms");
+    }
+
+    /**
+     * Helper method that appends the memory of each category of a {@link MemoryReport}, in
+     * MegaBytes, to the text of the {@link RenderTask#formatter}: the geometry, the acceleration
+     * structure, the materials, the accumulation buffer, the preview arrays, the {@link Bitmap}s
+     * and the Java heap.
+     *
+     * @param report The {@link MemoryReport}.
+     */
+    private void appendMemory(@NonNull final MemoryReport report) {
+        this.formatter.append("geo:").append(report.getGeometryBytes() / Constants.BYTES_IN_MEGABYTE)
+            .append(",acc:").append(report.getAcceleratorBytes() / Constants.BYTES_IN_MEGABYTE)
+            .append(",mat:").append(report.getMaterialsBytes() / Constants.BYTES_IN_MEGABYTE)
+            .append(",buf:").append(report.getAccumulationBytes() / Constants.BYTES_IN_MEGABYTE)
+            .append(",pre:").append(report.getPreviewBytes() / Constants.BYTES_IN_MEGABYTE)
+            .append(",bmp:").append(report.getBitmapBytes() / Constants.BYTES_IN_MEGABYTE)
+            .append(",heap:").append(report.getJavaHeapBytes() / Constants.BYTES_IN_MEGABYTE)
+            .append("mb");
+    }
+
+    /**
+     * Helper method that writes the {@link RenderMetrics} of the render with the
+     * {@link RenderTask#metricsWriter}, from the last {@link RenderTask#stats}.
+     * It should only be called after the {@link RenderTask#timer} stopped.
+     */
+    private void writeMetrics() {
+        if (Objects.isNull(this.metricsWriter)) {
+            return;
+        }
+
+        final RenderMetrics metrics = this.metricsRecorder.addTo(this.metricsConfig.toBuilder())
+            .rendererTime(this.stats.getTimeRenderer())
+            .castedRays(this.stats.getCastedRays())
+            .intersectedPrimitives(this.stats.getIntersectedPrimitives())
+            .drawTimeP50(microseconds(this.drawTimeHistogram.getValueAtPercentile(50.0)))
+            .drawTimeP99(microseconds(this.drawTimeHistogram.getValueAtPercentile(99.0)))
+            .drawTimeMax(microseconds(this.drawTimeHistogram.getMax()))
+            .tickLatenessP50(microseconds(this.tickLatenessHistogram.getValueAtPercentile(50.0)))
+            .tickLatenessP99(microseconds(this.tickLatenessHistogram.getValueAtPercentile(99.0)))
+            .tickLatenessMax(microseconds(this.tickLatenessHistogram.getMax()))
+            .progressLatencyP50(microseconds(this.progressLatencyHistogram.getValueAtPercentile(50.0)))
+            .progressLatencyP99(microseconds(this.progressLatencyHistogram.getValueAtPercentile(99.0)))
+            .progressLatencyMax(microseconds(this.progressLatencyHistogram.getMax()))
+            .samplesSaved(this.convergenceMonitor.getSavedSamples(this.samplesPixel))
+            .state(this.stats.getState().name())
+            .build();
+        try {
+            this.metricsWriter.write(metrics);
+        } catch (final IOException ex) {
+            UtilsLogging.logThrowable(ex, "RenderTask#writeMetrics");
+        }
+    }
+
+    /**
+     * Helper method that converts nanoseconds to microseconds.
+     *
+     * @param nanoseconds The time in nanoseconds.
+     * @return The time in microseconds.
+     */
+    private static long microseconds(final long nanoseconds) {
+        return TimeUnit.NANOSECONDS.toMicros(nanoseconds);
+    }
+
+    /**
+     * Cancels the next call to the {@link RenderTask#timer} and wakes up
+     * {@link RenderTask#doInBackground()}, so the render finishes right away
+     * instead of waiting for the next tick to notice that the Ray Tracer
+     * engine stopped.
+     */
+    @Override
+    protected void onCancelled() {
+        log.info("onCancelled");
+
+        Optional.ofNullable(this.nextTick)
+            .ifPresent(tick -> tick.cancel(false));
+        this.timerFinished.countDown();
     }
 
     @Override
@@ -332,18 +688,49 @@ public final class RenderTask extends AsyncTaskCoroutine {
     protected void doInBackground() {
         log.info("doInBackground");
 
-        this.executorService.scheduleAtFixedRate(this.timer, 0L,
-            this.updateInterval, TimeUnit.MILLISECONDS);
-        Utils.waitExecutorToFinish(this.executorService);
+        final long start = this.trace.begin();
+        scheduleTimer(0L);
+        Uninterruptibles.awaitUninterruptibly(this.timerFinished);
+        // Waits for a call to the timer which is still running, so it doesn't change the
+        // statistics while they are read and written.
+        synchronized (this.tickLock) {
+            this.ticksStopped = true;
+            if (isCancelled() || this.timerRejected) {
+                // The timer may not have read the last statistics before it was stopped.
+                readFinalStats();
+            }
+
+            final String skipped = "Skipped refreshes: " + this.refreshScheduler.getSkippedRefreshes();
+            log.info(skipped);
+            RenderScheduler.getInstance().logQueueDepths();
+            writeMetrics();
+        }
+        this.trace.end("RenderTask#doInBackground", start);
 
         final String message = "doInBackground" + ConstantsMethods.FINISHED;
         log.info(message);
     }
 
+    /**
+     * Helper method that reads the last statistics of the Ray Tracer engine.
+     * If the {@link RenderTask#timer} was rejected, it waits for the Ray Tracer engine, which
+     * was already stopped, to no longer be busy, so the render is only finished after that.
+     */
+    private void readFinalStats() {
+        rtGetStats(this.stats.getBuffer());
+        while (this.timerRejected && this.stats.getState() == State.BUSY) {
+            Uninterruptibles.sleepUninterruptibly(STOP_POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            rtGetStats(this.stats.getBuffer());
+        }
+    }
+
     @Override
     protected void onProgressUpdate() {
         log.info("onProgressUpdate");
+        final long start = this.trace.begin();
+        this.progressLatencyHistogram.record(start - this.progressPublishTime);
         printText();
+        this.trace.end("RenderTask#printText", start);
 
         final String message = "onProgressUpdate" + ConstantsMethods.FINISHED;
         log.info(message);
@@ -353,13 +740,17 @@ public final class RenderTask extends AsyncTaskCoroutine {
     protected void onPostExecute() {
         log.info("onPostExecute");
 
+        final long start = this.trace.begin();
         printText();
+        // Always draw the last image, even if the timer already published it.
+        this.publishFrame.getAsBoolean();
         this.requestRender.run();
 
         MainActivity.resetErrno();
         this.finishRender.run();
 
         this.buttonRender.get().setText(R.string.render);
+        this.trace.end("RenderTask#onPostExecute", start);
 
         final String message = "onPostExecute" + ConstantsMethods.FINISHED;
         log.info(message);
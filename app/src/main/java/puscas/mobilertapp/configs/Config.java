@@ -10,7 +10,7 @@ import lombok.Getter;
  * <br>
  * Note that this class is used to pass data from JVM to Native code in C++ via JNI.
  */
-@Builder
+@Builder(toBuilder = true)
 @Getter
 public final class Config {
 
@@ -79,4 +79,12 @@ public final class Config {
     @Native
     private final boolean rasterize;
 
+    /**
+     * Whether the Ray Tracing engine should render some coarse passes before the first sample,
+     * so a low resolution image of the whole scene appears sooner.
+     */
+    @Native
+    @Builder.Default
+    private final boolean progressive = true;
+
 }
@@ -0,0 +1,42 @@
+package puscas.mobilertapp.configs;
+
+import lombok.Builder;
+import lombok.Getter;
+import puscas.mobilertapp.utils.ConvergenceMonitor;
+
+/**
+ * The configurator for the {@link ConvergenceMonitor}, which stops a progressive render once the
+ * image stops changing.
+ */
+@Builder
+@Getter
+public final class ConfigConvergence {
+
+    /**
+     * Whether the render should stop automatically once the image converged.
+     */
+    private final boolean enabled;
+
+    /**
+     * The maximum relative standard error of the average luminance, in every tile, for the image
+     * to be considered converged.
+     * The default is about one step of the 8 bits colors for a mid gray, so the image is
+     * considered converged once more samples would barely change it.
+     */
+    @Builder.Default
+    private final float threshold = 0.01F;
+
+    /**
+     * The minimum number of samples per pixel to render before checking if the image converged.
+     */
+    @Builder.Default
+    private final int minSamples = 8;
+
+    /**
+     * The minimum number of checks pooled in the variance estimated for each tile, before the
+     * checks whose change is hidden by the 8 bits quantization stop being pooled.
+     */
+    @Builder.Default
+    private final int minChecks = 8;
+
+}
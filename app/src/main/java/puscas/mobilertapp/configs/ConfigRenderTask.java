@@ -4,11 +4,19 @@ import android.graphics.Bitmap;
 import android.widget.Button;
 import android.widget.TextView;
 
+import java8.util.function.BooleanSupplier;
+import java8.util.function.LongSupplier;
 import lombok.Builder;
 import lombok.Getter;
 import puscas.mobilertapp.DrawView;
 import puscas.mobilertapp.RenderTask;
 import puscas.mobilertapp.constants.State;
+import puscas.mobilertapp.metrics.LatencyHistogram;
+import puscas.mobilertapp.metrics.MemoryReport;
+import puscas.mobilertapp.metrics.RenderMetrics;
+import puscas.mobilertapp.metrics.RenderMetricsWriter;
+import puscas.mobilertapp.utils.ConvergenceMonitor;
+import puscas.mobilertapp.utils.RefreshScheduler;
 
 /**
  * The configurator for the {@link RenderTask}.
@@ -25,15 +33,50 @@ public final class ConfigRenderTask {
 
     /**
      * A {@link Runnable} method which stops the Ray Tracer engine and sets the
-     * {@link RenderTask#stateT} to {@link State#IDLE}.
+     * {@link RenderTask#state} to {@link State#IDLE}.
      */
     private final Runnable finishRender;
 
     /**
-     * The interval in {@code TimeUnit.MILLISECONDS} between each call to the
+     * A {@link BooleanSupplier} which publishes the last rendered image to be drawn and returns
+     * whether it changed since the last call.
+     */
+    private final BooleanSupplier publishFrame;
+
+    /**
+     * The {@link RefreshScheduler} which calculates the interval between each call to the
      * {@link RenderTask#timer} {@link Runnable}.
      */
-    private final long updateInterval;
+    @Builder.Default
+    private final RefreshScheduler refreshScheduler = new RefreshScheduler();
+
+    /**
+     * The {@link LatencyHistogram} where the OpenGL thread records the time spent uploading and
+     * drawing each frame.
+     */
+    @Builder.Default
+    private final LatencyHistogram drawTimeHistogram = new LatencyHistogram();
+
+    /**
+     * The {@link ConfigConvergence} of the {@link ConvergenceMonitor} which stops the render once
+     * the image converged.
+     */
+    @Builder.Default
+    private final ConfigConvergence convergence = ConfigConvergence.builder().build();
+
+    /**
+     * The {@link ConvergenceMonitor.PixelReader} of the {@link Bitmap} where the Ray Tracer engine
+     * renders the scene, which is used to check if the image converged.
+     */
+    private final ConvergenceMonitor.PixelReader pixelReader;
+
+    /**
+     * A {@link LongSupplier} of the number of bytes allocated by the {@link Bitmap}s of the app,
+     * other than the one where the Ray Tracer engine renders the scene, for the
+     * {@link MemoryReport}.
+     */
+    @Builder.Default
+    private final LongSupplier bitmapBytes = () -> 0L;
 
     /**
      * The number of lights in the scene.
@@ -75,4 +118,28 @@ public final class ConfigRenderTask {
      * rendering process.
      */
     private final Button buttonRender;
+
+    /**
+     * The name of the scene, to be written in the {@link RenderMetrics}.
+     */
+    @Builder.Default
+    private final String sceneName = "";
+
+    /**
+     * The name of the shader, to be written in the {@link RenderMetrics}.
+     */
+    @Builder.Default
+    private final String shaderName = "";
+
+    /**
+     * The name of the acceleration structure, to be written in the {@link RenderMetrics}.
+     */
+    @Builder.Default
+    private final String acceleratorName = "";
+
+    /**
+     * The {@link RenderMetricsWriter} where the {@link RenderMetrics} are written at the end of
+     * the rendering process, or {@code null} if they shouldn't be written.
+     */
+    private final RenderMetricsWriter metricsWriter;
 }
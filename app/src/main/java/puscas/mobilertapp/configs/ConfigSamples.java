@@ -20,4 +20,11 @@ public final class ConfigSamples {
      */
     private final int samplesLight;
 
+    /**
+     * Whether the Ray Tracer engine should use adaptive sampling.
+     * With adaptive sampling, the tiles stop getting samples once they converged, and the noisy
+     * tiles get the samples saved by them, up to a few times the number of samples per pixel.
+     */
+    private final boolean adaptive;
+
 }
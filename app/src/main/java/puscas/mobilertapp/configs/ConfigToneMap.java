@@ -0,0 +1,39 @@
+package puscas.mobilertapp.configs;
+
+import lombok.Builder;
+import lombok.Getter;
+import puscas.mobilertapp.constants.ToneMap;
+
+/**
+ * The configurator for the tone mapping that the fragment shader applies to the
+ * rendered image when drawing it.
+ * <br>
+ * Changing it only needs a redraw, without tracing the scene again.
+ * <br>
+ * The rendered image has linear colors but it is stored with 8 bits per channel, so the colors
+ * brighter than white were already clamped by the Ray Tracer engine: the tone mapping can't
+ * recover the clipped highlights, it only reshapes the range of the exposed colors.
+ */
+@Builder
+@Getter
+public final class ConfigToneMap {
+
+    /**
+     * The exposure which multiplies the colors before the tone mapping.
+     */
+    @Builder.Default
+    private final float exposure = 1.0F;
+
+    /**
+     * The gamma of the display.
+     */
+    @Builder.Default
+    private final float gamma = 1.0F;
+
+    /**
+     * The tone mapping operator.
+     */
+    @Builder.Default
+    private final ToneMap toneMap = ToneMap.NONE;
+
+}
@@ -3,8 +3,6 @@ package puscas.mobilertapp.constants;
 import android.opengl.GLES20;
 import android.opengl.GLSurfaceView;
 
-import java.util.concurrent.ExecutorService;
-
 import lombok.experimental.UtilityClass;
 
 /**
@@ -13,16 +11,16 @@ import lombok.experimental.UtilityClass;
 @UtilityClass
 public final class ConstantsRenderer {
 
-    /**
-     * The number of threads to be used by the DrawView,
-     * MainRenderer and  RenderTask {@link ExecutorService}s.
-     */
-    public static final int NUMBER_THREADS = 1;
-
     /**
      * All the buffer bits to clear all the buffers in OpenGL.
      */
     public static final int ALL_BUFFER_BIT = GLES20.GL_COLOR_BUFFER_BIT
         | GLES20.GL_DEPTH_BUFFER_BIT | GLES20.GL_STENCIL_BUFFER_BIT;
 
+    /**
+     * The number of rows of tiles in which the Ray Tracer engine splits the image.
+     * It must be the same as the number of tiles per axis in the native layer.
+     */
+    public static final int NUMBER_OF_TILE_ROWS = 16;
+
 }
@@ -26,9 +26,26 @@ public final class ConstantsToast {
      */
     public static final String COULD_NOT_LOAD_THE_SCENE = "Could not load the scene!\n";
 
+    /**
+     * A warning message for when the Android device doesn't have enough memory to render the
+     * scene with the chosen accelerator, so a cheaper one is used.
+     */
+    public static final String ACCELERATOR_WITHOUT_ENOUGH_MEMORY =
+        "Not enough memory for the chosen accelerator, using:\n";
+
     /**
      * A warning message for when the Android device couldn't render the scene.
      */
     public static final String COULD_NOT_RENDER_THE_SCENE = "Could not render the scene!\n";
 
+    /**
+     * A message for when the trace of the render pipeline was written to a file.
+     */
+    public static final String TRACE_WRITTEN = "Trace written to:\n";
+
+    /**
+     * A warning message for when the trace of the render pipeline couldn't be written.
+     */
+    public static final String COULD_NOT_WRITE_THE_TRACE = "Could not write the trace!\n";
+
 }
@@ -60,6 +60,30 @@ public final class ConstantsUI {
      */
     public static final String CHECK_BOX_RASTERIZE = "checkBoxRasterize";
 
+    /**
+     * The key for the UI's {@link Bundle} of {@link android.widget.NumberPicker}
+     * to select the tone mapping operator.
+     */
+    public static final String PICKER_TONE_MAP = "pickerToneMap";
+
+    /**
+     * The key for the UI's {@link Bundle} of {@link android.widget.CheckBox}
+     * to turn on/off stopping the render once the image converged.
+     */
+    public static final String CHECK_BOX_CONVERGENCE = "checkBoxConvergence";
+
+    /**
+     * The key for the UI's {@link Bundle} of {@link android.widget.CheckBox}
+     * to turn on/off the heat map with the number of samples of each tile.
+     */
+    public static final String CHECK_BOX_HEAT_MAP = "checkBoxHeatMap";
+
+    /**
+     * The key for the UI's {@link Bundle} of {@link android.widget.CheckBox}
+     * to turn on/off the adaptive sampling.
+     */
+    public static final String CHECK_BOX_ADAPTIVE = "checkBoxAdaptive";
+
     /**
      * The line separator in the current system.
      */
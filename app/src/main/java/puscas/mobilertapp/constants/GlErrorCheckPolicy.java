@@ -0,0 +1,26 @@
+package puscas.mobilertapp.constants;
+
+/**
+ * The policies to check for errors after calling the OpenGL framework.
+ * <br>
+ * Calling {@link android.opengl.GLES20#glGetError()} can synchronize the rendering pipeline on
+ * many drivers, so the cheaper policies check less often but still count and log the errors.
+ */
+public enum GlErrorCheckPolicy {
+
+    /**
+     * Checks for errors after every call and throws an exception on the first error.
+     */
+    EVERY_CALL,
+
+    /**
+     * Only checks for errors once at the end of each frame.
+     */
+    ONCE_PER_FRAME,
+
+    /**
+     * Checks for errors after one call in every N calls of the same entry point, and also at
+     * the end of each frame.
+     */
+    SAMPLED
+}
@@ -0,0 +1,56 @@
+package puscas.mobilertapp.constants;
+
+import androidx.annotation.NonNull;
+
+import java8.util.J8Arrays;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.java.Log;
+
+/**
+ * The tone mapping operators which the fragment shader can apply to the
+ * rendered image when drawing it.
+ */
+@RequiredArgsConstructor
+@Log
+public enum ToneMap {
+
+    /**
+     * The {@link ToneMap} which only clamps the colors.
+     */
+    NONE(0, "None"),
+
+    /**
+     * The {@link ToneMap} with the Reinhard operator: {@code color / (1 + color)}.
+     */
+    REINHARD(1, "Reinhard"),
+
+    /**
+     * The {@link ToneMap} with an approximation of the ACES filmic curve.
+     */
+    ACES(2, "ACES");
+
+    /**
+     * The identifier of the operator in the fragment shader.
+     */
+    @Getter
+    private final int id;
+
+    /**
+     * The name of the operator.
+     */
+    @Getter
+    private final String name;
+
+    /**
+     * Gets the names of all available tone mapping operators.
+     */
+    @NonNull
+    public static String[] getNames() {
+        log.info(ConstantsMethods.GET_NAMES);
+
+        return J8Arrays.stream(values())
+            .map(ToneMap::getName)
+            .toArray(String[]::new);
+    }
+}
@@ -0,0 +1,142 @@
+package puscas.mobilertapp.metrics;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-memory histogram of latencies with logarithmic buckets, like HdrHistogram.
+ * <br>
+ * Each power of two is split in {@link #SUB_BUCKET_COUNT} linear sub-buckets, so every recorded
+ * value is kept with a relative error below {@code 1 / SUB_BUCKET_COUNT} (6.25%), from
+ * nanoseconds up to {@link Long#MAX_VALUE}, with a preallocated array of counts.
+ * Recording a value doesn't allocate memory, so it can be used in the rendering loop.
+ * <br>
+ * It is thread safe: the values are usually recorded by one thread and the percentiles read by
+ * the UI thread.
+ */
+public final class LatencyHistogram {
+
+    /**
+     * The number of bits of the linear sub-buckets.
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /**
+     * The number of linear sub-buckets in each power of two.
+     */
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The number of buckets needed for all the positive {@code long} values.
+     */
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    /**
+     * The number of values recorded in each bucket.
+     */
+    private final long[] counts = new long[BUCKET_COUNT];
+
+    /**
+     * The total number of values recorded.
+     */
+    private long totalCount = 0L;
+
+    /**
+     * The maximum value recorded.
+     */
+    private long max = 0L;
+
+    /**
+     * Records a value.
+     * The negative values are recorded as {@code 0}.
+     *
+     * @param value The value to record.
+     */
+    public synchronized void record(final long value) {
+        final long positive = Math.max(value, 0L);
+        ++this.counts[bucketIndex(positive)];
+        ++this.totalCount;
+        this.max = Math.max(this.max, positive);
+    }
+
+    /**
+     * Removes all the recorded values.
+     */
+    public synchronized void reset() {
+        Arrays.fill(this.counts, 0L);
+        this.totalCount = 0L;
+        this.max = 0L;
+    }
+
+    /**
+     * Gets the number of recorded values.
+     *
+     * @return The number of recorded values.
+     */
+    public synchronized long getCount() {
+        return this.totalCount;
+    }
+
+    /**
+     * Gets the maximum recorded value.
+     *
+     * @return The maximum recorded value, or {@code 0} if nothing was recorded.
+     */
+    public synchronized long getMax() {
+        return this.max;
+    }
+
+    /**
+     * Gets the value at a percentile of the recorded values.
+     * The value is the highest value equivalent to the bucket of the percentile, but never
+     * higher than the maximum recorded value.
+     *
+     * @param percentile The percentile, between {@code 0} and {@code 100}.
+     * @return The value at the percentile, or {@code 0} if nothing was recorded.
+     */
+    public synchronized long getValueAtPercentile(final double percentile) {
+        Preconditions.checkArgument(percentile >= 0.0 && percentile <= 100.0,
+            "percentile must be between 0 and 100");
+
+        if (this.totalCount == 0L) {
+            return 0L;
+        }
+        final long target = Math.max(1L, (long) Math.ceil(percentile / 100.0 * this.totalCount));
+        long accumulated = 0L;
+        for (int index = 0; index < BUCKET_COUNT; ++index) {
+            accumulated += this.counts[index];
+            if (accumulated >= target) {
+                return Math.min(highestEquivalentValue(index), this.max);
+            }
+        }
+        return this.max;
+    }
+
+    /**
+     * Helper method that calculates the index of the bucket of a value.
+     *
+     * @param value The non-negative value.
+     * @return The index of the bucket.
+     */
+    static int bucketIndex(final long value) {
+        final int highestBit = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        final int shift = Math.max(highestBit - SUB_BUCKET_BITS, 0);
+        return shift * SUB_BUCKET_COUNT + (int) (value >>> shift);
+    }
+
+    /**
+     * Helper method that calculates the highest value which belongs to a bucket.
+     *
+     * @param index The index of the bucket.
+     * @return The highest value of the bucket.
+     */
+    static long highestEquivalentValue(final int index) {
+        if (index < 2 * SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int shift = index / SUB_BUCKET_COUNT - 1;
+        final long lowest = (long) (index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT) << shift;
+        return lowest + (1L << shift) - 1L;
+    }
+}
@@ -0,0 +1,148 @@
+package puscas.mobilertapp.metrics;
+
+import androidx.annotation.NonNull;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * The memory allocated by each subsystem of the app, so it is possible to know which structure
+ * doesn't fit in the memory of the device when rendering a big scene.
+ * <br>
+ * The memory of the Ray Tracer engine comes from counters which the native side updates on each
+ * allocation and free, while the memory of the {@link android.graphics.Bitmap}s and of the Java
+ * heap is measured on the Java side.
+ * The render target is accounted in the {@link #accumulationBytes} while the Ray Tracer engine
+ * accumulates the samples in it, so it is not part of the {@link #bitmapBytes}.
+ */
+@Builder(toBuilder = true)
+@Getter
+public final class MemoryReport {
+
+    /**
+     * The names of the categories, in the order used by {@link #getLargestCategory()}.
+     */
+    private static final String[] CATEGORIES = {
+        "geometry", "accelerator", "materials", "accumulation", "preview", "bitmaps", "java"
+    };
+
+    /**
+     * The number of bytes allocated by the primitives and lights of the scene.
+     */
+    private final long geometryBytes;
+
+    /**
+     * The number of bytes allocated by the acceleration structure, without the primitives.
+     */
+    private final long acceleratorBytes;
+
+    /**
+     * The number of bytes allocated by the materials and their textures.
+     */
+    private final long materialsBytes;
+
+    /**
+     * The number of bytes of the render target where the Ray Tracer engine accumulates the
+     * samples, while it is rendering.
+     */
+    private final long accumulationBytes;
+
+    /**
+     * The number of bytes allocated by the native arrays of the OpenGL preview.
+     */
+    private final long previewBytes;
+
+    /**
+     * The number of bytes allocated by the {@link android.graphics.Bitmap}s of the app, other
+     * than the render target.
+     * Before Android 8, the pixels of the {@link android.graphics.Bitmap}s are allocated in the
+     * Java heap, so they are also part of the {@link #javaHeapBytes}.
+     */
+    private final long bitmapBytes;
+
+    /**
+     * The number of bytes used in the Java heap.
+     */
+    private final long javaHeapBytes;
+
+    /**
+     * Gets the number of bytes used in the Java heap of the current process.
+     *
+     * @return The number of bytes used in the Java heap.
+     */
+    public static long getUsedJavaHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Gets the number of bytes accounted by the Ray Tracer engine.
+     *
+     * @return The number of bytes allocated by the native side.
+     */
+    public long getNativeBytes() {
+        return this.geometryBytes + this.acceleratorBytes + this.materialsBytes
+            + this.accumulationBytes + this.previewBytes;
+    }
+
+    /**
+     * Gets the number of bytes of all the categories.
+     *
+     * @return The number of bytes allocated by the app.
+     */
+    public long getTotalBytes() {
+        return getNativeBytes() + this.bitmapBytes + this.javaHeapBytes;
+    }
+
+    /**
+     * Gets the name of the category which allocated more memory.
+     * If several categories allocated the same memory, the first one is returned.
+     *
+     * @return The name of the category.
+     */
+    @NonNull
+    public String getLargestCategory() {
+        final long[] bytes = toArray();
+        int largest = 0;
+        for (int i = 1; i < bytes.length; ++i) {
+            if (bytes[i] > bytes[largest]) {
+                largest = i;
+            }
+        }
+        return CATEGORIES[largest];
+    }
+
+    /**
+     * Creates a report with the maximum of each category of this and another report, so the
+     * peak of each category during a render can be kept.
+     *
+     * @param other The other report.
+     * @return A new {@link MemoryReport} with the maximum of each category.
+     */
+    @NonNull
+    public MemoryReport max(@NonNull final MemoryReport other) {
+        return builder()
+            .geometryBytes(Math.max(this.geometryBytes, other.geometryBytes))
+            .acceleratorBytes(Math.max(this.acceleratorBytes, other.acceleratorBytes))
+            .materialsBytes(Math.max(this.materialsBytes, other.materialsBytes))
+            .accumulationBytes(Math.max(this.accumulationBytes, other.accumulationBytes))
+            .previewBytes(Math.max(this.previewBytes, other.previewBytes))
+            .bitmapBytes(Math.max(this.bitmapBytes, other.bitmapBytes))
+            .javaHeapBytes(Math.max(this.javaHeapBytes, other.javaHeapBytes))
+            .build();
+    }
+
+    /**
+     * Helper method that gets the bytes of all the categories, in the order of
+     * {@link #CATEGORIES}.
+     *
+     * @return The bytes of each category.
+     */
+    @NonNull
+    private long[] toArray() {
+        return new long[] {
+            this.geometryBytes, this.acceleratorBytes, this.materialsBytes, this.accumulationBytes,
+            this.previewBytes, this.bitmapBytes, this.javaHeapBytes
+        };
+    }
+}
@@ -0,0 +1,27 @@
+package puscas.mobilertapp.metrics;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The available formats of the file where the {@link RenderMetrics} are written.
+ */
+@RequiredArgsConstructor
+public enum MetricsFormat {
+
+    /**
+     * Comma-separated values, with a header in the first line of the file.
+     */
+    CSV("csv"),
+
+    /**
+     * One JSON object per line.
+     */
+    JSON_LINES("jsonl");
+
+    /**
+     * The extension of the file.
+     */
+    @Getter
+    private final String extension;
+}
@@ -0,0 +1,219 @@
+package puscas.mobilertapp.metrics;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * The performance metrics of one render of the Ray Tracer engine.
+ * <br>
+ * They are collected by a {@link RenderMetricsRecorder} while the scene is being rendered and
+ * written by a {@link RenderMetricsWriter}, so the renders of different devices can be compared
+ * offline.
+ */
+@Builder(toBuilder = true)
+@Getter
+public final class RenderMetrics {
+
+    /**
+     * The number of milliseconds in a second.
+     */
+    private static final double MILLISECONDS_IN_SECOND = 1000.0;
+
+    /**
+     * The wall clock time, in milliseconds since the epoch, when the render started.
+     */
+    private final long timestamp;
+
+    /**
+     * The name of the scene.
+     */
+    @Builder.Default
+    private final String scene = "";
+
+    /**
+     * The name of the shader.
+     */
+    @Builder.Default
+    private final String shader = "";
+
+    /**
+     * The name of the acceleration structure.
+     */
+    @Builder.Default
+    private final String accelerator = "";
+
+    /**
+     * The width of the rendered image.
+     */
+    private final int width;
+
+    /**
+     * The height of the rendered image.
+     */
+    private final int height;
+
+    /**
+     * The number of threads used by the Ray Tracer engine.
+     */
+    private final int threads;
+
+    /**
+     * The selected number of samples per pixel.
+     */
+    private final int samplesPixel;
+
+    /**
+     * The selected number of samples per light.
+     */
+    private final int samplesLight;
+
+    /**
+     * The number of primitives in the scene.
+     */
+    private final int primitives;
+
+    /**
+     * The number of lights in the scene.
+     */
+    private final int lights;
+
+    /**
+     * The number of samples per pixel rendered.
+     */
+    private final int samples;
+
+    /**
+     * The time, in milliseconds, spent constructing the Ray Tracer renderer.
+     */
+    private final long rendererTime;
+
+    /**
+     * The time, in milliseconds, spent rendering the scene.
+     */
+    private final long renderTime;
+
+    /**
+     * The time, in milliseconds, spent rendering each sample per pixel.
+     */
+    @Builder.Default
+    private final List<Long> sampleTimes = ImmutableList.of();
+
+    /**
+     * The number of casted rays.
+     */
+    private final long castedRays;
+
+    /**
+     * The number of casted rays which intersected a primitive.
+     */
+    private final long intersectedPrimitives;
+
+    /**
+     * The peak number of bytes allocated in the native heap while rendering.
+     */
+    private final long peakNativeHeap;
+
+    /**
+     * The peak memory of each category of the {@link MemoryReport} while rendering.
+     */
+    @Builder.Default
+    private final MemoryReport peakMemory = MemoryReport.builder().build();
+
+    /**
+     * The median time, in microseconds, spent uploading and drawing each frame.
+     */
+    private final long drawTimeP50;
+
+    /**
+     * The 99th percentile of the time, in microseconds, spent uploading and drawing each frame.
+     */
+    private final long drawTimeP99;
+
+    /**
+     * The maximum time, in microseconds, spent uploading and drawing a frame.
+     */
+    private final long drawTimeMax;
+
+    /**
+     * The median lateness, in microseconds, of the ticks of the timer which refreshes the
+     * statistics.
+     */
+    private final long tickLatenessP50;
+
+    /**
+     * The 99th percentile of the lateness, in microseconds, of the ticks of the timer which
+     * refreshes the statistics.
+     */
+    private final long tickLatenessP99;
+
+    /**
+     * The maximum lateness, in microseconds, of a tick of the timer which refreshes the
+     * statistics.
+     */
+    private final long tickLatenessMax;
+
+    /**
+     * The median latency, in microseconds, between publishing the progress and the UI thread
+     * updating it.
+     */
+    private final long progressLatencyP50;
+
+    /**
+     * The 99th percentile of the latency, in microseconds, between publishing the progress and
+     * the UI thread updating it.
+     */
+    private final long progressLatencyP99;
+
+    /**
+     * The maximum latency, in microseconds, between publishing the progress and the UI thread
+     * updating it.
+     */
+    private final long progressLatencyMax;
+
+    /**
+     * The number of samples per pixel which weren't rendered because the image converged before.
+     */
+    private final int samplesSaved;
+
+    /**
+     * The name of the state of the Ray Tracer engine when the render finished.
+     */
+    @Builder.Default
+    private final String state = "";
+
+    /**
+     * Gets the number of rays casted per second.
+     *
+     * @return The number of rays casted per second, or {@code 0} if no time was spent rendering.
+     */
+    public double getRaysPerSecond() {
+        return perSecond(this.castedRays);
+    }
+
+    /**
+     * Gets the number of samples per pixel rendered per second.
+     *
+     * @return The number of samples rendered per second, or {@code 0} if no time was spent
+     *     rendering.
+     */
+    public double getSamplesPerSecond() {
+        return perSecond(this.samples);
+    }
+
+    /**
+     * Helper method that calculates the rate of a value over the {@link #renderTime}.
+     *
+     * @param value The value.
+     * @return The value per second.
+     */
+    private double perSecond(final long value) {
+        if (this.renderTime <= 0L) {
+            return 0.0;
+        }
+        return value * MILLISECONDS_IN_SECOND / this.renderTime;
+    }
+}
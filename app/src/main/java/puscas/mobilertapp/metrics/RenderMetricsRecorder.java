@@ -0,0 +1,128 @@
+package puscas.mobilertapp.metrics;
+
+import androidx.annotation.NonNull;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the timings of each sample per pixel, the peak native heap and the peak memory of each
+ * category of the {@link MemoryReport} while the Ray Tracer engine is rendering a scene.
+ * <br>
+ * The Ray Tracer engine only reports the current sample when it is polled, so if more than one
+ * sample finished between two polls, the elapsed time is evenly split between them.
+ * <br>
+ * It is not thread safe and should only be used by one thread at a time.
+ */
+public final class RenderMetricsRecorder {
+
+    /**
+     * The time, in milliseconds, spent rendering each sample per pixel.
+     */
+    private final List<Long> sampleTimes = new ArrayList<>();
+
+    /**
+     * The wall clock time, in milliseconds since the epoch, when the render started.
+     */
+    private long timestamp = 0L;
+
+    /**
+     * The monotonic time, in milliseconds, when the render started.
+     */
+    private long startTime = 0L;
+
+    /**
+     * The monotonic time, in milliseconds, when the last sample finished.
+     */
+    private long lastSampleTime = 0L;
+
+    /**
+     * The monotonic time, in milliseconds, of the last call to {@link #record(int, long, long)}.
+     */
+    private long lastTime = 0L;
+
+    /**
+     * The number of samples per pixel rendered.
+     */
+    private int samples = 0;
+
+    /**
+     * The peak number of bytes allocated in the native heap.
+     */
+    private long peakNativeHeap = 0L;
+
+    /**
+     * The peak memory of each category of the {@link MemoryReport}.
+     */
+    private MemoryReport peakMemory = MemoryReport.builder().build();
+
+    /**
+     * Starts recording a new render.
+     *
+     * @param timestamp The wall clock time, in milliseconds since the epoch.
+     * @param now       The monotonic time, in milliseconds.
+     */
+    public void start(final long timestamp, final long now) {
+        this.sampleTimes.clear();
+        this.timestamp = timestamp;
+        this.startTime = now;
+        this.lastSampleTime = now;
+        this.lastTime = now;
+        this.samples = 0;
+        this.peakNativeHeap = 0L;
+        this.peakMemory = MemoryReport.builder().build();
+    }
+
+    /**
+     * Records the statistics polled from the Ray Tracer engine.
+     *
+     * @param sample         The number of samples per pixel rendered.
+     * @param allocatedBytes The number of bytes allocated in the native heap.
+     * @param now            The monotonic time, in milliseconds.
+     */
+    public void record(final int sample, final long allocatedBytes, final long now) {
+        this.peakNativeHeap = Math.max(this.peakNativeHeap, allocatedBytes);
+        this.lastTime = now;
+        if (sample <= this.samples) {
+            return;
+        }
+
+        final int finishedSamples = sample - this.samples;
+        final long elapsed = now - this.lastSampleTime;
+        for (int i = 0; i < finishedSamples; ++i) {
+            this.sampleTimes.add(elapsed / finishedSamples);
+        }
+        this.samples = sample;
+        this.lastSampleTime = now;
+    }
+
+    /**
+     * Records the memory of each category polled from the app.
+     *
+     * @param memoryReport The current {@link MemoryReport}.
+     */
+    public void recordMemory(@NonNull final MemoryReport memoryReport) {
+        this.peakMemory = this.peakMemory.max(memoryReport);
+    }
+
+    /**
+     * Adds the recorded metrics to a {@link RenderMetrics.RenderMetricsBuilder}, so the caller
+     * only has to add the configuration of the render and the statistics of the Ray Tracer
+     * engine.
+     *
+     * @param builder The {@link RenderMetrics.RenderMetricsBuilder}.
+     * @return The same {@link RenderMetrics.RenderMetricsBuilder}.
+     */
+    @NonNull
+    public RenderMetrics.RenderMetricsBuilder addTo(@NonNull final RenderMetrics.RenderMetricsBuilder builder) {
+        return builder
+            .timestamp(this.timestamp)
+            .samples(this.samples)
+            .renderTime(this.lastTime - this.startTime)
+            .sampleTimes(ImmutableList.copyOf(this.sampleTimes))
+            .peakNativeHeap(this.peakNativeHeap)
+            .peakMemory(this.peakMemory);
+    }
+}
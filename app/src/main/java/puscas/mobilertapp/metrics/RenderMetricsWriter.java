@@ -0,0 +1,370 @@
+package puscas.mobilertapp.metrics;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import com.google.common.base.Preconditions;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Locale;
+
+import lombok.Getter;
+import lombok.extern.java.Log;
+
+/**
+ * Appends {@link RenderMetrics} to a file, one render per line, in a {@link MetricsFormat}.
+ * <br>
+ * The file is only appended to, so the renders of several sessions can be collected from a device
+ * and compared offline, like the {@code scripts/plot} scripts do with the logs.
+ * The time of each sample per pixel is written as a list separated by {@code ';'}, so it doesn't
+ * need to be quoted in a CSV file.
+ * <br>
+ * Every line starts with the {@link #SCHEMA_VERSION} of its columns. Before appending to an
+ * existing file, its first line is checked: if it was written with another schema, the file is
+ * rotated (renamed to {@code name-N.ext}) and a new one is started, so the rows of a file always
+ * match its header.
+ */
+@Log
+public final class RenderMetricsWriter {
+
+    /**
+     * The version of the columns of a CSV file and of the fields of a JSON lines file.
+     * It must be incremented whenever a column is added, removed or moved, and the new columns
+     * should be appended at the end.
+     */
+    static final int SCHEMA_VERSION = 4;
+
+    /**
+     * The header of a CSV file.
+     */
+    static final String CSV_HEADER = "schema_version,timestamp,scene,shader,accelerator,width,"
+        + "height,threads,samples_pixel,samples_light,primitives,lights,samples,renderer_time_ms,"
+        + "render_time_ms,casted_rays,intersected_primitives,rays_per_second,samples_per_second,"
+        + "peak_native_heap_bytes,state,sample_times_ms,draw_time_p50_us,draw_time_p99_us,"
+        + "draw_time_max_us,tick_lateness_p50_us,tick_lateness_p99_us,tick_lateness_max_us,"
+        + "progress_latency_p50_us,progress_latency_p99_us,progress_latency_max_us,samples_saved,"
+        + "peak_geometry_bytes,peak_accelerator_bytes,peak_materials_bytes,peak_accumulation_bytes,"
+        + "peak_preview_bytes,peak_bitmap_bytes,peak_java_heap_bytes,largest_memory";
+
+    /**
+     * The start of every line of a JSON lines file.
+     */
+    private static final String JSON_PREFIX = "{\"schemaVersion\":" + SCHEMA_VERSION + ',';
+
+    /**
+     * The {@link Charset} of the file.
+     */
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
+    /**
+     * The file where the metrics are appended.
+     */
+    @Getter
+    private final File file;
+
+    /**
+     * The format of the file.
+     */
+    @Getter
+    private final MetricsFormat format;
+
+    /**
+     * Whether the schema of the existing file was already checked.
+     */
+    private boolean schemaChecked = false;
+
+    /**
+     * The constructor.
+     *
+     * @param file   The file where the metrics are appended.
+     * @param format The format of the file.
+     */
+    public RenderMetricsWriter(@NonNull final File file, @NonNull final MetricsFormat format) {
+        this.file = Preconditions.checkNotNull(file, "file shouldn't be null");
+        this.format = Preconditions.checkNotNull(format, "format shouldn't be null");
+    }
+
+    /**
+     * Appends the metrics of a render to the file.
+     * The first time, an existing file with another schema is rotated.
+     * The header is written first if the file is a new CSV file.
+     *
+     * @param metrics The metrics of the render.
+     * @throws IOException If the file couldn't be written.
+     */
+    public synchronized void write(@NonNull final RenderMetrics metrics) throws IOException {
+        log.info("write");
+
+        if (!this.schemaChecked) {
+            rotateIfOtherSchema();
+            this.schemaChecked = true;
+        }
+        final boolean newFile = !this.file.exists() || this.file.length() == 0L;
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+            new FileOutputStream(this.file, true), CHARSET))) {
+            if (this.format == MetricsFormat.CSV) {
+                if (newFile) {
+                    writer.write(CSV_HEADER);
+                    writer.write('\n');
+                }
+                writer.write(toCsv(metrics));
+            } else {
+                writer.write(toJson(metrics));
+            }
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * Helper method that renames the file, if it was written with another schema, so the new
+     * lines are written to a new file.
+     *
+     * @throws IOException If the file couldn't be read or renamed.
+     */
+    private void rotateIfOtherSchema() throws IOException {
+        if (!this.file.exists() || this.file.length() == 0L) {
+            return;
+        }
+
+        final String firstLine;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+            new FileInputStream(this.file), CHARSET))) {
+            firstLine = reader.readLine();
+        }
+        if (hasSameSchema(firstLine, this.format)) {
+            return;
+        }
+
+        final File rotated = rotatedFile(this.file);
+        if (!this.file.renameTo(rotated)) {
+            throw new IOException("Couldn't rotate the metrics file: " + this.file.getPath());
+        }
+        final String message = "Metrics file with another schema moved to: " + rotated.getPath();
+        log.info(message);
+    }
+
+    /**
+     * Checks whether the first line of a file was written with the current
+     * {@link #SCHEMA_VERSION}.
+     *
+     * @param firstLine The first line of the file.
+     * @param format    The format of the file.
+     * @return Whether the file has the same schema.
+     */
+    @VisibleForTesting
+    static boolean hasSameSchema(final String firstLine, @NonNull final MetricsFormat format) {
+        if (firstLine == null) {
+            return true;
+        }
+        if (format == MetricsFormat.CSV) {
+            return CSV_HEADER.equals(firstLine);
+        }
+        return firstLine.startsWith(JSON_PREFIX);
+    }
+
+    /**
+     * Gets the first free name to rotate a file to, by adding {@code -N} before its extension.
+     *
+     * @param file The file to rotate.
+     * @return The file where it can be moved to.
+     */
+    @NonNull
+    @VisibleForTesting
+    static File rotatedFile(@NonNull final File file) {
+        final String name = file.getName();
+        final int dot = name.lastIndexOf('.');
+        final String base = dot > 0 ? name.substring(0, dot) : name;
+        final String extension = dot > 0 ? name.substring(dot) : "";
+        for (int i = 1; ; ++i) {
+            final File rotated = new File(file.getParentFile(), base + '-' + i + extension);
+            if (!rotated.exists()) {
+                return rotated;
+            }
+        }
+    }
+
+    /**
+     * Converts the metrics of a render to a CSV line, with the columns of {@link #CSV_HEADER}.
+     *
+     * @param metrics The metrics of the render.
+     * @return The CSV line, without the line separator.
+     */
+    @NonNull
+    @VisibleForTesting
+    static String toCsv(@NonNull final RenderMetrics metrics) {
+        return new StringBuilder()
+            .append(SCHEMA_VERSION).append(',')
+            .append(metrics.getTimestamp()).append(',')
+            .append(csvText(metrics.getScene())).append(',')
+            .append(csvText(metrics.getShader())).append(',')
+            .append(csvText(metrics.getAccelerator())).append(',')
+            .append(metrics.getWidth()).append(',')
+            .append(metrics.getHeight()).append(',')
+            .append(metrics.getThreads()).append(',')
+            .append(metrics.getSamplesPixel()).append(',')
+            .append(metrics.getSamplesLight()).append(',')
+            .append(metrics.getPrimitives()).append(',')
+            .append(metrics.getLights()).append(',')
+            .append(metrics.getSamples()).append(',')
+            .append(metrics.getRendererTime()).append(',')
+            .append(metrics.getRenderTime()).append(',')
+            .append(metrics.getCastedRays()).append(',')
+            .append(metrics.getIntersectedPrimitives()).append(',')
+            .append(decimal(metrics.getRaysPerSecond())).append(',')
+            .append(decimal(metrics.getSamplesPerSecond())).append(',')
+            .append(metrics.getPeakNativeHeap()).append(',')
+            .append(csvText(metrics.getState())).append(',')
+            .append(join(metrics.getSampleTimes(), ';')).append(',')
+            .append(metrics.getDrawTimeP50()).append(',')
+            .append(metrics.getDrawTimeP99()).append(',')
+            .append(metrics.getDrawTimeMax()).append(',')
+            .append(metrics.getTickLatenessP50()).append(',')
+            .append(metrics.getTickLatenessP99()).append(',')
+            .append(metrics.getTickLatenessMax()).append(',')
+            .append(metrics.getProgressLatencyP50()).append(',')
+            .append(metrics.getProgressLatencyP99()).append(',')
+            .append(metrics.getProgressLatencyMax()).append(',')
+            .append(metrics.getSamplesSaved()).append(',')
+            .append(metrics.getPeakMemory().getGeometryBytes()).append(',')
+            .append(metrics.getPeakMemory().getAcceleratorBytes()).append(',')
+            .append(metrics.getPeakMemory().getMaterialsBytes()).append(',')
+            .append(metrics.getPeakMemory().getAccumulationBytes()).append(',')
+            .append(metrics.getPeakMemory().getPreviewBytes()).append(',')
+            .append(metrics.getPeakMemory().getBitmapBytes()).append(',')
+            .append(metrics.getPeakMemory().getJavaHeapBytes()).append(',')
+            .append(metrics.getPeakMemory().getLargestCategory())
+            .toString();
+    }
+
+    /**
+     * Converts the metrics of a render to a JSON object in one line.
+     *
+     * @param metrics The metrics of the render.
+     * @return The JSON object, without the line separator.
+     */
+    @NonNull
+    @VisibleForTesting
+    static String toJson(@NonNull final RenderMetrics metrics) {
+        return new StringBuilder()
+            .append(JSON_PREFIX)
+            .append("\"timestamp\":").append(metrics.getTimestamp())
+            .append(",\"scene\":").append(jsonText(metrics.getScene()))
+            .append(",\"shader\":").append(jsonText(metrics.getShader()))
+            .append(",\"accelerator\":").append(jsonText(metrics.getAccelerator()))
+            .append(",\"width\":").append(metrics.getWidth())
+            .append(",\"height\":").append(metrics.getHeight())
+            .append(",\"threads\":").append(metrics.getThreads())
+            .append(",\"samplesPixel\":").append(metrics.getSamplesPixel())
+            .append(",\"samplesLight\":").append(metrics.getSamplesLight())
+            .append(",\"primitives\":").append(metrics.getPrimitives())
+            .append(",\"lights\":").append(metrics.getLights())
+            .append(",\"samples\":").append(metrics.getSamples())
+            .append(",\"rendererTimeMs\":").append(metrics.getRendererTime())
+            .append(",\"renderTimeMs\":").append(metrics.getRenderTime())
+            .append(",\"castedRays\":").append(metrics.getCastedRays())
+            .append(",\"intersectedPrimitives\":").append(metrics.getIntersectedPrimitives())
+            .append(",\"raysPerSecond\":").append(decimal(metrics.getRaysPerSecond()))
+            .append(",\"samplesPerSecond\":").append(decimal(metrics.getSamplesPerSecond()))
+            .append(",\"peakNativeHeapBytes\":").append(metrics.getPeakNativeHeap())
+            .append(",\"state\":").append(jsonText(metrics.getState()))
+            .append(",\"sampleTimesMs\":[").append(join(metrics.getSampleTimes(), ',')).append(']')
+            .append(",\"drawTimeP50Us\":").append(metrics.getDrawTimeP50())
+            .append(",\"drawTimeP99Us\":").append(metrics.getDrawTimeP99())
+            .append(",\"drawTimeMaxUs\":").append(metrics.getDrawTimeMax())
+            .append(",\"tickLatenessP50Us\":").append(metrics.getTickLatenessP50())
+            .append(",\"tickLatenessP99Us\":").append(metrics.getTickLatenessP99())
+            .append(",\"tickLatenessMaxUs\":").append(metrics.getTickLatenessMax())
+            .append(",\"progressLatencyP50Us\":").append(metrics.getProgressLatencyP50())
+            .append(",\"progressLatencyP99Us\":").append(metrics.getProgressLatencyP99())
+            .append(",\"progressLatencyMaxUs\":").append(metrics.getProgressLatencyMax())
+            .append(",\"samplesSaved\":").append(metrics.getSamplesSaved())
+            .append(",\"peakGeometryBytes\":").append(metrics.getPeakMemory().getGeometryBytes())
+            .append(",\"peakAcceleratorBytes\":").append(metrics.getPeakMemory().getAcceleratorBytes())
+            .append(",\"peakMaterialsBytes\":").append(metrics.getPeakMemory().getMaterialsBytes())
+            .append(",\"peakAccumulationBytes\":").append(metrics.getPeakMemory().getAccumulationBytes())
+            .append(",\"peakPreviewBytes\":").append(metrics.getPeakMemory().getPreviewBytes())
+            .append(",\"peakBitmapBytes\":").append(metrics.getPeakMemory().getBitmapBytes())
+            .append(",\"peakJavaHeapBytes\":").append(metrics.getPeakMemory().getJavaHeapBytes())
+            .append(",\"largestMemory\":").append(jsonText(metrics.getPeakMemory().getLargestCategory()))
+            .append('}')
+            .toString();
+    }
+
+    /**
+     * Helper method that formats a decimal number independently of the default {@link Locale}.
+     *
+     * @param value The number.
+     * @return The number with 3 fraction digits.
+     */
+    @NonNull
+    private static String decimal(final double value) {
+        return String.format(Locale.US, "%.3f", value);
+    }
+
+    /**
+     * Helper method that joins numbers with a separator.
+     *
+     * @param values    The numbers.
+     * @param separator The separator.
+     * @return The joined numbers.
+     */
+    @NonNull
+    private static String join(@NonNull final List<Long> values, final char separator) {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < values.size(); ++i) {
+            if (i > 0) {
+                builder.append(separator);
+            }
+            builder.append(values.get(i));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Helper method that quotes a text for a CSV file, if it has a separator, a quote or a line
+     * break.
+     *
+     * @param value The text.
+     * @return The text to write in a CSV file.
+     */
+    @NonNull
+    private static String csvText(@NonNull final String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+            && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Helper method that converts a text to a JSON string.
+     *
+     * @param value The text.
+     * @return The quoted and escaped JSON string.
+     */
+    @NonNull
+    static String jsonText(@NonNull final String value) {
+        final StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); ++i) {
+            final char character = value.charAt(i);
+            if (character == '"' || character == '\\') {
+                builder.append('\\').append(character);
+            } else if (character < ' ') {
+                builder.append(String.format(Locale.US, "\\u%04x", (int) character));
+            } else {
+                builder.append(character);
+            }
+        }
+        return builder.append('"').toString();
+    }
+}
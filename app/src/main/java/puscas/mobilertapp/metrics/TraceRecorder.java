@@ -0,0 +1,290 @@
+package puscas.mobilertapp.metrics;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import com.google.common.base.Preconditions;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import lombok.extern.java.Log;
+
+/**
+ * Records the spans of the render pipeline in a ring buffer and writes them as a Chrome
+ * trace-event JSON file, which can be opened in {@code chrome://tracing} or Perfetto.
+ * <br>
+ * A span is recorded with:
+ * <pre>{@code
+ * final long start = TraceRecorder.getInstance().begin();
+ * ...
+ * TraceRecorder.getInstance().end("MainRenderer#drawBitmap", start);
+ * }</pre>
+ * Recording a span only stores its name, times and thread in preallocated arrays, so it doesn't
+ * allocate memory. When the ring buffer is full, the oldest spans are overwritten.
+ * The names of the spans should be constant {@link String}s.
+ */
+@Log
+public final class TraceRecorder {
+
+    /**
+     * The default number of spans kept in the ring buffer.
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * The category of all the spans.
+     */
+    private static final String CATEGORY = "MobileRT";
+
+    /**
+     * The {@link Charset} of the trace file.
+     */
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
+    /**
+     * The number of nanoseconds in a microsecond.
+     */
+    private static final long NANOSECONDS_IN_MICROSECOND = 1000L;
+
+    /**
+     * The {@link TraceRecorder} shared by the whole application.
+     */
+    private static final TraceRecorder INSTANCE = new TraceRecorder(DEFAULT_CAPACITY);
+
+    /**
+     * The names of the spans.
+     */
+    private final String[] names;
+
+    /**
+     * The start times, in nanoseconds, of the spans.
+     */
+    private final long[] starts;
+
+    /**
+     * The durations, in nanoseconds, of the spans.
+     */
+    private final long[] durations;
+
+    /**
+     * The identifiers of the threads which recorded the spans.
+     */
+    private final long[] threadIds;
+
+    /**
+     * The names of the threads which recorded the spans.
+     */
+    private final String[] threadNames;
+
+    /**
+     * The total number of spans recorded, including the ones already overwritten.
+     */
+    private long recorded = 0L;
+
+    /**
+     * Whether the spans are being recorded.
+     */
+    private volatile boolean enabled = true;
+
+    /**
+     * The constructor.
+     *
+     * @param capacity The number of spans kept in the ring buffer.
+     */
+    @VisibleForTesting
+    TraceRecorder(final int capacity) {
+        Preconditions.checkArgument(capacity > 0, "capacity must be positive");
+
+        this.names = new String[capacity];
+        this.starts = new long[capacity];
+        this.durations = new long[capacity];
+        this.threadIds = new long[capacity];
+        this.threadNames = new String[capacity];
+    }
+
+    /**
+     * Gets the {@link TraceRecorder} shared by the whole application.
+     *
+     * @return The shared {@link TraceRecorder}.
+     */
+    @NonNull
+    public static TraceRecorder getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Enables or disables the recording of the spans.
+     *
+     * @param enabled Whether the spans should be recorded.
+     */
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Starts a span.
+     *
+     * @return The start time of the span, to be passed to {@link #end(String, long)}.
+     */
+    public long begin() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Ends a span and records it in the current thread.
+     *
+     * @param name  The name of the span.
+     * @param start The start time returned by {@link #begin()}.
+     */
+    public void end(@NonNull final String name, final long start) {
+        if (!this.enabled) {
+            return;
+        }
+        final Thread thread = Thread.currentThread();
+        record(name, start, System.nanoTime() - start, thread.getId(), thread.getName());
+    }
+
+    /**
+     * Records a span in the ring buffer.
+     *
+     * @param name       The name of the span.
+     * @param start      The start time, in nanoseconds.
+     * @param duration   The duration, in nanoseconds.
+     * @param threadId   The identifier of the thread.
+     * @param threadName The name of the thread.
+     */
+    @VisibleForTesting
+    synchronized void record(@NonNull final String name,
+                             final long start,
+                             final long duration,
+                             final long threadId,
+                             @NonNull final String threadName) {
+        final int index = (int) (this.recorded % this.names.length);
+        this.names[index] = name;
+        this.starts[index] = start;
+        this.durations[index] = duration;
+        this.threadIds[index] = threadId;
+        this.threadNames[index] = threadName;
+        ++this.recorded;
+    }
+
+    /**
+     * Gets the number of spans in the ring buffer.
+     *
+     * @return The number of spans which can be written.
+     */
+    public synchronized int size() {
+        return (int) Math.min(this.recorded, this.names.length);
+    }
+
+    /**
+     * Removes all the spans from the ring buffer.
+     */
+    public synchronized void clear() {
+        this.recorded = 0L;
+        Arrays.fill(this.names, null);
+        Arrays.fill(this.threadNames, null);
+    }
+
+    /**
+     * Writes the spans in the ring buffer to a file, as a Chrome trace-event JSON.
+     *
+     * @param file The file to write.
+     * @param pid  The identifier of the process.
+     * @throws IOException If the file couldn't be written.
+     */
+    public void dump(@NonNull final File file, final int pid) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+            new FileOutputStream(file, false), CHARSET))) {
+            writeChromeTrace(writer, pid);
+        }
+        final String message = "Trace written to " + file.getAbsolutePath();
+        log.info(message);
+    }
+
+    /**
+     * Writes the spans in the ring buffer, from the oldest to the newest, as a Chrome
+     * trace-event JSON with one complete event per span and the names of the threads.
+     * <br>
+     * The spans are copied while holding the lock and serialized after releasing it, so the
+     * threads recording spans aren't blocked by the I/O.
+     *
+     * @param writer The {@link Writer} to write to.
+     * @param pid    The identifier of the process.
+     * @throws IOException If the {@link Writer} failed.
+     */
+    public void writeChromeTrace(@NonNull final Writer writer, final int pid) throws IOException {
+        final int size;
+        final long overwritten;
+        final String[] spanNames;
+        final long[] spanStarts;
+        final long[] spanDurations;
+        final long[] spanThreadIds;
+        final String[] spanThreadNames;
+        synchronized (this) {
+            size = size();
+            overwritten = this.recorded - size;
+            spanNames = new String[size];
+            spanStarts = new long[size];
+            spanDurations = new long[size];
+            spanThreadIds = new long[size];
+            spanThreadNames = new String[size];
+            final int first = (int) (overwritten % this.names.length);
+            for (int i = 0; i < size; ++i) {
+                final int index = (first + i) % this.names.length;
+                spanNames[i] = this.names[index];
+                spanStarts[i] = this.starts[index];
+                spanDurations[i] = this.durations[index];
+                spanThreadIds[i] = this.threadIds[index];
+                spanThreadNames[i] = this.threadNames[index];
+            }
+        }
+
+        writer.write("{\"traceEvents\":[");
+        final Set<Long> namedThreads = new HashSet<>();
+        for (int i = 0; i < size; ++i) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (namedThreads.add(spanThreadIds[i])) {
+                writer.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":" + pid
+                    + ",\"tid\":" + spanThreadIds[i]
+                    + ",\"args\":{\"name\":" + RenderMetricsWriter.jsonText(spanThreadNames[i]) + "}},");
+            }
+            writer.write("{\"name\":" + RenderMetricsWriter.jsonText(spanNames[i])
+                + ",\"cat\":\"" + CATEGORY + "\",\"ph\":\"X\""
+                + ",\"ts\":" + microseconds(spanStarts[i])
+                + ",\"dur\":" + microseconds(spanDurations[i])
+                + ",\"pid\":" + pid
+                + ",\"tid\":" + spanThreadIds[i] + '}');
+        }
+        writer.write("],\"displayTimeUnit\":\"ms\"}");
+        writer.flush();
+
+        final String message = "Spans written: " + size + ", overwritten: " + overwritten;
+        log.info(message);
+    }
+
+    /**
+     * Helper method that converts nanoseconds to the microseconds of the trace-event format,
+     * keeping the nanoseconds as fraction digits.
+     *
+     * @param nanoseconds The non-negative time in nanoseconds.
+     * @return The time in microseconds.
+     */
+    @NonNull
+    private static String microseconds(final long nanoseconds) {
+        return String.format(Locale.US, "%d.%03d",
+            nanoseconds / NANOSECONDS_IN_MICROSECOND, nanoseconds % NANOSECONDS_IN_MICROSECOND);
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * The package of the performance metrics of the Ray Tracer engine.
+ */
+package puscas.mobilertapp.metrics;
@@ -1,18 +1,38 @@
 package puscas.mobilertapp.utils
 
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.logging.Level
 import java.util.logging.Logger
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.CoroutineStart
 import kotlinx.coroutines.Deferred
-import kotlinx.coroutines.DelicateCoroutinesApi
-import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.GlobalScope
-import kotlinx.coroutines.Job
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.NonCancellable
+import kotlinx.coroutines.SupervisorJob
 import kotlinx.coroutines.async
+import kotlinx.coroutines.asCoroutineDispatcher
+import kotlinx.coroutines.cancel
 import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withContext
 
 /**
  * An abstract class which simulates the deprecated [android.os.AsyncTask] from Java.
  *
- * This implementation uses Kotlin coroutines for the asynchronous tasks.
+ * This implementation uses Kotlin coroutines for the asynchronous tasks, which run in the
+ * threads of the shared [RenderScheduler], so no threads are created for each task.
+ * The coroutines are children of a scope owned by each task, instead of the `GlobalScope`, so
+ * they end with the task.
+ *
+ * A task can be cancelled with [cancel], which immediately calls [onCancelled] in the calling
+ * thread, so [doInBackground] can stop cooperatively, and cancels the coroutines of the task.
+ * [onPostExecute] still runs, after [doInBackground] returns, to release the resources of the
+ * task.
+ *
+ * If [doInBackground] fails, the failure is logged, [onPostExecute] doesn't run and the
+ * [Deferred] returned by [executeAsync] completes with the exception.
  */
 abstract class AsyncTaskCoroutine {
 
@@ -22,9 +42,43 @@ abstract class AsyncTaskCoroutine {
     private val logger = Logger.getLogger(AsyncTaskCoroutine::class.java.name)
 
     /**
-     * The last [Job] that was triggered to be calculated by the Kotlin coroutines.
+     * The [Deferred] which completes when [doInBackground] returns, or `null` if the task
+     * wasn't executed yet.
+     */
+    @Volatile
+    private var backgroundFinished: CompletableDeferred<Unit>? = null
+
+    /**
+     * Whether [cancel] was called.
+     */
+    private val cancelled = AtomicBoolean(false)
+
+    /**
+     * The lazily created [CoroutineScope] of the coroutines of this task.
+     * It is only created when the task is executed, since it needs the UI thread.
+     */
+    private val lazyScope: Lazy<CoroutineScope> = lazy {
+        CoroutineScope(SupervisorJob() + uiDispatcher)
+    }
+
+    /**
+     * The [CoroutineScope] of the coroutines of this task, created by [lazyScope].
      */
-    private var lastJob: Deferred<Unit>? = null
+    private val scope: CoroutineScope by lazyScope
+
+    /**
+     * The [CoroutineDispatcher] where [onPreExecute] and [onPostExecute] run.
+     * By default, it is the UI thread of the shared [RenderScheduler].
+     */
+    protected open val uiDispatcher: CoroutineDispatcher
+        get() = sharedUiDispatcher
+
+    /**
+     * The [CoroutineDispatcher] where [doInBackground] runs.
+     * By default, it is the background threads of the shared [RenderScheduler].
+     */
+    protected open val backgroundDispatcher: CoroutineDispatcher
+        get() = sharedBackgroundDispatcher
 
     /**
      * Runs on the UI thread before [doInBackground].
@@ -72,20 +126,53 @@ abstract class AsyncTaskCoroutine {
      */
     protected abstract fun onPostExecute()
 
+    /**
+     * Runs in the thread which called [cancel], right after the task is cancelled.
+     * Override this method to wake up [doInBackground], so it can return as soon as possible.
+     *
+     * @see [cancel]
+     */
+    protected open fun onCancelled() {
+        // Nothing to do by default.
+    }
+
+    /**
+     * Cancels the task cooperatively.
+     * Only the first call has effect: it calls [onCancelled] in the calling thread,
+     * [isCancelled] starts returning `true` and the coroutines of the task are cancelled.
+     */
+    fun cancel() {
+        if (cancelled.compareAndSet(false, true)) {
+            logger.info("cancel")
+            onCancelled()
+            if (lazyScope.isInitialized()) {
+                scope.cancel()
+            }
+        }
+    }
+
+    /**
+     * Whether the task was cancelled.
+     *
+     * @return `true` if [cancel] was called.
+     */
+    fun isCancelled(): Boolean {
+        return cancelled.get()
+    }
+
     /**
      * This method can be invoked from [doInBackground] to
      * publish updates on the UI thread while the background computation is
      * still running. Each call to this method will trigger the execution of
-     * [onProgressUpdate] on the UI thread.
+     * [onProgressUpdate] on the UI thread, unless the UI thread already has
+     * too many updates pending in the [RenderScheduler].
      *
+     * @return Whether the update was posted to the UI thread.
      * @see [onProgressUpdate]
      * @see [doInBackground]
      */
-    @DelicateCoroutinesApi
-    protected fun publishProgressAsync(): Deferred<Unit> {
-        return GlobalScope.async(Dispatchers.Main) {
-            onProgressUpdate()
-        }
+    protected fun publishProgressAsync(): Boolean {
+        return RenderScheduler.getInstance().postToUi { onProgressUpdate() }
     }
 
     /**
@@ -97,16 +184,65 @@ abstract class AsyncTaskCoroutine {
      * which executes some background task, which might be something compute
      * intensive that when it finishes, it will then call the [onPostExecute]
      * method on the UI thread.
+     * If the task is cancelled, [onPostExecute] only runs after [doInBackground] returns, and
+     * if [doInBackground] fails, [onPostExecute] doesn't run.
+     *
+     * @return The [Deferred] of the whole task, which completes with the failure of
+     *     [doInBackground], if any.
      */
-    @DelicateCoroutinesApi
     fun executeAsync(): Deferred<Unit> {
-        return GlobalScope.async(Dispatchers.Main) {
-            onPreExecute()
-            lastJob = GlobalScope.async(Dispatchers.IO) {
-                doInBackground()
+        return executeAfter(null)
+    }
+
+    /**
+     * Executes the task like [executeAsync], but only after the [doInBackground] of a previous
+     * task returns.
+     *
+     * It never blocks the calling thread: the coroutine of this task suspends until the previous
+     * task finishes, and then calls [onPreExecute].
+     *
+     * @param previous The previous task, or `null` to execute this one right away.
+     * @return The [Deferred] of the whole task, which completes with the failure of
+     *     [doInBackground], if any.
+     */
+    @OptIn(ExperimentalCoroutinesApi::class)
+    fun executeAfter(previous: AsyncTaskCoroutine?): Deferred<Unit> {
+        val previousFinished = previous?.backgroundFinished
+        val finished = CompletableDeferred<Unit>()
+        backgroundFinished = finished
+        // Started atomically, so onPostExecute runs even if the task is cancelled before this
+        // coroutine is dispatched.
+        return scope.async(start = CoroutineStart.ATOMIC) {
+            try {
+                withContext(NonCancellable) {
+                    previousFinished?.join()
+                }
+                onPreExecute()
+                val job = async(backgroundDispatcher) {
+                    try {
+                        doInBackground()
+                    } catch (ex: Exception) {
+                        logger.log(Level.SEVERE, "doInBackground failed", ex)
+                        throw ex
+                    }
+                }
+                try {
+                    job.await()
+                } catch (ex: CancellationException) {
+                    if (!isCancelled()) {
+                        throw ex
+                    }
+                    withContext(NonCancellable) {
+                        // The blocking doInBackground isn't interrupted by the cancellation.
+                        job.join()
+                    }
+                }
+            } finally {
+                finished.complete(Unit)
+            }
+            withContext(NonCancellable) {
+                onPostExecute()
             }
-            (lastJob ?: return@async).await()
-            onPostExecute()
         }
     }
 
@@ -116,9 +252,25 @@ abstract class AsyncTaskCoroutine {
     fun waitToFinish() {
         runBlocking {
             logger.info("waitToFinish")
-            lastJob?.await()
+            backgroundFinished?.join()
             logger.info("waitToFinish finished")
         }
     }
 
+    companion object {
+        /**
+         * The [CoroutineDispatcher] of the UI thread of the shared [RenderScheduler].
+         */
+        private val sharedUiDispatcher: CoroutineDispatcher by lazy {
+            RenderScheduler.getInstance().uiExecutor.asCoroutineDispatcher()
+        }
+
+        /**
+         * The [CoroutineDispatcher] of the background threads of the shared [RenderScheduler].
+         */
+        private val sharedBackgroundDispatcher: CoroutineDispatcher by lazy {
+            RenderScheduler.getInstance().backgroundExecutor.asCoroutineDispatcher()
+        }
+    }
+
 }
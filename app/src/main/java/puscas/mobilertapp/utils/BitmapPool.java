@@ -0,0 +1,237 @@
+package puscas.mobilertapp.utils;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+import lombok.Getter;
+import lombok.extern.java.Log;
+
+/**
+ * A small pool of {@link Bitmap}s, so the render targets and the intermediate {@link Bitmap}s of
+ * the previews are reused instead of allocating tens of MegaBytes for every render.
+ * <br>
+ * A {@link Bitmap} is reused as it is if it has the same width, height and
+ * {@link Bitmap.Config} as the requested one, or reconfigured with
+ * {@link Bitmap#reconfigure(int, int, Bitmap.Config)} if it is big enough (from Android 4.4).
+ * The content of a reused {@link Bitmap} is not cleared, so the caller should erase it with
+ * {@link Bitmap#eraseColor(int)} if needed.
+ * <br>
+ * The released {@link Bitmap}s are kept up to a maximum size, and the least recently released
+ * ones are recycled first.
+ * It is not thread safe and should only be used by the OpenGL thread, except
+ * {@link #getFreeBytes()} which can be read by any thread.
+ */
+@Log
+public final class BitmapPool {
+
+    /**
+     * The maximum size, in bytes, of the released {@link Bitmap}s kept in the pool.
+     */
+    private final long maxBytes;
+
+    /**
+     * Whether the {@link Bitmap}s can be reconfigured to another resolution.
+     */
+    private final boolean canReconfigure;
+
+    /**
+     * The released {@link Bitmap}s, from the most recently released to the least one.
+     */
+    private final Deque<Bitmap> freeBitmaps = new ArrayDeque<>();
+
+    /**
+     * The size, in bytes, of the released {@link Bitmap}s kept in the pool.
+     */
+    @Getter
+    private volatile long freeBytes = 0L;
+
+    /**
+     * The number of acquired {@link Bitmap}s which were reused, as they were or reconfigured.
+     */
+    @Getter
+    private long hits = 0L;
+
+    /**
+     * The number of acquired {@link Bitmap}s which had to be created.
+     */
+    @Getter
+    private long misses = 0L;
+
+    /**
+     * The constructor.
+     *
+     * @param maxBytes The maximum size, in bytes, of the released {@link Bitmap}s kept in the
+     *                 pool.
+     */
+    public BitmapPool(final long maxBytes) {
+        this(maxBytes, Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT);
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param maxBytes       The maximum size, in bytes, of the released {@link Bitmap}s kept in
+     *                       the pool.
+     * @param canReconfigure Whether the {@link Bitmap}s can be reconfigured to another
+     *                       resolution.
+     */
+    @VisibleForTesting
+    BitmapPool(final long maxBytes, final boolean canReconfigure) {
+        Preconditions.checkArgument(maxBytes >= 0L, "maxBytes can't be negative");
+
+        this.maxBytes = maxBytes;
+        this.canReconfigure = canReconfigure;
+    }
+
+    /**
+     * Gets a mutable {@link Bitmap} with the provided resolution and {@link Bitmap.Config}.
+     * It reuses a released {@link Bitmap} if possible, otherwise it creates a new one.
+     *
+     * @param width  The width of the {@link Bitmap}.
+     * @param height The height of the {@link Bitmap}.
+     * @param config The {@link Bitmap.Config} of the {@link Bitmap}.
+     * @return A {@link Bitmap}, whose content is undefined.
+     */
+    @NonNull
+    public Bitmap acquire(final int width, final int height, @NonNull final Bitmap.Config config) {
+        Preconditions.checkArgument(width > 0 && height > 0, "The resolution must be positive");
+
+        final Bitmap sameKey = take(width, height, config, false);
+        if (sameKey != null) {
+            ++this.hits;
+            return sameKey;
+        }
+
+        if (this.canReconfigure) {
+            final Bitmap bigEnough = take(width, height, config, true);
+            if (bigEnough != null) {
+                bigEnough.reconfigure(width, height, config);
+                ++this.hits;
+                return bigEnough;
+            }
+        }
+
+        ++this.misses;
+        return Bitmap.createBitmap(width, height, config);
+    }
+
+    /**
+     * Gives back a {@link Bitmap} to the pool, so it can be reused.
+     * If the pool gets bigger than its maximum size, the least recently released
+     * {@link Bitmap}s are recycled.
+     *
+     * @param bitmap The {@link Bitmap} which is not used anymore.
+     */
+    public void release(@Nullable final Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()
+            || this.freeBitmaps.contains(bitmap)) {
+            return;
+        }
+
+        this.freeBitmaps.addFirst(bitmap);
+        this.freeBytes += byteCount(bitmap);
+        while (this.freeBytes > this.maxBytes && !this.freeBitmaps.isEmpty()) {
+            final Bitmap evicted = this.freeBitmaps.removeLast();
+            this.freeBytes -= byteCount(evicted);
+            evicted.recycle();
+        }
+    }
+
+    /**
+     * Recycles all the released {@link Bitmap}s.
+     * It should be called when the system is low on memory.
+     *
+     * @return The number of recycled {@link Bitmap}s.
+     */
+    public int trim() {
+        log.info("trim");
+
+        final int recycled = this.freeBitmaps.size();
+        for (final Bitmap bitmap : this.freeBitmaps) {
+            bitmap.recycle();
+        }
+        this.freeBitmaps.clear();
+        this.freeBytes = 0L;
+        return recycled;
+    }
+
+    /**
+     * Gets the number of released {@link Bitmap}s kept in the pool.
+     *
+     * @return The number of released {@link Bitmap}s.
+     */
+    public int size() {
+        return this.freeBitmaps.size();
+    }
+
+    /**
+     * Helper method that takes a released {@link Bitmap} from the pool, preferring the most
+     * recently released one.
+     *
+     * @param width       The width of the {@link Bitmap}.
+     * @param height      The height of the {@link Bitmap}.
+     * @param config      The {@link Bitmap.Config} of the {@link Bitmap}.
+     * @param reconfigure Whether any {@link Bitmap} big enough to be reconfigured can be taken,
+     *                    instead of only one with the same resolution and {@link Bitmap.Config}.
+     * @return The {@link Bitmap}, or {@code null} if there isn't one in the pool.
+     */
+    @Nullable
+    private Bitmap take(final int width,
+                        final int height,
+                        @NonNull final Bitmap.Config config,
+                        final boolean reconfigure) {
+        final long neededBytes = (long) width * height * bytesPerPixel(config);
+        final Iterator<Bitmap> iterator = this.freeBitmaps.iterator();
+        while (iterator.hasNext()) {
+            final Bitmap bitmap = iterator.next();
+            final boolean sameKey = bitmap.getWidth() == width && bitmap.getHeight() == height
+                && bitmap.getConfig() == config;
+            if (sameKey || (reconfigure && byteCount(bitmap) >= neededBytes)) {
+                iterator.remove();
+                this.freeBytes -= byteCount(bitmap);
+                return bitmap;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Helper method that gets the size of the memory allocated for the pixels of a
+     * {@link Bitmap}, which can be bigger than its current resolution if it was reconfigured.
+     *
+     * @param bitmap The {@link Bitmap}.
+     * @return The size, in bytes, of the pixels of the {@link Bitmap}.
+     */
+    private long byteCount(@NonNull final Bitmap bitmap) {
+        return this.canReconfigure ? bitmap.getAllocationByteCount() : bitmap.getByteCount();
+    }
+
+    /**
+     * Helper method that gets the number of bytes of each pixel of a {@link Bitmap.Config}.
+     *
+     * @param config The {@link Bitmap.Config}.
+     * @return The number of bytes of each pixel.
+     */
+    private static int bytesPerPixel(@NonNull final Bitmap.Config config) {
+        switch (config) {
+            case ALPHA_8:
+                return 1;
+            case RGB_565:
+            case ARGB_4444:
+                return 2;
+            default:
+                return 4;
+        }
+    }
+
+}
@@ -0,0 +1,302 @@
+package puscas.mobilertapp.utils;
+
+import androidx.annotation.NonNull;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+import puscas.mobilertapp.configs.ConfigConvergence;
+import puscas.mobilertapp.constants.ConstantsRenderer;
+
+/**
+ * Estimates whether a progressive render converged, from the image accumulated by the Ray Tracer
+ * engine.
+ * <br>
+ * After each sample, it reads a sparse grid of pixels and estimates the variance of the samples
+ * of each tile from the change of their averages since the last check. The image converged when
+ * the relative standard error of the average luminance is below the threshold of the
+ * {@link ConfigConvergence} in every tile.
+ * <br>
+ * It is not thread safe and should only be used by one thread.
+ */
+public final class ConvergenceMonitor {
+
+    /**
+     * The maximum number of pixels of the image read in each check.
+     */
+    static final int MAX_SAMPLED_PIXELS = 16384;
+
+    /**
+     * The number of tiles in each axis of the image, like the tiles of the Ray Tracer engine.
+     */
+    private static final int TILES_PER_AXIS = ConstantsRenderer.NUMBER_OF_TILE_ROWS;
+
+    /**
+     * The mask of a color channel of a pixel.
+     */
+    private static final int CHANNEL_MASK = 0xFF;
+
+    /**
+     * The change of the luminance of a pixel which can be caused only by the 8 bits quantization
+     * of its color: one step in each of the 3 channels.
+     * The Ray Tracer engine truncates the average of the samples, so it drifts by one step at a
+     * time even after the average stopped changing.
+     */
+    private static final int QUANTIZATION_STEP = 3;
+
+    /**
+     * Reads the pixels of the image accumulated by the Ray Tracer engine.
+     */
+    @FunctionalInterface
+    public interface PixelReader {
+
+        /**
+         * Reads a line of pixels of the image.
+         *
+         * @param y    The line to read.
+         * @param line The array where the colors of the pixels are written, with 8 bits per
+         *             channel.
+         */
+        void readLine(int y, @NonNull int[] line);
+    }
+
+    /**
+     * The {@link ConfigConvergence}.
+     */
+    private final ConfigConvergence config;
+
+    /**
+     * The width of the image.
+     */
+    private final int width;
+
+    /**
+     * The height of the image.
+     */
+    private final int height;
+
+    /**
+     * The distance, in pixels, between the pixels of the grid.
+     */
+    private final int stride;
+
+    /**
+     * The line of pixels read from the image.
+     */
+    private final int[] line;
+
+    /**
+     * The luminance of the pixels of the grid in the last check.
+     */
+    private final short[] luminances;
+
+    /**
+     * The number of pixels of the grid in each tile.
+     */
+    private final int[] tilePixels;
+
+    /**
+     * The sum of the variances estimated for the pixels of the grid in each tile, in all the
+     * checks pooled.
+     */
+    private final double[] tileVariances;
+
+    /**
+     * The number of checks pooled in the variance of each tile.
+     */
+    private final int[] tileChecks;
+
+    /**
+     * The sum of the variances estimated for the pixels of the grid in each tile, in the last
+     * check.
+     */
+    private final double[] checkVariances;
+
+    /**
+     * The sum of the luminance of the pixels of the grid in each tile, in the last check.
+     */
+    private final long[] tileLuminances;
+
+    /**
+     * The sample of the last check, or {@code 0} if the image wasn't read yet.
+     */
+    private int lastSample = 0;
+
+    /**
+     * The maximum relative standard error of all the tiles in the last check.
+     */
+    private float error = Float.POSITIVE_INFINITY;
+
+    /**
+     * The sample where the image converged, or {@code 0} if it didn't converge yet.
+     */
+    private int convergedSample = 0;
+
+    /**
+     * The constructor.
+     *
+     * @param width  The width of the image.
+     * @param height The height of the image.
+     * @param config The {@link ConfigConvergence}.
+     */
+    public ConvergenceMonitor(final int width, final int height, @NonNull final ConfigConvergence config) {
+        Preconditions.checkArgument(width > 0, "width must be positive");
+        Preconditions.checkArgument(height > 0, "height must be positive");
+        Preconditions.checkNotNull(config, "config shouldn't be null");
+
+        this.config = config;
+        this.width = width;
+        this.height = height;
+        this.stride = Math.max(1, (int) Math.ceil(Math.sqrt((double) width * height / MAX_SAMPLED_PIXELS)));
+        // Only allocate the grid if it is going to be used.
+        final boolean enabled = config.isEnabled();
+        this.line = new int[enabled ? width : 0];
+        this.luminances = new short[enabled ? gridSize(width) * gridSize(height) : 0];
+        this.tilePixels = new int[enabled ? TILES_PER_AXIS * TILES_PER_AXIS : 0];
+        this.tileVariances = new double[this.tilePixels.length];
+        this.tileChecks = new int[this.tilePixels.length];
+        this.checkVariances = new double[this.tilePixels.length];
+        this.tileLuminances = new long[this.tilePixels.length];
+    }
+
+    /**
+     * Checks if the image converged, if a new sample was rendered since the last check.
+     *
+     * @param sample The number of samples per pixel already rendered.
+     * @param reader The {@link PixelReader} of the image.
+     * @return Whether the image converged.
+     */
+    public boolean update(final int sample, @NonNull final PixelReader reader) {
+        if (!this.config.isEnabled() || isConverged() || sample <= this.lastSample) {
+            return isConverged();
+        }
+
+        final boolean firstCheck = this.lastSample == 0;
+        // The variance of the change of the average of a pixel, relative to the variance of its
+        // samples.
+        final double changeScale = firstCheck ? 0.0 : 1.0 / this.lastSample - 1.0 / sample;
+        Arrays.fill(this.tileLuminances, 0L);
+        Arrays.fill(this.checkVariances, 0.0);
+        int index = 0;
+        for (int y = this.stride / 2; y < this.height; y += this.stride) {
+            reader.readLine(y, this.line);
+            final int tileLine = (y * TILES_PER_AXIS / this.height) * TILES_PER_AXIS;
+            for (int x = this.stride / 2; x < this.width; x += this.stride) {
+                final int luminance = luminance(this.line[x]);
+                final int tile = tileLine + x * TILES_PER_AXIS / this.width;
+                if (firstCheck) {
+                    ++this.tilePixels[tile];
+                } else {
+                    final int change =
+                        Math.max(Math.abs(luminance - this.luminances[index]) - QUANTIZATION_STEP, 0);
+                    this.checkVariances[tile] += (double) change * change / changeScale;
+                }
+                this.tileLuminances[tile] += luminance;
+                this.luminances[index] = (short) luminance;
+                ++index;
+            }
+        }
+
+        this.lastSample = sample;
+        if (firstCheck) {
+            return false;
+        }
+
+        float maxError = 0.0F;
+        for (int tile = 0; tile < this.tilePixels.length; ++tile) {
+            final int pixels = Math.max(this.tilePixels[tile], 1);
+            // Once the expected change is below the quantization, a check can't measure it, so
+            // the variance estimated so far is kept.
+            if (this.tileChecks[tile] < this.config.getMinChecks()
+                || tileVariance(tile, pixels) * changeScale > QUANTIZATION_STEP * QUANTIZATION_STEP) {
+                this.tileVariances[tile] += this.checkVariances[tile];
+                ++this.tileChecks[tile];
+            }
+            final double variance = tileVariance(tile, pixels);
+            final double luminance = Math.max((double) this.tileLuminances[tile] / pixels, 1.0);
+            final float tileError = (float) (Math.sqrt(variance / sample) / luminance);
+            maxError = Math.max(maxError, tileError);
+        }
+        this.error = maxError;
+        if (sample >= this.config.getMinSamples() && maxError <= this.config.getThreshold()) {
+            this.convergedSample = sample;
+        }
+        return isConverged();
+    }
+
+    /**
+     * Whether the image converged.
+     *
+     * @return Whether the image converged.
+     */
+    public boolean isConverged() {
+        return this.convergedSample > 0;
+    }
+
+    /**
+     * Gets the maximum relative standard error of the average luminance of all the tiles in the
+     * last check.
+     *
+     * @return The estimated error of the image, or {@link Float#POSITIVE_INFINITY} if it wasn't
+     *     estimated yet.
+     */
+    public float getError() {
+        return this.error;
+    }
+
+    /**
+     * Gets the sample where the image converged.
+     *
+     * @return The number of samples per pixel rendered when the image converged, or {@code 0} if
+     *     it didn't converge.
+     */
+    public int getConvergedSample() {
+        return this.convergedSample;
+    }
+
+    /**
+     * Gets the number of samples per pixel which didn't have to be rendered because the image
+     * converged.
+     *
+     * @param samplesPixel The requested number of samples per pixel.
+     * @return The number of samples per pixel saved.
+     */
+    public int getSavedSamples(final int samplesPixel) {
+        return isConverged() ? Math.max(samplesPixel - this.convergedSample, 0) : 0;
+    }
+
+    /**
+     * Helper method which calculates the variance of the samples of the pixels of a tile, pooled
+     * from all the checks.
+     *
+     * @param tile   The index of the tile.
+     * @param pixels The number of pixels of the grid in the tile.
+     * @return The estimated variance of the luminance of the samples.
+     */
+    private double tileVariance(final int tile, final int pixels) {
+        return this.tileVariances[tile] / ((double) pixels * Math.max(this.tileChecks[tile], 1));
+    }
+
+    /**
+     * Helper method which calculates the number of pixels of the grid in an axis of the image.
+     *
+     * @param size The number of pixels of the image in the axis.
+     * @return The number of pixels of the grid in the axis.
+     */
+    private int gridSize(final int size) {
+        return (size - this.stride / 2 + this.stride - 1) / this.stride;
+    }
+
+    /**
+     * Helper method which calculates the luminance of a pixel, as the sum of its 3 color
+     * channels, so it doesn't depend on the order of the channels.
+     *
+     * @param color The color of the pixel, with 8 bits per channel.
+     * @return The luminance of the pixel, between {@code 0} and {@code 765}.
+     */
+    private static int luminance(final int color) {
+        return ((color >> 16) & CHANNEL_MASK) + ((color >> 8) & CHANNEL_MASK) + (color & CHANNEL_MASK);
+    }
+
+}
@@ -0,0 +1,218 @@
+package puscas.mobilertapp.utils;
+
+import androidx.annotation.NonNull;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import lombok.extern.java.Log;
+import puscas.mobilertapp.exceptions.FailureException;
+
+/**
+ * A reusable converter of the pixels read from the OpenGL frame buffer to the Android format.
+ * <br>
+ * The OpenGL frame buffer has the lines from the bottom to the top and the pixels in the RGBA
+ * format, while the Android {@link android.graphics.Bitmap} has the lines from the top to the
+ * bottom and the pixels in the ARGB format. This converter flips whole lines with bulk copies,
+ * swaps the color channels with tight loops split by several threads and keeps its buffers
+ * between conversions, so no memory is allocated while the resolution doesn't grow.
+ * The threads aren't owned by the converter: the lines are converted by the calling thread and
+ * the shared compute threads of the {@link RenderScheduler}.
+ */
+@Log
+public final class FrameBufferConverter {
+
+    /**
+     * The minimum number of lines converted by each task, so small images are not split
+     * between threads.
+     */
+    private static final int MIN_LINES_PER_TASK = 64;
+
+    /**
+     * The number of tasks in which the lines of the image are split.
+     */
+    private final int numTasks;
+
+    /**
+     * The {@link ExecutorService} which converts the lines of the image, except the ones
+     * converted by the calling thread.
+     * It is shared, so it is never shut down by this converter.
+     */
+    private final ExecutorService executorService;
+
+    /**
+     * The reusable {@link Future}s of the tasks submitted to the {@link #executorService}.
+     */
+    private final List<Future<?>> futures = new ArrayList<>();
+
+    /**
+     * The pixels in the OpenGL format.
+     */
+    private int[] openGlPixels = new int[0];
+
+    /**
+     * The pixels in the Android format.
+     */
+    private int[] androidPixels = new int[0];
+
+    /**
+     * The {@link IntBuffer} which wraps the {@link #openGlPixels}.
+     */
+    private IntBuffer openGlBuffer = IntBuffer.wrap(this.openGlPixels);
+
+    /**
+     * The width of the image being converted.
+     */
+    private int width = 0;
+
+    /**
+     * The height of the image being converted.
+     */
+    private int height = 0;
+
+    /**
+     * The constructor.
+     *
+     * @param executorService The shared {@link ExecutorService} which converts the lines of the
+     *                        image, except the ones converted by the calling thread.
+     * @param numThreads      The number of threads to convert the pixels, including the calling
+     *                        thread.
+     */
+    public FrameBufferConverter(@NonNull final ExecutorService executorService, final int numThreads) {
+        this.executorService = executorService;
+        this.numTasks = Math.max(numThreads, 1);
+    }
+
+    /**
+     * Converts a pixel from OpenGL format (ABGR) to a pixel of Android format (ARGB) by
+     * swapping the red and blue channels.
+     *
+     * @param pixel A pixel from OpenGL format.
+     * @return A pixel from Android format.
+     */
+    public static int convertPixel(final int pixel) {
+        return (pixel & 0xFF00FF00) | ((pixel & 0xFF) << 16) | ((pixel >> 16) & 0xFF);
+    }
+
+    /**
+     * Converts some lines of the image from the OpenGL format to the Android format.
+     *
+     * @param source      The pixels in the OpenGL format.
+     * @param destination The pixels in the Android format.
+     * @param width       The width of the image.
+     * @param height      The height of the image.
+     * @param firstLine   The first line (in the Android image) to convert.
+     * @param lastLine    The line after the last one (in the Android image) to convert.
+     */
+    public static void convertLines(@NonNull final int[] source,
+                                    @NonNull final int[] destination,
+                                    final int width,
+                                    final int height,
+                                    final int firstLine,
+                                    final int lastLine) {
+        for (int line = firstLine; line < lastLine; ++line) {
+            final int start = line * width;
+            final int end = start + width;
+            System.arraycopy(source, (height - line - 1) * width, destination, start, width);
+            for (int i = start; i < end; ++i) {
+                destination[i] = convertPixel(destination[i]);
+            }
+        }
+    }
+
+    /**
+     * Prepares the buffers for an image with the provided resolution.
+     * The buffers are only reallocated if they are smaller than the image.
+     *
+     * @param width  The width of the image.
+     * @param height The height of the image.
+     * @return The {@link IntBuffer} where the OpenGL frame buffer should be read into.
+     */
+    @NonNull
+    public IntBuffer prepare(final int width, final int height) {
+        final int size = width * height;
+        if (this.openGlPixels.length < size) {
+            this.openGlPixels = new int[size];
+            this.androidPixels = new int[size];
+            this.openGlBuffer = IntBuffer.wrap(this.openGlPixels);
+        }
+        this.width = width;
+        this.height = height;
+        this.openGlBuffer.clear();
+        this.openGlBuffer.limit(size);
+        return this.openGlBuffer;
+    }
+
+    /**
+     * Converts the pixels read into the {@link IntBuffer} returned by
+     * {@link #prepare(int, int)} to the Android format.
+     *
+     * @return The pixels in the Android format. Only the first {@code width * height} pixels
+     *     belong to the image.
+     */
+    @NonNull
+    public int[] convert() {
+        final int[] source = this.openGlPixels;
+        final int[] destination = this.androidPixels;
+        final int imageWidth = this.width;
+        final int imageHeight = this.height;
+        final int tasks = Math.max(Math.min(this.numTasks, imageHeight / MIN_LINES_PER_TASK), 1);
+        final int linesPerTask = (imageHeight + tasks - 1) / tasks;
+
+        this.futures.clear();
+        for (int task = 1; task < tasks; ++task) {
+            final int firstLine = task * linesPerTask;
+            final int lastLine = Math.min(firstLine + linesPerTask, imageHeight);
+            try {
+                this.futures.add(this.executorService.submit(() ->
+                    convertLines(source, destination, imageWidth, imageHeight, firstLine, lastLine)));
+            } catch (final RejectedExecutionException ex) {
+                // The shared threads are busy, so the calling thread converts these lines.
+                convertLines(source, destination, imageWidth, imageHeight, firstLine, lastLine);
+            }
+        }
+        convertLines(source, destination, imageWidth, imageHeight, 0, Math.min(linesPerTask, imageHeight));
+        waitTasks();
+
+        return destination;
+    }
+
+    /**
+     * Frees the buffers, so they are allocated again by the next call to
+     * {@link #prepare(int, int)}.
+     *
+     * @return The number of pixels freed.
+     */
+    public int trim() {
+        final int freed = this.openGlPixels.length;
+        this.openGlPixels = new int[0];
+        this.androidPixels = new int[0];
+        this.openGlBuffer = IntBuffer.wrap(this.openGlPixels);
+        return freed;
+    }
+
+    /**
+     * Helper method that waits for all the submitted tasks to finish.
+     */
+    private void waitTasks() {
+        try {
+            for (final Future<?> future : this.futures) {
+                future.get();
+            }
+        } catch (final ExecutionException ex) {
+            throw new FailureException(ex);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            Utils.handleInterruption("FrameBufferConverter#waitTasks");
+            throw new FailureException(ex);
+        } finally {
+            this.futures.clear();
+        }
+    }
+
+}
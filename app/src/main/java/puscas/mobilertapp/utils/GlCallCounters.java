@@ -0,0 +1,82 @@
+package puscas.mobilertapp.utils;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The counters of the calls and errors of an entry point to the OpenGL framework.
+ */
+public final class GlCallCounters {
+
+    /**
+     * The number of calls.
+     */
+    private final AtomicLong calls = new AtomicLong(0L);
+
+    /**
+     * The number of calls whose errors were checked.
+     */
+    private final AtomicLong checks = new AtomicLong(0L);
+
+    /**
+     * The number of errors found.
+     */
+    private final AtomicLong errors = new AtomicLong(0L);
+
+    /**
+     * Gets the number of calls.
+     *
+     * @return The number of calls.
+     */
+    public long getCalls() {
+        return this.calls.get();
+    }
+
+    /**
+     * Gets the number of calls whose errors were checked.
+     *
+     * @return The number of checked calls.
+     */
+    public long getChecks() {
+        return this.checks.get();
+    }
+
+    /**
+     * Gets the number of errors found.
+     *
+     * @return The number of errors.
+     */
+    public long getErrors() {
+        return this.errors.get();
+    }
+
+    /**
+     * Increments the number of calls.
+     *
+     * @return The updated number of calls.
+     */
+    long incrementCalls() {
+        return this.calls.incrementAndGet();
+    }
+
+    /**
+     * Increments the number of calls whose errors were checked.
+     */
+    void incrementChecks() {
+        this.checks.incrementAndGet();
+    }
+
+    /**
+     * Increments the number of errors found.
+     */
+    void incrementErrors() {
+        this.errors.incrementAndGet();
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "calls: " + getCalls() + ", checks: " + getChecks() + ", errors: " + getErrors();
+    }
+}
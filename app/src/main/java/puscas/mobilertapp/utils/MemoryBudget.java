@@ -0,0 +1,512 @@
+package puscas.mobilertapp.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.common.base.Preconditions;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.java.Log;
+import puscas.mobilertapp.configs.ConfigResolution;
+import puscas.mobilertapp.constants.Accelerator;
+import puscas.mobilertapp.constants.Constants;
+
+/**
+ * Plans the memory needed to render a scene, before the Ray Tracer engine loads it.
+ * <br>
+ * The peak of the native memory is estimated from the number of triangles counted in a sample of
+ * the OBJ file, the sizes of the OBJ and MTL files, the textures referenced by the MTL file, the
+ * chosen {@link Accelerator}, the {@link android.graphics.Bitmap} where the scene is rendered and,
+ * with the preview, the direct buffers used to upload its geometry and the
+ * {@link android.graphics.Bitmap} of the size of the view where it is drawn. The peak of the Java
+ * memory is estimated from the snapshots of the {@link android.graphics.Bitmap} used to draw it
+ * and, with the preview, the arrays used to convert it.
+ * If the scene doesn't fit in the available memory with the chosen {@link Accelerator}, the
+ * planner picks a cheaper one, or refuses the scene if none fits.
+ */
+@Log
+public final class MemoryBudget {
+
+    /**
+     * The size, in bytes, of a triangle in the Ray Tracer engine: 6 {@code vec3}, 3 {@code vec2}
+     * and the index of the material.
+     */
+    static final int TRIANGLE_BYTES = 6 * 3 * Constants.BYTES_IN_FLOAT
+        + 3 * 2 * Constants.BYTES_IN_FLOAT + Constants.BYTES_IN_INTEGER;
+
+    /**
+     * The size, in bytes, of each chunk read from a big OBJ file to count its triangles.
+     * The chunks are spread over the file, because the faces are usually after all the vertices.
+     */
+    static final int SAMPLE_CHUNK_BYTES = 64 * 1024;
+
+    /**
+     * The number of chunks read from a big OBJ file to count its triangles.
+     * The OBJ files up to {@code SAMPLE_CHUNKS * SAMPLE_CHUNK_BYTES} are read whole.
+     */
+    static final int SAMPLE_CHUNKS = 16;
+
+    /**
+     * The memory needed to parse an OBJ or MTL file, relative to its size, while the parser
+     * keeps both the file and the parsed attributes.
+     */
+    private static final int PARSE_FACTOR = 2;
+
+    /**
+     * The memory of a decoded texture, relative to the size of its compressed file.
+     */
+    private static final int TEXTURE_DECODE_FACTOR = 10;
+
+    /**
+     * The memory, in bytes per triangle, used while building a BVH: a build node (bounding box,
+     * centroid and index), a share of the tree nodes and the sorted copy of the triangle.
+     */
+    private static final int BVH_BYTES_PER_TRIANGLE = 40 + 16 + TRIANGLE_BYTES;
+
+    /**
+     * The memory, in bytes per triangle, used by a regular grid: the pointers to the triangle in
+     * the cells it overlaps and the growth of the vectors of the cells.
+     */
+    private static final int REG_GRID_BYTES_PER_TRIANGLE = 64;
+
+    /**
+     * The fixed memory, in bytes, of a regular grid: an empty vector for each of its 32^3 cells.
+     */
+    private static final long REG_GRID_BYTES = 32L * 32L * 32L * 3L * Constants.BYTES_IN_POINTER;
+
+    /**
+     * The number of snapshots of the {@link android.graphics.Bitmap} in the Java heap, used to
+     * draw it.
+     */
+    private static final int BITMAP_SNAPSHOTS = 2;
+
+    /**
+     * The number of arrays, with the pixels of the view, used in the Java heap to convert the
+     * preview.
+     */
+    private static final int PREVIEW_CONVERSION_ARRAYS = 2;
+
+    /**
+     * The {@link Accelerator}s which the planner can pick, from the fastest to the cheapest.
+     */
+    private static final Accelerator[] FALLBACK_ACCELERATORS = {
+        Accelerator.BVH, Accelerator.REG_GRID, Accelerator.NAIVE
+    };
+
+    /**
+     * The prefix of the lines of an MTL file with a texture.
+     */
+    private static final String TEXTURE_PREFIX = "map_";
+
+    /**
+     * The sizes of a scene which decide the memory needed to render it.
+     */
+    @Builder(toBuilder = true)
+    @Getter
+    public static final class Scene {
+
+        /**
+         * The size of the OBJ file, in bytes.
+         */
+        private final long objBytes;
+
+        /**
+         * The number of triangles in the OBJ file.
+         *
+         * @see #estimateTriangles(String)
+         */
+        private final long triangles;
+
+        /**
+         * The size of the MTL file, in bytes.
+         */
+        private final long mtlBytes;
+
+        /**
+         * The size of the texture files, in bytes.
+         *
+         * @see #textureBytes(String)
+         */
+        private final long textureBytes;
+
+        /**
+         * The resolution of the image.
+         */
+        @NonNull
+        @Builder.Default
+        private final ConfigResolution resolution = ConfigResolution.builder().build();
+
+        /**
+         * Whether the preview of the scene is drawn before rendering it.
+         */
+        private final boolean rasterize;
+
+        /**
+         * The resolution of the view where the preview is drawn.
+         */
+        @NonNull
+        @Builder.Default
+        private final ConfigResolution viewResolution = ConfigResolution.builder().build();
+
+        /**
+         * The size, in bytes, of the direct buffers used to upload the geometry of the preview.
+         */
+        private final long previewUploadBytes;
+    }
+
+    /**
+     * The peak memory needed to render a scene.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static final class Estimate {
+
+        /**
+         * The {@link Accelerator} used to render the scene.
+         */
+        @NonNull
+        private final Accelerator accelerator;
+
+        /**
+         * The peak of the native memory, in bytes.
+         */
+        private final long nativeBytes;
+
+        /**
+         * The peak of the Java memory, in bytes.
+         */
+        private final long javaBytes;
+
+        @NonNull
+        @Override
+        public String toString() {
+            return this.accelerator.getName() + ": "
+                + this.nativeBytes / Constants.BYTES_IN_MEGABYTE + "MB native, "
+                + this.javaBytes / Constants.BYTES_IN_MEGABYTE + "MB Java";
+        }
+    }
+
+    /**
+     * The native memory available, in bytes.
+     */
+    private final long availableNativeBytes;
+
+    /**
+     * The Java memory available, in bytes.
+     */
+    private final long availableJavaBytes;
+
+    /**
+     * Whether the pixels of a {@link android.graphics.Bitmap} are in the native heap, like from
+     * Android 8.0, or in the Java heap.
+     */
+    private final boolean bitmapInNativeHeap;
+
+    /**
+     * The constructor.
+     *
+     * @param availableNativeBytes The native memory available, in bytes.
+     * @param availableJavaBytes   The Java memory available, in bytes.
+     * @param bitmapInNativeHeap   Whether the pixels of a {@link android.graphics.Bitmap} are in
+     *                             the native heap.
+     */
+    public MemoryBudget(final long availableNativeBytes,
+                        final long availableJavaBytes,
+                        final boolean bitmapInNativeHeap) {
+        this.availableNativeBytes = availableNativeBytes;
+        this.availableJavaBytes = availableJavaBytes;
+        this.bitmapInNativeHeap = bitmapInNativeHeap;
+    }
+
+    /**
+     * Estimates the peak memory needed to load and render a scene.
+     *
+     * @param scene       The {@link Scene}.
+     * @param accelerator The {@link Accelerator}.
+     * @return The {@link Estimate}.
+     */
+    @NonNull
+    public Estimate estimate(@NonNull final Scene scene, @NonNull final Accelerator accelerator) {
+        Preconditions.checkArgument(scene.getObjBytes() >= 0 && scene.getMtlBytes() >= 0
+            && scene.getTextureBytes() >= 0, "The sizes of the files can't be negative");
+        Preconditions.checkArgument(scene.getTriangles() >= 0 && scene.getPreviewUploadBytes() >= 0,
+            "The sizes of the scene can't be negative");
+
+        final long triangles = scene.getTriangles();
+        final long bitmapBytes = pixelBytes(scene.getResolution());
+        final long viewBytes = scene.isRasterize() ? pixelBytes(scene.getViewResolution()) : 0L;
+        final long sceneBytes = triangles * TRIANGLE_BYTES
+            + PARSE_FACTOR * (scene.getObjBytes() + scene.getMtlBytes())
+            + TEXTURE_DECODE_FACTOR * scene.getTextureBytes();
+        final long previewBytes = scene.isRasterize() ? scene.getPreviewUploadBytes() : 0L;
+        final long nativeBytes = sceneBytes
+            + acceleratorBytes(accelerator, triangles)
+            + previewBytes
+            + (this.bitmapInNativeHeap ? bitmapBytes + viewBytes : 0L);
+        final long javaBytes = BITMAP_SNAPSHOTS * bitmapBytes
+            + PREVIEW_CONVERSION_ARRAYS * viewBytes
+            + (this.bitmapInNativeHeap ? 0L : bitmapBytes + viewBytes);
+        return new Estimate(accelerator, nativeBytes, javaBytes);
+    }
+
+    /**
+     * Plans the {@link Accelerator} to render a scene with the available memory.
+     * It keeps the requested {@link Accelerator} if the scene fits with it, otherwise it picks
+     * the fastest cheaper {@link Accelerator} where the scene fits.
+     *
+     * @param scene       The {@link Scene}.
+     * @param accelerator The requested {@link Accelerator}.
+     * @return The {@link Estimate} with the {@link Accelerator} to use, or {@code null} if the
+     *     scene doesn't fit in the available memory with any {@link Accelerator}.
+     */
+    @Nullable
+    public Estimate plan(@NonNull final Scene scene, @NonNull final Accelerator accelerator) {
+        final Estimate requested = estimate(scene, accelerator);
+        final String message = "MEMORY BUDGET: " + requested + " (available: "
+            + this.availableNativeBytes / Constants.BYTES_IN_MEGABYTE + "MB native, "
+            + this.availableJavaBytes / Constants.BYTES_IN_MEGABYTE + "MB Java)";
+        log.info(message);
+        if (fits(requested)) {
+            return requested;
+        }
+
+        for (final Accelerator fallback : FALLBACK_ACCELERATORS) {
+            final Estimate estimate = estimate(scene, fallback);
+            if (estimate.getNativeBytes() < requested.getNativeBytes() && fits(estimate)) {
+                final String messageFallback = "MEMORY BUDGET: falling back to " + estimate;
+                log.warning(messageFallback);
+                return estimate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Helper method which checks if an {@link Estimate} fits in the available memory.
+     *
+     * @param estimate The {@link Estimate}.
+     * @return Whether the {@link Estimate} fits in the available memory.
+     */
+    private boolean fits(@NonNull final Estimate estimate) {
+        return estimate.getNativeBytes() <= this.availableNativeBytes
+            && estimate.getJavaBytes() <= this.availableJavaBytes;
+    }
+
+    /**
+     * Helper method which estimates the memory used by an {@link Accelerator}, on top of the
+     * triangles of the scene.
+     *
+     * @param accelerator The {@link Accelerator}.
+     * @param triangles   The number of triangles in the scene.
+     * @return The memory used by the {@link Accelerator}, in bytes.
+     */
+    private static long acceleratorBytes(@NonNull final Accelerator accelerator, final long triangles) {
+        switch (accelerator) {
+            case BVH:
+                return triangles * BVH_BYTES_PER_TRIANGLE;
+            case REG_GRID:
+                return REG_GRID_BYTES + triangles * REG_GRID_BYTES_PER_TRIANGLE;
+            default:
+                return 0L;
+        }
+    }
+
+    /**
+     * Helper method which calculates the size of an image with 4 bytes per pixel.
+     *
+     * @param resolution The resolution of the image.
+     * @return The size of the image, in bytes.
+     */
+    private static long pixelBytes(@NonNull final ConfigResolution resolution) {
+        return (long) resolution.getWidth() * resolution.getHeight() * Constants.BYTES_IN_INTEGER;
+    }
+
+    /**
+     * Gets the size of a file.
+     *
+     * @param path The path to the file.
+     * @return The size of the file in bytes, or {@code 0} if it doesn't exist.
+     */
+    public static long fileBytes(@NonNull final String path) {
+        return path.isEmpty() ? 0L : new File(path).length();
+    }
+
+    /**
+     * Estimates the number of triangles in an OBJ file, from its faces: a face with {@code n}
+     * vertices is split in {@code n - 2} triangles.
+     * Small files are read whole. In the big ones, only {@link #SAMPLE_CHUNKS} chunks spread over
+     * the file are read, and the triangles counted in the complete lines of the chunks are scaled
+     * to the size of the file.
+     *
+     * @param objPath The path to the OBJ file.
+     * @return The estimated number of triangles, or {@code 0} if the OBJ file can't be read.
+     */
+    public static long estimateTriangles(@NonNull final String objPath) {
+        if (objPath.isEmpty()) {
+            return 0L;
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(objPath, "r")) {
+            final long fileBytes = file.length();
+            if (fileBytes <= (long) SAMPLE_CHUNK_BYTES * SAMPLE_CHUNKS) {
+                final byte[] bytes = new byte[(int) fileBytes];
+                file.readFully(bytes);
+                return countTriangles(bytes, 0, bytes.length);
+            }
+
+            final byte[] chunk = new byte[SAMPLE_CHUNK_BYTES];
+            final long step = (fileBytes - SAMPLE_CHUNK_BYTES) / (SAMPLE_CHUNKS - 1);
+            long triangles = 0L;
+            long countedBytes = 0L;
+            for (int i = 0; i < SAMPLE_CHUNKS; ++i) {
+                final long offset = i * step;
+                file.seek(offset);
+                file.readFully(chunk);
+                // Only the complete lines of the chunk are counted.
+                final int start = offset > 0L ? indexAfterNewLine(chunk, 0, chunk.length) : 0;
+                final int end = offset + chunk.length < fileBytes
+                    ? lastIndexAfterNewLine(chunk, start, chunk.length)
+                    : chunk.length;
+                triangles += countTriangles(chunk, start, end);
+                countedBytes += end - start;
+            }
+            return countedBytes == 0L ? 0L : (long) Math.ceil((double) triangles * fileBytes / countedBytes);
+        } catch (final IOException ex) {
+            UtilsLogging.logThrowable(ex, "MemoryBudget#estimateTriangles");
+            return 0L;
+        }
+    }
+
+    /**
+     * Helper method which counts the triangles of the faces in some complete lines of an OBJ
+     * file.
+     *
+     * @param bytes The bytes of the OBJ file.
+     * @param start The index of the first line.
+     * @param end   The index after the last line.
+     * @return The number of triangles.
+     */
+    static long countTriangles(@NonNull final byte[] bytes, final int start, final int end) {
+        long triangles = 0L;
+        int index = start;
+        while (index < end) {
+            final int lineEnd = indexOfNewLine(bytes, index, end);
+            if (bytes[index] == 'f' && index + 1 < lineEnd && isBlank(bytes[index + 1])) {
+                int vertices = 0;
+                boolean inToken = false;
+                for (int i = index + 1; i < lineEnd; ++i) {
+                    final boolean blank = isBlank(bytes[i]);
+                    if (!blank && !inToken) {
+                        ++vertices;
+                    }
+                    inToken = !blank;
+                }
+                triangles += Math.max(vertices - 2, 0);
+            }
+            index = lineEnd + 1;
+        }
+        return triangles;
+    }
+
+    /**
+     * Helper method which finds the index of the next new line.
+     *
+     * @param bytes The bytes of the file.
+     * @param start The index where to start looking.
+     * @param end   The index where to stop looking.
+     * @return The index of the new line, or {@code end} if there isn't one.
+     */
+    private static int indexOfNewLine(@NonNull final byte[] bytes, final int start, final int end) {
+        int index = start;
+        while (index < end && bytes[index] != '\n') {
+            ++index;
+        }
+        return index;
+    }
+
+    /**
+     * Helper method which finds the index of the line after the first new line.
+     *
+     * @param bytes The bytes of the file.
+     * @param start The index where to start looking.
+     * @param end   The index where to stop looking.
+     * @return The index after the first new line, or {@code end} if there isn't one.
+     */
+    private static int indexAfterNewLine(@NonNull final byte[] bytes, final int start, final int end) {
+        return Math.min(indexOfNewLine(bytes, start, end) + 1, end);
+    }
+
+    /**
+     * Helper method which finds the index of the line after the last new line.
+     *
+     * @param bytes The bytes of the file.
+     * @param start The index where to stop looking.
+     * @param end   The index where to start looking backwards.
+     * @return The index after the last new line, or {@code start} if there isn't one.
+     */
+    private static int lastIndexAfterNewLine(@NonNull final byte[] bytes, final int start, final int end) {
+        int index = end;
+        while (index > start && bytes[index - 1] != '\n') {
+            --index;
+        }
+        return index;
+    }
+
+    /**
+     * Helper method which checks if a character of an OBJ file separates the values of a line.
+     *
+     * @param character The character.
+     * @return Whether it is a space, a tab or a carriage return.
+     */
+    private static boolean isBlank(final byte character) {
+        return character == ' ' || character == '\t' || character == '\r';
+    }
+
+    /**
+     * Gets the size of the texture files referenced by an MTL file.
+     * The paths of the textures are relative to the directory of the MTL file, and a texture
+     * referenced by several materials is only counted once, because the Ray Tracer engine only
+     * loads it once.
+     *
+     * @param mtlPath The path to the MTL file.
+     * @return The size of the texture files in bytes, or {@code 0} if the MTL file can't be read.
+     */
+    public static long textureBytes(@NonNull final String mtlPath) {
+        if (mtlPath.isEmpty()) {
+            return 0L;
+        }
+
+        final File mtlFile = new File(mtlPath);
+        final Set<String> textures = new HashSet<>();
+        long bytes = 0L;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+            new FileInputStream(mtlFile), StandardCharsets.UTF_8))) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                final String trimmed = line.trim();
+                if (trimmed.startsWith(TEXTURE_PREFIX)) {
+                    final String[] tokens = trimmed.split("\\s+");
+                    final File texture = new File(mtlFile.getParentFile(), tokens[tokens.length - 1]);
+                    if (textures.add(texture.getCanonicalPath())) {
+                        bytes += texture.length();
+                    }
+                }
+            }
+        } catch (final IOException ex) {
+            UtilsLogging.logThrowable(ex, "MemoryBudget#textureBytes");
+        }
+        return bytes;
+    }
+
+}
@@ -0,0 +1,133 @@
+package puscas.mobilertapp.utils;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calculates the interval between each refresh of the display while the Ray Tracer engine is
+ * rendering a scene.
+ * <br>
+ * Each sample changes the image by roughly {@code 1 / (sample + 1)}, so the display is
+ * refreshed quickly while the first samples are being rendered and the interval grows linearly
+ * with the number of samples as the image converges. When a refresh didn't publish anything new,
+ * the frame is skipped and the interval doubles until the image changes again.
+ * The interval is never shorter than {@link #DRAW_TIME_FACTOR} times the time the OpenGL thread
+ * spent drawing the last frame, so the uploads don't starve the OpenGL thread.
+ * <br>
+ * The {@link #nextInterval(int, boolean)} method should only be called by one thread, while the
+ * {@link #recordDrawTime(long)} method can be called by the OpenGL thread.
+ */
+public final class RefreshScheduler {
+
+    /**
+     * The default minimum interval, in milliseconds, between each refresh.
+     */
+    public static final long DEFAULT_MIN_INTERVAL = 50L;
+
+    /**
+     * The default maximum interval, in milliseconds, between each refresh.
+     */
+    public static final long DEFAULT_MAX_INTERVAL = 1000L;
+
+    /**
+     * The minimum ratio between the refresh interval and the time spent drawing a frame.
+     */
+    static final long DRAW_TIME_FACTOR = 4L;
+
+    /**
+     * The minimum interval, in milliseconds, between each refresh.
+     */
+    private final long minInterval;
+
+    /**
+     * The maximum interval, in milliseconds, between each refresh.
+     */
+    private final long maxInterval;
+
+    /**
+     * The time, in nanoseconds, that the OpenGL thread spent drawing the last frame.
+     */
+    private volatile long drawTimeNanos = 0L;
+
+    /**
+     * The last calculated interval, in milliseconds.
+     */
+    private long interval;
+
+    /**
+     * The number of refreshes that were skipped because nothing changed.
+     */
+    private long skippedRefreshes = 0L;
+
+    /**
+     * The constructor with the default intervals.
+     */
+    public RefreshScheduler() {
+        this(DEFAULT_MIN_INTERVAL, DEFAULT_MAX_INTERVAL);
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param minInterval The minimum interval, in milliseconds, between each refresh.
+     * @param maxInterval The maximum interval, in milliseconds, between each refresh.
+     */
+    public RefreshScheduler(final long minInterval, final long maxInterval) {
+        Preconditions.checkArgument(minInterval > 0L, "minInterval must be positive");
+        Preconditions.checkArgument(maxInterval >= minInterval, "maxInterval must not be smaller than minInterval");
+
+        this.minInterval = minInterval;
+        this.maxInterval = maxInterval;
+        this.interval = minInterval;
+    }
+
+    /**
+     * Resets the state of this scheduler for a new rendering process.
+     */
+    public void reset() {
+        this.interval = this.minInterval;
+        this.skippedRefreshes = 0L;
+        this.drawTimeNanos = 0L;
+    }
+
+    /**
+     * Records the time that the OpenGL thread spent drawing a frame.
+     *
+     * @param nanos The time, in nanoseconds, spent drawing the frame.
+     */
+    public void recordDrawTime(final long nanos) {
+        this.drawTimeNanos = nanos;
+    }
+
+    /**
+     * Calculates the interval until the next refresh of the display.
+     *
+     * @param sample  The current sample for all the pixels.
+     * @param changed Whether the last refresh published a new image.
+     * @return The interval, in milliseconds, until the next refresh.
+     */
+    public long nextInterval(final int sample, final boolean changed) {
+        final long target;
+        if (changed) {
+            target = this.minInterval * (Math.max(sample, 0) + 1L);
+        } else {
+            ++this.skippedRefreshes;
+            target = this.interval * 2L;
+        }
+        final long drawTimeFloor = TimeUnit.NANOSECONDS.toMillis(this.drawTimeNanos) * DRAW_TIME_FACTOR;
+
+        this.interval = Math.min(Math.max(Math.max(target, drawTimeFloor), this.minInterval), this.maxInterval);
+        return this.interval;
+    }
+
+    /**
+     * Gets the number of refreshes that were skipped because nothing changed.
+     *
+     * @return The number of skipped refreshes.
+     */
+    public long getSkippedRefreshes() {
+        return this.skippedRefreshes;
+    }
+
+}
@@ -0,0 +1,320 @@
+package puscas.mobilertapp.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.extern.java.Log;
+
+/**
+ * The scheduler shared by all the renders of the application.
+ * <br>
+ * It owns the threads which run the timers of the renders, the threads which load the scenes and
+ * wait for the renders in the background, the threads which split the short computations of
+ * each frame, like converting the pixels of the preview, and the dispatch of tasks to the UI
+ * thread.
+ * The threads are created once and reused by all the renders, so starting and stopping renders
+ * repeatedly doesn't create nor tear down threads.
+ * The queues are bounded: a task submitted when its queue is full is rejected with a
+ * {@link RejectedExecutionException}, except the UI tasks posted with
+ * {@link #postToUi(Runnable)} which are dropped, since they only refresh the UI.
+ */
+@Log
+public final class RenderScheduler {
+
+    /**
+     * The number of threads which run the timers.
+     */
+    static final int TIMER_THREADS = 1;
+
+    /**
+     * The maximum number of background tasks which block a thread for a whole render: the
+     * {@code RenderTask} waiting for its render to finish and the render request waiting for the
+     * previous {@code RenderTask}.
+     */
+    static final int LONG_RUNNING_TASKS = 2;
+
+    /**
+     * The number of threads which run the background tasks.
+     * There are more threads than {@link #LONG_RUNNING_TASKS}, so the short tasks, like writing
+     * the trace, never wait for a render to finish.
+     */
+    static final int BACKGROUND_THREADS = LONG_RUNNING_TASKS + 2;
+
+    /**
+     * The number of threads which run the short computations of each frame.
+     * The thread which submits them also does part of the work, so one processor is left for it.
+     */
+    public static final int COMPUTE_THREADS = Math.max(Runtime.getRuntime().availableProcessors() - 1, 1);
+
+    /**
+     * The default capacity of each queue.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+    /**
+     * The lazily created {@link RenderScheduler} shared by the whole application.
+     */
+    private static volatile RenderScheduler instance = null;
+
+    /**
+     * The capacity of each queue.
+     */
+    private final int queueCapacity;
+
+    /**
+     * The {@link ScheduledThreadPoolExecutor} which runs the timers.
+     */
+    private final ScheduledThreadPoolExecutor timerExecutor;
+
+    /**
+     * The {@link ThreadPoolExecutor} which runs the background tasks.
+     */
+    private final ThreadPoolExecutor backgroundExecutor;
+
+    /**
+     * The {@link ThreadPoolExecutor} which runs the short computations of each frame.
+     */
+    private final ThreadPoolExecutor computeExecutor;
+
+    /**
+     * The {@link Executor} which runs the tasks in the UI thread.
+     */
+    private final Executor uiExecutor;
+
+    /**
+     * The {@link Executor} which runs the tasks in the UI thread and counts the pending ones.
+     */
+    private final Executor countingUiExecutor;
+
+    /**
+     * The number of tasks posted to the UI thread which didn't run yet.
+     */
+    private final AtomicInteger pendingUiTasks = new AtomicInteger(0);
+
+    /**
+     * The number of tasks posted to the UI thread which were dropped because too many were
+     * pending.
+     */
+    private final AtomicLong droppedUiTasks = new AtomicLong(0L);
+
+    /**
+     * The constructor.
+     *
+     * @param uiExecutor    The {@link Executor} which runs the tasks in the UI thread.
+     * @param queueCapacity The capacity of each queue.
+     */
+    @VisibleForTesting
+    RenderScheduler(@NonNull final Executor uiExecutor, final int queueCapacity) {
+        Preconditions.checkArgument(queueCapacity > 0, "queueCapacity must be positive");
+
+        this.queueCapacity = queueCapacity;
+        this.uiExecutor = Preconditions.checkNotNull(uiExecutor, "uiExecutor shouldn't be null");
+        this.countingUiExecutor = this::executeInUi;
+        this.timerExecutor = new ScheduledThreadPoolExecutor(TIMER_THREADS, threadFactory("RenderTimer"));
+        this.timerExecutor.setRemoveOnCancelPolicy(true);
+        this.backgroundExecutor = new ThreadPoolExecutor(BACKGROUND_THREADS, BACKGROUND_THREADS,
+            0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+            threadFactory("RenderWorker"));
+        this.computeExecutor = new ThreadPoolExecutor(COMPUTE_THREADS, COMPUTE_THREADS,
+            0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+            threadFactory("RenderCompute"));
+    }
+
+    /**
+     * Stops the threads of this {@link RenderScheduler}, without waiting for the running tasks.
+     * <br>
+     * It is only used by the tests, since the shared {@link RenderScheduler} lives as long as the
+     * application.
+     */
+    @VisibleForTesting
+    void shutdown() {
+        this.timerExecutor.shutdownNow();
+        this.backgroundExecutor.shutdownNow();
+        this.computeExecutor.shutdownNow();
+    }
+
+    /**
+     * Gets the {@link RenderScheduler} shared by the whole application, which runs the UI tasks
+     * in the main {@link Looper}.
+     *
+     * @return The shared {@link RenderScheduler}.
+     */
+    @NonNull
+    public static RenderScheduler getInstance() {
+        RenderScheduler scheduler = instance;
+        if (scheduler == null) {
+            synchronized (RenderScheduler.class) {
+                scheduler = instance;
+                if (scheduler == null) {
+                    final Handler handler = new Handler(Looper.getMainLooper());
+                    scheduler = new RenderScheduler(handler::post, DEFAULT_QUEUE_CAPACITY);
+                    instance = scheduler;
+                }
+            }
+        }
+        return scheduler;
+    }
+
+    /**
+     * Gets the {@link ExecutorService} which runs the background tasks, like loading a scene or
+     * waiting for a render to finish.
+     * It shouldn't be shut down, since it is shared by all the renders.
+     *
+     * @return The {@link ExecutorService} of the background tasks.
+     */
+    @NonNull
+    public ExecutorService getBackgroundExecutor() {
+        return this.backgroundExecutor;
+    }
+
+    /**
+     * Gets the {@link ExecutorService} which runs the short computations of each frame, split
+     * between {@link #COMPUTE_THREADS} threads.
+     * It shouldn't be shut down, since it is shared by all the renders.
+     *
+     * @return The {@link ExecutorService} of the computations.
+     */
+    @NonNull
+    public ExecutorService getComputeExecutor() {
+        return this.computeExecutor;
+    }
+
+    /**
+     * Gets the {@link Executor} which runs the tasks in the UI thread.
+     * The tasks executed with it are counted in {@link #getPendingUiTasks()}, but are never
+     * dropped.
+     *
+     * @return The {@link Executor} of the UI thread.
+     */
+    @NonNull
+    public Executor getUiExecutor() {
+        return this.countingUiExecutor;
+    }
+
+    /**
+     * Schedules a timer task to run once after a delay.
+     * The capacity is checked and the task is queued atomically, so concurrent calls can't
+     * exceed the capacity of the queue.
+     *
+     * @param task  The task.
+     * @param delay The delay, in milliseconds.
+     * @return The {@link ScheduledFuture} of the task.
+     * @throws RejectedExecutionException If the timer queue is full.
+     */
+    @NonNull
+    public synchronized ScheduledFuture<?> schedule(@NonNull final Runnable task, final long delay) {
+        if (this.timerExecutor.getQueue().size() >= this.queueCapacity) {
+            throw new RejectedExecutionException("The timer queue is full");
+        }
+        return this.timerExecutor.schedule(task, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Posts a task to the UI thread, unless too many tasks are already pending.
+     * It should only be used for tasks which can be skipped, like refreshing the UI.
+     *
+     * @param task The task.
+     * @return Whether the task was posted.
+     */
+    public boolean postToUi(@NonNull final Runnable task) {
+        if (this.pendingUiTasks.get() >= this.queueCapacity) {
+            this.droppedUiTasks.incrementAndGet();
+            return false;
+        }
+        executeInUi(task);
+        return true;
+    }
+
+    /**
+     * Gets the number of timer tasks waiting to run.
+     *
+     * @return The depth of the timer queue.
+     */
+    public int getTimerQueueDepth() {
+        return this.timerExecutor.getQueue().size();
+    }
+
+    /**
+     * Gets the number of background tasks waiting for a thread.
+     *
+     * @return The depth of the background queue.
+     */
+    public int getBackgroundQueueDepth() {
+        return this.backgroundExecutor.getQueue().size();
+    }
+
+    /**
+     * Gets the number of tasks posted to the UI thread which didn't run yet.
+     *
+     * @return The depth of the UI queue.
+     */
+    public int getPendingUiTasks() {
+        return this.pendingUiTasks.get();
+    }
+
+    /**
+     * Gets the number of tasks which were dropped because the UI thread had too many pending.
+     *
+     * @return The number of dropped UI tasks.
+     */
+    public long getDroppedUiTasks() {
+        return this.droppedUiTasks.get();
+    }
+
+    /**
+     * Logs the depth of all the queues.
+     */
+    public void logQueueDepths() {
+        final String message = "RenderScheduler queues: timer=" + getTimerQueueDepth()
+            + ", background=" + getBackgroundQueueDepth()
+            + ", ui=" + getPendingUiTasks()
+            + ", droppedUi=" + getDroppedUiTasks();
+        log.info(message);
+    }
+
+    /**
+     * Helper method that runs a task in the UI thread and counts it while it is pending.
+     *
+     * @param task The task.
+     */
+    private void executeInUi(@NonNull final Runnable task) {
+        this.pendingUiTasks.incrementAndGet();
+        this.uiExecutor.execute(() -> {
+            this.pendingUiTasks.decrementAndGet();
+            task.run();
+        });
+    }
+
+    /**
+     * Helper method that creates a {@link ThreadFactory} of daemon threads with a name, so the
+     * threads of the scheduler are easy to find in the traces.
+     *
+     * @param name The name of the threads.
+     * @return A new {@link ThreadFactory}.
+     */
+    @NonNull
+    private static ThreadFactory threadFactory(@NonNull final String name) {
+        return runnable -> {
+            final Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
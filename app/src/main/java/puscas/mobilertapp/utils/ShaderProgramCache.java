@@ -0,0 +1,219 @@
+package puscas.mobilertapp.utils;
+
+import android.opengl.GLES20;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.microedition.khronos.egl.EGL10;
+import javax.microedition.khronos.egl.EGLContext;
+
+import java8.util.Objects;
+import lombok.extern.java.Log;
+
+/**
+ * A cache of linked OpenGL shader programs.
+ * <br>
+ * The programs are keyed by the hash of the shaders' code (as read by
+ * {@link UtilsContext#readShaders}), so the same shaders are only compiled and linked once
+ * while the EGL context is alive. Since the {@link android.opengl.GLSurfaceView} preserves the
+ * EGL context on pause, the programs survive the recreation of the surface. When the EGL
+ * context changes, the cached programs are forgotten because they were destroyed with the
+ * previous context.
+ * <br>
+ * It should only be used by the OpenGL thread.
+ */
+@Log
+public final class ShaderProgramCache {
+
+    /**
+     * The cached programs by the hash of their shaders' code.
+     */
+    private final Map<Integer, CachedProgram> programs = new HashMap<>();
+
+    /**
+     * The number of requested programs that were already cached.
+     */
+    private final AtomicLong hits = new AtomicLong(0L);
+
+    /**
+     * The number of requested programs that had to be compiled and linked.
+     */
+    private final AtomicLong misses = new AtomicLong(0L);
+
+    /**
+     * The EGL context where the cached programs were created.
+     */
+    private EGLContext eglContext = null;
+
+    /**
+     * Gets a linked program with the provided shaders.
+     * If the program is not in the cache, it creates the program, binds the attributes
+     * locations, compiles and attaches the shaders and links the program.
+     *
+     * @param shadersCode The shaders' code, by shader type.
+     * @param attributes  The attributes names, by location, to bind before linking the program.
+     * @return The index of the linked program.
+     */
+    public int getProgram(@NonNull final Map<Integer, String> shadersCode,
+                          @NonNull final Map<Integer, String> attributes) {
+        checkEglContext();
+
+        final int key = shadersCode.hashCode();
+        final CachedProgram cachedProgram = this.programs.get(key);
+        if (cachedProgram != null && cachedProgram.shadersCode.equals(shadersCode)) {
+            this.hits.incrementAndGet();
+            logCounters();
+            return cachedProgram.program;
+        }
+        this.misses.incrementAndGet();
+
+        if (cachedProgram != null) {
+            // Hash collision with other shaders' code, so replace the cached program.
+            UtilsGL.run("glDeleteProgram", () -> GLES20.glDeleteProgram(cachedProgram.program));
+        }
+
+        final int program = UtilsShader.reCreateProgram(0);
+        for (final Map.Entry<Integer, String> attribute : attributes.entrySet()) {
+            UtilsGL.run("glBindAttribLocation", () -> GLES20.glBindAttribLocation(program,
+                attribute.getKey(), attribute.getValue()));
+        }
+        UtilsShader.attachShaders(program, shadersCode);
+
+        this.programs.put(key, new CachedProgram(new HashMap<>(shadersCode), program));
+        logCounters();
+        return program;
+    }
+
+    /**
+     * Gets the number of requested programs that were already cached.
+     *
+     * @return The number of cache hits.
+     */
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * Gets the number of requested programs that had to be compiled and linked.
+     *
+     * @return The number of cache misses.
+     */
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * Gets the number of cached programs.
+     *
+     * @return The number of cached programs.
+     */
+    public int size() {
+        return this.programs.size();
+    }
+
+    /**
+     * Deletes all the cached programs.
+     * It should be called with the EGL context where the programs were created.
+     */
+    public void clear() {
+        log.info("clear");
+
+        for (final CachedProgram cachedProgram : this.programs.values()) {
+            UtilsGL.run("glDeleteProgram", () -> GLES20.glDeleteProgram(cachedProgram.program));
+        }
+        this.programs.clear();
+    }
+
+    /**
+     * Deletes all the cached programs, except the one which is still being used.
+     * It should be called with the EGL context where the programs were created.
+     *
+     * @param programInUse The program to keep in the cache.
+     * @return The number of deleted programs.
+     */
+    public int trim(final int programInUse) {
+        log.info("trim");
+
+        checkEglContext();
+        int deleted = 0;
+        final Iterator<CachedProgram> iterator = this.programs.values().iterator();
+        while (iterator.hasNext()) {
+            final CachedProgram cachedProgram = iterator.next();
+            if (cachedProgram.program != programInUse) {
+                UtilsGL.run("glDeleteProgram", () -> GLES20.glDeleteProgram(cachedProgram.program));
+                iterator.remove();
+                ++deleted;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Helper method that forgets the cached programs if the current EGL context is not the one
+     * where they were created.
+     */
+    private void checkEglContext() {
+        final EGLContext currentContext = getCurrentEglContext();
+        if (!Objects.equals(currentContext, this.eglContext)) {
+            if (!this.programs.isEmpty()) {
+                log.info("EGL context changed, forgetting the cached programs");
+            }
+            // The programs were destroyed with the previous EGL context.
+            this.programs.clear();
+            this.eglContext = currentContext;
+        }
+    }
+
+    /**
+     * Helper method that logs the counters of this cache.
+     */
+    private void logCounters() {
+        final String message = "ShaderProgramCache hits: " + this.hits.get() + ", misses: " + this.misses.get();
+        log.info(message);
+    }
+
+    /**
+     * Helper method that gets the current EGL context.
+     *
+     * @return The current EGL context or {@code null} if it is not available.
+     */
+    @Nullable
+    private static EGLContext getCurrentEglContext() {
+        final EGL10 egl = (EGL10) EGLContext.getEGL();
+        return egl == null ? null : egl.eglGetCurrentContext();
+    }
+
+    /**
+     * A linked program and the shaders' code used to create it.
+     */
+    private static final class CachedProgram {
+
+        /**
+         * The shaders' code, by shader type.
+         */
+        private final Map<Integer, String> shadersCode;
+
+        /**
+         * The index of the linked program.
+         */
+        private final int program;
+
+        /**
+         * The constructor.
+         *
+         * @param shadersCode The shaders' code, by shader type.
+         * @param program     The index of the linked program.
+         */
+        private CachedProgram(@NonNull final Map<Integer, String> shadersCode, final int program) {
+            this.shadersCode = shadersCode;
+            this.program = program;
+        }
+    }
+
+}
@@ -0,0 +1,262 @@
+package puscas.mobilertapp.utils;
+
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * A reusable formatter of the statistics text shown in a {@link TextView}.
+ * <br>
+ * The text is written into a preallocated {@code char} array, and the fixed-point numbers are
+ * formatted like the {@link java.text.NumberFormat} of {@link java.util.Locale#US} previously used
+ * by the {@code RenderTask}, but without creating any {@link String}. The only difference is that
+ * the numbers are rounded half up after being scaled, so a value like {@code 0.015}, which is
+ * slightly below it as a {@code double}, is rounded up.
+ * The formatted text is only published with {@link #publishIfChanged()} when it is different from
+ * the previous one, so the {@link TextView} is only updated when the visible text changed.
+ * <br>
+ * It is not thread safe and should only be used by the UI thread.
+ */
+public final class StatsFormatter {
+
+    /**
+     * The initial capacity of the text.
+     */
+    private static final int INITIAL_CAPACITY = 128;
+
+    /**
+     * The number of digits in each group of the integer part of a number.
+     */
+    private static final int GROUPING_SIZE = 3;
+
+    /**
+     * The powers of 10 used to scale the fixed-point numbers.
+     */
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L};
+
+    /**
+     * The text being formatted.
+     */
+    private char[] chars = new char[INITIAL_CAPACITY];
+
+    /**
+     * The length of the text being formatted.
+     */
+    private int length = 0;
+
+    /**
+     * The last published text.
+     * It is only changed by {@link #publishIfChanged()}, so it can be given to
+     * {@link TextView#setText(char[], int, int)}.
+     */
+    private char[] published = new char[INITIAL_CAPACITY];
+
+    /**
+     * The length of the last published text, or {@code -1} if nothing was published yet.
+     */
+    private int publishedLength = -1;
+
+    /**
+     * Clears the text being formatted.
+     *
+     * @return This {@link StatsFormatter}.
+     */
+    @NonNull
+    public StatsFormatter reset() {
+        this.length = 0;
+        return this;
+    }
+
+    /**
+     * Appends a {@link String}.
+     *
+     * @param value The {@link String} to append.
+     * @return This {@link StatsFormatter}.
+     */
+    @NonNull
+    public StatsFormatter append(@NonNull final String value) {
+        final int valueLength = value.length();
+        ensureCapacity(this.length + valueLength);
+        value.getChars(0, valueLength, this.chars, this.length);
+        this.length += valueLength;
+        return this;
+    }
+
+    /**
+     * Appends a {@code char}.
+     *
+     * @param value The {@code char} to append.
+     * @return This {@link StatsFormatter}.
+     */
+    @NonNull
+    public StatsFormatter append(final char value) {
+        ensureCapacity(this.length + 1);
+        this.chars[this.length] = value;
+        ++this.length;
+        return this;
+    }
+
+    /**
+     * Appends an integer number, without grouping its digits.
+     *
+     * @param value The number to append.
+     * @return This {@link StatsFormatter}.
+     */
+    @NonNull
+    public StatsFormatter append(final long value) {
+        if (value < 0L) {
+            append('-');
+            if (value == Long.MIN_VALUE) {
+                return append(String.valueOf(value).substring(1));
+            }
+        }
+        appendDigits(Math.abs(value), false);
+        return this;
+    }
+
+    /**
+     * Appends a fixed-point number with exactly {@code fractionDigits} digits after the decimal
+     * point and with the digits of the integer part grouped in thousands, like
+     * {@link java.text.NumberFormat} does.
+     *
+     * @param value          The number to append.
+     * @param fractionDigits The number of digits after the decimal point.
+     * @return This {@link StatsFormatter}.
+     */
+    @NonNull
+    public StatsFormatter appendFixed(final double value, final int fractionDigits) {
+        if (Double.isNaN(value)) {
+            return append('\uFFFD');
+        }
+        if (value < 0.0) {
+            append('-');
+        }
+        if (Double.isInfinite(value)) {
+            return append('\u221E');
+        }
+
+        final long scale = POWERS_OF_TEN[fractionDigits];
+        final long scaled = (long) (Math.abs(value) * scale + 0.5);
+        appendDigits(scaled / scale, true);
+        if (fractionDigits > 0) {
+            append('.');
+            final long fraction = scaled % scale;
+            for (int i = fractionDigits - 1; i >= 0; --i) {
+                append((char) ('0' + (fraction / POWERS_OF_TEN[i]) % 10L));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Publishes the formatted text if it is different from the last published one.
+     *
+     * @return Whether the text changed and was published.
+     */
+    public boolean publishIfChanged() {
+        if (this.length == this.publishedLength
+            && equalsRange(this.chars, this.published, this.length)) {
+            return false;
+        }
+        if (this.published.length < this.length) {
+            this.published = new char[this.chars.length];
+        }
+        System.arraycopy(this.chars, 0, this.published, 0, this.length);
+        this.publishedLength = this.length;
+        return true;
+    }
+
+    /**
+     * Gets the last published text.
+     * The array should not be changed by the caller.
+     *
+     * @return The {@code char} array with the last published text.
+     */
+    @NonNull
+    public char[] getPublishedChars() {
+        return this.published;
+    }
+
+    /**
+     * Gets the length of the last published text.
+     *
+     * @return The length of the last published text.
+     */
+    public int getPublishedLength() {
+        return Math.max(this.publishedLength, 0);
+    }
+
+    /**
+     * Gets the text being formatted.
+     * It creates a new {@link String}, so it should only be used for debugging and tests.
+     *
+     * @return The text being formatted.
+     */
+    @NonNull
+    @Override
+    public String toString() {
+        return new String(this.chars, 0, this.length);
+    }
+
+    /**
+     * Helper method that appends the digits of a positive number.
+     *
+     * @param value    The positive number.
+     * @param grouping Whether the digits should be grouped in thousands.
+     */
+    private void appendDigits(final long value, final boolean grouping) {
+        int numDigits = 1;
+        for (long remaining = value / 10L; remaining > 0L; remaining /= 10L) {
+            ++numDigits;
+        }
+        final int numSeparators = grouping ? (numDigits - 1) / GROUPING_SIZE : 0;
+        final int end = this.length + numDigits + numSeparators;
+        ensureCapacity(end);
+
+        long remaining = value;
+        int position = end - 1;
+        for (int digit = 0; digit < numDigits; ++digit) {
+            if (grouping && digit > 0 && digit % GROUPING_SIZE == 0) {
+                this.chars[position] = ',';
+                --position;
+            }
+            this.chars[position] = (char) ('0' + remaining % 10L);
+            --position;
+            remaining /= 10L;
+        }
+        this.length = end;
+    }
+
+    /**
+     * Helper method that grows the text if it can't hold the provided number of characters.
+     *
+     * @param capacity The needed number of characters.
+     */
+    private void ensureCapacity(final int capacity) {
+        if (capacity > this.chars.length) {
+            this.chars = Arrays.copyOf(this.chars, Math.max(capacity, this.chars.length * 2));
+        }
+    }
+
+    /**
+     * Helper method that checks if the first characters of two arrays are equal.
+     *
+     * @param first  The first array.
+     * @param second The second array.
+     * @param length The number of characters to compare.
+     * @return Whether the first {@code length} characters are equal.
+     */
+    private static boolean equalsRange(@NonNull final char[] first,
+                                       @NonNull final char[] second,
+                                       final int length) {
+        for (int i = 0; i < length; ++i) {
+            if (first[i] != second[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
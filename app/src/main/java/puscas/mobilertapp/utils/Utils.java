@@ -5,7 +5,6 @@ import android.widget.NumberPicker;
 import androidx.annotation.NonNull;
 
 import org.apache.commons.lang3.tuple.Pair;
-import org.jetbrains.annotations.Contract;
 
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -18,7 +17,6 @@ import java.util.concurrent.TimeUnit;
 import java8.util.Objects;
 import lombok.experimental.UtilityClass;
 import lombok.extern.java.Log;
-import puscas.mobilertapp.constants.Constants;
 import puscas.mobilertapp.constants.ConstantsMethods;
 import puscas.mobilertapp.constants.ConstantsUI;
 import puscas.mobilertapp.exceptions.FailureException;
@@ -97,33 +95,6 @@ public final class Utils {
         }
     }
 
-    /**
-     * Calculates the size, in MegaBytes of the scene with a certain number of
-     * primitives.
-     * Note that this method tries to predict the size of the scene in the
-     * Ray Tracer engine context, and not in the OpenGL context.
-     *
-     * @param numPrimitives The number of primitives in the scene.
-     * @return The size, in MegaBytes, of the scene.
-     */
-    @Contract(pure = true)
-    public static int calculateSceneSize(final int numPrimitives) {
-        log.info("calculateSceneSize");
-        final int triangleVerticesSize = 3 * Constants.BYTES_IN_FLOAT * 3;
-        final int triangleNormalsSize = 3 * Constants.BYTES_IN_FLOAT * 3;
-        final int triangleTextureCoordinatesSize = 2 * Constants.BYTES_IN_FLOAT * 3;
-        final int triangleMaterialIndexSize = Constants.BYTES_IN_INTEGER;
-
-        final int triangleMembersSize = triangleVerticesSize
-            + triangleNormalsSize
-            + triangleTextureCoordinatesSize
-            + triangleMaterialIndexSize;
-
-        final int triangleMethodsSize = Constants.BYTES_IN_POINTER * 21;
-        final int triangleSize = triangleMembersSize + triangleMethodsSize;
-        return 1 + ((numPrimitives * triangleSize) / Constants.BYTES_IN_MEGABYTE);
-    }
-
     /**
      * Helper method that parses the displayed value from a {@link NumberPicker}
      * to an actual {@link Integer}.
@@ -5,6 +5,14 @@ import android.opengl.GLUtils;
 
 import androidx.annotation.NonNull;
 
+import com.google.common.base.Preconditions;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import javax.microedition.khronos.egl.EGL10;
 import javax.microedition.khronos.egl.EGLConfig;
 import javax.microedition.khronos.egl.EGLContext;
@@ -15,8 +23,10 @@ import java8.util.function.Function;
 import java8.util.function.Supplier;
 import lombok.experimental.UtilityClass;
 import lombok.extern.java.Log;
+import puscas.mobilertapp.BuildConfig;
 import puscas.mobilertapp.constants.ConstantsMethods;
 import puscas.mobilertapp.constants.ConstantsRenderer;
+import puscas.mobilertapp.constants.GlErrorCheckPolicy;
 import puscas.mobilertapp.exceptions.FailureException;
 
 /**
@@ -26,6 +36,115 @@ import puscas.mobilertapp.exceptions.FailureException;
 @Log
 public final class UtilsGL {
 
+    /**
+     * The default number of calls of the same entry point between error checks when using the
+     * {@link GlErrorCheckPolicy#SAMPLED} policy.
+     */
+    public static final int DEFAULT_SAMPLING_RATE = 64;
+
+    /**
+     * The key of the {@link GlCallCounters} for the errors found at the end of the frames.
+     */
+    public static final String FRAME_COUNTERS_KEY = "frame";
+
+    /**
+     * The current policy to check for errors after calling the OpenGL framework.
+     * Debug builds check every call, while release builds only check once per frame.
+     */
+    private static volatile GlErrorCheckPolicy errorCheckPolicy = BuildConfig.DEBUG
+        ? GlErrorCheckPolicy.EVERY_CALL : GlErrorCheckPolicy.ONCE_PER_FRAME;
+
+    /**
+     * The number of calls of the same entry point between error checks when using the
+     * {@link GlErrorCheckPolicy#SAMPLED} policy.
+     */
+    private static volatile int samplingRate = DEFAULT_SAMPLING_RATE;
+
+    /**
+     * The counters of calls and errors by entry point (the name of the OpenGL method).
+     */
+    private static final ConcurrentMap<String, GlCallCounters> callCounters = new ConcurrentHashMap<>();
+
+    /**
+     * Sets the policy to check for errors after calling the OpenGL framework.
+     *
+     * @param policy The new policy.
+     * @param rate   The number of calls of the same entry point between error checks, only
+     *               used by the {@link GlErrorCheckPolicy#SAMPLED} policy.
+     */
+    public static void setErrorCheckPolicy(@NonNull final GlErrorCheckPolicy policy, final int rate) {
+        Preconditions.checkArgument(rate > 0, "The sampling rate must be a positive value");
+        final String message = "setErrorCheckPolicy: " + policy + " (" + rate + ")";
+        log.info(message);
+
+        samplingRate = rate;
+        errorCheckPolicy = policy;
+    }
+
+    /**
+     * Gets the current policy to check for errors after calling the OpenGL framework.
+     *
+     * @return The current policy.
+     */
+    @NonNull
+    public static GlErrorCheckPolicy getErrorCheckPolicy() {
+        return errorCheckPolicy;
+    }
+
+    /**
+     * Gets a snapshot of the counters of calls and errors by entry point.
+     * The errors found at the end of the frames are in the {@link #FRAME_COUNTERS_KEY} entry.
+     *
+     * @return The counters by entry point.
+     */
+    @NonNull
+    public static Map<String, GlCallCounters> getCallCounters() {
+        return Collections.unmodifiableMap(new HashMap<>(callCounters));
+    }
+
+    /**
+     * Resets the counters of calls and errors.
+     */
+    public static void resetCallCounters() {
+        callCounters.clear();
+    }
+
+    /**
+     * Logs the counters of calls and errors of the entry points which had errors, plus the total
+     * number of calls and errors.
+     */
+    public static void logCallCounters() {
+        long calls = 0L;
+        long errors = 0L;
+        for (final Map.Entry<String, GlCallCounters> entry : callCounters.entrySet()) {
+            final GlCallCounters counters = entry.getValue();
+            calls += counters.getCalls();
+            errors += counters.getErrors();
+            if (counters.getErrors() > 0L) {
+                final String message = "GL errors at " + entry.getKey() + ": " + counters;
+                log.severe(message);
+            }
+        }
+        final String message = "GL calls: " + calls + ", errors: " + errors
+            + " (policy: " + errorCheckPolicy + ')';
+        log.info(message);
+    }
+
+    /**
+     * Checks for errors at the end of a frame.
+     * When the {@link GlErrorCheckPolicy#EVERY_CALL} policy is used, all the errors were
+     * already checked so it does nothing. Otherwise, it catches the errors from the calls which
+     * weren't checked, logs and counts them without throwing.
+     */
+    public static void checkFrameErrors() {
+        if (errorCheckPolicy == GlErrorCheckPolicy.EVERY_CALL) {
+            return;
+        }
+        final GlCallCounters counters = getCounters(FRAME_COUNTERS_KEY);
+        counters.incrementCalls();
+        checkError(counters, FRAME_COUNTERS_KEY, false);
+    }
+
     /**
      * Helper method that will execute a GL method and then will check for
      * any error in the OpenGL framework.
@@ -33,12 +152,13 @@ public final class UtilsGL {
      * doesn't return a value since by using this it will check for any
      * error after the call.
      *
-     * @param method The method to call.
+     * @param entryPoint The name of the OpenGL method, e.g. {@code "glTexSubImage2D"}.
+     * @param method     The method to call.
      */
-    public static void run(@NonNull final Runnable method) {
+    public static void run(@NonNull final String entryPoint, @NonNull final Runnable method) {
         log.info(ConstantsMethods.RUN);
         method.run();
-        checksGlError();
+        checksGlError(entryPoint);
     }
 
     /**
@@ -47,14 +167,15 @@ public final class UtilsGL {
      * It is recommended to use this method when the OpenGL method called
      * returns a value but doesn't need any arguments.
      *
-     * @param method The {@link Supplier} to call.
+     * @param entryPoint The name of the OpenGL method, e.g. {@code "glCreateProgram"}.
+     * @param method     The {@link Supplier} to call.
      * @return The result of calling the provided {@link Supplier}.
      */
     @NonNull
-    public static <T> T run(@NonNull final Supplier<T> method) {
+    public static <T> T run(@NonNull final String entryPoint, @NonNull final Supplier<T> method) {
         log.info(ConstantsMethods.RUN);
         final T result = method.get();
-        checksGlError();
+        checksGlError(entryPoint);
         return result;
     }
 
@@ -64,16 +185,18 @@ public final class UtilsGL {
      * It is recommended to use this method when the OpenGL method called
      * receives only 1 parameter.
      *
-     * @param arg    The argument for {@link Function} method.
-     * @param method The {@link Function} to call.
+     * @param entryPoint The name of the OpenGL method, e.g. {@code "glCreateShader"}.
+     * @param arg        The argument for {@link Function} method.
+     * @param method     The {@link Function} to call.
      * @return The result of calling the provided {@link Function}.
      */
     @NonNull
-    public static <T, R> T run(@NonNull final R arg,
+    public static <T, R> T run(@NonNull final String entryPoint,
+                               @NonNull final R arg,
                                @NonNull final Function<R, T> method) {
         log.info(ConstantsMethods.RUN);
         final T result = method.apply(arg);
-        checksGlError();
+        checksGlError(entryPoint);
         return result;
     }
 
@@ -83,21 +206,34 @@ public final class UtilsGL {
      * It is recommended to use this method when the OpenGL method called
      * receives 2 parameters.
      *
-     * @param arg1   The 1st argument for the {@link BiFunction}.
-     * @param arg2   The 2nd argument for the {@link BiFunction}.
-     * @param method The {@link BiFunction} to call.
+     * @param entryPoint The name of the OpenGL method, e.g. {@code "glGetUniformLocation"}.
+     * @param arg1       The 1st argument for the {@link BiFunction}.
+     * @param arg2       The 2nd argument for the {@link BiFunction}.
+     * @param method     The {@link BiFunction} to call.
      * @return The result of calling the provided {@link BiFunction}.
      */
     @NonNull
-    public static <T, R, S> T run(@NonNull final R arg1,
+    public static <T, R, S> T run(@NonNull final String entryPoint,
+                                  @NonNull final R arg1,
                                   @NonNull final S arg2,
                                   @NonNull final BiFunction<R, S, T> method) {
         log.info(ConstantsMethods.RUN);
         final T result = method.apply(arg1, arg2);
-        checksGlError();
+        checksGlError(entryPoint);
         return result;
     }
 
+    /**
+     * Helper method which checks if the calling thread has a current EGL context, so the OpenGL
+     * objects can be deleted.
+     *
+     * @return Whether the calling thread has a current EGL context.
+     */
+    public static boolean hasCurrentEglContext() {
+        final EGL10 egl = (EGL10) EGLContext.getEGL();
+        return egl != null && !EGL10.EGL_NO_CONTEXT.equals(egl.eglGetCurrentContext());
+    }
+
     /**
      * Helper method which checks if the Android device has support for
      * OpenGL ES 2.0.
@@ -132,15 +268,75 @@ public final class UtilsGL {
 
     // Private methods
 
+    /**
+     * Helper method that counts a call to the OpenGL framework and checks if there was any
+     * error, according to the current {@link GlErrorCheckPolicy}.
+     *
+     * @param entryPoint The name of the OpenGL method called. It's given explicitly because
+     *                   the classes of the lambdas are synthetic and renamed by the minifier.
+     * @throws FailureException If the {@link GlErrorCheckPolicy#EVERY_CALL} policy is used and
+     *                          an error occurred.
+     */
+    private static void checksGlError(@NonNull final String entryPoint) {
+        final GlErrorCheckPolicy policy = errorCheckPolicy;
+        final GlCallCounters counters = getCounters(entryPoint);
+        final long calls = counters.incrementCalls();
+
+        switch (policy) {
+            case EVERY_CALL:
+                checkError(counters, entryPoint, true);
+                break;
+            case SAMPLED:
+                if (calls % samplingRate == 0L) {
+                    checkError(counters, entryPoint, false);
+                }
+                break;
+            case ONCE_PER_FRAME:
+            default:
+                break;
+        }
+    }
+
     /**
      * Helper method which checks and prints errors in the OpenGL framework.
+     *
+     * @param counters   The counters of the entry point.
+     * @param entryPoint The entry point which is being checked.
+     * @param strict     Whether it should throw an exception if an error occurred or only
+     *                   log it.
+     * @throws FailureException If an error occurred and {@code strict} is {@code true}.
      */
-    private static void checksGlError() {
+    private static void checkError(@NonNull final GlCallCounters counters,
+                                   @NonNull final String entryPoint,
+                                   final boolean strict) {
+        counters.incrementChecks();
         final int glError = GLES20.glGetError();
         if (glError != GLES20.GL_NO_ERROR) {
+            counters.incrementErrors();
             final String msg = GLUtils.getEGLErrorString(glError);
-            throw new FailureException(msg);
+            if (strict) {
+                throw new FailureException(msg);
+            }
+            final String message = "GL error at " + entryPoint + ": (" + glError + ") " + msg;
+            log.severe(message);
+        }
+    }
+
+    /**
+     * Helper method that gets the counters of an entry point, creating them if needed.
+     *
+     * @param entryPoint The entry point.
+     * @return The counters of the entry point.
+     */
+    @NonNull
+    private static GlCallCounters getCounters(@NonNull final String entryPoint) {
+        final GlCallCounters counters = callCounters.get(entryPoint);
+        if (counters != null) {
+            return counters;
         }
+        final GlCallCounters newCounters = new GlCallCounters();
+        final GlCallCounters previousCounters = callCounters.putIfAbsent(entryPoint, newCounters);
+        return previousCounters == null ? newCounters : previousCounters;
     }
 
     /**
@@ -150,19 +346,19 @@ public final class UtilsGL {
     public static void resetOpenGlBuffers() {
         log.info("resetOpenGlBuffers");
 
-        run(() -> GLES20.glClear(ConstantsRenderer.ALL_BUFFER_BIT));
+        run("glClear", () -> GLES20.glClear(ConstantsRenderer.ALL_BUFFER_BIT));
 
-        run(() -> GLES20.glEnable(GLES20.GL_CULL_FACE));
-        run(() -> GLES20.glEnable(GLES20.GL_BLEND));
-        run(() -> GLES20.glEnable(GLES20.GL_DEPTH_TEST));
+        run("glEnable", () -> GLES20.glEnable(GLES20.GL_CULL_FACE));
+        run("glEnable", () -> GLES20.glEnable(GLES20.GL_BLEND));
+        run("glEnable", () -> GLES20.glEnable(GLES20.GL_DEPTH_TEST));
 
-        run(() -> GLES20.glCullFace(GLES20.GL_BACK));
-        run(() -> GLES20.glFrontFace(GLES20.GL_CCW));
-        run(() -> GLES20.glClearDepthf(1.0F));
+        run("glCullFace", () -> GLES20.glCullFace(GLES20.GL_BACK));
+        run("glFrontFace", () -> GLES20.glFrontFace(GLES20.GL_CCW));
+        run("glClearDepthf", () -> GLES20.glClearDepthf(1.0F));
 
-        run(() -> GLES20.glDepthMask(true));
-        run(() -> GLES20.glDepthFunc(GLES20.GL_LEQUAL));
-        run(() -> GLES20.glClearColor(0.0F, 0.0F, 0.0F, 0.0F));
+        run("glDepthMask", () -> GLES20.glDepthMask(true));
+        run("glDepthFunc", () -> GLES20.glDepthFunc(GLES20.GL_LEQUAL));
+        run("glClearColor", () -> GLES20.glClearColor(0.0F, 0.0F, 0.0F, 0.0F));
     }
 
     /**
@@ -174,17 +370,17 @@ public final class UtilsGL {
 
         final int numTextures = 1;
         final int[] textureHandle = new int[numTextures];
-        run(() -> GLES20.glGenTextures(numTextures, textureHandle, 0));
+        run("glGenTextures", () -> GLES20.glGenTextures(numTextures, textureHandle, 0));
         if (textureHandle[0] == 0) {
             final String msg = "Error loading texture.";
             throw new FailureException(msg);
         }
 
-        run(() -> GLES20.glActiveTexture(GLES20.GL_TEXTURE0));
-        run(() -> GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, textureHandle[0]));
-        run(() -> GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D,
+        run("glActiveTexture", () -> GLES20.glActiveTexture(GLES20.GL_TEXTURE0));
+        run("glBindTexture", () -> GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, textureHandle[0]));
+        run("glTexParameteri", () -> GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D,
             GLES20.GL_TEXTURE_MIN_FILTER, GLES20.GL_LINEAR));
-        run(() -> GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D,
+        run("glTexParameteri", () -> GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D,
             GLES20.GL_TEXTURE_MAG_FILTER, GLES20.GL_LINEAR));
 
         return textureHandle;
@@ -200,7 +396,7 @@ public final class UtilsGL {
         log.info("disableAttributeData");
 
         for (final int attribute : attributes) {
-            run(() -> GLES20.glDisableVertexAttribArray(attribute));
+            run("glDisableVertexAttribArray", () -> GLES20.glDisableVertexAttribArray(attribute));
         }
     }
 
@@ -0,0 +1,80 @@
+package puscas.mobilertapp.utils;
+
+import androidx.annotation.NonNull;
+
+import com.google.common.base.Preconditions;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Utility class with some helper methods to draw a heat map of the number of samples rendered in
+ * each tile of the image.
+ */
+@UtilityClass
+public final class UtilsHeatMap {
+
+    /**
+     * The maximum value of a color channel.
+     */
+    private static final int CHANNEL_MAX = 0xFF;
+
+    /**
+     * The opaque alpha channel of a color.
+     */
+    private static final int OPAQUE = 0xFF000000;
+
+    /**
+     * Helper method that converts the number of samples of each tile to colors in the OpenGL
+     * format (ABGR), from blue for the tiles with fewer samples, through green, to red for the
+     * tiles with the most samples.
+     * The colors are relative to the tile with the most samples.
+     *
+     * @param tileSamples The number of samples of each tile.
+     * @param colors      The array where the color of each tile is written.
+     */
+    public static void toColors(@NonNull final int[] tileSamples, @NonNull final int[] colors) {
+        Preconditions.checkArgument(colors.length >= tileSamples.length, "colors is too small");
+
+        int maxSamples = 0;
+        for (final int samples : tileSamples) {
+            maxSamples = Math.max(maxSamples, samples);
+        }
+        for (int tile = 0; tile < tileSamples.length; ++tile) {
+            final float value = maxSamples > 0 ? Math.max(tileSamples[tile], 0) / (float) maxSamples : 0.0F;
+            colors[tile] = heatColor(value);
+        }
+    }
+
+    /**
+     * Helper method that calculates the color of a value in the heat map.
+     *
+     * @param value The value, between {@code 0} and {@code 1}.
+     * @return The color in the OpenGL format (ABGR).
+     */
+    static int heatColor(final float value) {
+        final float red;
+        final float green;
+        final float blue;
+        if (value < 0.5F) {
+            red = 0.0F;
+            green = 2.0F * value;
+            blue = 1.0F - green;
+        } else {
+            red = 2.0F * value - 1.0F;
+            green = 1.0F - red;
+            blue = 0.0F;
+        }
+        return OPAQUE | (channel(blue) << 16) | (channel(green) << 8) | channel(red);
+    }
+
+    /**
+     * Helper method that converts a color channel to 8 bits.
+     *
+     * @param value The color channel, between {@code 0} and {@code 1}.
+     * @return The color channel, between {@code 0} and {@code 255}.
+     */
+    private static int channel(final float value) {
+        return Math.round(Math.min(Math.max(value, 0.0F), 1.0F) * CHANNEL_MAX);
+    }
+
+}
@@ -35,7 +35,8 @@ public final class UtilsShader {
         loadAndAttachShaders(shaderProgram, shadersCode);
 
         final int[] attachedShaders = new int[1];
-        UtilsGL.run(() -> GLES20.glGetProgramiv(shaderProgram, GLES20.GL_ATTACHED_SHADERS, attachedShaders, 0));
+        UtilsGL.run("glGetProgramiv", () -> GLES20.glGetProgramiv(shaderProgram,
+            GLES20.GL_ATTACHED_SHADERS, attachedShaders, 0));
 
         checksShaderLinkStatus(shaderProgram);
     }
@@ -48,12 +49,12 @@ public final class UtilsShader {
     public static void checksShaderLinkStatus(final int shaderProgram) {
         log.info("checksShaderLinkStatus");
         final int[] linkStatus = new int[1];
-        UtilsGL.run(() -> GLES20.glGetProgramiv(shaderProgram, GLES20.GL_LINK_STATUS, linkStatus, 0));
+        UtilsGL.run("glGetProgramiv", () -> GLES20.glGetProgramiv(shaderProgram, GLES20.GL_LINK_STATUS, linkStatus, 0));
 
         if (linkStatus[0] != GLES20.GL_TRUE) {
-            final String strError = UtilsGL.run(shaderProgram, GLES20::glGetProgramInfoLog);
+            final String strError = UtilsGL.run("glGetProgramInfoLog", shaderProgram, GLES20::glGetProgramInfoLog);
             final String msg = "Could not link program shader: " + strError;
-            UtilsGL.run(() -> GLES20.glDeleteProgram(shaderProgram));
+            UtilsGL.run("glDeleteProgram", () -> GLES20.glDeleteProgram(shaderProgram));
             throw new FailureException(msg);
         }
     }
@@ -69,7 +70,7 @@ public final class UtilsShader {
     public static int loadShader(final int shaderType,
                                  @NonNull final String source) {
         log.info("loadShader");
-        final int shader = UtilsGL.run(() -> GLES20.glCreateShader(shaderType));
+        final int shader = UtilsGL.run("glCreateShader", () -> GLES20.glCreateShader(shaderType));
         if (shader == 0) {
             log.info("loadShader error 1");
             final int glError = GLES20.glGetError();
@@ -78,21 +79,21 @@ public final class UtilsShader {
             throw new FailureException(msg);
         }
 
-        UtilsGL.run(() -> GLES20.glShaderSource(shader, source));
-        UtilsGL.run(() -> GLES20.glCompileShader(shader));
+        UtilsGL.run("glShaderSource", () -> GLES20.glShaderSource(shader, source));
+        UtilsGL.run("glCompileShader", () -> GLES20.glCompileShader(shader));
         final int[] compiled = new int[1];
-        UtilsGL.run(() -> GLES20.glGetShaderiv(shader, GLES20.GL_COMPILE_STATUS, compiled, 0));
+        UtilsGL.run("glGetShaderiv", () -> GLES20.glGetShaderiv(shader, GLES20.GL_COMPILE_STATUS, compiled, 0));
         if (compiled[0] == 0) {
             log.info("loadShader error 2");
             final int glError = GLES20.glGetError();
-            final String informationLog = UtilsGL.run(() -> GLES20.glGetShaderInfoLog(shader));
+            final String informationLog = UtilsGL.run("glGetShaderInfoLog", () -> GLES20.glGetShaderInfoLog(shader));
             final String msg = "Could not compile shader " + shaderType + ": " + informationLog;
             final String msgError = GLUtils.getEGLErrorString(glError);
             log.severe(msg);
             log.severe(source);
             log.severe("Error: " + msgError);
-            UtilsGL.run(() -> GLES20.glDeleteShader(shader));
-            UtilsGL.run(GLES20::glReleaseShaderCompiler);
+            UtilsGL.run("glDeleteShader", () -> GLES20.glDeleteShader(shader));
+            UtilsGL.run("glReleaseShaderCompiler", GLES20::glReleaseShaderCompiler);
             throw new FailureException(informationLog);
         }
 
@@ -112,9 +113,9 @@ public final class UtilsShader {
         if (shaderProgram != 0) {
             final String deleteProgramMessage = "Deleting GL program: " + shaderProgram;
             log.info(deleteProgramMessage);
-            UtilsGL.run(() -> GLES20.glDeleteProgram(shaderProgram));
+            UtilsGL.run("glDeleteProgram", () -> GLES20.glDeleteProgram(shaderProgram));
         }
-        final int newShaderProgram = UtilsGL.<Integer>run(GLES20::glCreateProgram);
+        final int newShaderProgram = UtilsGL.<Integer>run("glCreateProgram", GLES20::glCreateProgram);
 
         if (newShaderProgram == 0) {
             log.severe("Could not create GL program.");
@@ -137,11 +138,11 @@ public final class UtilsShader {
     public static void connectOpenGlAttribute(final int shaderProgram,
                                               @NonNull final ConfigGlAttribute config) {
         log.info("connectOpenGlAttribute");
-        UtilsGL.run(() -> GLES20.glBindAttribLocation(
+        UtilsGL.run("glBindAttribLocation", () -> GLES20.glBindAttribLocation(
             shaderProgram, config.getAttributeLocation(), config.getAttributeName()));
-        UtilsGL.run(() -> GLES20.glVertexAttribPointer(config.getAttributeLocation(),
+        UtilsGL.run("glVertexAttribPointer", () -> GLES20.glVertexAttribPointer(config.getAttributeLocation(),
             config.getComponentsInBuffer(), GLES20.GL_FLOAT, false, 0, config.getBuffer()));
-        UtilsGL.run(() -> GLES20.glEnableVertexAttribArray(config.getAttributeLocation()));
+        UtilsGL.run("glEnableVertexAttribArray", () -> GLES20.glEnableVertexAttribArray(config.getAttributeLocation()));
     }
 
     /**
@@ -158,12 +159,12 @@ public final class UtilsShader {
         final int fragmentShader = getShaderIndex(shadersCode, GLES20.GL_FRAGMENT_SHADER);
 
         // Attach and link shaders to program
-        UtilsGL.run(() -> GLES20.glAttachShader(shaderProgram, vertexShader));
-        UtilsGL.run(() -> GLES20.glAttachShader(shaderProgram, fragmentShader));
-        UtilsGL.run(() -> GLES20.glLinkProgram(shaderProgram));
+        UtilsGL.run("glAttachShader", () -> GLES20.glAttachShader(shaderProgram, vertexShader));
+        UtilsGL.run("glAttachShader", () -> GLES20.glAttachShader(shaderProgram, fragmentShader));
+        UtilsGL.run("glLinkProgram", () -> GLES20.glLinkProgram(shaderProgram));
 
-        UtilsGL.run(() -> GLES20.glDeleteShader(vertexShader));
-        UtilsGL.run(() -> GLES20.glDeleteShader(fragmentShader));
+        UtilsGL.run("glDeleteShader", () -> GLES20.glDeleteShader(vertexShader));
+        UtilsGL.run("glDeleteShader", () -> GLES20.glDeleteShader(fragmentShader));
     }
 
     /**
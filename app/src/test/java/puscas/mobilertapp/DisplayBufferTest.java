@@ -0,0 +1,203 @@
+package puscas.mobilertapp;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+/**
+ * The test suite for the {@link DisplayBuffer} class.
+ */
+public class DisplayBufferTest {
+
+    /**
+     * The width and height of the {@link Bitmap} used by the tests.
+     */
+    private static final int SIZE = 32;
+
+    /**
+     * Tests that publishing without any modified row of tiles doesn't publish a snapshot.
+     */
+    @Test
+    public void testPublishWithoutDirtyRows() {
+        final DisplayBuffer displayBuffer = createDisplayBuffer(createBitmap(), createFence(0, 0));
+
+        Assertions.assertThat(displayBuffer.publish(0))
+            .as("The DisplayBuffer#publish method")
+            .isFalse();
+        Assertions.assertThat(displayBuffer.upload())
+            .as("The DisplayBuffer#upload method")
+            .isFalse();
+        Assertions.assertThat(displayBuffer.getNumberOfFreeSnapshots())
+            .as("The number of free snapshots")
+            .isEqualTo(2);
+    }
+
+    /**
+     * Tests that a published snapshot which wasn't uploaded yet is reclaimed by the next publish
+     * and returns to the free snapshots after being uploaded.
+     */
+    @Test
+    public void testPublishAndUpload() {
+        final Bitmap bitmap = createBitmap();
+        final DisplayBuffer displayBuffer = createDisplayBuffer(bitmap, createFence(0, 0));
+
+        Assertions.assertThat(displayBuffer.publish(0b1))
+            .as("The DisplayBuffer#publish method")
+            .isTrue();
+        Assertions.assertThat(displayBuffer.getNumberOfFreeSnapshots())
+            .as("The number of free snapshots")
+            .isEqualTo(1);
+
+        Assertions.assertThat(displayBuffer.publish(0b1000))
+            .as("The DisplayBuffer#publish method")
+            .isTrue();
+        Assertions.assertThat(displayBuffer.getNumberOfFreeSnapshots())
+            .as("The number of free snapshots")
+            .isEqualTo(1);
+
+        Assertions.assertThat(displayBuffer.upload())
+            .as("The DisplayBuffer#upload method")
+            .isTrue();
+        Assertions.assertThat(displayBuffer.upload())
+            .as("The DisplayBuffer#upload method")
+            .isFalse();
+        Assertions.assertThat(displayBuffer.getNumberOfFreeSnapshots())
+            .as("The number of free snapshots")
+            .isEqualTo(2);
+
+        // Only the lines of the modified rows of tiles should be copied.
+        final int linesPerTile = SIZE / 16;
+        Mockito.verify(bitmap).getPixels(ArgumentMatchers.any(int[].class), ArgumentMatchers.eq(0),
+            ArgumentMatchers.eq(SIZE), ArgumentMatchers.eq(0), ArgumentMatchers.eq(0),
+            ArgumentMatchers.eq(SIZE), ArgumentMatchers.eq(linesPerTile));
+        Mockito.verify(bitmap).getPixels(ArgumentMatchers.any(int[].class),
+            ArgumentMatchers.eq(3 * linesPerTile * SIZE), ArgumentMatchers.eq(SIZE),
+            ArgumentMatchers.eq(0), ArgumentMatchers.eq(3 * linesPerTile),
+            ArgumentMatchers.eq(SIZE), ArgumentMatchers.eq(linesPerTile));
+    }
+
+    /**
+     * Tests that the rows of tiles which have tiles being rendered aren't copied nor published,
+     * and that they are copied in the next publish.
+     */
+    @Test
+    public void testPublishSkipsBusyRows() {
+        final Bitmap bitmap = createBitmap();
+        final DisplayBuffer.RowsFence fence = createFence(0b10, 0);
+        final DisplayBuffer displayBuffer = createDisplayBuffer(bitmap, fence);
+
+        Assertions.assertThat(displayBuffer.publish(0b10))
+            .as("The DisplayBuffer#publish method")
+            .isFalse();
+        Assertions.assertThat(displayBuffer.getNumberOfFreeSnapshots())
+            .as("The number of free snapshots")
+            .isEqualTo(2);
+        Mockito.verify(bitmap, Mockito.never()).getPixels(ArgumentMatchers.any(int[].class),
+            ArgumentMatchers.anyInt(), ArgumentMatchers.anyInt(), ArgumentMatchers.anyInt(),
+            ArgumentMatchers.anyInt(), ArgumentMatchers.anyInt(), ArgumentMatchers.anyInt());
+
+        // The row of tiles is still pending, so it is copied once it has no tile being rendered.
+        Mockito.when(fence.beginCopy(ArgumentMatchers.anyInt()))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+        Assertions.assertThat(displayBuffer.publish(0))
+            .as("The DisplayBuffer#publish method")
+            .isTrue();
+        Mockito.verify(fence).endCopy(0b10);
+    }
+
+    /**
+     * Tests that the rows of tiles where a tile was started while they were being copied aren't
+     * published, and that they are copied again in the next publish.
+     */
+    @Test
+    public void testPublishSkipsRowsStartedDuringCopy() {
+        final Bitmap bitmap = createBitmap();
+        final DisplayBuffer.RowsFence fence = createFence(0, 0b100);
+        final DisplayBuffer displayBuffer = createDisplayBuffer(bitmap, fence);
+
+        Assertions.assertThat(displayBuffer.publish(0b101))
+            .as("The DisplayBuffer#publish method")
+            .isTrue();
+        Mockito.verify(fence).endCopy(0b101);
+
+        Assertions.assertThat(displayBuffer.publish(0))
+            .as("The DisplayBuffer#publish method")
+            .isTrue();
+        Mockito.verify(fence).beginCopy(0b100);
+        Mockito.verify(fence).endCopy(0b100);
+    }
+
+    /**
+     * Tests that setting a {@link Bitmap} with the same resolution reuses the snapshots and
+     * discards the snapshot published from the previous {@link Bitmap}.
+     */
+    @Test
+    public void testSetSourceDiscardsPublishedSnapshot() {
+        final DisplayBuffer displayBuffer = createDisplayBuffer(createBitmap(), createFence(0, 0));
+
+        Assertions.assertThat(displayBuffer.publish(0b1))
+            .as("The DisplayBuffer#publish method")
+            .isTrue();
+        displayBuffer.setSource(createBitmap());
+
+        Assertions.assertThat(displayBuffer.getNumberOfFreeSnapshots())
+            .as("The number of free snapshots")
+            .isEqualTo(2);
+        Assertions.assertThat(displayBuffer.upload())
+            .as("The DisplayBuffer#upload method")
+            .isFalse();
+    }
+
+    /**
+     * Helper method which creates a {@link DisplayBuffer} with a {@link Bitmap}.
+     *
+     * @param bitmap The {@link Bitmap} where the scene is rendered.
+     * @param fence  The {@link DisplayBuffer.RowsFence} of the Ray Tracer engine.
+     * @return A new {@link DisplayBuffer}.
+     */
+    @NonNull
+    private static DisplayBuffer createDisplayBuffer(@NonNull final Bitmap bitmap,
+                                                     @NonNull final DisplayBuffer.RowsFence fence) {
+        final DisplayBuffer displayBuffer = new DisplayBuffer(fence);
+        displayBuffer.setSource(bitmap);
+        return displayBuffer;
+    }
+
+    /**
+     * Helper method which creates a mocked {@link DisplayBuffer.RowsFence}.
+     *
+     * @param busyRows    The rows of tiles with tiles being rendered before the copy.
+     * @param startedRows The rows of tiles where a tile is started during the copy.
+     * @return A new mocked {@link DisplayBuffer.RowsFence}.
+     */
+    @NonNull
+    private static DisplayBuffer.RowsFence createFence(final int busyRows, final int startedRows) {
+        final DisplayBuffer.RowsFence fence = Mockito.mock(DisplayBuffer.RowsFence.class);
+        Mockito.when(fence.beginCopy(ArgumentMatchers.anyInt()))
+            .thenAnswer(invocation -> (int) invocation.getArgument(0) & ~busyRows);
+        Mockito.when(fence.endCopy(ArgumentMatchers.anyInt()))
+            .thenAnswer(invocation -> (int) invocation.getArgument(0) & ~startedRows)
+            .thenAnswer(invocation -> invocation.getArgument(0));
+        return fence;
+    }
+
+    /**
+     * Helper method which creates a mocked {@link Bitmap}.
+     *
+     * @return A new mocked {@link Bitmap}.
+     */
+    @NonNull
+    private static Bitmap createBitmap() {
+        final Bitmap bitmap = Mockito.mock(Bitmap.class);
+        Mockito.when(bitmap.getWidth())
+            .thenReturn(SIZE);
+        Mockito.when(bitmap.getHeight())
+            .thenReturn(SIZE);
+        return bitmap;
+    }
+}
@@ -0,0 +1,252 @@
+package puscas.mobilertapp;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.powermock.api.support.membermodification.MemberModifier;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.rule.PowerMockRule;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import puscas.mobilertapp.configs.Config;
+import puscas.mobilertapp.configs.ConfigResolution;
+import puscas.mobilertapp.exceptions.LowMemoryException;
+
+/**
+ * The test suite for the {@link DrawView}.
+ */
+@PrepareForTest({MainActivity.class, DrawView.class, MainRenderer.class, Bitmap.class})
+public class DrawViewTest {
+
+    /**
+     * The {@link Rule} for the {@link MainActivity} for each test.
+     */
+    @Rule
+    public PowerMockRule rule = new PowerMockRule();
+
+    /**
+     * The threads where the {@link RenderSequencer} of the {@link DrawView} runs the requests.
+     */
+    private ExecutorService executor = null;
+
+    /**
+     * The steps of the requests run by the {@link DrawView}: {@code "wait"} when a request waits
+     * for the previous render and {@code "render"} when a render loads the scene.
+     */
+    private final List<String> steps = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * The number of requests in a step at the same time.
+     */
+    private final AtomicInteger activeSteps = new AtomicInteger(0);
+
+    /**
+     * The number of times that two requests were in a step at the same time.
+     */
+    private final AtomicInteger overlaps = new AtomicInteger(0);
+
+    /**
+     * The mocked {@link MainRenderer} of the {@link DrawView}.
+     */
+    private MainRenderer renderer = null;
+
+    /**
+     * The {@link RenderSequencer} of the {@link DrawView}.
+     */
+    private RenderSequencer sequencer = null;
+
+    /**
+     * The {@link DrawView} used in the tests.
+     */
+    private DrawView drawView = null;
+
+    /**
+     * Creates a {@link DrawView} with a mocked {@link MainRenderer} and without the native
+     * methods of the Ray Tracer engine.
+     *
+     * @throws LowMemoryException If the mock failed.
+     */
+    @Before
+    public void setUp() throws LowMemoryException {
+        MemberModifier.suppress(MemberModifier.method(MainActivity.class, "resetErrno"));
+        MemberModifier.suppress(MemberModifier.method(MainActivity.class, "showUiMessage"));
+        MemberModifier.suppress(MemberModifier.method(DrawView.class, "rtStopRender"));
+        MemberModifier.suppress(MemberModifier.method(DrawView.class, "rtStartRender"));
+        MemberModifier.suppress(MemberModifier.method(DrawView.class, "rtGetNumberOfLights"));
+        MemberModifier.suppress(MemberModifier.method(MainRenderer.class, "rtFinishRender"));
+
+        try (final MockedStatic<Bitmap> bitmapMockedStatic = Mockito.mockStatic(Bitmap.class)) {
+            final Bitmap bitmapMocked = Mockito.mock(Bitmap.class);
+            bitmapMockedStatic.when(() -> Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888))
+                .thenReturn(bitmapMocked);
+            Mockito.when(bitmapMocked.getWidth())
+                .thenReturn(1);
+            Mockito.when(bitmapMocked.getHeight())
+                .thenReturn(1);
+            this.drawView = new DrawView(Mockito.mock(Context.class));
+        }
+
+        this.renderer = Mockito.mock(MainRenderer.class);
+        Mockito.when(this.renderer.planMemoryBudget(
+            ArgumentMatchers.any(Config.class), ArgumentMatchers.any(ConfigResolution.class)))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+        Mockito.doAnswer(invocation -> step("wait"))
+            .when(this.renderer).waitLastTask();
+        Mockito.when(this.renderer.loadScene(ArgumentMatchers.any(Config.class)))
+            .thenAnswer(invocation -> step("render"));
+
+        this.executor = Executors.newFixedThreadPool(4);
+        this.sequencer = new RenderSequencer(this.executor);
+        UtilsT.setPrivateField(this.drawView, "renderer", this.renderer);
+        UtilsT.setPrivateField(this.drawView, "sequencer", this.sequencer);
+    }
+
+    /**
+     * Stops the threads used by the tests.
+     */
+    @After
+    public void tearDown() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Tests that {@link DrawView#renderScene(Config)} and {@link DrawView#stopDrawing()} return
+     * while the previous render is still finishing.
+     *
+     * @throws InterruptedException If the test was interrupted.
+     */
+    @Test(timeout = 60_000L)
+    public void testRenderAndStopDoNotBlock() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            release.await();
+            return step("wait");
+        }).when(this.renderer).waitLastTask();
+
+        this.drawView.renderScene(Config.builder().build());
+        this.drawView.stopDrawing();
+        this.drawView.renderScene(Config.builder().build());
+
+        Assertions.assertThat(this.steps)
+            .as("The steps which ran while the previous render is finishing")
+            .isEmpty();
+
+        release.countDown();
+        Assertions.assertThat(this.sequencer.awaitIdle(TimeUnit.SECONDS.toMillis(30L)))
+            .as("The requests finished")
+            .isTrue();
+        Assertions.assertThat(this.steps)
+            .as("The steps of the requests")
+            .endsWith("wait", "render");
+    }
+
+    /**
+     * Tests that many threads can request to render and stop at the same time, without the
+     * requests overlapping and with the last request always running last.
+     *
+     * @throws InterruptedException If the test was interrupted.
+     */
+    @Test(timeout = 60_000L)
+    public void testHammerRenderAndStop() throws InterruptedException {
+        final int numThreads = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < numThreads; ++i) {
+            final Random random = new Random(i);
+            final Thread thread = new Thread(() -> {
+                awaitQuietly(start);
+                for (int j = 0; j < 200; ++j) {
+                    if (random.nextBoolean()) {
+                        this.drawView.renderScene(Config.builder().build());
+                    } else {
+                        this.drawView.stopDrawing();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        this.drawView.renderScene(Config.builder().build());
+        Assertions.assertThat(this.sequencer.awaitIdle(TimeUnit.SECONDS.toMillis(30L)))
+            .as("The requests finished")
+            .isTrue();
+        Assertions.assertThat(this.steps)
+            .as("The steps when the last request is a render")
+            .endsWith("wait", "render");
+
+        final int renders = Collections.frequency(this.steps, "render");
+        this.drawView.stopDrawing();
+        Assertions.assertThat(this.sequencer.awaitIdle(TimeUnit.SECONDS.toMillis(30L)))
+            .as("The requests finished")
+            .isTrue();
+        Assertions.assertThat(this.steps)
+            .as("The steps when the last request is a stop")
+            .endsWith("render", "wait");
+        Assertions.assertThat(Collections.frequency(this.steps, "render"))
+            .as("The renders after the last stop")
+            .isEqualTo(renders);
+
+        Assertions.assertThat(this.overlaps.get())
+            .as("The number of overlapping requests")
+            .isZero();
+        Assertions.assertThat(this.sequencer.getSupersededRequests())
+            .as("The number of superseded requests")
+            .isPositive();
+    }
+
+    /**
+     * Helper method which records a step of a request and checks that no other request is in a
+     * step at the same time.
+     *
+     * @param name The name of the step.
+     * @return The number of primitives of the scene, for the {@link MainRenderer#loadScene}.
+     */
+    private int step(@NonNull final String name) {
+        if (this.activeSteps.incrementAndGet() > 1) {
+            this.overlaps.incrementAndGet();
+        }
+        Thread.yield();
+        this.steps.add(name);
+        this.activeSteps.decrementAndGet();
+        return 1;
+    }
+
+    /**
+     * Helper method that waits for a {@link CountDownLatch} and ignores the interruptions.
+     *
+     * @param latch The {@link CountDownLatch}.
+     */
+    private static void awaitQuietly(@NonNull final CountDownLatch latch) {
+        try {
+            latch.await(10L, TimeUnit.SECONDS);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -8,8 +8,6 @@ import android.opengl.GLES20;
 
 import androidx.annotation.NonNull;
 
-import com.google.common.util.concurrent.Uninterruptibles;
-
 import org.assertj.core.api.Assertions;
 import org.junit.Rule;
 import org.junit.Test;
@@ -30,6 +28,7 @@ import javax.microedition.khronos.opengles.GL10;
 
 import puscas.mobilertapp.configs.ConfigResolution;
 import puscas.mobilertapp.configs.ConfigSamples;
+import puscas.mobilertapp.constants.State;
 import puscas.mobilertapp.exceptions.FailureException;
 import puscas.mobilertapp.exceptions.LowMemoryException;
 
@@ -240,10 +239,13 @@ public class MainRendererTest {
     }
 
     /**
-     * Tests that the {@link MainRenderer#getState()} method will advance when the
+     * Tests that the {@link MainRenderer#getState()} method doesn't block while the 1st frame
+     * wasn't drawn yet, and that it stops reporting {@link State#BUSY} after the
      * {@link MainRenderer#onDrawFrame(GL10)} method is called for the 1st time.
+     *
+     * @throws InterruptedException If the test was interrupted.
      */
-    @Test
+    @Test(timeout = 60_000L)
     public void testGetStateWhileCallingOnDrawFrame() throws InterruptedException {
         MemberModifier.suppress(MemberModifier.method(MainActivity.class, "resetErrno"));
         MemberModifier.suppress(MemberModifier.method(MainActivity.class, "showUiMessage"));
@@ -251,25 +253,30 @@ public class MainRendererTest {
 
         final MainRenderer mainRenderer = createMainRenderer();
 
-        final Thread thread = new Thread(() -> {
-            Uninterruptibles.sleepUninterruptibly(1L, TimeUnit.SECONDS);
-            mainRenderer.onDrawFrame(Mockito.mock(GL10.class));
-        });
+        final Thread thread = new Thread(() -> mainRenderer.onDrawFrame(Mockito.mock(GL10.class)));
         Assertions.assertThat((boolean) UtilsT.getPrivateField(mainRenderer, "firstFrame"))
             .as("The 1st frame field")
             .isTrue();
 
-        thread.start();
-        mainRenderer.getState();
-
+        Assertions.assertThat(mainRenderer.getState())
+            .as("The state before the 1st frame")
+            .isEqualTo(State.BUSY);
         Assertions.assertThat((boolean) UtilsT.getPrivateField(mainRenderer, "firstFrame"))
             .as("The 1st frame field")
-            .isFalse();
+            .isTrue();
 
+        thread.start();
         thread.join();
         Assertions.assertThat(thread.isAlive())
             .as("The thread calling the MainRender#onDrawFrame method")
             .isFalse();
+
+        Assertions.assertThat((boolean) UtilsT.getPrivateField(mainRenderer, "firstFrame"))
+            .as("The 1st frame field")
+            .isFalse();
+        Assertions.assertThat(mainRenderer.getState())
+            .as("The state after the 1st frame")
+            .isNotEqualTo(State.BUSY);
     }
 
     /**
@@ -0,0 +1,116 @@
+package puscas.mobilertapp;
+
+import android.content.ComponentCallbacks2;
+
+import com.google.common.collect.ImmutableList;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java8.util.function.Consumer;
+
+/**
+ * The unit tests for the {@link MemoryTrimHandler} class.
+ */
+public class MemoryTrimHandlerTest {
+
+    /**
+     * Tests that each trim level releases the caches of its steps and of all the lower ones,
+     * in order.
+     */
+    @Test
+    public void testTrimLevels() {
+        final List<String> released = new ArrayList<>();
+        final MemoryTrimHandler handler = createHandler(released, Runnable::run);
+
+        handler.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+        Assertions.assertThat(released).as("The released caches").containsExactly("arrays");
+
+        released.clear();
+        handler.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+        Assertions.assertThat(released)
+            .as("The released caches")
+            .containsExactly("arrays", "programs", "bitmaps");
+
+        released.clear();
+        handler.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        Assertions.assertThat(released)
+            .as("The released caches")
+            .containsExactly("arrays", "programs", "bitmaps", "scenes");
+
+        released.clear();
+        handler.onLowMemory();
+        Assertions.assertThat(released)
+            .as("The released caches when the system is low on memory")
+            .containsExactly("arrays", "programs", "bitmaps", "scenes");
+    }
+
+    /**
+     * Tests that a trim level below all the steps doesn't release anything.
+     */
+    @Test
+    public void testTrimBelowAllSteps() {
+        final List<String> released = new ArrayList<>();
+        final MemoryTrimHandler handler = createHandler(released, Runnable::run);
+
+        Assertions.assertThat(handler.trim(0)).as("The released steps").isZero();
+        Assertions.assertThat(released).as("The released caches").isEmpty();
+    }
+
+    /**
+     * Tests that the caches are only released in the thread of the executor.
+     */
+    @Test
+    public void testTrimRunsInExecutor() {
+        final List<String> released = new ArrayList<>();
+        final List<Runnable> queue = new ArrayList<>();
+        final MemoryTrimHandler handler = createHandler(released, queue::add);
+
+        handler.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+        Assertions.assertThat(released).as("The caches released before the executor runs").isEmpty();
+        Assertions.assertThat(queue).as("The queued tasks").hasSize(1);
+
+        queue.get(0).run();
+        Assertions.assertThat(released)
+            .as("The released caches")
+            .containsExactly("arrays", "programs", "bitmaps", "scenes");
+    }
+
+    /**
+     * Helper method which creates a {@link MemoryTrimHandler} with the same steps as the
+     * {@link DrawView}, which record their names when they are released.
+     *
+     * @param released The list where the names of the released steps are added.
+     * @param executor The executor where the steps run.
+     * @return The {@link MemoryTrimHandler}.
+     */
+    private static MemoryTrimHandler createHandler(final List<String> released,
+                                                   final Consumer<Runnable> executor) {
+        final List<MemoryTrimHandler.Step> steps = ImmutableList.of(
+            step(released, "arrays", ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE),
+            step(released, "programs", ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW),
+            step(released, "bitmaps", ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL),
+            step(released, "scenes", ComponentCallbacks2.TRIM_MEMORY_BACKGROUND)
+        );
+        return new MemoryTrimHandler(steps, executor);
+    }
+
+    /**
+     * Helper method which creates a {@link MemoryTrimHandler.Step} which records its name when
+     * it is released.
+     *
+     * @param released The list where the name of the step is added.
+     * @param name     The name of the step.
+     * @param level    The minimum trim level of the step.
+     * @return The {@link MemoryTrimHandler.Step}.
+     */
+    private static MemoryTrimHandler.Step step(final List<String> released, final String name, final int level) {
+        return new MemoryTrimHandler.Step(name, level, () -> {
+            released.add(name);
+            return 1;
+        });
+    }
+}
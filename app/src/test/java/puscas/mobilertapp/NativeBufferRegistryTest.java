@@ -0,0 +1,105 @@
+package puscas.mobilertapp;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import puscas.mobilertapp.exceptions.LowMemoryException;
+
+/**
+ * The test suite for the {@link NativeBufferRegistry} class.
+ */
+public class NativeBufferRegistryTest {
+
+    /**
+     * The buffers freed by the {@link NativeBufferRegistry} in the tests.
+     */
+    private final List<ByteBuffer> freedBuffers = new ArrayList<>();
+
+    /**
+     * The {@link NativeBufferRegistry} used in the tests.
+     */
+    private final NativeBufferRegistry registry = new NativeBufferRegistry(buffer -> {
+        this.freedBuffers.add(buffer);
+        return null;
+    });
+
+    /**
+     * Tests that a released buffer is reused by the next acquire of the same scene.
+     *
+     * @throws LowMemoryException If the buffer couldn't be created.
+     */
+    @Test
+    public void testAcquireReusesBuffers() throws LowMemoryException {
+        this.registry.setScene("scene");
+        final ByteBuffer buffer = this.registry.acquire("vertices", () -> ByteBuffer.allocateDirect(1));
+        this.registry.release(buffer);
+
+        Assertions.assertThat(this.registry.acquire("vertices", () -> ByteBuffer.allocateDirect(1)))
+            .as("The reused buffer")
+            .isSameAs(buffer);
+        Assertions.assertThat(this.registry.getHits())
+            .as("The number of reused buffers")
+            .isEqualTo(1L);
+        Assertions.assertThat(this.registry.getMisses())
+            .as("The number of created buffers")
+            .isEqualTo(1L);
+        Assertions.assertThat(this.freedBuffers)
+            .as("The freed buffers")
+            .isEmpty();
+    }
+
+    /**
+     * Tests that the buffers of a previous scene are freed when the scene changes, but only after
+     * the last reference is released.
+     *
+     * @throws LowMemoryException If the buffer couldn't be created.
+     */
+    @Test
+    public void testSetSceneFreesBuffers() throws LowMemoryException {
+        this.registry.setScene("scene");
+        final ByteBuffer released = this.registry.acquire("colors", () -> ByteBuffer.allocateDirect(1));
+        this.registry.release(released);
+        final ByteBuffer referenced = this.registry.acquire("vertices", () -> ByteBuffer.allocateDirect(1));
+
+        this.registry.setScene("other scene");
+        Assertions.assertThat(this.freedBuffers)
+            .as("The freed buffers after changing the scene")
+            .containsExactly(released);
+        Assertions.assertThat(this.registry.size())
+            .as("The number of buffers of the new scene")
+            .isZero();
+
+        this.registry.release(referenced);
+        Assertions.assertThat(this.freedBuffers)
+            .as("The freed buffers after releasing the last reference")
+            .containsExactly(released, referenced);
+    }
+
+    /**
+     * Tests that the {@link NativeBufferRegistry#trim()} method only frees the buffers which are
+     * not referenced.
+     *
+     * @throws LowMemoryException If the buffer couldn't be created.
+     */
+    @Test
+    public void testTrim() throws LowMemoryException {
+        this.registry.setScene("scene");
+        final ByteBuffer released = this.registry.acquire("colors", () -> ByteBuffer.allocateDirect(1));
+        this.registry.release(released);
+        this.registry.acquire("vertices", () -> ByteBuffer.allocateDirect(1));
+
+        Assertions.assertThat(this.registry.trim())
+            .as("The number of freed buffers")
+            .isEqualTo(1);
+        Assertions.assertThat(this.freedBuffers)
+            .as("The freed buffers")
+            .containsExactly(released);
+        Assertions.assertThat(this.registry.size())
+            .as("The number of buffers still referenced")
+            .isEqualTo(1);
+    }
+}
@@ -0,0 +1,144 @@
+package puscas.mobilertapp;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+import puscas.mobilertapp.constants.Constants;
+
+/**
+ * The test suite for the {@link PreviewGeometry} class.
+ */
+public class PreviewGeometryTest {
+
+    /**
+     * Tests that the {@link PreviewGeometry#deduplicate(IntBuffer, int, int, IntBuffer)} method removes
+     * the duplicated vertices and references the unique ones in the indices.
+     */
+    @Test
+    public void testDeduplicate() {
+        final int components = 2;
+        final int[] vertices = {
+            1, 2,
+            3, 4,
+            1, 2,
+            5, 6,
+            3, 4,
+            1, 2,
+        };
+        final int numVertices = vertices.length / components;
+        final IntBuffer data = IntBuffer.wrap(vertices);
+        final int[] indices = new int[numVertices];
+
+        final int numUnique = PreviewGeometry.deduplicate(data, components, numVertices, IntBuffer.wrap(indices));
+
+        Assertions.assertThat(numUnique)
+            .as("The number of unique vertices")
+            .isEqualTo(3);
+        Assertions.assertThat(Arrays.copyOf(vertices, numUnique * components))
+            .as("The unique vertices")
+            .containsExactly(1, 2, 3, 4, 5, 6);
+        Assertions.assertThat(indices)
+            .as("The indices of the vertices")
+            .containsExactly(0, 1, 0, 2, 1, 0);
+    }
+
+    /**
+     * Tests that the {@link PreviewGeometry#deduplicate(IntBuffer, int, int, IntBuffer)} method keeps all
+     * the vertices when there are no duplicated ones, even when there are hash collisions.
+     */
+    @Test
+    public void testDeduplicateWithoutDuplicates() {
+        final int components = 1;
+        final int numVertices = 1000;
+        final int[] vertices = new int[numVertices];
+        for (int i = 0; i < numVertices; ++i) {
+            vertices[i] = i * 1024;
+        }
+        final int[] indices = new int[numVertices];
+
+        final int numUnique = PreviewGeometry.deduplicate(IntBuffer.wrap(vertices), components,
+            numVertices, IntBuffer.wrap(indices));
+
+        Assertions.assertThat(numUnique)
+            .as("The number of unique vertices")
+            .isEqualTo(numVertices);
+        for (int i = 0; i < numVertices; ++i) {
+            Assertions.assertThat(indices[i])
+                .as("The index of the vertex")
+                .isEqualTo(i);
+        }
+    }
+
+    /**
+     * Tests that the {@link PreviewGeometry#upload(String, ByteBuffer, ByteBuffer, float[])}
+     * method removes the duplicated vertices of the scene, with its data in direct buffers.
+     */
+    @Test
+    public void testUpload() {
+        final int numVertices = 10_000;
+        final ByteBuffer bbVertices = ByteBuffer.allocateDirect(numVertices * 2 * Integer.BYTES)
+            .order(ByteOrder.nativeOrder());
+        final ByteBuffer bbColors = ByteBuffer.allocateDirect(numVertices * Integer.BYTES)
+            .order(ByteOrder.nativeOrder());
+        for (int vertex = 0; vertex < numVertices; ++vertex) {
+            bbVertices.putInt(vertex % 100).putInt(0);
+            bbColors.putInt(vertex % 3 == 0 ? 0xFF0000FF : 0xFF00FF00);
+        }
+        final PreviewGeometry previewGeometry = new PreviewGeometry();
+
+        previewGeometry.upload("scene", bbVertices, bbColors, new float[] {0, 0, 0, 1, 1, 1});
+
+        Assertions.assertThat(previewGeometry.isUploaded("scene"))
+            .as("The PreviewGeometry#isUploaded method")
+            .isTrue();
+        Assertions.assertThat(previewGeometry.getNumVertices())
+            .as("The number of vertices")
+            .isEqualTo(numVertices);
+        Assertions.assertThat(previewGeometry.getNumUniqueVertices())
+            .as("The number of unique vertices")
+            .isEqualTo(200);
+    }
+
+    /**
+     * Tests that a new {@link PreviewGeometry} doesn't have the geometry of any scene.
+     */
+    @Test
+    public void testIsUploaded() {
+        final PreviewGeometry previewGeometry = new PreviewGeometry();
+
+        Assertions.assertThat(previewGeometry.isUploaded(""))
+            .as("The PreviewGeometry#isUploaded method")
+            .isFalse();
+        Assertions.assertThat(previewGeometry.getNumUniqueVertices())
+            .as("The number of unique vertices")
+            .isZero();
+    }
+
+    /**
+     * Tests that the {@link PreviewGeometry#estimateUploadMegabytes(int)} method grows with the
+     * number of triangles and rounds up the direct buffers estimated by
+     * {@link PreviewGeometry#estimateUploadBytes(long)}.
+     */
+    @Test
+    public void testEstimateUploadMegabytes() {
+        final int numPrimitives = 1_000_000;
+
+        Assertions.assertThat(PreviewGeometry.estimateUploadMegabytes(0))
+            .as("The memory needed for an empty scene")
+            .isPositive();
+        Assertions.assertThat(PreviewGeometry.estimateUploadMegabytes(numPrimitives))
+            .as("The memory needed for a scene with more triangles")
+            .isGreaterThan(PreviewGeometry.estimateUploadMegabytes(numPrimitives / 2));
+        final long uploadBytes = PreviewGeometry.estimateUploadBytes(numPrimitives);
+        final long uploadMegabytes = PreviewGeometry.estimateUploadMegabytes(numPrimitives);
+        Assertions.assertThat(uploadMegabytes * Constants.BYTES_IN_MEGABYTE)
+            .as("The memory needed to upload the geometry")
+            .isGreaterThan(uploadBytes)
+            .isLessThanOrEqualTo(uploadBytes + Constants.BYTES_IN_MEGABYTE);
+    }
+}
@@ -0,0 +1,207 @@
+package puscas.mobilertapp;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The unit tests for the {@link RenderSequencer} class.
+ */
+public class RenderSequencerTest {
+
+    /**
+     * The maximum time, in milliseconds, to wait for the requests.
+     */
+    private static final long TIMEOUT = 10_000L;
+
+    /**
+     * The threads where the requests run, like the background threads of the
+     * {@code RenderScheduler}.
+     */
+    private ExecutorService executor = null;
+
+    /**
+     * Setup method called before each test.
+     */
+    @Before
+    public void setUp() {
+        this.executor = Executors.newFixedThreadPool(2);
+    }
+
+    /**
+     * Tear down method called after each test.
+     */
+    @After
+    public void tearDown() {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Tests that submitting a request doesn't wait for the request which is running.
+     *
+     * @throws InterruptedException If the test was interrupted.
+     */
+    @Test(timeout = TIMEOUT)
+    public void testSubmitDoesNotBlock() throws InterruptedException {
+        final RenderSequencer sequencer = new RenderSequencer(this.executor);
+        final CountDownLatch running = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger lastRequest = new AtomicInteger(0);
+
+        sequencer.submit("slow", generation -> {
+            running.countDown();
+            awaitQuietly(release);
+            lastRequest.set(1);
+        });
+        running.await();
+
+        final long start = System.nanoTime();
+        sequencer.submit("next", generation -> lastRequest.set(2));
+        final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Assertions.assertThat(elapsed)
+            .as("The time to submit a request while another one is running")
+            .isLessThan(1_000L);
+        Assertions.assertThat(lastRequest.get())
+            .as("The new request shouldn't run before the running one finishes")
+            .isZero();
+
+        release.countDown();
+        Assertions.assertThat(sequencer.awaitIdle(TIMEOUT)).as("The requests finished").isTrue();
+        Assertions.assertThat(lastRequest.get())
+            .as("The new request should run after the running one")
+            .isEqualTo(2);
+    }
+
+    /**
+     * Tests that the requests which didn't run yet are superseded by a newer one.
+     *
+     * @throws InterruptedException If the test was interrupted.
+     */
+    @Test(timeout = TIMEOUT)
+    public void testSupersededRequests() throws InterruptedException {
+        final RenderSequencer sequencer = new RenderSequencer(this.executor);
+        final CountDownLatch running = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger runs = new AtomicInteger(0);
+
+        final long first = sequencer.submit("first", generation -> {
+            running.countDown();
+            awaitQuietly(release);
+            runs.incrementAndGet();
+        });
+        running.await();
+        sequencer.submit("second", generation -> runs.incrementAndGet());
+        final long third = sequencer.submit("third", generation -> runs.incrementAndGet());
+
+        Assertions.assertThat(sequencer.isSuperseded(first)).as("The running request is superseded").isTrue();
+        Assertions.assertThat(sequencer.isSuperseded(third)).as("The newest request is superseded").isFalse();
+
+        release.countDown();
+        Assertions.assertThat(sequencer.awaitIdle(TIMEOUT)).as("The requests finished").isTrue();
+        Assertions.assertThat(runs.get()).as("The requests which ran").isEqualTo(2);
+        Assertions.assertThat(sequencer.getSupersededRequests()).as("The superseded requests").isEqualTo(1L);
+    }
+
+    /**
+     * Stress test which hammers the {@link RenderSequencer} with requests to render and stop
+     * from many threads, while a fake slow Ray Tracer engine is running.
+     * The requests should never run at the same time, submitting them should never block and the
+     * last request should always be the last one to run.
+     *
+     * @throws InterruptedException If the test was interrupted.
+     */
+    @Test(timeout = TIMEOUT * 3)
+    public void testHammerRenderAndStop() throws InterruptedException {
+        final RenderSequencer sequencer = new RenderSequencer(this.executor);
+        final int numThreads = 8;
+        final int requestsPerThread = 500;
+        final AtomicInteger concurrentRuns = new AtomicInteger(0);
+        final AtomicInteger maxConcurrentRuns = new AtomicInteger(0);
+        final AtomicInteger runs = new AtomicInteger(0);
+        final AtomicLong lastRunGeneration = new AtomicLong(0L);
+        final AtomicLong maxSubmitTime = new AtomicLong(0L);
+        final RenderSequencer.Request fakeEngine = generation -> {
+            maxConcurrentRuns.accumulateAndGet(concurrentRuns.incrementAndGet(), Math::max);
+            // Like the render, it stops early when a newer request arrives.
+            for (int i = 0; i < 100 && !sequencer.isSuperseded(generation); ++i) {
+                sleepQuietly();
+            }
+            runs.incrementAndGet();
+            lastRunGeneration.set(generation);
+            concurrentRuns.decrementAndGet();
+        };
+
+        final ExecutorService uiThreads = Executors.newFixedThreadPool(numThreads);
+        final CountDownLatch startLine = new CountDownLatch(1);
+        for (int thread = 0; thread < numThreads; ++thread) {
+            uiThreads.execute(() -> {
+                awaitQuietly(startLine);
+                for (int i = 0; i < requestsPerThread; ++i) {
+                    final String name = i % 2 == 0 ? "renderScene" : "stopDrawing";
+                    final long start = System.nanoTime();
+                    sequencer.submit(name, fakeEngine);
+                    maxSubmitTime.accumulateAndGet(System.nanoTime() - start, Math::max);
+                }
+            });
+        }
+        startLine.countDown();
+        uiThreads.shutdown();
+        Assertions.assertThat(uiThreads.awaitTermination(TIMEOUT, TimeUnit.MILLISECONDS))
+            .as("All the requests were submitted")
+            .isTrue();
+        final long last = sequencer.submit("stopDrawing", fakeEngine);
+
+        Assertions.assertThat(sequencer.awaitIdle(TIMEOUT)).as("The requests finished").isTrue();
+        final long submitted = (long) numThreads * requestsPerThread + 1L;
+        Assertions.assertThat(last).as("The generation of the last request").isEqualTo(submitted);
+        Assertions.assertThat(maxConcurrentRuns.get())
+            .as("The requests should never run at the same time")
+            .isEqualTo(1);
+        Assertions.assertThat(lastRunGeneration.get())
+            .as("The last request should be the last one to run")
+            .isEqualTo(last);
+        Assertions.assertThat(runs.get() + sequencer.getSupersededRequests())
+            .as("Each request either ran or was superseded")
+            .isEqualTo(submitted);
+        Assertions.assertThat(sequencer.getSupersededRequests())
+            .as("Most of the requests should be superseded")
+            .isGreaterThan(submitted / 2L);
+        Assertions.assertThat(TimeUnit.NANOSECONDS.toMillis(maxSubmitTime.get()))
+            .as("The maximum time to submit a request")
+            .isLessThan(1_000L);
+    }
+
+    /**
+     * Helper method which waits for a {@link CountDownLatch} without throwing.
+     *
+     * @param latch The {@link CountDownLatch}.
+     */
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Helper method which sleeps for 1 millisecond without throwing, like a slow Ray Tracer
+     * engine.
+     */
+    private static void sleepQuietly() {
+        try {
+            Thread.sleep(1L);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package puscas.mobilertapp;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import puscas.mobilertapp.constants.State;
+import puscas.mobilertapp.metrics.MemoryReport;
+
+/**
+ * The test suite for the {@link RenderStats} class.
+ */
+public class RenderStatsTest {
+
+    /**
+     * Tests that the {@link RenderStats} reads the values with the layout written by the Ray
+     * Tracer engine.
+     */
+    @Test
+    public void testReadStats() {
+        final RenderStats stats = new RenderStats();
+        final ByteBuffer buffer = stats.getBuffer();
+
+        Assertions.assertThat(buffer.isDirect())
+            .as("The buffer should be direct")
+            .isTrue();
+        Assertions.assertThat(buffer.capacity())
+            .as("The size of the buffer")
+            .isEqualTo(RenderStats.SIZE);
+        Assertions.assertThat(buffer.order())
+            .as("The byte order of the buffer")
+            .isEqualTo(ByteOrder.nativeOrder());
+
+        buffer.putLong(RenderStats.OFFSET_TIME_RENDERER, 1234L);
+        buffer.putLong(RenderStats.OFFSET_CASTED_RAYS, 5_000_000_000L);
+        buffer.putLong(RenderStats.OFFSET_INTERSECTED_PRIMITIVES, 4_000_000_000L);
+        buffer.putLong(RenderStats.OFFSET_ALLOCATED_BYTES, 1024L * 1024L);
+        buffer.putFloat(RenderStats.OFFSET_FPS, 2.5F);
+        buffer.putInt(RenderStats.OFFSET_SAMPLE, 7);
+        buffer.putInt(RenderStats.OFFSET_STATE, State.BUSY.getId());
+
+        Assertions.assertThat(stats.getTimeRenderer()).as("The time of the renderer").isEqualTo(1234L);
+        Assertions.assertThat(stats.getCastedRays()).as("The casted rays").isEqualTo(5_000_000_000L);
+        Assertions.assertThat(stats.getIntersectedPrimitives()).as("The intersected primitives").isEqualTo(4_000_000_000L);
+        Assertions.assertThat(stats.getAllocatedBytes()).as("The allocated bytes").isEqualTo(1024L * 1024L);
+        Assertions.assertThat(stats.getFps()).as("The fps").isEqualTo(2.5F);
+        Assertions.assertThat(stats.getSample()).as("The sample").isEqualTo(7);
+        Assertions.assertThat(stats.getState()).as("The state").isEqualTo(State.BUSY);
+    }
+
+    /**
+     * Tests that the {@link RenderStats} reads the memory counters of each subsystem of the Ray
+     * Tracer engine into a {@link MemoryReport}.
+     */
+    @Test
+    public void testReadMemory() {
+        final RenderStats stats = new RenderStats();
+        final ByteBuffer buffer = stats.getBuffer();
+        buffer.putLong(RenderStats.OFFSET_GEOMETRY_BYTES, 100L);
+        buffer.putLong(RenderStats.OFFSET_ACCELERATOR_BYTES, 200L);
+        buffer.putLong(RenderStats.OFFSET_MATERIALS_BYTES, 300L);
+        buffer.putLong(RenderStats.OFFSET_ACCUMULATION_BYTES, 400L);
+        buffer.putLong(RenderStats.OFFSET_PREVIEW_BYTES, 500L);
+
+        final MemoryReport report = stats.addMemoryTo(MemoryReport.builder()).bitmapBytes(600L).build();
+
+        Assertions.assertThat(report.getGeometryBytes()).as("The geometry").isEqualTo(100L);
+        Assertions.assertThat(report.getAcceleratorBytes()).as("The acceleration structure").isEqualTo(200L);
+        Assertions.assertThat(report.getMaterialsBytes()).as("The materials").isEqualTo(300L);
+        Assertions.assertThat(report.getAccumulationBytes()).as("The accumulation buffer").isEqualTo(400L);
+        Assertions.assertThat(report.getPreviewBytes()).as("The preview arrays").isEqualTo(500L);
+        Assertions.assertThat(report.getBitmapBytes()).as("The bitmaps").isEqualTo(600L);
+        Assertions.assertThat(report.getNativeBytes()).as("The native memory").isEqualTo(1500L);
+    }
+
+    /**
+     * Tests that the {@link RenderStats} reads the peaks of the memory counters of the Ray Tracer
+     * engine into a {@link MemoryReport}, after the last field of the layout.
+     */
+    @Test
+    public void testReadPeakMemory() {
+        final RenderStats stats = new RenderStats();
+        final ByteBuffer buffer = stats.getBuffer();
+        buffer.putLong(RenderStats.OFFSET_PREVIEW_BYTES, 1L);
+        buffer.putLong(RenderStats.OFFSET_PEAK_GEOMETRY_BYTES, 100L);
+        buffer.putLong(RenderStats.OFFSET_PEAK_ACCELERATOR_BYTES, 200L);
+        buffer.putLong(RenderStats.OFFSET_PEAK_MATERIALS_BYTES, 300L);
+        buffer.putLong(RenderStats.OFFSET_PEAK_ACCUMULATION_BYTES, 400L);
+        buffer.putLong(RenderStats.OFFSET_PEAK_PREVIEW_BYTES, 500L);
+
+        final MemoryReport peak = stats.addPeakMemoryTo(MemoryReport.builder()).build();
+
+        Assertions.assertThat(RenderStats.OFFSET_PEAK_PREVIEW_BYTES + Long.BYTES)
+            .as("The end of the layout")
+            .isEqualTo(RenderStats.SIZE);
+        Assertions.assertThat(peak.getGeometryBytes()).as("The peak geometry").isEqualTo(100L);
+        Assertions.assertThat(peak.getAcceleratorBytes()).as("The peak acceleration structure").isEqualTo(200L);
+        Assertions.assertThat(peak.getMaterialsBytes()).as("The peak materials").isEqualTo(300L);
+        Assertions.assertThat(peak.getAccumulationBytes()).as("The peak accumulation buffer").isEqualTo(400L);
+        Assertions.assertThat(peak.getPreviewBytes()).as("The peak preview arrays").isEqualTo(500L);
+        Assertions.assertThat(stats.addMemoryTo(MemoryReport.builder()).build().getPreviewBytes())
+            .as("The current preview arrays")
+            .isEqualTo(1L);
+    }
+}
@@ -0,0 +1,42 @@
+package puscas.mobilertapp.configs;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import puscas.mobilertapp.constants.ToneMap;
+
+/**
+ * The test suite for {@link ConfigToneMap} class.
+ */
+public class ConfigToneMapTest {
+
+    /**
+     * Tests the default values of {@link ConfigToneMap}, which shouldn't change the colors.
+     */
+    @Test
+    public void testDefaultConfigToneMap() {
+        final ConfigToneMap configToneMap = ConfigToneMap.builder().build();
+        Assertions.assertThat(configToneMap.getExposure())
+            .as("The default exposure")
+            .isEqualTo(1.0F);
+        Assertions.assertThat(configToneMap.getGamma())
+            .as("The default gamma")
+            .isEqualTo(1.0F);
+        Assertions.assertThat(configToneMap.getToneMap())
+            .as("The default tone mapping operator")
+            .isEqualTo(ToneMap.NONE);
+    }
+
+    /**
+     * Tests the {@link ConfigToneMap#builder()#toString()} method in the builder class of {@link ConfigToneMap}.
+     */
+    @Test
+    public void testConfigToneMapBuilderToString() {
+        final String configToneMapBuilderStr = ConfigToneMap.builder().toString();
+        Assertions.assertThat(configToneMapBuilderStr)
+            .as("The toString of ConfigToneMap.builder()")
+            .isNotNull()
+            .isInstanceOf(String.class);
+    }
+
+}
@@ -0,0 +1,72 @@
+package puscas.mobilertapp.metrics;
+
+import org.assertj.core.api.Assertions;
+import org.assertj.core.data.Percentage;
+import org.junit.Test;
+
+/**
+ * The test suite for the {@link LatencyHistogram} class.
+ */
+public class LatencyHistogramTest {
+
+    /**
+     * Tests that the percentiles are within the precision of the buckets.
+     */
+    @Test
+    public void testPercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1L; value <= 10_000L; ++value) {
+            histogram.record(value * 1000L);
+        }
+
+        Assertions.assertThat(histogram.getCount()).as("The number of values").isEqualTo(10_000L);
+        Assertions.assertThat(histogram.getMax()).as("The maximum").isEqualTo(10_000_000L);
+        Assertions.assertThat(histogram.getValueAtPercentile(50.0))
+            .as("The median")
+            .isCloseTo(5_000_000L, Percentage.withPercentage(100.0 / LatencyHistogram.SUB_BUCKET_COUNT));
+        Assertions.assertThat(histogram.getValueAtPercentile(99.0))
+            .as("The 99th percentile")
+            .isCloseTo(9_900_000L, Percentage.withPercentage(100.0 / LatencyHistogram.SUB_BUCKET_COUNT));
+        Assertions.assertThat(histogram.getValueAtPercentile(100.0))
+            .as("The 100th percentile")
+            .isEqualTo(10_000_000L);
+    }
+
+    /**
+     * Tests that the small values are recorded exactly and that the negative values are recorded
+     * as {@code 0}.
+     */
+    @Test
+    public void testSmallValues() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5L);
+        histogram.record(3L);
+        histogram.record(31L);
+
+        Assertions.assertThat(histogram.getValueAtPercentile(0.0)).as("The minimum").isZero();
+        Assertions.assertThat(histogram.getValueAtPercentile(50.0)).as("The median").isEqualTo(3L);
+        Assertions.assertThat(histogram.getValueAtPercentile(100.0)).as("The maximum").isEqualTo(31L);
+
+        histogram.reset();
+        Assertions.assertThat(histogram.getCount()).as("The number of values after reset").isZero();
+        Assertions.assertThat(histogram.getValueAtPercentile(99.0)).as("The 99th percentile after reset").isZero();
+    }
+
+    /**
+     * Tests that each value belongs to a bucket whose highest value is not lower than it and that
+     * the buckets cover all the positive {@code long} values.
+     */
+    @Test
+    public void testBuckets() {
+        final long[] values = {0L, 1L, 31L, 32L, 33L, 1000L, 123_456_789L, Long.MAX_VALUE};
+        for (final long value : values) {
+            final long highest = LatencyHistogram.highestEquivalentValue(LatencyHistogram.bucketIndex(value));
+            Assertions.assertThat(highest)
+                .as("The highest value of the bucket of " + value)
+                .isGreaterThanOrEqualTo(value);
+            Assertions.assertThat(highest - value)
+                .as("The error of the bucket of " + value)
+                .isLessThanOrEqualTo(value / LatencyHistogram.SUB_BUCKET_COUNT);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package puscas.mobilertapp.metrics;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * The test suite for the {@link MemoryReport} class.
+ */
+public class MemoryReportTest {
+
+    /**
+     * Tests that the native memory only sums the categories of the Ray Tracer engine, and the
+     * total memory sums all of them.
+     */
+    @Test
+    public void testTotals() {
+        final MemoryReport report = MemoryReport.builder()
+            .geometryBytes(1L)
+            .acceleratorBytes(2L)
+            .materialsBytes(4L)
+            .accumulationBytes(8L)
+            .previewBytes(16L)
+            .bitmapBytes(32L)
+            .javaHeapBytes(64L)
+            .build();
+
+        Assertions.assertThat(report.getNativeBytes()).as("The native memory").isEqualTo(31L);
+        Assertions.assertThat(report.getTotalBytes()).as("The total memory").isEqualTo(127L);
+    }
+
+    /**
+     * Tests that the largest category is the one with more memory, and the first one on ties.
+     */
+    @Test
+    public void testLargestCategory() {
+        Assertions.assertThat(MemoryReport.builder().build().getLargestCategory())
+            .as("The largest category without memory")
+            .isEqualTo("geometry");
+        Assertions.assertThat(MemoryReport.builder().acceleratorBytes(10L).bitmapBytes(20L).build().getLargestCategory())
+            .as("The largest category")
+            .isEqualTo("bitmaps");
+        Assertions.assertThat(MemoryReport.builder().materialsBytes(20L).javaHeapBytes(20L).build().getLargestCategory())
+            .as("The largest category on a tie")
+            .isEqualTo("materials");
+    }
+
+    /**
+     * Tests that the maximum of two reports is taken for each category.
+     */
+    @Test
+    public void testMax() {
+        final MemoryReport first = MemoryReport.builder().geometryBytes(10L).previewBytes(3L).build();
+        final MemoryReport second = MemoryReport.builder().geometryBytes(5L).previewBytes(7L).build();
+
+        final MemoryReport max = first.max(second);
+
+        Assertions.assertThat(max.getGeometryBytes()).as("The geometry").isEqualTo(10L);
+        Assertions.assertThat(max.getPreviewBytes()).as("The preview arrays").isEqualTo(7L);
+        Assertions.assertThat(max.getAcceleratorBytes()).as("The acceleration structure").isZero();
+        Assertions.assertThat(MemoryReport.getUsedJavaHeap()).as("The used Java heap").isPositive();
+    }
+}
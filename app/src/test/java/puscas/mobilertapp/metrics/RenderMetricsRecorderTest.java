@@ -0,0 +1,77 @@
+package puscas.mobilertapp.metrics;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * The test suite for the {@link RenderMetricsRecorder} class.
+ */
+public class RenderMetricsRecorderTest {
+
+    /**
+     * Tests that the time of each sample is recorded, even when more than one sample finished
+     * between two polls, and that the peak native heap is kept.
+     */
+    @Test
+    public void testRecord() {
+        final RenderMetricsRecorder recorder = new RenderMetricsRecorder();
+        recorder.start(123L, 1000L);
+        recorder.record(0, 10L, 1050L);
+        recorder.record(1, 30L, 1100L);
+        recorder.record(1, 20L, 1150L);
+        recorder.record(3, 20L, 1300L);
+
+        final RenderMetrics metrics = recorder.addTo(RenderMetrics.builder().castedRays(600L)).build();
+
+        Assertions.assertThat(metrics.getTimestamp()).as("The timestamp").isEqualTo(123L);
+        Assertions.assertThat(metrics.getSamples()).as("The rendered samples").isEqualTo(3);
+        Assertions.assertThat(metrics.getRenderTime()).as("The render time").isEqualTo(300L);
+        Assertions.assertThat(metrics.getSampleTimes()).as("The time of each sample")
+            .containsExactly(100L, 100L, 100L);
+        Assertions.assertThat(metrics.getPeakNativeHeap()).as("The peak native heap").isEqualTo(30L);
+        Assertions.assertThat(metrics.getRaysPerSecond()).as("The rays per second").isEqualTo(2000.0);
+        Assertions.assertThat(metrics.getSamplesPerSecond()).as("The samples per second").isEqualTo(10.0);
+    }
+
+    /**
+     * Tests that starting a new render clears the recorded metrics.
+     */
+    @Test
+    public void testStartClears() {
+        final RenderMetricsRecorder recorder = new RenderMetricsRecorder();
+        recorder.start(0L, 0L);
+        recorder.record(2, 100L, 50L);
+        recorder.start(0L, 100L);
+
+        final RenderMetrics metrics = recorder.addTo(RenderMetrics.builder()).build();
+
+        Assertions.assertThat(metrics.getSamples()).as("The rendered samples").isZero();
+        Assertions.assertThat(metrics.getSampleTimes()).as("The time of each sample").isEmpty();
+        Assertions.assertThat(metrics.getPeakNativeHeap()).as("The peak native heap").isZero();
+        Assertions.assertThat(metrics.getRaysPerSecond()).as("The rays per second").isZero();
+    }
+
+    /**
+     * Tests that the peak of each memory category is kept, even if they happened at different
+     * times, and that starting a new render clears them.
+     */
+    @Test
+    public void testRecordMemory() {
+        final RenderMetricsRecorder recorder = new RenderMetricsRecorder();
+        recorder.start(0L, 0L);
+        recorder.recordMemory(MemoryReport.builder().geometryBytes(100L).javaHeapBytes(10L).build());
+        recorder.recordMemory(MemoryReport.builder().geometryBytes(50L).accumulationBytes(400L).build());
+
+        final MemoryReport peak = recorder.addTo(RenderMetrics.builder()).build().getPeakMemory();
+
+        Assertions.assertThat(peak.getGeometryBytes()).as("The peak geometry").isEqualTo(100L);
+        Assertions.assertThat(peak.getAccumulationBytes()).as("The peak accumulation buffer").isEqualTo(400L);
+        Assertions.assertThat(peak.getJavaHeapBytes()).as("The peak Java heap").isEqualTo(10L);
+        Assertions.assertThat(peak.getLargestCategory()).as("The largest category").isEqualTo("accumulation");
+
+        recorder.start(0L, 0L);
+        Assertions.assertThat(recorder.addTo(RenderMetrics.builder()).build().getPeakMemory().getTotalBytes())
+            .as("The peak memory after starting a new render")
+            .isZero();
+    }
+}
@@ -0,0 +1,176 @@
+package puscas.mobilertapp.metrics;
+
+import com.google.common.collect.ImmutableList;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * The test suite for the {@link RenderMetricsWriter} class.
+ */
+public class RenderMetricsWriterTest {
+
+    /**
+     * The temporary folder where the metrics files are written.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The {@link RenderMetrics} used in the tests.
+     */
+    private final RenderMetrics metrics = RenderMetrics.builder()
+        .timestamp(1600000000000L)
+        .scene("Cornell")
+        .shader("Whitted")
+        .accelerator("BVH")
+        .width(320)
+        .height(240)
+        .threads(4)
+        .samplesPixel(2)
+        .samplesLight(1)
+        .primitives(34)
+        .lights(2)
+        .samples(2)
+        .rendererTime(15L)
+        .renderTime(500L)
+        .sampleTimes(ImmutableList.of(200L, 300L))
+        .castedRays(1000L)
+        .intersectedPrimitives(800L)
+        .peakNativeHeap(4096L)
+        .state("FINISHED")
+        .build();
+
+    /**
+     * Tests that the CSV file has the header only in the first line and one line per render.
+     *
+     * @throws IOException If the file couldn't be written or read.
+     */
+    @Test
+    public void testWriteCsv() throws IOException {
+        final File file = new File(this.folder.getRoot(), "metrics.csv");
+        final RenderMetricsWriter writer = new RenderMetricsWriter(file, MetricsFormat.CSV);
+
+        writer.write(this.metrics);
+        writer.write(this.metrics);
+
+        final String line = RenderMetricsWriter.SCHEMA_VERSION
+            + ",1600000000000,Cornell,Whitted,BVH,320,240,4,2,1,34,2,2,15,500,1000,800,"
+            + "2000.000,4.000,4096,FINISHED,200;300,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,geometry";
+        Assertions.assertThat(readLines(file))
+            .as("The lines of the CSV file")
+            .containsExactly(RenderMetricsWriter.CSV_HEADER, line, line);
+        Assertions.assertThat(RenderMetricsWriter.CSV_HEADER.split(",", -1))
+            .as("The columns of the header")
+            .hasSameSizeAs(line.split(",", -1));
+    }
+
+    /**
+     * Tests that the JSON lines file has one object per render.
+     *
+     * @throws IOException If the file couldn't be written or read.
+     */
+    @Test
+    public void testWriteJsonLines() throws IOException {
+        final File file = new File(this.folder.getRoot(), "metrics.jsonl");
+        final RenderMetricsWriter writer = new RenderMetricsWriter(file, MetricsFormat.JSON_LINES);
+
+        writer.write(this.metrics);
+        writer.write(this.metrics.toBuilder().scene("My \"scene\"").sampleTimes(ImmutableList.of()).build());
+
+        final List<String> lines = readLines(file);
+        Assertions.assertThat(lines)
+            .as("The lines of the JSON lines file")
+            .hasSize(2);
+        Assertions.assertThat(lines.get(0))
+            .as("The first JSON object")
+            .startsWith("{\"schemaVersion\":" + RenderMetricsWriter.SCHEMA_VERSION
+                + ",\"timestamp\":1600000000000,\"scene\":\"Cornell\",\"shader\":\"Whitted\"")
+            .contains(",\"raysPerSecond\":2000.000,\"samplesPerSecond\":4.000,")
+            .contains(",\"state\":\"FINISHED\",\"sampleTimesMs\":[200,300],")
+            .endsWith("}");
+        Assertions.assertThat(lines.get(1))
+            .as("The second JSON object")
+            .contains("\"scene\":\"My \\\"scene\\\"\"")
+            .contains("\"sampleTimesMs\":[],");
+    }
+
+    /**
+     * Tests that the texts with separators are quoted in a CSV line.
+     */
+    @Test
+    public void testCsvQuotesText() {
+        final String line = RenderMetricsWriter.toCsv(this.metrics.toBuilder().scene("a,\"b\"").build());
+
+        Assertions.assertThat(line)
+            .as("The CSV line")
+            .startsWith(RenderMetricsWriter.SCHEMA_VERSION + ",1600000000000,\"a,\"\"b\"\"\",Whitted,");
+    }
+
+    /**
+     * Tests that an existing file written with another schema is rotated, so the new lines are
+     * written to a new file with the current header, while a file with the same schema is
+     * appended to.
+     *
+     * @throws IOException If the files couldn't be written or read.
+     */
+    @Test
+    public void testRotatesFileWithOtherSchema() throws IOException {
+        final File file = new File(this.folder.getRoot(), "metrics.csv");
+        final String oldHeader = "timestamp,scene,state";
+        Files.write(file.toPath(), ImmutableList.of(oldHeader, "1,Cornell,FINISHED"), Charset.forName("UTF-8"));
+        new File(this.folder.getRoot(), "metrics-1.csv").createNewFile();
+
+        new RenderMetricsWriter(file, MetricsFormat.CSV).write(this.metrics);
+        new RenderMetricsWriter(file, MetricsFormat.CSV).write(this.metrics);
+
+        final File rotated = new File(this.folder.getRoot(), "metrics-2.csv");
+        Assertions.assertThat(readLines(rotated))
+            .as("The lines of the rotated file")
+            .containsExactly(oldHeader, "1,Cornell,FINISHED");
+        Assertions.assertThat(readLines(file))
+            .as("The lines of the new file")
+            .hasSize(3)
+            .startsWith(RenderMetricsWriter.CSV_HEADER);
+    }
+
+    /**
+     * Tests that the schema of the first line of a file is checked for each format.
+     */
+    @Test
+    public void testHasSameSchema() {
+        final String json = RenderMetricsWriter.toJson(this.metrics);
+
+        Assertions.assertThat(RenderMetricsWriter.hasSameSchema(RenderMetricsWriter.CSV_HEADER, MetricsFormat.CSV))
+            .as("The current CSV header")
+            .isTrue();
+        Assertions.assertThat(RenderMetricsWriter.hasSameSchema("timestamp,scene", MetricsFormat.CSV))
+            .as("An old CSV header")
+            .isFalse();
+        Assertions.assertThat(RenderMetricsWriter.hasSameSchema(json, MetricsFormat.JSON_LINES))
+            .as("The current JSON object")
+            .isTrue();
+        Assertions.assertThat(RenderMetricsWriter.hasSameSchema("{\"timestamp\":1}", MetricsFormat.JSON_LINES))
+            .as("An old JSON object")
+            .isFalse();
+    }
+
+    /**
+     * Helper method that reads the lines of a file.
+     *
+     * @param file The file.
+     * @return The lines of the file.
+     * @throws IOException If the file couldn't be read.
+     */
+    private static List<String> readLines(final File file) throws IOException {
+        return Files.readAllLines(file.toPath(), Charset.forName("UTF-8"));
+    }
+}
@@ -0,0 +1,143 @@
+package puscas.mobilertapp.metrics;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The test suite for the {@link TraceRecorder} class.
+ */
+public class TraceRecorderTest {
+
+    /**
+     * Tests that the spans are written as Chrome trace-event complete events, with the name of
+     * each thread written only once.
+     *
+     * @throws IOException If the trace couldn't be written.
+     */
+    @Test
+    public void testWriteChromeTrace() throws IOException {
+        final TraceRecorder recorder = new TraceRecorder(4);
+        recorder.record("rtInitialize", 1_000_500L, 2_000_000L, 7L, "main");
+        recorder.record("drawBitmap", 3_000_000L, 1_234L, 7L, "main");
+
+        final StringWriter writer = new StringWriter();
+        recorder.writeChromeTrace(writer, 42);
+
+        Assertions.assertThat(writer.toString())
+            .as("The Chrome trace")
+            .isEqualTo("{\"traceEvents\":["
+                + "{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":42,\"tid\":7,\"args\":{\"name\":\"main\"}},"
+                + "{\"name\":\"rtInitialize\",\"cat\":\"MobileRT\",\"ph\":\"X\",\"ts\":1000.500,\"dur\":2000.000,\"pid\":42,\"tid\":7},"
+                + "{\"name\":\"drawBitmap\",\"cat\":\"MobileRT\",\"ph\":\"X\",\"ts\":3000.000,\"dur\":1.234,\"pid\":42,\"tid\":7}"
+                + "],\"displayTimeUnit\":\"ms\"}");
+    }
+
+    /**
+     * Tests that the oldest spans are overwritten when the ring buffer is full.
+     *
+     * @throws IOException If the trace couldn't be written.
+     */
+    @Test
+    public void testRingBufferOverwritesOldestSpans() throws IOException {
+        final TraceRecorder recorder = new TraceRecorder(2);
+        recorder.record("first", 0L, 1L, 1L, "main");
+        recorder.record("second", 1L, 1L, 1L, "main");
+        recorder.record("third", 2L, 1L, 2L, "worker");
+
+        Assertions.assertThat(recorder.size())
+            .as("The number of spans")
+            .isEqualTo(2);
+
+        final StringWriter writer = new StringWriter();
+        recorder.writeChromeTrace(writer, 1);
+        final String trace = writer.toString();
+        Assertions.assertThat(trace)
+            .as("The Chrome trace")
+            .doesNotContain("\"first\"")
+            .contains("\"worker\"");
+        Assertions.assertThat(trace.indexOf("\"second\""))
+            .as("The position of the oldest span")
+            .isLessThan(trace.indexOf("\"third\""));
+
+        recorder.clear();
+        Assertions.assertThat(recorder.size())
+            .as("The number of spans after clearing")
+            .isZero();
+    }
+
+    /**
+     * Tests that the spans can be recorded while the trace is being written, because the I/O
+     * isn't done while holding the lock of the ring buffer.
+     *
+     * @throws Exception If the threads failed or were interrupted.
+     */
+    @Test(timeout = 10_000L)
+    public void testRecordWhileWriting() throws Exception {
+        final TraceRecorder recorder = new TraceRecorder(4);
+        recorder.record("first", 0L, 1L, 1L, "main");
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch recorded = new CountDownLatch(1);
+        final Writer blockingWriter = new StringWriter() {
+            @Override
+            public void write(final String str) {
+                writing.countDown();
+                try {
+                    recorded.await();
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                super.write(str);
+            }
+        };
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<?> trace = executor.submit(() -> {
+                recorder.writeChromeTrace(blockingWriter, 1);
+                return null;
+            });
+            writing.await();
+
+            recorder.record("second", 1L, 1L, 1L, "main");
+            recorded.countDown();
+            trace.get();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertThat(recorder.size())
+            .as("The number of spans")
+            .isEqualTo(2);
+        Assertions.assertThat(blockingWriter.toString())
+            .as("The Chrome trace with the spans recorded before writing")
+            .contains("\"first\"")
+            .doesNotContain("\"second\"");
+    }
+
+    /**
+     * Tests that no span is recorded while the {@link TraceRecorder} is disabled.
+     */
+    @Test
+    public void testDisabled() {
+        final TraceRecorder recorder = new TraceRecorder(2);
+        recorder.setEnabled(false);
+        recorder.end("span", recorder.begin());
+
+        Assertions.assertThat(recorder.size())
+            .as("The number of spans")
+            .isZero();
+
+        recorder.setEnabled(true);
+        recorder.end("span", recorder.begin());
+        Assertions.assertThat(recorder.size())
+            .as("The number of spans")
+            .isEqualTo(1);
+    }
+}
@@ -0,0 +1,252 @@
+package puscas.mobilertapp.utils;
+
+import androidx.annotation.NonNull;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import kotlin.Unit;
+import kotlinx.coroutines.CoroutineDispatcher;
+import kotlinx.coroutines.Deferred;
+import kotlinx.coroutines.ExecutorsKt;
+
+/**
+ * The test suite for the {@link AsyncTaskCoroutine} class.
+ */
+public class AsyncTaskCoroutineTest {
+
+    /**
+     * The thread which plays the role of the UI thread in the tests.
+     */
+    private final ExecutorService uiExecutor = Executors.newSingleThreadExecutor();
+
+    /**
+     * The threads which play the role of the background threads in the tests.
+     */
+    private final ExecutorService backgroundExecutor = Executors.newFixedThreadPool(2);
+
+    /**
+     * The callbacks of the task, in the order they were called.
+     */
+    private final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * Stops the threads used by the tests.
+     */
+    @After
+    public void tearDown() {
+        this.uiExecutor.shutdownNow();
+        this.backgroundExecutor.shutdownNow();
+    }
+
+    /**
+     * Tests that cancelling a task calls {@link AsyncTaskCoroutine#onCancelled()} right away and
+     * only once.
+     */
+    @Test
+    public void testCancel() {
+        final AsyncTaskCoroutine task = new TestTask();
+
+        Assertions.assertThat(task.isCancelled())
+            .as("The task shouldn't start cancelled")
+            .isFalse();
+
+        task.cancel();
+        task.cancel();
+
+        Assertions.assertThat(task.isCancelled())
+            .as("The task should be cancelled")
+            .isTrue();
+        Assertions.assertThat(this.calls)
+            .as("The calls to onCancelled")
+            .containsExactly("onCancelled");
+    }
+
+    /**
+     * Tests that a failure in {@link AsyncTaskCoroutine#doInBackground()} completes the task
+     * with the exception and skips {@link AsyncTaskCoroutine#onPostExecute()}.
+     *
+     * @throws InterruptedException If the test was interrupted.
+     */
+    @Test(timeout = 10_000L)
+    public void testFailureSkipsOnPostExecute() throws InterruptedException {
+        final AsyncTaskCoroutine task = new TestTask() {
+            @Override
+            protected void doInBackground() {
+                super.doInBackground();
+                throw new IllegalStateException("doInBackground failed");
+            }
+        };
+
+        final Deferred<Unit> deferred = task.executeAsync();
+        awaitCompletion(deferred);
+
+        Assertions.assertThat(deferred.getCompletionExceptionOrNull())
+            .as("The failure of the task")
+            .isInstanceOf(IllegalStateException.class);
+        Assertions.assertThat(this.calls)
+            .as("The callbacks of the task")
+            .containsExactly("onPreExecute", "doInBackground");
+    }
+
+    /**
+     * Tests that cancelling a running task cancels its coroutines, but
+     * {@link AsyncTaskCoroutine#onPostExecute()} still runs after
+     * {@link AsyncTaskCoroutine#doInBackground()} returns.
+     *
+     * @throws InterruptedException If the test was interrupted.
+     */
+    @Test(timeout = 10_000L)
+    public void testCancelWhileRunning() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        final AsyncTaskCoroutine task = new TestTask() {
+            @Override
+            protected void doInBackground() {
+                started.countDown();
+                awaitQuietly(cancelled);
+                super.doInBackground();
+            }
+
+            @Override
+            protected void onCancelled() {
+                super.onCancelled();
+                cancelled.countDown();
+            }
+        };
+
+        final Deferred<Unit> deferred = task.executeAsync();
+        started.await();
+        task.cancel();
+        awaitCompletion(deferred);
+        task.waitToFinish();
+
+        Assertions.assertThat(deferred.isCancelled())
+            .as("The coroutine of the task is cancelled")
+            .isTrue();
+        Assertions.assertThat(this.calls)
+            .as("The callbacks of the task")
+            .containsExactly("onPreExecute", "onCancelled", "doInBackground", "onPostExecute");
+    }
+
+    /**
+     * Tests that a task executed after a previous one only starts when the
+     * {@link AsyncTaskCoroutine#doInBackground()} of the previous task returns, without blocking
+     * the thread which executes it.
+     *
+     * @throws InterruptedException If the test was interrupted.
+     */
+    @Test(timeout = 10_000L)
+    public void testExecuteAfterPreviousTask() throws InterruptedException {
+        final CountDownLatch previousStarted = new CountDownLatch(1);
+        final CountDownLatch previousReleased = new CountDownLatch(1);
+        final AsyncTaskCoroutine previousTask = new TestTask() {
+            @Override
+            protected void doInBackground() {
+                previousStarted.countDown();
+                awaitQuietly(previousReleased);
+                super.doInBackground();
+            }
+        };
+        final AsyncTaskCoroutine nextTask = new TestTask() {
+            @Override
+            protected void onPreExecute() {
+                AsyncTaskCoroutineTest.this.calls.add("next onPreExecute");
+            }
+        };
+
+        final Deferred<Unit> previousDeferred = previousTask.executeAsync();
+        previousStarted.await();
+        final Deferred<Unit> nextDeferred = nextTask.executeAfter(previousTask);
+
+        Assertions.assertThat(nextDeferred.isCompleted())
+            .as("The next task waits for the previous one")
+            .isFalse();
+
+        previousReleased.countDown();
+        awaitCompletion(previousDeferred);
+        awaitCompletion(nextDeferred);
+
+        Assertions.assertThat(this.calls.indexOf("next onPreExecute"))
+            .as("The next task starts after the previous one")
+            .isGreaterThan(this.calls.indexOf("doInBackground"));
+    }
+
+    /**
+     * Helper method that waits for a {@link Deferred} to complete.
+     *
+     * @param deferred The {@link Deferred}.
+     * @throws InterruptedException If the test was interrupted.
+     */
+    private static void awaitCompletion(@NonNull final Deferred<Unit> deferred) throws InterruptedException {
+        while (!deferred.isCompleted()) {
+            Thread.sleep(1L);
+        }
+    }
+
+    /**
+     * Helper method that waits for a {@link CountDownLatch} and ignores the interruptions.
+     *
+     * @param latch The {@link CountDownLatch}.
+     */
+    private static void awaitQuietly(@NonNull final CountDownLatch latch) {
+        try {
+            latch.await(10L, TimeUnit.SECONDS);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * An {@link AsyncTaskCoroutine} which records its callbacks in {@link #calls} and runs in the
+     * threads of the test.
+     */
+    private class TestTask extends AsyncTaskCoroutine {
+
+        @NonNull
+        @Override
+        protected CoroutineDispatcher getUiDispatcher() {
+            return ExecutorsKt.from(AsyncTaskCoroutineTest.this.uiExecutor);
+        }
+
+        @NonNull
+        @Override
+        protected CoroutineDispatcher getBackgroundDispatcher() {
+            return ExecutorsKt.from(AsyncTaskCoroutineTest.this.backgroundExecutor);
+        }
+
+        @Override
+        protected void onPreExecute() {
+            AsyncTaskCoroutineTest.this.calls.add("onPreExecute");
+        }
+
+        @Override
+        protected void doInBackground() {
+            AsyncTaskCoroutineTest.this.calls.add("doInBackground");
+        }
+
+        @Override
+        protected void onProgressUpdate() {
+            AsyncTaskCoroutineTest.this.calls.add("onProgressUpdate");
+        }
+
+        @Override
+        protected void onPostExecute() {
+            AsyncTaskCoroutineTest.this.calls.add("onPostExecute");
+        }
+
+        @Override
+        protected void onCancelled() {
+            AsyncTaskCoroutineTest.this.calls.add("onCancelled");
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package puscas.mobilertapp.utils;
+
+import android.graphics.Bitmap;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+/**
+ * The unit tests for the {@link BitmapPool} class.
+ */
+public class BitmapPoolTest {
+
+    /**
+     * The maximum size, in bytes, of the pools used by the tests.
+     */
+    private static final long MAX_BYTES = 1024L * 1024L;
+
+    /**
+     * Tests that a released {@link Bitmap} with the same resolution and {@link Bitmap.Config} is
+     * reused instead of creating a new one.
+     */
+    @Test
+    public void testReusesSameResolution() {
+        final BitmapPool pool = new BitmapPool(MAX_BYTES, true);
+        final Bitmap bitmap = mockBitmap(100, 50);
+
+        try (final MockedStatic<Bitmap> bitmapMockedStatic = Mockito.mockStatic(Bitmap.class)) {
+            bitmapMockedStatic.when(() -> Bitmap.createBitmap(100, 50, Bitmap.Config.ARGB_8888))
+                .thenReturn(bitmap);
+
+            Assertions.assertThat(pool.acquire(100, 50, Bitmap.Config.ARGB_8888)).as("The created bitmap").isSameAs(bitmap);
+            pool.release(bitmap);
+            Assertions.assertThat(pool.size()).as("The bitmaps in the pool").isEqualTo(1);
+            Assertions.assertThat(pool.acquire(100, 50, Bitmap.Config.ARGB_8888)).as("The reused bitmap").isSameAs(bitmap);
+
+            bitmapMockedStatic.verify(() -> Bitmap.createBitmap(100, 50, Bitmap.Config.ARGB_8888), Mockito.times(1));
+        }
+        Assertions.assertThat(pool.getHits()).as("The hits").isEqualTo(1L);
+        Assertions.assertThat(pool.getMisses()).as("The misses").isEqualTo(1L);
+        Assertions.assertThat(pool.size()).as("The bitmaps in the pool").isZero();
+        Mockito.verify(bitmap, Mockito.never()).reconfigure(ArgumentMatchers.anyInt(), ArgumentMatchers.anyInt(),
+            ArgumentMatchers.any(Bitmap.Config.class));
+    }
+
+    /**
+     * Tests that a bigger released {@link Bitmap} is reconfigured to a smaller resolution.
+     */
+    @Test
+    public void testReconfiguresBiggerBitmap() {
+        final BitmapPool pool = new BitmapPool(MAX_BYTES, true);
+        final Bitmap bitmap = mockBitmap(100, 100);
+        pool.release(bitmap);
+
+        Assertions.assertThat(pool.acquire(50, 80, Bitmap.Config.ARGB_8888)).as("The reused bitmap").isSameAs(bitmap);
+
+        Mockito.verify(bitmap).reconfigure(50, 80, Bitmap.Config.ARGB_8888);
+        Assertions.assertThat(pool.getHits()).as("The hits").isEqualTo(1L);
+        Assertions.assertThat(pool.getFreeBytes()).as("The free bytes").isZero();
+    }
+
+    /**
+     * Tests that the {@link Bitmap}s are not reconfigured if the Android version doesn't support
+     * it, nor if they are too small.
+     */
+    @Test
+    public void testDoesNotReconfigure() {
+        final BitmapPool oldAndroid = new BitmapPool(MAX_BYTES, false);
+        final BitmapPool pool = new BitmapPool(MAX_BYTES, true);
+        oldAndroid.release(mockBitmap(100, 100));
+        pool.release(mockBitmap(10, 10));
+
+        try (final MockedStatic<Bitmap> bitmapMockedStatic = Mockito.mockStatic(Bitmap.class)) {
+            final Bitmap created = mockBitmap(50, 50);
+            bitmapMockedStatic.when(() -> Bitmap.createBitmap(50, 50, Bitmap.Config.ARGB_8888))
+                .thenReturn(created);
+
+            Assertions.assertThat(oldAndroid.acquire(50, 50, Bitmap.Config.ARGB_8888))
+                .as("The bitmap without reconfigure")
+                .isSameAs(created);
+            Assertions.assertThat(pool.acquire(50, 50, Bitmap.Config.ARGB_8888))
+                .as("The bitmap when the pool only has smaller ones")
+                .isSameAs(created);
+        }
+        Assertions.assertThat(oldAndroid.size()).as("The bitmaps in the pool").isEqualTo(1);
+        Assertions.assertThat(pool.size()).as("The bitmaps in the pool").isEqualTo(1);
+    }
+
+    /**
+     * Tests that the least recently released {@link Bitmap}s are recycled when the pool gets
+     * bigger than its maximum size.
+     */
+    @Test
+    public void testEvictsLeastRecentlyReleased() {
+        final Bitmap first = mockBitmap(10, 10);
+        final Bitmap second = mockBitmap(10, 10);
+        final Bitmap third = mockBitmap(10, 10);
+        final BitmapPool pool = new BitmapPool(2L * first.getAllocationByteCount(), true);
+
+        pool.release(first);
+        pool.release(second);
+        pool.release(third);
+
+        Assertions.assertThat(pool.size()).as("The bitmaps in the pool").isEqualTo(2);
+        Assertions.assertThat(pool.getFreeBytes())
+            .as("The free bytes")
+            .isEqualTo(2L * first.getAllocationByteCount());
+        Mockito.verify(first).recycle();
+        Mockito.verify(second, Mockito.never()).recycle();
+        Mockito.verify(third, Mockito.never()).recycle();
+        Assertions.assertThat(pool.acquire(10, 10, Bitmap.Config.ARGB_8888))
+            .as("The most recently released bitmap")
+            .isSameAs(third);
+    }
+
+    /**
+     * Tests that the recycled, immutable and already released {@link Bitmap}s are not kept in the
+     * pool.
+     */
+    @Test
+    public void testIgnoresInvalidBitmaps() {
+        final BitmapPool pool = new BitmapPool(MAX_BYTES, true);
+        final Bitmap recycled = mockBitmap(10, 10);
+        Mockito.when(recycled.isRecycled()).thenReturn(true);
+        final Bitmap immutable = mockBitmap(10, 10);
+        Mockito.when(immutable.isMutable()).thenReturn(false);
+        final Bitmap bitmap = mockBitmap(10, 10);
+
+        pool.release(null);
+        pool.release(recycled);
+        pool.release(immutable);
+        pool.release(bitmap);
+        pool.release(bitmap);
+
+        Assertions.assertThat(pool.size()).as("The bitmaps in the pool").isEqualTo(1);
+    }
+
+    /**
+     * Tests that trimming the pool recycles all the released {@link Bitmap}s.
+     */
+    @Test
+    public void testTrim() {
+        final BitmapPool pool = new BitmapPool(MAX_BYTES, true);
+        final Bitmap first = mockBitmap(10, 10);
+        final Bitmap second = mockBitmap(20, 20);
+        pool.release(first);
+        pool.release(second);
+
+        Assertions.assertThat(pool.trim()).as("The recycled bitmaps").isEqualTo(2);
+
+        Mockito.verify(first).recycle();
+        Mockito.verify(second).recycle();
+        Assertions.assertThat(pool.size()).as("The bitmaps in the pool").isZero();
+        Assertions.assertThat(pool.getFreeBytes()).as("The free bytes").isZero();
+    }
+
+    /**
+     * Helper method which creates a mocked mutable {@link Bitmap}.
+     *
+     * @param width  The width of the {@link Bitmap}.
+     * @param height The height of the {@link Bitmap}.
+     * @return A new mocked {@link Bitmap}.
+     */
+    private static Bitmap mockBitmap(final int width, final int height) {
+        final Bitmap bitmap = Mockito.mock(Bitmap.class);
+        Mockito.when(bitmap.getWidth()).thenReturn(width);
+        Mockito.when(bitmap.getHeight()).thenReturn(height);
+        Mockito.when(bitmap.getConfig()).thenReturn(Bitmap.Config.ARGB_8888);
+        Mockito.when(bitmap.isMutable()).thenReturn(true);
+        Mockito.when(bitmap.getAllocationByteCount()).thenReturn(width * height * 4);
+        Mockito.when(bitmap.getByteCount()).thenReturn(width * height * 4);
+        return bitmap;
+    }
+}
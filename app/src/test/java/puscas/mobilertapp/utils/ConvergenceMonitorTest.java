@@ -0,0 +1,169 @@
+package puscas.mobilertapp.utils;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import puscas.mobilertapp.configs.ConfigConvergence;
+
+/**
+ * The unit tests for the {@link ConvergenceMonitor} class.
+ */
+public class ConvergenceMonitorTest {
+
+    /**
+     * The width of the images.
+     */
+    private static final int WIDTH = 64;
+
+    /**
+     * The height of the images.
+     */
+    private static final int HEIGHT = 32;
+
+    /**
+     * The {@link ConfigConvergence} used by the tests.
+     */
+    private static final ConfigConvergence CONFIG = ConfigConvergence.builder()
+        .enabled(true)
+        .threshold(0.01F)
+        .minSamples(4)
+        .minChecks(4)
+        .build();
+
+    /**
+     * Tests that the image never converges if the {@link ConvergenceMonitor} is disabled, and that
+     * the image isn't read.
+     */
+    @Test
+    public void testDisabled() {
+        final ConvergenceMonitor monitor = new ConvergenceMonitor(WIDTH, HEIGHT, ConfigConvergence.builder().build());
+        final AtomicInteger linesRead = new AtomicInteger(0);
+
+        for (int sample = 1; sample < 10; ++sample) {
+            Assertions.assertThat(monitor.update(sample, (y, line) -> linesRead.incrementAndGet()))
+                .as("A disabled monitor never converges")
+                .isFalse();
+        }
+        Assertions.assertThat(linesRead.get()).as("The lines read").isZero();
+        Assertions.assertThat(monitor.getSavedSamples(10)).as("The saved samples").isZero();
+    }
+
+    /**
+     * Tests that an image which doesn't change converges, but only after the minimum number of
+     * samples.
+     */
+    @Test
+    public void testConvergesAfterMinSamples() {
+        final ConvergenceMonitor monitor = new ConvergenceMonitor(WIDTH, HEIGHT, CONFIG);
+        final ConvergenceMonitor.PixelReader image = (y, line) -> Arrays.fill(line, 0xFF808080);
+
+        Assertions.assertThat(monitor.update(0, image)).as("No sample rendered yet").isFalse();
+        Assertions.assertThat(monitor.update(1, image)).as("The first check").isFalse();
+        Assertions.assertThat(monitor.update(2, image)).as("Before the minimum samples").isFalse();
+        Assertions.assertThat(monitor.getError()).as("The error of an image without changes").isZero();
+        Assertions.assertThat(monitor.update(2, image)).as("The same sample isn't checked again").isFalse();
+        Assertions.assertThat(monitor.update(4, image)).as("At the minimum samples").isTrue();
+
+        Assertions.assertThat(monitor.getConvergedSample()).as("The converged sample").isEqualTo(4);
+        Assertions.assertThat(monitor.getSavedSamples(100)).as("The saved samples").isEqualTo(96);
+        Assertions.assertThat(monitor.getSavedSamples(2)).as("The saved samples").isZero();
+    }
+
+    /**
+     * Tests that an image rendered like the Ray Tracer engine does, with the average of noisy
+     * samples kept with 8 bits per channel, only converges once the standard error of the average
+     * gets below the threshold, even though the 8 bits average barely changes long before that.
+     */
+    @Test
+    public void testConvergesWithTheStandardError() {
+        final ConvergenceMonitor monitor = new ConvergenceMonitor(WIDTH, HEIGHT, CONFIG);
+        final Random random = new Random(0L);
+        final int[] averages = new int[WIDTH * HEIGHT];
+        final ConvergenceMonitor.PixelReader image = (y, line) -> {
+            for (int x = 0; x < WIDTH; ++x) {
+                line[x] = gray(averages[y * WIDTH + x]);
+            }
+        };
+
+        int convergedSample = 0;
+        for (int sample = 1; sample <= 10_000 && convergedSample == 0; ++sample) {
+            for (int pixel = 0; pixel < averages.length; ++pixel) {
+                // Like the incremental average of the Ray Tracer engine.
+                final int value = (int) ((0.2F + 0.4F * random.nextFloat()) * 255);
+                averages[pixel] = ((sample - 1) * averages[pixel] + value) / sample;
+            }
+            if (monitor.update(sample, image)) {
+                convergedSample = sample;
+            }
+        }
+
+        // The samples have a relative standard deviation of 0.29, so the relative standard error
+        // of the average is 0.01 after about 830 samples, or later because the truncated average
+        // drifts down.
+        Assertions.assertThat(convergedSample)
+            .as("The sample where the image converged")
+            .isBetween(500, 5000);
+        Assertions.assertThat(monitor.getError())
+            .as("The error of the converged image")
+            .isLessThanOrEqualTo(CONFIG.getThreshold());
+    }
+
+    /**
+     * Tests that a single tile which is still changing prevents the image from converging.
+     */
+    @Test
+    public void testNoisyTilePreventsConvergence() {
+        final ConvergenceMonitor monitor = new ConvergenceMonitor(WIDTH, HEIGHT, CONFIG);
+        final int[] sampleValue = {0};
+        final ConvergenceMonitor.PixelReader image = (y, line) -> {
+            Arrays.fill(line, gray(100));
+            if (y == 0) {
+                line[0] = gray(sampleValue[0] % 2 == 0 ? 50 : 150);
+            }
+        };
+
+        for (int sample = 1; sample < 50; ++sample) {
+            sampleValue[0] = sample;
+            Assertions.assertThat(monitor.update(sample, image))
+                .as("The image shouldn't converge while a tile changes")
+                .isFalse();
+        }
+        Assertions.assertThat(monitor.getError())
+            .as("The error of the image")
+            .isGreaterThan(CONFIG.getThreshold());
+    }
+
+    /**
+     * Tests that only a sparse grid of a big image is read in each check.
+     */
+    @Test
+    public void testReadsSparseGrid() {
+        final int width = 1024;
+        final int height = 1024;
+        final ConvergenceMonitor monitor = new ConvergenceMonitor(width, height, CONFIG);
+        final AtomicInteger linesRead = new AtomicInteger(0);
+
+        monitor.update(1, (y, line) -> {
+            Assertions.assertThat(y).as("The line read").isBetween(0, height - 1);
+            linesRead.incrementAndGet();
+        });
+
+        Assertions.assertThat((long) linesRead.get() * linesRead.get())
+            .as("The number of pixels of the grid")
+            .isLessThanOrEqualTo(ConvergenceMonitor.MAX_SAMPLED_PIXELS);
+    }
+
+    /**
+     * Helper method which creates an opaque gray color.
+     *
+     * @param value The value of each color channel.
+     * @return The color.
+     */
+    private static int gray(final int value) {
+        return 0xFF000000 | (value << 16) | (value << 8) | value;
+    }
+}
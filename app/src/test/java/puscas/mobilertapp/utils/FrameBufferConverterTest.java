@@ -0,0 +1,258 @@
+package puscas.mobilertapp.utils;
+
+import androidx.annotation.NonNull;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.java.Log;
+
+/**
+ * The unit tests for the {@link FrameBufferConverter} class.
+ */
+@Log
+public final class FrameBufferConverterTest {
+
+    /**
+     * The width of the {@link android.view.View} used to calculate the resolutions of the
+     * benchmark.
+     */
+    private static final int VIEW_WIDTH = 1080;
+
+    /**
+     * The height of the {@link android.view.View} used to calculate the resolutions of the
+     * benchmark.
+     */
+    private static final int VIEW_HEIGHT = 1920;
+
+    /**
+     * The number of conversions measured for each resolution in the benchmark.
+     */
+    private static final int REPETITIONS = 5;
+
+    /**
+     * The minimum speedup of the {@link FrameBufferConverter} over the previous pixel by pixel
+     * conversion at the biggest resolution of the benchmark.
+     * It is conservative, so the benchmark doesn't fail on a busy machine with only one core.
+     */
+    private static final double MIN_SPEEDUP = 1.2;
+
+    /**
+     * The {@link RenderScheduler} with the threads shared by the {@link FrameBufferConverter}s.
+     */
+    private RenderScheduler scheduler = null;
+
+    /**
+     * Creates the {@link RenderScheduler} used by each test.
+     */
+    @Before
+    public void setUp() {
+        this.scheduler = new RenderScheduler(Runnable::run, RenderScheduler.DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Stops the threads of the {@link RenderScheduler} used by each test.
+     */
+    @After
+    public void tearDown() {
+        this.scheduler.shutdown();
+    }
+
+    /**
+     * Tests that the {@link FrameBufferConverter#convertPixel(int)} method swaps the red and
+     * blue channels.
+     */
+    @Test
+    public void testConvertPixel() {
+        Assertions.assertThat(FrameBufferConverter.convertPixel(0x11223344))
+            .as("The converted pixel")
+            .isEqualTo(0x11443322);
+    }
+
+    /**
+     * Tests that the {@link FrameBufferConverter} converts the pixels exactly like the previous
+     * pixel by pixel conversion, for images smaller and bigger than the previous one.
+     */
+    @Test
+    public void testConvert() {
+        final FrameBufferConverter converter =
+            new FrameBufferConverter(this.scheduler.getComputeExecutor(), 4);
+        for (final int[] resolution : new int[][]{{3, 5}, {320, 480}, {16, 16}, {640, 959}}) {
+            final int width = resolution[0];
+            final int height = resolution[1];
+            final int[] openGlPixels = createOpenGlPixels(width, height);
+
+            final int[] expected = convertPixelByPixel(openGlPixels, width, height);
+            final int[] actual = convert(converter, openGlPixels, width, height);
+
+            Assertions.assertThat(Arrays.copyOf(actual, width * height))
+                .as("The converted pixels for " + width + 'x' + height)
+                .isEqualTo(expected);
+        }
+    }
+
+    /**
+     * Tests that the {@link FrameBufferConverter} converts all the lines in the calling thread
+     * when the shared threads reject its tasks.
+     */
+    @Test
+    public void testConvertWithBusyThreads() {
+        final ExecutorService busyExecutor = Mockito.mock(ExecutorService.class);
+        Mockito.when(busyExecutor.submit(ArgumentMatchers.any(Runnable.class)))
+            .thenThrow(new RejectedExecutionException("busy"));
+        final FrameBufferConverter converter = new FrameBufferConverter(busyExecutor, 4);
+        final int width = 320;
+        final int height = 480;
+        final int[] openGlPixels = createOpenGlPixels(width, height);
+
+        final int[] actual = convert(converter, openGlPixels, width, height);
+
+        Assertions.assertThat(Arrays.copyOf(actual, width * height))
+            .as("The converted pixels")
+            .isEqualTo(convertPixelByPixel(openGlPixels, width, height));
+    }
+
+    /**
+     * Benchmarks the {@link FrameBufferConverter} against the previous pixel by pixel conversion
+     * at each resolution available in the resolution picker.
+     * The resolutions are the ones calculated by {@code MainActivity} for a {@link #VIEW_WIDTH}
+     * by {@link #VIEW_HEIGHT} {@link android.view.View}.
+     * The {@link FrameBufferConverter} must be at least {@link #MIN_SPEEDUP} times faster at the
+     * biggest resolution.
+     */
+    @Test
+    public void testBenchmarkConvert() {
+        final FrameBufferConverter converter = new FrameBufferConverter(
+            this.scheduler.getComputeExecutor(), RenderScheduler.COMPUTE_THREADS + 1);
+        double speedup = 0.0;
+        for (int value = 2; value <= 9; ++value) {
+            final double scale = ((value + 1.0) * 0.1) * ((value + 1.0) * 0.1);
+            final int width = roundDownToMultipleOf16((int) Math.round(VIEW_WIDTH * scale));
+            final int height = roundDownToMultipleOf16((int) Math.round(VIEW_HEIGHT * scale));
+            final int[] openGlPixels = createOpenGlPixels(width, height);
+
+            // Warm up both conversions.
+            final int[] expected = convertPixelByPixel(openGlPixels, width, height);
+            final int[] actual = convert(converter, openGlPixels, width, height);
+            Assertions.assertThat(Arrays.copyOf(actual, width * height))
+                .as("The converted pixels for " + width + 'x' + height)
+                .isEqualTo(expected);
+
+            long legacyNanos = Long.MAX_VALUE;
+            long converterNanos = Long.MAX_VALUE;
+            for (int i = 0; i < REPETITIONS; ++i) {
+                final long startLegacy = System.nanoTime();
+                convertPixelByPixel(openGlPixels, width, height);
+                legacyNanos = Math.min(legacyNanos, System.nanoTime() - startLegacy);
+
+                final long startConverter = System.nanoTime();
+                convert(converter, openGlPixels, width, height);
+                converterNanos = Math.min(converterNanos, System.nanoTime() - startConverter);
+            }
+
+            speedup = legacyNanos / (double) Math.max(converterNanos, 1L);
+            final String message = String.format(Locale.US,
+                "%dx%d: pixel by pixel %.3fms, converter %.3fms (%.1fx)",
+                width, height,
+                legacyNanos / (double) TimeUnit.MILLISECONDS.toNanos(1L),
+                converterNanos / (double) TimeUnit.MILLISECONDS.toNanos(1L),
+                speedup);
+            log.info(message);
+        }
+
+        Assertions.assertThat(speedup)
+            .as("The speedup of the converter at the biggest resolution")
+            .isGreaterThanOrEqualTo(MIN_SPEEDUP);
+    }
+
+    /**
+     * Helper method which converts the pixels with a {@link FrameBufferConverter}.
+     *
+     * @param converter    The {@link FrameBufferConverter} to use.
+     * @param openGlPixels The pixels in the OpenGL format.
+     * @param width        The width of the image.
+     * @param height       The height of the image.
+     * @return The pixels in the Android format.
+     */
+    @NonNull
+    private static int[] convert(@NonNull final FrameBufferConverter converter,
+                                 @NonNull final int[] openGlPixels,
+                                 final int width,
+                                 final int height) {
+        final IntBuffer intBuffer = converter.prepare(width, height);
+        intBuffer.put(openGlPixels);
+        return converter.convert();
+    }
+
+    /**
+     * Helper method which converts the pixels like the previous implementation of
+     * {@code MainRenderer#copyGlFrameBufferToBitmap}, which converts the index and the color of
+     * each pixel individually.
+     *
+     * @param openGlPixels The pixels in the OpenGL format.
+     * @param width        The width of the image.
+     * @param height       The height of the image.
+     * @return The pixels in the Android format.
+     */
+    @NonNull
+    private static int[] convertPixelByPixel(@NonNull final int[] openGlPixels,
+                                             final int width,
+                                             final int height) {
+        final int[] androidPixels = new int[width * height];
+        int openGlIndex = 0;
+        for (final int pixel : openGlPixels) {
+            final int column = openGlIndex % width;
+            final int line = openGlIndex / width;
+            final int androidIndex = (height - line - 1) * width + column;
+            ++openGlIndex;
+
+            final int red = pixel & 0xFF;
+            final int green = (pixel >> 8) & 0xFF;
+            final int blue = (pixel >> (2 * 8)) & 0xFF;
+            final int alpha = (pixel >> (3 * 8)) & 0xFF;
+            final int newPixel = (red << (2 * 8)) | (green << 8) | blue;
+            androidPixels[androidIndex] = alpha << (3 * 8) | newPixel;
+        }
+        return androidPixels;
+    }
+
+    /**
+     * Helper method which creates random pixels in the OpenGL format.
+     *
+     * @param width  The width of the image.
+     * @param height The height of the image.
+     * @return The pixels of the image.
+     */
+    @NonNull
+    private static int[] createOpenGlPixels(final int width, final int height) {
+        final Random random = new Random(width * 31L + height);
+        final int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; ++i) {
+            pixels[i] = random.nextInt();
+        }
+        return pixels;
+    }
+
+    /**
+     * Helper method which rounds down a value to a multiple of 16, like the Ray Tracer engine
+     * does to the resolutions in the resolution picker.
+     *
+     * @param value The value to round.
+     * @return The value rounded down to a multiple of 16.
+     */
+    private static int roundDownToMultipleOf16(final int value) {
+        return Math.max(value - value % 16, 16);
+    }
+}
@@ -0,0 +1,294 @@
+package puscas.mobilertapp.utils;
+
+import com.google.common.collect.ImmutableList;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import puscas.mobilertapp.configs.ConfigResolution;
+import puscas.mobilertapp.constants.Accelerator;
+import puscas.mobilertapp.constants.Constants;
+
+/**
+ * The unit tests for the {@link MemoryBudget} class.
+ */
+public class MemoryBudgetTest {
+
+    /**
+     * The number of triangles of the scene used by the tests.
+     */
+    private static final long TRIANGLES = 1_000_000L;
+
+    /**
+     * The resolution of the image used by the tests.
+     */
+    private static final ConfigResolution RESOLUTION = ConfigResolution.builder()
+        .width(1024)
+        .height(512)
+        .build();
+
+    /**
+     * The {@link MemoryBudget.Scene} used by the tests: a scene with 1 million triangles.
+     */
+    private static final MemoryBudget.Scene SCENE = MemoryBudget.Scene.builder()
+        .objBytes(TRIANGLES * 64L)
+        .triangles(TRIANGLES)
+        .mtlBytes(1024L)
+        .resolution(RESOLUTION)
+        .build();
+
+    /**
+     * The temporary folder for the scene files.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Tests that the estimate grows with the memory of the {@link Accelerator}.
+     */
+    @Test
+    public void testEstimateDependsOnAccelerator() {
+        final MemoryBudget budget = new MemoryBudget(Long.MAX_VALUE, Long.MAX_VALUE, true);
+
+        final long naive = estimateNative(budget, Accelerator.NAIVE);
+        final long regGrid = estimateNative(budget, Accelerator.REG_GRID);
+        final long bvh = estimateNative(budget, Accelerator.BVH);
+
+        Assertions.assertThat(naive)
+            .as("The scene needs at least its triangles")
+            .isGreaterThanOrEqualTo(TRIANGLES * MemoryBudget.TRIANGLE_BYTES);
+        Assertions.assertThat(regGrid).as("The regular grid needs more memory than naive").isGreaterThan(naive);
+        Assertions.assertThat(bvh).as("The BVH needs more memory than the regular grid").isGreaterThan(regGrid);
+    }
+
+    /**
+     * Tests that the {@link android.graphics.Bitmap} is accounted in the native or in the Java
+     * heap.
+     */
+    @Test
+    public void testBitmapHeap() {
+        final long bitmapBytes = (long) RESOLUTION.getWidth() * RESOLUTION.getHeight() * Constants.BYTES_IN_INTEGER;
+        final MemoryBudget nativeBitmap = new MemoryBudget(Long.MAX_VALUE, Long.MAX_VALUE, true);
+        final MemoryBudget javaBitmap = new MemoryBudget(Long.MAX_VALUE, Long.MAX_VALUE, false);
+
+        final MemoryBudget.Scene emptyScene = MemoryBudget.Scene.builder().resolution(RESOLUTION).build();
+
+        final MemoryBudget.Estimate inNative = nativeBitmap.estimate(emptyScene, Accelerator.NAIVE);
+        final MemoryBudget.Estimate inJava = javaBitmap.estimate(emptyScene, Accelerator.NAIVE);
+
+        Assertions.assertThat(inNative.getNativeBytes()).as("The native memory").isEqualTo(bitmapBytes);
+        Assertions.assertThat(inJava.getNativeBytes()).as("The native memory").isZero();
+        Assertions.assertThat(inJava.getJavaBytes() - inNative.getJavaBytes())
+            .as("The Java memory of the bitmap")
+            .isEqualTo(bitmapBytes);
+    }
+
+    /**
+     * Tests that the preview adds the direct buffers to upload its geometry and the
+     * {@link android.graphics.Bitmap} of the size of the view, with the arrays to convert it.
+     */
+    @Test
+    public void testPreview() {
+        final ConfigResolution view = ConfigResolution.builder().width(1080).height(1920).build();
+        final long viewBytes = (long) view.getWidth() * view.getHeight() * Constants.BYTES_IN_INTEGER;
+        final long uploadBytes = 96L * TRIANGLES;
+        final MemoryBudget.Scene preview = SCENE.toBuilder()
+            .rasterize(true)
+            .viewResolution(view)
+            .previewUploadBytes(uploadBytes)
+            .build();
+        final MemoryBudget budget = new MemoryBudget(Long.MAX_VALUE, Long.MAX_VALUE, true);
+
+        final MemoryBudget.Estimate withoutPreview = budget.estimate(SCENE, Accelerator.BVH);
+        final MemoryBudget.Estimate withPreview = budget.estimate(preview, Accelerator.BVH);
+        final MemoryBudget.Estimate notRasterized =
+            budget.estimate(preview.toBuilder().rasterize(false).build(), Accelerator.BVH);
+
+        Assertions.assertThat(withPreview.getNativeBytes() - withoutPreview.getNativeBytes())
+            .as("The native memory of the preview")
+            .isEqualTo(uploadBytes + viewBytes);
+        Assertions.assertThat(withPreview.getJavaBytes() - withoutPreview.getJavaBytes())
+            .as("The Java memory of the preview")
+            .isEqualTo(2L * viewBytes);
+        Assertions.assertThat(notRasterized.getNativeBytes())
+            .as("The native memory without the preview")
+            .isEqualTo(withoutPreview.getNativeBytes());
+    }
+
+    /**
+     * Tests that the requested {@link Accelerator} is kept if the scene fits with it.
+     */
+    @Test
+    public void testPlanKeepsAccelerator() {
+        final MemoryBudget budget = new MemoryBudget(Long.MAX_VALUE, Long.MAX_VALUE, true);
+
+        final MemoryBudget.Estimate plan = budget.plan(SCENE, Accelerator.BVH);
+
+        Assertions.assertThat(plan).as("The plan").isNotNull();
+        Assertions.assertThat(plan.getAccelerator()).as("The planned accelerator").isEqualTo(Accelerator.BVH);
+    }
+
+    /**
+     * Tests that a cheaper {@link Accelerator} is picked if the scene doesn't fit with the
+     * requested one, and that the fastest one which fits is preferred.
+     */
+    @Test
+    public void testPlanFallsBackToCheaperAccelerator() {
+        final MemoryBudget unlimited = new MemoryBudget(Long.MAX_VALUE, Long.MAX_VALUE, true);
+        final long regGrid = estimateNative(unlimited, Accelerator.REG_GRID);
+        final long naive = estimateNative(unlimited, Accelerator.NAIVE);
+
+        final MemoryBudget forRegGrid = new MemoryBudget(regGrid, Long.MAX_VALUE, true);
+        final MemoryBudget.Estimate planRegGrid =
+            forRegGrid.plan(SCENE, Accelerator.BVH);
+        Assertions.assertThat(planRegGrid).as("The plan").isNotNull();
+        Assertions.assertThat(planRegGrid.getAccelerator())
+            .as("The planned accelerator")
+            .isEqualTo(Accelerator.REG_GRID);
+
+        final MemoryBudget forNaive = new MemoryBudget(naive, Long.MAX_VALUE, true);
+        for (final Accelerator requested : ImmutableList.of(Accelerator.BVH, Accelerator.REG_GRID)) {
+            final MemoryBudget.Estimate planNaive = forNaive.plan(SCENE, requested);
+            Assertions.assertThat(planNaive).as("The plan").isNotNull();
+            Assertions.assertThat(planNaive.getAccelerator())
+                .as("The planned accelerator")
+                .isEqualTo(Accelerator.NAIVE);
+        }
+    }
+
+    /**
+     * Tests that the scene is refused if it doesn't fit with any {@link Accelerator}, either in
+     * the native or in the Java memory.
+     */
+    @Test
+    public void testPlanRefusesScene() {
+        final MemoryBudget unlimited = new MemoryBudget(Long.MAX_VALUE, Long.MAX_VALUE, true);
+        final long naive = estimateNative(unlimited, Accelerator.NAIVE);
+
+        final MemoryBudget lowNative = new MemoryBudget(naive - 1L, Long.MAX_VALUE, true);
+        Assertions.assertThat(lowNative.plan(SCENE, Accelerator.BVH))
+            .as("The plan without enough native memory")
+            .isNull();
+
+        final MemoryBudget lowJava = new MemoryBudget(Long.MAX_VALUE, 1L, true);
+        Assertions.assertThat(lowJava.plan(SCENE, Accelerator.BVH))
+            .as("The plan without enough Java memory")
+            .isNull();
+    }
+
+    /**
+     * Tests that the triangles of the faces of a small OBJ file are counted, splitting the faces
+     * with more than 3 vertices.
+     *
+     * @throws IOException If the file couldn't be written.
+     */
+    @Test
+    public void testEstimateTrianglesSmallFile() throws IOException {
+        final File obj = this.folder.newFile("scene.obj");
+        final String lines = "# f 1 2 3\n"
+            + "v 0 0 0\nv 1 0 0\nv 1 1 0\nv 0 1 0\n"
+            + "vt 0 0\nvn 0 0 1\n"
+            + "f 1 2 3\n"
+            + "f 1/1/1 2/1/1 3/1/1 4/1/1\r\n"
+            + "f\t1  2 3 \n"
+            + "usemtl floor\n"
+            + "f 1 2 3";
+        Files.write(obj.toPath(), lines.getBytes(StandardCharsets.UTF_8));
+
+        Assertions.assertThat(MemoryBudget.estimateTriangles(obj.getAbsolutePath()))
+            .as("The triangles of the OBJ file")
+            .isEqualTo(5L);
+        Assertions.assertThat(MemoryBudget.estimateTriangles(""))
+            .as("The triangles without an OBJ file")
+            .isZero();
+        Assertions.assertThat(MemoryBudget.estimateTriangles(new File(this.folder.getRoot(), "missing.obj").getPath()))
+            .as("The triangles of a missing OBJ file")
+            .isZero();
+    }
+
+    /**
+     * Tests that the triangles of a big OBJ file, with all the vertices before the faces, are
+     * estimated from the chunks sampled over the file.
+     *
+     * @throws IOException If the file couldn't be written.
+     */
+    @Test
+    public void testEstimateTrianglesBigFile() throws IOException {
+        final File obj = this.folder.newFile("big.obj");
+        final int vertices = 100_000;
+        final int faces = 200_000;
+        final StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < vertices; ++i) {
+            lines.append("v ").append(i).append(".5 ").append(i % 7).append(" -").append(i % 13).append('\n');
+        }
+        for (int i = 0; i < faces; ++i) {
+            final int vertex = i % (vertices - 2) + 1;
+            lines.append("f ").append(vertex).append('/').append(vertex)
+                .append(' ').append(vertex + 1).append('/').append(vertex)
+                .append(' ').append(vertex + 2).append('/').append(vertex).append('\n');
+        }
+        Files.write(obj.toPath(), lines.toString().getBytes(StandardCharsets.UTF_8));
+
+        Assertions.assertThat(obj.length())
+            .as("The size of the OBJ file")
+            .isGreaterThan((long) MemoryBudget.SAMPLE_CHUNKS * MemoryBudget.SAMPLE_CHUNK_BYTES);
+        Assertions.assertThat(MemoryBudget.estimateTriangles(obj.getAbsolutePath()))
+            .as("The estimated triangles of the OBJ file")
+            .isBetween(faces * 9L / 10L, faces * 11L / 10L);
+    }
+
+    /**
+     * Tests that the sizes of the textures referenced by an MTL file are summed, counting each
+     * texture only once.
+     *
+     * @throws IOException If the files couldn't be written.
+     */
+    @Test
+    public void testTextureBytes() throws IOException {
+        final File texture = this.folder.newFile("texture.png");
+        Files.write(texture.toPath(), new byte[100]);
+        final File bump = this.folder.newFile("bump.png");
+        Files.write(bump.toPath(), new byte[50]);
+        final File mtl = this.folder.newFile("scene.mtl");
+        final String materials = "newmtl floor\n"
+            + "Kd 1 1 1\n"
+            + "map_Kd texture.png\n"
+            + "  map_Bump -bm 1 bump.png\n"
+            + "newmtl wall\n"
+            + "map_Kd ./texture.png\n"
+            + "newmtl missing\n"
+            + "map_Kd missing.png\n";
+        Files.write(mtl.toPath(), materials.getBytes(StandardCharsets.UTF_8));
+
+        Assertions.assertThat(MemoryBudget.textureBytes(mtl.getAbsolutePath()))
+            .as("The size of the textures")
+            .isEqualTo(150L);
+        Assertions.assertThat(MemoryBudget.textureBytes(""))
+            .as("The size of the textures without an MTL file")
+            .isZero();
+        Assertions.assertThat(MemoryBudget.fileBytes(mtl.getAbsolutePath()))
+            .as("The size of the MTL file")
+            .isEqualTo(mtl.length());
+        Assertions.assertThat(MemoryBudget.fileBytes(new File(this.folder.getRoot(), "missing.obj").getPath()))
+            .as("The size of a missing file")
+            .isZero();
+    }
+
+    /**
+     * Helper method which estimates the native memory to render the scene of the tests.
+     *
+     * @param budget      The {@link MemoryBudget}.
+     * @param accelerator The {@link Accelerator}.
+     * @return The native memory, in bytes.
+     */
+    private static long estimateNative(final MemoryBudget budget, final Accelerator accelerator) {
+        return budget.estimate(SCENE, accelerator).getNativeBytes();
+    }
+}
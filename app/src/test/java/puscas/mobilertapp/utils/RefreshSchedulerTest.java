@@ -0,0 +1,99 @@
+package puscas.mobilertapp.utils;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The unit tests for the {@link RefreshScheduler} class.
+ */
+public class RefreshSchedulerTest {
+
+    /**
+     * The minimum interval used in the tests.
+     */
+    private static final long MIN_INTERVAL = 50L;
+
+    /**
+     * The maximum interval used in the tests.
+     */
+    private static final long MAX_INTERVAL = 1000L;
+
+    /**
+     * Tests that the interval grows with the number of samples and is limited by the maximum
+     * interval.
+     */
+    @Test
+    public void testNextIntervalBacksOffWithSamples() {
+        final RefreshScheduler scheduler = new RefreshScheduler(MIN_INTERVAL, MAX_INTERVAL);
+
+        Assertions.assertThat(scheduler.nextInterval(0, true))
+            .as("The interval during the first sample")
+            .isEqualTo(MIN_INTERVAL);
+        Assertions.assertThat(scheduler.nextInterval(4, true))
+            .as("The interval after some samples")
+            .isEqualTo(5L * MIN_INTERVAL);
+        Assertions.assertThat(scheduler.nextInterval(1000, true))
+            .as("The interval after many samples")
+            .isEqualTo(MAX_INTERVAL);
+        Assertions.assertThat(scheduler.getSkippedRefreshes())
+            .as("The number of skipped refreshes")
+            .isZero();
+    }
+
+    /**
+     * Tests that the interval doubles while nothing changes and goes back to the one of the
+     * current sample when the image changes again.
+     */
+    @Test
+    public void testNextIntervalSkipsUnchangedFrames() {
+        final RefreshScheduler scheduler = new RefreshScheduler(MIN_INTERVAL, MAX_INTERVAL);
+
+        scheduler.nextInterval(0, true);
+        Assertions.assertThat(scheduler.nextInterval(0, false))
+            .as("The interval after a skipped refresh")
+            .isEqualTo(2L * MIN_INTERVAL);
+        Assertions.assertThat(scheduler.nextInterval(0, false))
+            .as("The interval after two skipped refreshes")
+            .isEqualTo(4L * MIN_INTERVAL);
+        Assertions.assertThat(scheduler.nextInterval(0, true))
+            .as("The interval after the image changed")
+            .isEqualTo(MIN_INTERVAL);
+        Assertions.assertThat(scheduler.getSkippedRefreshes())
+            .as("The number of skipped refreshes")
+            .isEqualTo(2L);
+
+        scheduler.reset();
+        Assertions.assertThat(scheduler.getSkippedRefreshes())
+            .as("The number of skipped refreshes after reset")
+            .isZero();
+    }
+
+    /**
+     * Tests that the interval is never shorter than the time spent drawing a frame times the
+     * {@link RefreshScheduler#DRAW_TIME_FACTOR}.
+     */
+    @Test
+    public void testNextIntervalRespectsDrawTime() {
+        final RefreshScheduler scheduler = new RefreshScheduler(MIN_INTERVAL, MAX_INTERVAL);
+        scheduler.recordDrawTime(TimeUnit.MILLISECONDS.toNanos(30L));
+
+        Assertions.assertThat(scheduler.nextInterval(0, true))
+            .as("The interval with a slow draw")
+            .isEqualTo(30L * RefreshScheduler.DRAW_TIME_FACTOR);
+    }
+
+    /**
+     * Tests that the {@link RefreshScheduler} doesn't accept invalid intervals.
+     */
+    @Test
+    public void testInvalidIntervals() {
+        Assertions.assertThatThrownBy(() -> new RefreshScheduler(0L, MAX_INTERVAL))
+            .as("The minimum interval must be positive")
+            .isInstanceOf(IllegalArgumentException.class);
+        Assertions.assertThatThrownBy(() -> new RefreshScheduler(MAX_INTERVAL, MIN_INTERVAL))
+            .as("The maximum interval must not be smaller than the minimum")
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
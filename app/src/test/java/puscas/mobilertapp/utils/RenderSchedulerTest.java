@@ -0,0 +1,203 @@
+package puscas.mobilertapp.utils;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The test suite for the {@link RenderScheduler} class.
+ */
+public class RenderSchedulerTest {
+
+    /**
+     * The tasks posted to the UI thread, which only run when the test runs them.
+     */
+    private final List<Runnable> uiTasks = new ArrayList<>();
+
+    /**
+     * The {@link RenderScheduler} used in the tests, with queues of 2 tasks.
+     */
+    private final RenderScheduler scheduler = new RenderScheduler(this.uiTasks::add, 2);
+
+    /**
+     * Tests that the background threads are reused by many tasks.
+     *
+     * @throws ExecutionException   If a task failed.
+     * @throws InterruptedException If the test was interrupted.
+     * @throws TimeoutException     If a task took too long.
+     */
+    @Test
+    public void testBackgroundThreadsAreReused() throws ExecutionException, InterruptedException, TimeoutException {
+        final Set<Thread> threads = new HashSet<>();
+        for (int i = 0; i < 100; ++i) {
+            final Future<Thread> future = this.scheduler.getBackgroundExecutor().submit(Thread::currentThread);
+            threads.add(future.get(10L, TimeUnit.SECONDS));
+        }
+
+        Assertions.assertThat(threads)
+            .as("The threads which ran the tasks")
+            .hasSizeLessThanOrEqualTo(RenderScheduler.BACKGROUND_THREADS)
+            .allMatch(Thread::isDaemon);
+    }
+
+    /**
+     * Tests that the background tasks are rejected when the queue is full.
+     *
+     * @throws InterruptedException If the test was interrupted.
+     */
+    @Test
+    public void testBackgroundQueueIsBounded() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(RenderScheduler.BACKGROUND_THREADS);
+        for (int i = 0; i < RenderScheduler.BACKGROUND_THREADS; ++i) {
+            this.scheduler.getBackgroundExecutor().execute(() -> {
+                started.countDown();
+                awaitQuietly(release);
+            });
+        }
+        started.await(10L, TimeUnit.SECONDS);
+        this.scheduler.getBackgroundExecutor().execute(() -> { });
+        this.scheduler.getBackgroundExecutor().execute(() -> { });
+
+        try {
+            Assertions.assertThat(this.scheduler.getBackgroundQueueDepth())
+                .as("The depth of the background queue")
+                .isEqualTo(2);
+            Assertions.assertThatThrownBy(() -> this.scheduler.getBackgroundExecutor().execute(() -> { }))
+                .as("The task submitted with a full queue")
+                .isInstanceOf(RejectedExecutionException.class);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    /**
+     * Tests that a short background task still runs while the long-running tasks block their
+     * threads.
+     *
+     * @throws ExecutionException   If a task failed.
+     * @throws InterruptedException If the test was interrupted.
+     * @throws TimeoutException     If the short task starved.
+     */
+    @Test
+    public void testShortTaskRunsWhileLongTasksWait() throws ExecutionException, InterruptedException, TimeoutException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(RenderScheduler.LONG_RUNNING_TASKS);
+        for (int i = 0; i < RenderScheduler.LONG_RUNNING_TASKS; ++i) {
+            this.scheduler.getBackgroundExecutor().execute(() -> {
+                started.countDown();
+                awaitQuietly(release);
+            });
+        }
+
+        try {
+            started.await(10L, TimeUnit.SECONDS);
+            final Future<Boolean> shortTask = this.scheduler.getBackgroundExecutor().submit(() -> true);
+            Assertions.assertThat(shortTask.get(10L, TimeUnit.SECONDS))
+                .as("The short task")
+                .isTrue();
+        } finally {
+            release.countDown();
+        }
+    }
+
+    /**
+     * Tests that the concurrent calls to {@link RenderScheduler#schedule(Runnable, long)} never
+     * queue more timer tasks than the capacity.
+     *
+     * @throws InterruptedException If the test was interrupted.
+     */
+    @Test
+    public void testConcurrentScheduleIsBounded() throws InterruptedException {
+        final int numThreads = 8;
+        final AtomicInteger scheduled = new AtomicInteger(0);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < numThreads; ++i) {
+            final Thread thread = new Thread(() -> {
+                awaitQuietly(start);
+                for (int j = 0; j < 100; ++j) {
+                    try {
+                        this.scheduler.schedule(() -> { }, TimeUnit.DAYS.toMillis(1L));
+                        scheduled.incrementAndGet();
+                    } catch (final RejectedExecutionException ex) {
+                        // Expected when the queue is full.
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (final Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(10L));
+        }
+
+        Assertions.assertThat(scheduled.get())
+            .as("The number of timer tasks scheduled")
+            .isEqualTo(2);
+        Assertions.assertThat(this.scheduler.getTimerQueueDepth())
+            .as("The depth of the timer queue")
+            .isEqualTo(2);
+    }
+
+    /**
+     * Tests that the timer tasks are rejected when the queue is full.
+     */
+    @Test
+    public void testTimerQueueIsBounded() {
+        this.scheduler.schedule(() -> { }, TimeUnit.DAYS.toMillis(1L));
+        this.scheduler.schedule(() -> { }, TimeUnit.DAYS.toMillis(1L));
+
+        Assertions.assertThat(this.scheduler.getTimerQueueDepth())
+            .as("The depth of the timer queue")
+            .isEqualTo(2);
+        Assertions.assertThatThrownBy(() -> this.scheduler.schedule(() -> { }, TimeUnit.DAYS.toMillis(1L)))
+            .as("The timer scheduled with a full queue")
+            .isInstanceOf(RejectedExecutionException.class);
+    }
+
+    /**
+     * Tests that the UI tasks are dropped while too many are pending.
+     */
+    @Test
+    public void testPostToUiDropsWhenFull() {
+        final int[] runs = {0};
+        Assertions.assertThat(this.scheduler.postToUi(() -> ++runs[0])).as("The first post").isTrue();
+        Assertions.assertThat(this.scheduler.postToUi(() -> ++runs[0])).as("The second post").isTrue();
+        Assertions.assertThat(this.scheduler.postToUi(() -> ++runs[0])).as("The third post").isFalse();
+        Assertions.assertThat(this.scheduler.getPendingUiTasks()).as("The pending UI tasks").isEqualTo(2);
+        Assertions.assertThat(this.scheduler.getDroppedUiTasks()).as("The dropped UI tasks").isEqualTo(1L);
+
+        for (final Runnable task : this.uiTasks) {
+            task.run();
+        }
+        Assertions.assertThat(runs[0]).as("The number of UI tasks which ran").isEqualTo(2);
+        Assertions.assertThat(this.scheduler.getPendingUiTasks()).as("The pending UI tasks").isZero();
+        Assertions.assertThat(this.scheduler.postToUi(() -> ++runs[0])).as("The post after running").isTrue();
+    }
+
+    /**
+     * Helper method that waits for a {@link CountDownLatch} and ignores the interruptions.
+     *
+     * @param latch The {@link CountDownLatch}.
+     */
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await(10L, TimeUnit.SECONDS);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package puscas.mobilertapp.utils;
+
+import android.opengl.GLES20;
+
+import com.google.common.collect.ImmutableMap;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+import java.util.Map;
+
+/**
+ * The unit tests for the {@link ShaderProgramCache} class.
+ */
+public class ShaderProgramCacheTest {
+
+    /**
+     * The attributes to bind in the programs.
+     */
+    private static final Map<Integer, String> ATTRIBUTES = ImmutableMap.of(0, "vertexPosition");
+
+    /**
+     * Tests that the same shaders are only compiled and linked once and that the hits and misses
+     * are counted.
+     */
+    @Test
+    public void testGetProgram() {
+        try (final MockedStatic<GLES20> gles20MockedStatic = mockGles20()) {
+            final ShaderProgramCache cache = new ShaderProgramCache();
+            final Map<Integer, String> shaders = ImmutableMap.of(
+                GLES20.GL_VERTEX_SHADER, "vertex", GLES20.GL_FRAGMENT_SHADER, "fragment");
+            final Map<Integer, String> otherShaders = ImmutableMap.of(
+                GLES20.GL_VERTEX_SHADER, "vertex", GLES20.GL_FRAGMENT_SHADER, "other fragment");
+
+            final int program = cache.getProgram(shaders, ATTRIBUTES);
+            Assertions.assertThat(cache.getProgram(ImmutableMap.copyOf(shaders), ATTRIBUTES))
+                .as("The cached program")
+                .isEqualTo(program);
+            cache.getProgram(otherShaders, ATTRIBUTES);
+
+            Assertions.assertThat(cache.getHits())
+                .as("The number of cache hits")
+                .isEqualTo(1L);
+            Assertions.assertThat(cache.getMisses())
+                .as("The number of cache misses")
+                .isEqualTo(2L);
+            Assertions.assertThat(cache.size())
+                .as("The number of cached programs")
+                .isEqualTo(2);
+            gles20MockedStatic.verify(GLES20::glCreateProgram, Mockito.times(2));
+
+            cache.clear();
+            Assertions.assertThat(cache.size())
+                .as("The number of cached programs")
+                .isZero();
+            gles20MockedStatic.verify(() -> GLES20.glDeleteProgram(ArgumentMatchers.anyInt()), Mockito.times(2));
+        }
+    }
+
+    /**
+     * Helper method which mocks the {@link GLES20} methods used to create a program, so the
+     * shaders compile and link successfully.
+     *
+     * @return The {@link MockedStatic} of {@link GLES20}.
+     */
+    private static MockedStatic<GLES20> mockGles20() {
+        final MockedStatic<GLES20> gles20MockedStatic = Mockito.mockStatic(GLES20.class);
+        gles20MockedStatic.when(GLES20::glCreateProgram).thenReturn(1);
+        gles20MockedStatic.when(() -> GLES20.glCreateShader(ArgumentMatchers.anyInt())).thenReturn(1);
+        gles20MockedStatic.when(() -> GLES20.glGetShaderiv(ArgumentMatchers.anyInt(),
+            ArgumentMatchers.eq(GLES20.GL_COMPILE_STATUS), ArgumentMatchers.any(int[].class), ArgumentMatchers.anyInt()))
+            .thenAnswer(invocation -> {
+                ((int[]) invocation.getArgument(2))[0] = GLES20.GL_TRUE;
+                return null;
+            });
+        gles20MockedStatic.when(() -> GLES20.glGetProgramiv(ArgumentMatchers.anyInt(),
+            ArgumentMatchers.eq(GLES20.GL_LINK_STATUS), ArgumentMatchers.any(int[].class), ArgumentMatchers.anyInt()))
+            .thenAnswer(invocation -> {
+                ((int[]) invocation.getArgument(2))[0] = GLES20.GL_TRUE;
+                return null;
+            });
+        return gles20MockedStatic;
+    }
+}
@@ -0,0 +1,98 @@
+package puscas.mobilertapp.utils;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * The unit tests for the {@link StatsFormatter} class.
+ */
+public class StatsFormatterTest {
+
+    /**
+     * Tests that the fixed-point numbers are formatted with 2 fraction digits and the integer
+     * part grouped in thousands, like the {@link java.text.NumberFormat} used before.
+     */
+    @Test
+    public void testAppendFixed() {
+        final StatsFormatter formatter = new StatsFormatter();
+
+        assertFixed(formatter, 0.0, "0.00");
+        assertFixed(formatter, 2.5, "2.50");
+        assertFixed(formatter, 0.125, "0.13");
+        assertFixed(formatter, 9.999, "10.00");
+        assertFixed(formatter, 1234567.891, "1,234,567.89");
+        assertFixed(formatter, -3.25, "-3.25");
+        assertFixed(formatter, Double.POSITIVE_INFINITY, "\u221E");
+    }
+
+    /**
+     * Tests that the integer numbers, the {@link String}s and the {@code char}s are appended.
+     */
+    @Test
+    public void testAppend() {
+        final StatsFormatter formatter = new StatsFormatter();
+        formatter.reset()
+            .append("spp:").append(1234L)
+            .append(',').append(-5L)
+            .append(',').append(0L);
+
+        Assertions.assertThat(formatter.toString())
+            .as("The formatted text")
+            .isEqualTo("spp:1234,-5,0");
+    }
+
+    /**
+     * Tests that the text grows beyond its initial capacity.
+     */
+    @Test
+    public void testAppendGrows() {
+        final StatsFormatter formatter = new StatsFormatter();
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100; ++i) {
+            formatter.append("abc").append(i);
+            expected.append("abc").append(i);
+        }
+
+        Assertions.assertThat(formatter.toString())
+            .as("The formatted text")
+            .isEqualTo(expected.toString());
+    }
+
+    /**
+     * Tests that the text is only published when it changed.
+     */
+    @Test
+    public void testPublishIfChanged() {
+        final StatsFormatter formatter = new StatsFormatter();
+
+        formatter.reset().append("fps:").appendFixed(1.0, 2);
+        Assertions.assertThat(formatter.publishIfChanged())
+            .as("The first text should be published")
+            .isTrue();
+        formatter.reset().append("fps:").appendFixed(1.0, 2);
+        Assertions.assertThat(formatter.publishIfChanged())
+            .as("The same text shouldn't be published")
+            .isFalse();
+        formatter.reset().append("fps:").appendFixed(1.5, 2);
+        Assertions.assertThat(formatter.publishIfChanged())
+            .as("A different text should be published")
+            .isTrue();
+
+        Assertions.assertThat(new String(formatter.getPublishedChars(), 0, formatter.getPublishedLength()))
+            .as("The published text")
+            .isEqualTo("fps:1.50");
+    }
+
+    /**
+     * Helper method which asserts the text of a fixed-point number.
+     *
+     * @param formatter The {@link StatsFormatter} to use.
+     * @param value     The number to format.
+     * @param expected  The expected text.
+     */
+    private static void assertFixed(final StatsFormatter formatter, final double value, final String expected) {
+        Assertions.assertThat(formatter.reset().appendFixed(value, 2).toString())
+            .as("The formatted value of " + value)
+            .isEqualTo(expected);
+    }
+}
@@ -0,0 +1,33 @@
+package puscas.mobilertapp.utils;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import lombok.extern.java.Log;
+import puscas.mobilertapp.constants.ToneMap;
+
+/**
+ * The unit tests for the {@link ToneMap} util class.
+ */
+@Log
+public final class ToneMapTest {
+
+    /**
+     * Tests that the {@link ToneMap#getNames()} method contains all the expected tone mapping
+     * operators, in the same order as their identifiers in the fragment shader.
+     */
+    @Test
+    public void testGetNames() {
+        Assertions.assertThat(ToneMap.getNames()).containsExactly(
+            "None",
+            "Reinhard",
+            "ACES"
+        );
+        for (final ToneMap toneMap : ToneMap.values()) {
+            Assertions.assertThat(toneMap.getId())
+                .as("The identifier of the tone mapping operator")
+                .isEqualTo(toneMap.ordinal());
+        }
+    }
+
+}
@@ -1,12 +1,20 @@
 package puscas.mobilertapp.utils;
 
+import android.opengl.GLES20;
+
 import org.assertj.core.api.Assertions;
+import org.junit.After;
 import org.junit.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Modifier;
 
+import puscas.mobilertapp.constants.GlErrorCheckPolicy;
+import puscas.mobilertapp.exceptions.FailureException;
+
 /**
  * The unit tests for the {@link UtilsGL} util class.
  */
@@ -30,4 +38,86 @@ public class UtilsGLTest {
             .isInstanceOf(InvocationTargetException.class);
     }
 
+    /**
+     * Restores the strict {@link GlErrorCheckPolicy} after each test.
+     */
+    @After
+    public void tearDown() {
+        UtilsGL.setErrorCheckPolicy(GlErrorCheckPolicy.EVERY_CALL, UtilsGL.DEFAULT_SAMPLING_RATE);
+        UtilsGL.resetCallCounters();
+    }
+
+    /**
+     * Tests that the {@link GlErrorCheckPolicy#EVERY_CALL} policy throws an exception when an
+     * OpenGL error occurs.
+     */
+    @Test
+    public void testEveryCallPolicy() {
+        UtilsGL.setErrorCheckPolicy(GlErrorCheckPolicy.EVERY_CALL, UtilsGL.DEFAULT_SAMPLING_RATE);
+
+        try (final MockedStatic<GLES20> gles20MockedStatic = Mockito.mockStatic(GLES20.class)) {
+            gles20MockedStatic.when(GLES20::glGetError).thenReturn(GLES20.GL_INVALID_ENUM);
+
+            Assertions.assertThatThrownBy(() -> UtilsGL.run("glFlush", () -> GLES20.glFlush()))
+                .as("The UtilsGL#run method")
+                .isInstanceOf(FailureException.class);
+        }
+    }
+
+    /**
+     * Tests that the {@link GlErrorCheckPolicy#SAMPLED} policy only checks one call in N of the
+     * same entry point and counts the errors without throwing.
+     */
+    @Test
+    public void testSampledPolicy() {
+        UtilsGL.setErrorCheckPolicy(GlErrorCheckPolicy.SAMPLED, 4);
+
+        try (final MockedStatic<GLES20> gles20MockedStatic = Mockito.mockStatic(GLES20.class)) {
+            gles20MockedStatic.when(GLES20::glGetError).thenReturn(GLES20.GL_INVALID_ENUM);
+
+            for (int i = 0; i < 8; ++i) {
+                UtilsGL.run("glFlush", GLES20::glFlush);
+            }
+
+            final GlCallCounters counters = UtilsGL.getCallCounters().get("glFlush");
+            Assertions.assertThat(counters.getCalls())
+                .as("The number of calls")
+                .isEqualTo(8L);
+            Assertions.assertThat(counters.getChecks())
+                .as("The number of checks")
+                .isEqualTo(2L);
+            Assertions.assertThat(counters.getErrors())
+                .as("The number of errors")
+                .isEqualTo(2L);
+            gles20MockedStatic.verify(GLES20::glGetError, Mockito.times(2));
+        }
+    }
+
+    /**
+     * Tests that the {@link GlErrorCheckPolicy#ONCE_PER_FRAME} policy only checks for errors at
+     * the end of the frame.
+     */
+    @Test
+    public void testOncePerFramePolicy() {
+        UtilsGL.setErrorCheckPolicy(GlErrorCheckPolicy.ONCE_PER_FRAME, UtilsGL.DEFAULT_SAMPLING_RATE);
+
+        try (final MockedStatic<GLES20> gles20MockedStatic = Mockito.mockStatic(GLES20.class)) {
+            gles20MockedStatic.when(GLES20::glGetError).thenReturn(GLES20.GL_INVALID_ENUM);
+
+            UtilsGL.run("glFlush", () -> GLES20.glFlush());
+            UtilsGL.run("glFinish", () -> GLES20.glFinish());
+            gles20MockedStatic.verify(GLES20::glGetError, Mockito.never());
+
+            Assertions.assertThatCode(UtilsGL::checkFrameErrors)
+                .as("The UtilsGL#checkFrameErrors method")
+                .doesNotThrowAnyException();
+            gles20MockedStatic.verify(GLES20::glGetError, Mockito.times(1));
+
+            final GlCallCounters counters = UtilsGL.getCallCounters().get(UtilsGL.FRAME_COUNTERS_KEY);
+            Assertions.assertThat(counters.getErrors())
+                .as("The number of errors at the end of the frames")
+                .isEqualTo(1L);
+        }
+    }
+
 }
@@ -0,0 +1,69 @@
+package puscas.mobilertapp.utils;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * The unit tests for the {@link UtilsHeatMap} util class.
+ */
+public class UtilsHeatMapTest {
+
+    /**
+     * The color blue in the OpenGL format (ABGR).
+     */
+    private static final int BLUE = 0xFFFF0000;
+
+    /**
+     * The color green in the OpenGL format (ABGR).
+     */
+    private static final int GREEN = 0xFF00FF00;
+
+    /**
+     * The color red in the OpenGL format (ABGR).
+     */
+    private static final int RED = 0xFF0000FF;
+
+    /**
+     * Tests the colors of the limits of the heat map.
+     */
+    @Test
+    public void testHeatColor() {
+        Assertions.assertThat(UtilsHeatMap.heatColor(0.0F)).as("The color of the minimum").isEqualTo(BLUE);
+        Assertions.assertThat(UtilsHeatMap.heatColor(0.5F)).as("The color of the middle").isEqualTo(GREEN);
+        Assertions.assertThat(UtilsHeatMap.heatColor(1.0F)).as("The color of the maximum").isEqualTo(RED);
+        Assertions.assertThat(UtilsHeatMap.heatColor(2.0F)).as("The color above the maximum").isEqualTo(RED);
+    }
+
+    /**
+     * Tests that the number of samples of the tiles are converted to colors relative to the tile
+     * with the most samples.
+     */
+    @Test
+    public void testToColors() {
+        final int[] tileSamples = {4, 8, 16, 0};
+        final int[] colors = new int[tileSamples.length];
+
+        UtilsHeatMap.toColors(tileSamples, colors);
+
+        Assertions.assertThat(colors[0]).as("The tile with a quarter of the samples").isEqualTo(0xFF808000);
+        Assertions.assertThat(colors[1]).as("The tile with half of the samples").isEqualTo(GREEN);
+        Assertions.assertThat(colors[2]).as("The tile with the most samples").isEqualTo(RED);
+        Assertions.assertThat(colors[3]).as("The tile without samples").isEqualTo(BLUE);
+    }
+
+    /**
+     * Tests that all the tiles are blue when no sample was rendered yet.
+     */
+    @Test
+    public void testToColorsWithoutSamples() {
+        final int[] tileSamples = new int[4];
+        final int[] colors = new int[tileSamples.length];
+
+        UtilsHeatMap.toColors(tileSamples, colors);
+
+        for (final int color : colors) {
+            Assertions.assertThat(color).as("The color of a tile without samples").isEqualTo(BLUE);
+        }
+    }
+
+}